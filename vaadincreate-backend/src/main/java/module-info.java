@@ -1,10 +1,12 @@
 module org.vaadin.tatu.vaadincreate.backend {
     requires java.sql;
     requires java.naming;
+    requires jdk.jfr;
 
     requires org.slf4j;
     requires org.hibernate.orm.core;
     requires redis.clients.jedis;
+    requires com.zaxxer.hikari;
     requires com.fasterxml.jackson.databind;
     requires com.fasterxml.jackson.datatype.jsr310;
 
@@ -19,4 +21,6 @@ module org.vaadin.tatu.vaadincreate.backend {
 
     opens org.vaadin.tatu.vaadincreate.backend.data
             to org.hibernate.orm.core, com.fasterxml.jackson.databind;
+    opens org.vaadin.tatu.vaadincreate.backend.dao
+            to org.hibernate.orm.core, com.zaxxer.hikari;
 }
\ No newline at end of file
@@ -0,0 +1,174 @@
+package org.vaadin.tatu.vaadincreate.backend;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cancellation scope of a background task. The database calls made by a task
+ * run with {@link #call(Supplier)} are bound to the scope, and cancelling the
+ * scope cancels the currently running SQL statements so that the database
+ * connections are released immediately. Database calls made after the scope
+ * has been cancelled fail with {@link CancellationException}.
+ * <p>
+ * Note that {@code CompletableFuture.cancel(true)} does not interrupt the
+ * running task, so the scope needs to be cancelled in addition to the future.
+ */
+@NullMarked
+public final class CancellationScope {
+
+    private static final ThreadLocal<@Nullable CancellationScope> scope = new ThreadLocal<>();
+
+    private final Set<Runnable> cancelActions = ConcurrentHashMap.newKeySet();
+    private final Duration queryTimeout;
+    private volatile boolean cancelled;
+
+    /**
+     * Creates a new scope without a query timeout.
+     */
+    @SuppressWarnings("null")
+    public CancellationScope() {
+        this(Duration.ZERO);
+    }
+
+    /**
+     * Creates a new scope with the given query timeout. The timeout is applied
+     * to each query executed in the scope.
+     *
+     * @param queryTimeout
+     *            the timeout of a single query, zero for no timeout
+     */
+    public CancellationScope(Duration queryTimeout) {
+        Objects.requireNonNull(queryTimeout, "Query timeout must not be null");
+        if (queryTimeout.isNegative()) {
+            throw new IllegalArgumentException(
+                    "Query timeout must not be negative");
+        }
+        this.queryTimeout = queryTimeout;
+    }
+
+    /**
+     * Runs the task in the current thread with this scope bound to it.
+     *
+     * @param <T>
+     *            the type of the result
+     * @param task
+     *            the task to run
+     * @return the result of the task
+     * @throws CancellationException
+     *             if the scope has been cancelled
+     */
+    public <T> T call(Supplier<T> task) {
+        Objects.requireNonNull(task, "Task must not be null");
+        throwIfCancelled();
+        var previous = scope.get();
+        scope.set(this);
+        try {
+            return task.get();
+        } finally {
+            if (previous == null) {
+                scope.remove();
+            } else {
+                scope.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Cancels the scope and the database statements currently running in it.
+     * This method can be called from any thread.
+     */
+    public void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        cancelActions.forEach(CancellationScope::runCancelAction);
+        cancelActions.clear();
+    }
+
+    /**
+     * Checks whether the scope has been cancelled.
+     *
+     * @return true if cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Throws {@link CancellationException} if the scope has been cancelled.
+     * Long running tasks can call this between steps.
+     */
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Task was cancelled");
+        }
+    }
+
+    /**
+     * Gets the timeout of a single query.
+     *
+     * @return the timeout, zero if there is no timeout
+     */
+    public Duration getQueryTimeout() {
+        return queryTimeout;
+    }
+
+    /**
+     * Adds an action run when the scope is cancelled, e.g. cancelling a running
+     * statement. If the scope has already been cancelled, the action is run
+     * immediately.
+     *
+     * @param action
+     *            the action
+     */
+    public void addCancelAction(Runnable action) {
+        Objects.requireNonNull(action, "Action must not be null");
+        cancelActions.add(action);
+        // Cancel may have happened concurrently before the action was added
+        if (cancelled && cancelActions.remove(action)) {
+            runCancelAction(action);
+        }
+    }
+
+    /**
+     * Removes a previously added cancel action, e.g. when the statement has
+     * completed.
+     *
+     * @param action
+     *            the action
+     */
+    public void removeCancelAction(Runnable action) {
+        cancelActions.remove(action);
+    }
+
+    /**
+     * Gets the scope bound to the current thread.
+     *
+     * @return the scope, or null if the current thread does not run in a scope
+     */
+    @Nullable
+    public static CancellationScope current() {
+        return scope.get();
+    }
+
+    private static void runCancelAction(Runnable action) {
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            logger.warn("Cancel action failed", e);
+        }
+    }
+
+    private static Logger logger = LoggerFactory
+            .getLogger(CancellationScope.class);
+}
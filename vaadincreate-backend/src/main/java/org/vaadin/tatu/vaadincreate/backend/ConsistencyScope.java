@@ -0,0 +1,95 @@
+package org.vaadin.tatu.vaadincreate.backend;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Thread bound consistency scope used for read-your-writes routing between the
+ * primary database and the read replica. All database calls made by a thread
+ * with the same scope key share the same staleness tracking, e.g. the UI sets
+ * the HTTP session id as the key so that users see their own writes even if
+ * the replica is lagging behind. When no scope is set, the current thread is
+ * used as the scope.
+ * <p>
+ * Reads that must not be served stale regardless of the scope, e.g. when
+ * reacting to an event about a write made elsewhere, can be run with
+ * {@link #onPrimary(Supplier)}.
+ */
+@NullMarked
+public final class ConsistencyScope {
+
+    private static final ThreadLocal<@Nullable String> scope = new ThreadLocal<>();
+
+    private static final ThreadLocal<Boolean> primary = ThreadLocal
+            .withInitial(() -> false);
+
+    private ConsistencyScope() {
+        // utility
+    }
+
+    /**
+     * Binds the given scope key to the current thread.
+     *
+     * @param key
+     *            the scope key, e.g. session id, must not be null
+     */
+    public static void set(String key) {
+        Objects.requireNonNull(key, "Scope key must not be null");
+        scope.set(key);
+    }
+
+    /**
+     * Removes the scope key from the current thread.
+     */
+    public static void clear() {
+        scope.remove();
+    }
+
+    /**
+     * Gets the scope key of the current thread. If no key has been set, a key
+     * derived from the current thread is returned.
+     *
+     * @return the scope key
+     */
+    public static String current() {
+        var key = scope.get();
+        if (key != null) {
+            return key;
+        }
+        return "thread-" + Thread.currentThread().threadId();
+    }
+
+    /**
+     * Runs the task so that all reads made by the current thread during it are
+     * served by the primary database.
+     *
+     * @param <T>
+     *            the type of the result
+     * @param task
+     *            the task to run, must not be null
+     * @return the result of the task
+     */
+    public static <T extends @Nullable Object> T onPrimary(Supplier<T> task) {
+        Objects.requireNonNull(task, "Task must not be null");
+        var previous = primary.get();
+        primary.set(true);
+        try {
+            return task.get();
+        } finally {
+            primary.set(previous);
+        }
+    }
+
+    /**
+     * Checks whether the current thread is running a task with
+     * {@link #onPrimary(Supplier)}.
+     *
+     * @return true if reads must be served by the primary database
+     */
+    public static boolean isPrimaryRequired() {
+        return primary.get();
+    }
+}
@@ -0,0 +1,112 @@
+package org.vaadin.tatu.vaadincreate.backend;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.vaadin.tatu.vaadincreate.backend.service.DatabaseMonitorImpl;
+
+/**
+ * Monitoring interface of the database layer. Provides notifications of
+ * completed database calls and a snapshot of the Hibernate and connection pool
+ * statistics, e.g. for exporting them as telemetry.
+ */
+@NullMarked
+public interface DatabaseMonitor {
+
+    /**
+     * A completed database call, i.e. one session or transaction run by a DAO
+     * method.
+     *
+     * @param operation
+     *            the name of the DAO method, e.g.
+     *            {@code PurchaseDao.findAll}
+     * @param startTime
+     *            the time when the call started
+     * @param durationNanos
+     *            the duration of the call in nanoseconds
+     * @param rows
+     *            the number of rows returned, or -1 if not known
+     * @param connectionWaitNanos
+     *            time spent waiting for a pooled connection in nanoseconds
+     * @param replica
+     *            true if the call was served by the read replica
+     * @param statements
+     *            the SQL statements executed during a slow call, empty if the
+     *            call was not slow
+     * @param failure
+     *            the exception thrown by the call, or null if it succeeded
+     */
+    record DatabaseCall(String operation, Instant startTime,
+            long durationNanos, int rows, long connectionWaitNanos,
+            boolean replica, List<String> statements,
+            @Nullable Throwable failure) {
+    }
+
+    /**
+     * Snapshot of the cumulative Hibernate statistics and the current
+     * connection pool state. Pool values are -1 when the connection pool does
+     * not provide statistics. {@code maxConnections} is the configured
+     * maximum size of the pools, and {@code primaryMaxConnections} of the
+     * pool of the primary database, i.e. without the read replica.
+     */
+    record DatabaseStatistics(long queryExecutionCount,
+            long queryExecutionMaxTime, long queryCacheHitCount,
+            long queryCacheMissCount, long queryCachePutCount,
+            long secondLevelCacheHitCount, long secondLevelCacheMissCount,
+            long entityLoadCount, long entityFetchCount,
+            long entityInsertCount, long entityUpdateCount,
+            long entityDeleteCount, long transactionCount,
+            long sessionOpenCount, int activeConnections,
+            int idleConnections, int totalConnections, int pendingThreads,
+            int maxConnections, int primaryMaxConnections) {
+    }
+
+    /**
+     * Listener notified after each database call.
+     */
+    @FunctionalInterface
+    interface DatabaseCallListener {
+        /**
+         * Called in the thread that made the database call after the call has
+         * completed.
+         *
+         * @param call
+         *            the completed call
+         */
+        void callCompleted(DatabaseCall call);
+    }
+
+    /**
+     * Adds a listener notified after each database call.
+     *
+     * @param listener
+     *            the listener to add
+     */
+    void addListener(DatabaseCallListener listener);
+
+    /**
+     * Removes a previously added listener.
+     *
+     * @param listener
+     *            the listener to remove
+     */
+    void removeListener(DatabaseCallListener listener);
+
+    /**
+     * Gets a snapshot of the current database statistics.
+     *
+     * @return the statistics
+     */
+    DatabaseStatistics getStatistics();
+
+    /**
+     * Gets the singleton instance of the DatabaseMonitor.
+     *
+     * @return the DatabaseMonitor instance
+     */
+    static DatabaseMonitor get() {
+        return DatabaseMonitorImpl.getInstance();
+    }
+}
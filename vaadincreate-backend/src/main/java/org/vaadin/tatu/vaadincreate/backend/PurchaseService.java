@@ -2,6 +2,7 @@ package org.vaadin.tatu.vaadincreate.backend;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.time.YearMonth;
 import java.util.List;
 
 import org.jspecify.annotations.NullMarked;
@@ -9,6 +10,7 @@ import org.jspecify.annotations.Nullable;
 import org.vaadin.tatu.vaadincreate.backend.data.Address;
 import org.vaadin.tatu.vaadincreate.backend.data.Cart;
 import org.vaadin.tatu.vaadincreate.backend.data.Purchase;
+import org.vaadin.tatu.vaadincreate.backend.data.PurchaseStatus;
 import org.vaadin.tatu.vaadincreate.backend.data.User;
 import org.vaadin.tatu.vaadincreate.backend.service.PurchaseServiceImpl;
 
@@ -58,6 +60,61 @@ public interface PurchaseService {
             BigDecimal unitPrice, int quantity, BigDecimal lineTotal) {
     }
 
+    /**
+     * Result of the decision on one purchase of a bulk approval or rejection.
+     *
+     * @param purchaseId
+     *            the purchase id
+     * @param status
+     *            the new status of the purchase, or null if the decision
+     *            failed
+     * @param message
+     *            the decision reason, e.g. the reason of cancellation, or the
+     *            error message if the decision failed
+     */
+    record DecisionResult(Integer purchaseId, @Nullable PurchaseStatus status,
+            @Nullable String message) {
+
+        /**
+         * Creates a result of a failed decision.
+         *
+         * @param purchaseId
+         *            the purchase id
+         * @param error
+         *            the error message
+         * @return the result
+         */
+        public static DecisionResult failed(Integer purchaseId, String error) {
+            return new DecisionResult(purchaseId, null, error);
+        }
+
+        /**
+         * Checks whether the decision was made.
+         *
+         * @return true if the status of the purchase was changed
+         */
+        public boolean isDecided() {
+            return status != null;
+        }
+    }
+
+    /**
+     * Listener notified of the progress of a purge.
+     */
+    @FunctionalInterface
+    interface PurgeProgressListener {
+
+        /**
+         * Called after each committed chunk of the purge.
+         *
+         * @param purged
+         *            number of purchases deleted so far
+         * @param total
+         *            number of purchases to delete
+         */
+        void purgeProgress(long purged, long total);
+    }
+
     /**
      * Fetches a purchase by its id.
      *
@@ -68,6 +125,15 @@ public interface PurchaseService {
     @Nullable
     Purchase fetchPurchaseById(Integer purchaseId);
 
+    /**
+     * Fetches purchases by their ids in one query.
+     *
+     * @param purchaseIds
+     *            the ids of the purchases to fetch
+     * @return the found purchases in the order of the given ids
+     */
+    List<Purchase> fetchPurchasesByIds(List<Integer> purchaseIds);
+
     /**
      * Creates a new pending purchase from a cart. This method: - Creates a
      * Purchase with status PENDING - Snapshots the delivery address - Creates
@@ -151,7 +217,9 @@ public interface PurchaseService {
     long countPendingForApprover(User approver);
 
     /**
-     * Fetches purchases for a given history mode with pagination.
+     * Fetches purchases for a given history mode with pagination. Only the
+     * purchase summaries are loaded, i.e. the lines are not, use
+     * {@link #fetchPurchaseById(Integer)} to get the purchase with its lines.
      *
      * @param mode
      *            the history mode to use
@@ -220,10 +288,47 @@ public interface PurchaseService {
      *            the required reason for rejection
      * @return the updated purchase (status REJECTED)
      * @throws IllegalArgumentException
-     *             if the purchase is not PENDING
+     *             if the purchase is not PENDING, currentUser is not the
+     *             approver or the reason is blank
      */
     Purchase reject(Integer purchaseId, User currentUser, String reason);
 
+    /**
+     * Approves pending purchases in bulk. The purchases are processed in
+     * chunked transactions and the stock is checked across each chunk. A
+     * purchase that cannot be approved does not prevent the others from being
+     * approved.
+     *
+     * @param purchaseIds
+     *            the IDs of the purchases to approve
+     * @param currentUser
+     *            the user performing the approval (must be the assigned
+     *            approver)
+     * @param decisionCommentOrNull
+     *            optional comment to attach to the decisions
+     * @return result per purchase, status COMPLETED or CANCELLED if decided
+     */
+    List<DecisionResult> approveAll(List<Integer> purchaseIds,
+            User currentUser, @Nullable String decisionCommentOrNull);
+
+    /**
+     * Rejects pending purchases in bulk with a required reason. The purchases
+     * are processed in chunked transactions.
+     *
+     * @param purchaseIds
+     *            the IDs of the purchases to reject
+     * @param currentUser
+     *            the user performing the rejection (must be the assigned
+     *            approver)
+     * @param reason
+     *            the required reason for rejection
+     * @return result per purchase, status REJECTED if decided
+     * @throws IllegalArgumentException
+     *             if the reason is blank
+     */
+    List<DecisionResult> rejectAll(List<Integer> purchaseIds,
+            User currentUser, String reason);
+
     /**
      * Returns the top products by purchased quantity from COMPLETED purchases,
      * ordered descending.
@@ -269,16 +374,74 @@ public interface PurchaseService {
 
     /**
      * Deletes all purchases (and their lines) whose {@code createdAt} is
-     * strictly before the given cutoff instant in a single transaction.
-     * Referenced {@code User} and {@code Product} master data are not modified.
+     * strictly before the given cutoff instant. Referenced {@code User} and
+     * {@code Product} master data are not modified.
      *
      * @param cutoff
      *            the exclusive upper bound for {@code createdAt}; must not be
      *            null
      * @return number of purchases deleted
+     * @see #purgePurchasesOlderThan(Instant, PurgeProgressListener)
      */
     long purgePurchasesOlderThan(Instant cutoff);
 
+    /**
+     * Deletes all purchases (and their lines) whose {@code createdAt} is
+     * strictly before the given cutoff instant in chunks, one transaction per
+     * chunk. Referenced {@code User} and {@code Product} master data are not
+     * modified.
+     * <p>
+     * The purge can be interrupted by cancelling the {@link CancellationScope}
+     * it runs in. The chunks deleted before the interruption stay deleted, and
+     * purging again with the same cutoff resumes from where it stopped.
+     * <p>
+     * If an archive directory is configured with
+     * {@code -Dpurchase.archive.dir}, the purchases are archived before they
+     * are deleted, see {@link #getArchivedMonths()}.
+     *
+     * @param cutoff
+     *            the exclusive upper bound for {@code createdAt}; must not be
+     *            null
+     * @param listener
+     *            notified after each committed chunk
+     * @return number of purchases deleted
+     * @throws java.util.concurrent.CancellationException
+     *             if the purge was cancelled
+     */
+    long purgePurchasesOlderThan(Instant cutoff,
+            PurgeProgressListener listener);
+
+    /**
+     * Lists the months of which purged purchases have been archived. The
+     * archive is read from local disk without accessing the database.
+     *
+     * @return the archived months, newest first, empty if archiving is not
+     *         configured
+     */
+    List<YearMonth> getArchivedMonths();
+
+    /**
+     * Fetches the archived purchases of the month. The purchases are detached
+     * copies restored from the archive with their lines, requester and
+     * approver names and products; the delivery addresses are not archived.
+     *
+     * @param month
+     *            the archived month
+     * @return the purchases in history order, empty if the month is not
+     *         archived
+     */
+    List<Purchase> fetchArchivedPurchases(YearMonth month);
+
+    /**
+     * Fetches the flattened export rows of the archived purchases of the
+     * month.
+     *
+     * @param month
+     *            the archived month
+     * @return the rows in history order, empty if the month is not archived
+     */
+    List<PurchaseExportRow> fetchArchivedExportRows(YearMonth month);
+
     /**
      * Fetches flattened purchase export rows in the selected created-at range.
      * The range uses inclusive lower bound and exclusive upper bound semantics.
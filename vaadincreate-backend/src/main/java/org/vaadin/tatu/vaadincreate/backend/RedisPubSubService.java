@@ -5,6 +5,7 @@ import java.util.function.Consumer;
 import org.jspecify.annotations.NullMarked;
 import org.vaadin.tatu.vaadincreate.backend.events.AbstractEvent;
 import org.vaadin.tatu.vaadincreate.backend.service.RedisPubSubServiceImpl;
+import org.vaadin.tatu.vaadincreate.backend.service.RedisStreamServiceImpl;
 
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 
@@ -12,7 +13,8 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
 public interface RedisPubSubService {
 
     /**
-     * Publishes an event wrapped in an envelope with metadata.
+     * Publishes an event wrapped in an envelope with metadata. The envelopes
+     * are numbered in the order they are published.
      *
      * @param nodeId
      *            the identifier for the node sending the event, not null.
@@ -41,24 +43,38 @@ public interface RedisPubSubService {
     public void closePublisher();
 
     /**
-     * Returns the singleton instance of RedisPubSubService.
+     * Returns the singleton instance of RedisPubSubService. Redis pub/sub is
+     * used by default, {@code -Deventbus.transport=stream} selects the
+     * implementation on Redis Streams, which replays the events missed while
+     * reconnecting.
      *
      * @return the singleton instance, not null.
      */
     public static RedisPubSubService get() {
+        if ("stream".equals(System.getProperty("eventbus.transport"))) {
+            return RedisStreamServiceImpl.getInstance();
+        }
         return RedisPubSubServiceImpl.getInstance();
     }
 
     /**
      * Represents an envelope for events, containing metadata such as the node
-     * ID and the event object itself.
+     * ID and the event object itself. The sequence number and the publish time
+     * let the receiving nodes detect lost envelopes and measure how far behind
+     * the publishing node they are.
      *
      * @param nodeId
      *            the identifier for the node sending the event, not null.
+     * @param sequence
+     *            the sequence number of the envelope among the envelopes
+     *            published by the node, starting from 1, or 0 if not known.
+     * @param publishedAt
+     *            the wall clock time of publishing in epoch milliseconds.
      * @param event
      *            the event object, not null.
      */
     @JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = JsonTypeInfo.As.PROPERTY, property = "@class")
-    public record EventEnvelope(String nodeId, AbstractEvent event) {
+    public record EventEnvelope(String nodeId, long sequence, long publishedAt,
+            AbstractEvent event) {
     }
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package org.vaadin.tatu.vaadincreate.backend.dao;
+
+import org.jspecify.annotations.NullMarked;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+/**
+ * HikariCP metrics tracker factory that reports the connection acquisition
+ * time and the pool state to {@link DatabaseCallTracker}. Configured with
+ * {@code hibernate.hikari.metricsTrackerFactory}.
+ */
+@NullMarked
+public class ConnectionWaitTrackerFactory implements MetricsTrackerFactory {
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        DatabaseCallTracker.poolCreated(poolName, poolStats);
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(
+                    long elapsedAcquiredNanos) {
+                DatabaseCallTracker.connectionAcquired(elapsedAcquiredNanos);
+            }
+        };
+    }
+}
@@ -0,0 +1,43 @@
+package org.vaadin.tatu.vaadincreate.backend.dao;
+
+import org.jspecify.annotations.NullMarked;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JDK Flight Recorder event of a database call made via {@link HibernateUtil},
+ * i.e. one session or transaction run by a DAO method. Enabled and filtered
+ * by duration with the JFR settings, see {@code jfr/vaadincreate.jfc}.
+ */
+@NullMarked
+@Name("vaadincreate.DatabaseCall")
+@Label("Database Call")
+@Category({ "Vaadin Create", "Database" })
+@Description("Session or transaction run by a DAO method")
+@StackTrace(false)
+class DatabaseCallEvent extends Event {
+
+    @Label("Operation")
+    @Description("The DAO method that made the call")
+    String operation = "";
+
+    @Label("Rows")
+    @Description("Number of rows returned, or -1 if the call failed")
+    int rows;
+
+    @Label("Replica")
+    boolean replica;
+
+    @Label("Connection Wait")
+    @Timespan(Timespan.NANOSECONDS)
+    long connectionWait;
+
+    @Label("Failed")
+    boolean failed;
+}
@@ -0,0 +1,306 @@
+package org.vaadin.tatu.vaadincreate.backend.dao;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.vaadin.tatu.vaadincreate.backend.DatabaseMonitor.DatabaseCall;
+import org.vaadin.tatu.vaadincreate.backend.DatabaseMonitor.DatabaseCallListener;
+import org.vaadin.tatu.vaadincreate.backend.DatabaseMonitor.DatabaseStatistics;
+
+import com.zaxxer.hikari.metrics.PoolStats;
+
+/**
+ * Tracks the database calls made via {@link HibernateUtil}. Each call is named
+ * by the DAO method that made it, calls slower than the threshold set with
+ * {@code -Dhibernate.slowCallThreshold} (milliseconds, default 100) are logged
+ * with the SQL statements they executed, the registered listeners are
+ * notified of every call and a {@link DatabaseCallEvent} is committed when
+ * the event is enabled in the JDK Flight Recorder.
+ */
+@NullMarked
+public final class DatabaseCallTracker {
+
+    private static final int MAX_CAPTURED_STATEMENTS = 20;
+    private static final int MAX_STATEMENT_LENGTH = 2000;
+
+    // Name of the connection pool of the read replica
+    static final String REPLICA_POOL_NAME = "replica";
+
+    static long slowCallThreshold = Long.getLong("hibernate.slowCallThreshold",
+            100);
+
+    private static final List<DatabaseCallListener> listeners = new CopyOnWriteArrayList<>();
+
+    private static final List<PoolStats> pools = new CopyOnWriteArrayList<>();
+
+    private static final List<PoolStats> primaryPools = new CopyOnWriteArrayList<>();
+
+    private static final ThreadLocal<@Nullable List<String>> statements = new ThreadLocal<>();
+
+    private static final ThreadLocal<long[]> connectionWait = ThreadLocal
+            .withInitial(() -> new long[1]);
+
+    private static final StackWalker stackWalker = StackWalker.getInstance();
+
+    // Class of the task lambda -> operation name. Each call site passes a
+    // lambda class of its own, so the stack is walked once per call site.
+    private static final Map<Class<?>, String> operations = new ConcurrentHashMap<>();
+
+    private final Instant startTime;
+    private final long startNanos;
+    private final boolean replica;
+    private final Class<?> callSite;
+    private final DatabaseCallEvent event = new DatabaseCallEvent();
+
+    // State of an enclosing call when calls are nested
+    @Nullable
+    private final List<String> outerStatements;
+    private final long outerConnectionWait;
+
+    private DatabaseCallTracker(boolean replica, Class<?> callSite) {
+        this.startTime = now();
+        this.startNanos = System.nanoTime();
+        this.replica = replica;
+        this.callSite = callSite;
+        this.outerStatements = statements.get();
+        this.outerConnectionWait = connectionWait.get()[0];
+        event.begin();
+    }
+
+    /**
+     * Adds a listener notified after each database call.
+     *
+     * @param listener
+     *            the listener
+     */
+    public static void addListener(DatabaseCallListener listener) {
+        Objects.requireNonNull(listener, "Listener must not be null");
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener
+     *            the listener
+     */
+    public static void removeListener(DatabaseCallListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Gets a snapshot of Hibernate statistics and connection pool state.
+     *
+     * @return the statistics
+     */
+    public static DatabaseStatistics getStatistics() {
+        var stats = HibernateUtil.getSessionFactory().getStatistics();
+        var active = -1;
+        var idle = -1;
+        var total = -1;
+        var pending = -1;
+        var max = -1;
+        var primaryMax = -1;
+        if (!pools.isEmpty()) {
+            active = 0;
+            idle = 0;
+            total = 0;
+            pending = 0;
+            max = 0;
+            for (var pool : pools) {
+                active += pool.getActiveConnections();
+                idle += pool.getIdleConnections();
+                total += pool.getTotalConnections();
+                pending += pool.getPendingThreads();
+                max += pool.getMaxConnections();
+            }
+        }
+        if (!primaryPools.isEmpty()) {
+            primaryMax = 0;
+            for (var pool : primaryPools) {
+                primaryMax += pool.getMaxConnections();
+            }
+        }
+        return new DatabaseStatistics(stats.getQueryExecutionCount(),
+                stats.getQueryExecutionMaxTime(), stats.getQueryCacheHitCount(),
+                stats.getQueryCacheMissCount(), stats.getQueryCachePutCount(),
+                stats.getSecondLevelCacheHitCount(),
+                stats.getSecondLevelCacheMissCount(),
+                stats.getEntityLoadCount(), stats.getEntityFetchCount(),
+                stats.getEntityInsertCount(), stats.getEntityUpdateCount(),
+                stats.getEntityDeleteCount(), stats.getTransactionCount(),
+                stats.getSessionOpenCount(), active, idle, total, pending,
+                max, primaryMax);
+    }
+
+    /**
+     * Starts tracking a database call in the current thread.
+     *
+     * @param replica
+     *            true if the call is made to the read replica
+     * @param task
+     *            the task passed by the caller, identifying the call site
+     * @return the tracker to finish when the call completes
+     */
+    static DatabaseCallTracker start(boolean replica, Object task) {
+        var tracker = new DatabaseCallTracker(replica, task.getClass());
+        statements.set(new ArrayList<>());
+        connectionWait.get()[0] = 0;
+        return tracker;
+    }
+
+    /**
+     * Finishes tracking the call, logs it if it was slow and notifies the
+     * listeners.
+     *
+     * @param result
+     *            the result of the call, used for counting the rows
+     * @param failure
+     *            the exception thrown by the call, or null
+     */
+    void finish(@Nullable Object result, @Nullable Throwable failure) {
+        var duration = System.nanoTime() - startNanos;
+        event.end();
+        var recorded = event.shouldCommit();
+        var captured = statements.get();
+        var wait = connectionWait.get()[0];
+        restoreOuterCall(captured, wait);
+        var slow = duration > TimeUnit.MILLISECONDS
+                .toNanos(slowCallThreshold);
+        if (!slow && listeners.isEmpty() && !recorded) {
+            return;
+        }
+        var operation = resolveOperation(callSite);
+        var rows = countRows(result, failure);
+        if (recorded) {
+            event.operation = operation;
+            event.rows = rows;
+            event.replica = replica;
+            event.connectionWait = wait;
+            event.failed = failure != null;
+            event.commit();
+        }
+        List<String> executed = slow && captured != null
+                ? List.copyOf(captured)
+                : List.of();
+        if (slow) {
+            logger.warn(
+                    "Database call {} exceeded {}ms, {}ms, rows: {}, connection wait: {}ms, statements: {}",
+                    operation, slowCallThreshold,
+                    TimeUnit.NANOSECONDS.toMillis(duration), rows,
+                    TimeUnit.NANOSECONDS.toMillis(wait), executed);
+        }
+        var call = new DatabaseCall(operation, startTime, duration, rows, wait,
+                replica, executed, failure);
+        for (var listener : listeners) {
+            try {
+                listener.callCompleted(call);
+            } catch (RuntimeException e) {
+                logger.error("Database call listener failed", e);
+            }
+        }
+    }
+
+    private void restoreOuterCall(@Nullable List<String> captured,
+            long wait) {
+        var outer = outerStatements;
+        if (outer == null) {
+            statements.remove();
+            connectionWait.get()[0] = 0;
+            return;
+        }
+        // Statements and waits of a nested call belong to the outer call too
+        if (captured != null) {
+            captured.stream()
+                    .limit(Math.max(0,
+                            MAX_CAPTURED_STATEMENTS - outer.size()))
+                    .forEach(outer::add);
+        }
+        statements.set(outer);
+        connectionWait.get()[0] = outerConnectionWait + wait;
+    }
+
+    // Called by the statement inspector for each prepared SQL statement
+    static void statementPrepared(String sql) {
+        var captured = statements.get();
+        if (captured != null && captured.size() < MAX_CAPTURED_STATEMENTS) {
+            captured.add(sql.length() > MAX_STATEMENT_LENGTH
+                    ? sql.substring(0, MAX_STATEMENT_LENGTH) + "..."
+                    : sql);
+        }
+    }
+
+    // Called by the connection pool when a connection has been acquired
+    static void connectionAcquired(long elapsedNanos) {
+        connectionWait.get()[0] += elapsedNanos;
+    }
+
+    // Called by the connection pool when a pool is created
+    static void poolCreated(String poolName, PoolStats poolStats) {
+        pools.add(poolStats);
+        if (!REPLICA_POOL_NAME.equals(poolName)) {
+            primaryPools.add(poolStats);
+        }
+    }
+
+    @SuppressWarnings("null")
+    private static Instant now() {
+        return Instant.now();
+    }
+
+    private static int countRows(@Nullable Object result,
+            @Nullable Throwable failure) {
+        if (failure != null) {
+            return -1;
+        }
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        return 1;
+    }
+
+    private static String resolveOperation(Class<?> callSite) {
+        var operation = operations.get(callSite);
+        if (operation == null) {
+            operation = walkOperation();
+            // The lambdas of HibernateUtil itself are shared by its callers
+            if (callSite.getNestHost() != HibernateUtil.class) {
+                operations.putIfAbsent(callSite, operation);
+            }
+        }
+        return operation;
+    }
+
+    // The operation is named by the first caller outside the database
+    // utilities, i.e. the DAO method
+    @SuppressWarnings("null")
+    private static String walkOperation() {
+        return stackWalker.walk(frames -> frames
+                .filter(frame -> !frame.getClassName()
+                        .equals(DatabaseCallTracker.class.getName())
+                        && !frame.getClassName()
+                                .equals(HibernateUtil.class.getName()))
+                .findFirst().map(frame -> {
+                    var className = frame.getClassName();
+                    return className.substring(className.lastIndexOf('.') + 1)
+                            + "." + frame.getMethodName();
+                }).orElse("unknown"));
+    }
+
+    private static Logger logger = LoggerFactory
+            .getLogger(DatabaseCallTracker.class);
+}
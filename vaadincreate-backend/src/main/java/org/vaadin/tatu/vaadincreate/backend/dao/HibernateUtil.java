@@ -1,29 +1,69 @@
 package org.vaadin.tatu.vaadincreate.backend.dao;
 
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
+import org.hibernate.BaseSessionEventListener;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
+import org.hibernate.cfg.AvailableSettings;
 import org.hibernate.cfg.Configuration;
 import org.hibernate.exception.JDBCConnectionException;
+import org.hibernate.jpa.QueryHints;
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.vaadin.tatu.vaadincreate.backend.CancellationScope;
+import org.vaadin.tatu.vaadincreate.backend.ConsistencyScope;
 import org.vaadin.tatu.vaadincreate.backend.DatabaseConnectionException;
 import org.vaadin.tatu.vaadincreate.backend.data.AbstractEntity;
 
 /**
  * Utility class for managing Hibernate sessions and transactions.
+ * <p>
+ * Optionally a read replica can be configured with the system property
+ * {@code hibernate.replica.config} (e.g. {@code hibernate-replica.cfg.xml}).
+ * Read-only operations run with {@link #inReadOnlySession(Function)} are then
+ * routed to the replica according to the {@link ReplicaStaleness} policy set
+ * with {@code hibernate.replica.staleness}. If the replica is not reachable,
+ * reads fall back to the primary database.
+ * <p>
+ * Sessions opened in a {@link CancellationScope} are cancelled with the
+ * scope, which cancels the running SQL statement, and queries get the
+ * timeout of the scope or the default set with
+ * {@code -Dhibernate.query.timeout} (milliseconds).
+ * <p>
+ * Each call is tracked with {@link DatabaseCallTracker}, which logs slow
+ * calls and notifies the database monitoring listeners.
  */
 @NullMarked
 public class HibernateUtil {
 
-    private static final int DATABASE_CALL_WARN_LIMIT = 100;
+    private static final long REPLICA_RETRY_INTERVAL = 30000;
+    private static final int DEFAULT_BATCH_SIZE = 50;
+
+    /**
+     * Policy that defines how stale data served by the read replica may be.
+     */
+    public enum ReplicaStaleness {
+        /**
+         * Reads are always served by the replica when it is available.
+         */
+        EVENTUAL,
+        /**
+         * Reads are served by the primary database for the replication lag
+         * window after a write in the same {@link ConsistencyScope}, otherwise
+         * by the replica.
+         */
+        READ_YOUR_WRITES
+    }
 
     // Private constructor to prevent instantiation
     private HibernateUtil() {
@@ -33,15 +73,84 @@ public class HibernateUtil {
     @Nullable
     static SessionFactory sessionFactory;
 
+    @Nullable
+    static SessionFactory replicaSessionFactory;
+
+    static ReplicaStaleness replicaStaleness = ReplicaStaleness
+            .valueOf(System.getProperty("hibernate.replica.staleness",
+                    ReplicaStaleness.READ_YOUR_WRITES.name()));
+
+    // Time window after a write during which the replica is assumed to be
+    // lagging behind for the writing scope
+    static long replicaLagWindow = Long.getLong("hibernate.replica.lagWindow",
+            5000);
+
+    // Until when the replica is considered unavailable after a connection
+    // failure
+    static volatile long replicaUnavailableUntil;
+
+    static final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    static int batchSize = DEFAULT_BATCH_SIZE;
+
+    // Default timeout of a single query in milliseconds, 0 for no timeout.
+    // A CancellationScope can define its own timeout.
+    static long queryTimeout = Long.getLong("hibernate.query.timeout", 0);
+
     static {
         try {
             String hibernateConfig = System.getProperty("hibernate.config",
                     "hibernate.cfg.xml");
-            sessionFactory = new Configuration().configure(hibernateConfig)
-                    .buildSessionFactory();
+            var configuration = new Configuration().configure(hibernateConfig);
+            configureBatching(configuration);
+            sessionFactory = configuration.buildSessionFactory();
         } catch (Exception ex) {
             throw new ExceptionInInitializerError(ex);
         }
+        String replicaConfig = System.getProperty("hibernate.replica.config");
+        if (replicaConfig != null) {
+            try {
+                replicaSessionFactory = new Configuration()
+                        .configure(replicaConfig)
+                        .setProperty("hibernate.hikari.poolName",
+                                DatabaseCallTracker.REPLICA_POOL_NAME)
+                        .buildSessionFactory();
+                getLogger().info("Read replica configured with {}",
+                        replicaConfig);
+            } catch (Exception ex) {
+                // Replica is optional, run with primary only
+                getLogger().error(
+                        "Could not initialize read replica, using primary only",
+                        ex);
+            }
+        }
+    }
+
+    // The batch size in the configuration file can be overridden with
+    // -Dhibernate.jdbc.batch_size, e.g. for bulk imports
+    private static void configureBatching(Configuration configuration) {
+        var override = System
+                .getProperty(AvailableSettings.STATEMENT_BATCH_SIZE);
+        if (override != null) {
+            configuration.setProperty(AvailableSettings.STATEMENT_BATCH_SIZE,
+                    override);
+        }
+        var configured = configuration
+                .getProperty(AvailableSettings.STATEMENT_BATCH_SIZE);
+        if (configured != null) {
+            batchSize = Math.max(1, Integer.parseInt(configured.trim()));
+        }
+    }
+
+    /**
+     * Gets the JDBC batch size used for bulk writes. Bulk writes should flush
+     * and clear the session after this many entities to keep the session small
+     * and to let the JDBC driver send the statements in batches.
+     *
+     * @return the batch size, at least 1
+     */
+    public static int getBatchSize() {
+        return batchSize;
     }
 
     /**
@@ -72,16 +181,19 @@ public class HibernateUtil {
     @Nullable
     public static <T> T inTransaction(
             Function<@NonNull Session, T> transaction) {
-        var start = System.currentTimeMillis();
-        T result;
+        var tracker = DatabaseCallTracker.start(false, transaction);
+        T result = null;
+        Exception failure = null;
         Session session = null;
         Transaction tx = null;
         try {
-            session = getSessionFactory().openSession();
+            session = openSession(getSessionFactory());
             tx = session.beginTransaction();
             result = transaction.apply(session);
             tx.commit();
+            recordWrite();
         } catch (Exception e) {
+            failure = e;
             if (tx != null) {
                 tx.rollback();
             }
@@ -91,8 +203,8 @@ public class HibernateUtil {
             if (session != null) {
                 session.close();
             }
+            tracker.finish(result, failure);
         }
-        logWarning(start);
         return result;
     }
 
@@ -113,15 +225,18 @@ public class HibernateUtil {
      *             after rolling back the transaction
      */
     public static void inTransaction(Consumer<@NonNull Session> transaction) {
-        var start = System.currentTimeMillis();
+        var tracker = DatabaseCallTracker.start(false, transaction);
+        Exception failure = null;
         Session session = null;
         Transaction tx = null;
         try {
-            session = getSessionFactory().openSession();
+            session = openSession(getSessionFactory());
             tx = session.beginTransaction();
             transaction.accept(session);
             tx.commit();
+            recordWrite();
         } catch (Exception e) {
+            failure = e;
             if (tx != null) {
                 tx.rollback();
             }
@@ -131,8 +246,8 @@ public class HibernateUtil {
             if (session != null) {
                 session.close();
             }
+            tracker.finish(null, failure);
         }
-        logWarning(start);
     }
 
     /**
@@ -148,21 +263,23 @@ public class HibernateUtil {
      */
     @Nullable
     public static <T> T inSession(Function<Session, T> task) {
-        var start = System.currentTimeMillis();
-        T result;
+        var tracker = DatabaseCallTracker.start(false, task);
+        T result = null;
+        Exception failure = null;
         Session session = null;
         try {
-            session = getSessionFactory().openSession();
+            session = openSession(getSessionFactory());
             result = task.apply(session);
         } catch (Exception e) {
+            failure = e;
             handleDatabaseException(e);
             throw e;
         } finally {
             if (session != null) {
                 session.close();
             }
+            tracker.finish(result, failure);
         }
-        logWarning(start);
         return result;
     }
 
@@ -176,20 +293,119 @@ public class HibernateUtil {
      *            operations within that session.
      */
     public static void inSession(Consumer<Session> task) {
-        var start = System.currentTimeMillis();
+        var tracker = DatabaseCallTracker.start(false, task);
+        Exception failure = null;
         Session session = null;
         try {
-            session = getSessionFactory().openSession();
+            session = openSession(getSessionFactory());
             task.accept(session);
         } catch (Exception e) {
+            failure = e;
             handleDatabaseException(e);
             throw e;
         } finally {
             if (session != null) {
                 session.close();
             }
+            tracker.finish(null, failure);
         }
-        logWarning(start);
+    }
+
+    /**
+     * Executes a read-only task within a Hibernate session. If a read replica
+     * is configured and available, and the {@link ReplicaStaleness} policy
+     * allows it for the current {@link ConsistencyScope}, the session is opened
+     * to the replica, otherwise to the primary database. If the replica
+     * connection fails, the task is retried on the primary database and the
+     * replica is skipped for a while.
+     * <p>
+     * The task must not modify data, the session is set to default read-only
+     * mode.
+     *
+     * @param <T>
+     *            The type of the result returned by the task.
+     * @param task
+     *            A function that takes a Hibernate {@link Session} and returns
+     *            a result of type T.
+     * @return The result of the task.
+     */
+    @Nullable
+    public static <T> T inReadOnlySession(Function<Session, T> task) {
+        var replica = replicaSessionFactory;
+        if (replica == null || !isReplicaReadAllowed()) {
+            return inSession(task);
+        }
+        var tracker = DatabaseCallTracker.start(true, task);
+        T result = null;
+        Exception failure = null;
+        var fallback = false;
+        Session session = null;
+        try {
+            session = openSession(replica);
+            session.setDefaultReadOnly(true);
+            result = task.apply(session);
+        } catch (Exception e) {
+            failure = e;
+            if (!isConnectionFailure(e)) {
+                handleDatabaseException(e);
+                throw e;
+            }
+            markReplicaUnavailable(e);
+            fallback = true;
+        } finally {
+            if (session != null) {
+                session.close();
+            }
+            tracker.finish(result, failure);
+        }
+        if (fallback) {
+            return inSession(task);
+        }
+        return result;
+    }
+
+    private static boolean isReplicaReadAllowed() {
+        var now = System.currentTimeMillis();
+        if (replicaUnavailableUntil > now
+                || ConsistencyScope.isPrimaryRequired()) {
+            return false;
+        }
+        if (replicaStaleness == ReplicaStaleness.EVENTUAL) {
+            return true;
+        }
+        var lastWrite = lastWrites.get(ConsistencyScope.current());
+        return lastWrite == null || now - lastWrite > replicaLagWindow;
+    }
+
+    private static void recordWrite() {
+        if (replicaSessionFactory == null
+                || replicaStaleness == ReplicaStaleness.EVENTUAL) {
+            return;
+        }
+        var now = System.currentTimeMillis();
+        lastWrites.put(ConsistencyScope.current(), now);
+        // Entries older than the lag window do not affect routing anymore
+        lastWrites.values()
+                .removeIf(lastWrite -> now - lastWrite > replicaLagWindow);
+    }
+
+    private static void markReplicaUnavailable(Exception e) {
+        getLogger().warn(
+                "Read replica unavailable, routing reads to primary for {}ms",
+                REPLICA_RETRY_INTERVAL, e);
+        replicaUnavailableUntil = System.currentTimeMillis()
+                + REPLICA_RETRY_INTERVAL;
+    }
+
+    private static boolean isConnectionFailure(Throwable throwable) {
+        Throwable current = throwable;
+        while (current != null) {
+            if (current instanceof JDBCConnectionException) {
+                return true;
+            }
+            current = current.getCause();
+        }
+        return false;
     }
 
     /**
@@ -210,8 +426,46 @@ public class HibernateUtil {
         return entity;
     }
 
+    // Opens a session bound to the cancellation scope of the current thread
+    private static Session openSession(SessionFactory factory) {
+        var cancellation = CancellationScope.current();
+        if (cancellation != null) {
+            cancellation.throwIfCancelled();
+        }
+        var session = factory.openSession();
+        var timeout = cancellation != null
+                && !cancellation.getQueryTimeout().isZero()
+                        ? cancellation.getQueryTimeout().toMillis()
+                        : queryTimeout;
+        if (timeout > 0) {
+            session.setProperty(QueryHints.SPEC_HINT_TIMEOUT,
+                    (int) Math.min(Integer.MAX_VALUE, timeout));
+        }
+        if (cancellation != null) {
+            // Session.cancelQuery is the only session method that can be
+            // called from another thread, it cancels the running statement
+            Runnable cancelQuery = session::cancelQuery;
+            session.addEventListeners(new BaseSessionEventListener() {
+                @Override
+                public void end() {
+                    cancellation.removeCancelAction(cancelQuery);
+                }
+            });
+            cancellation.addCancelAction(cancelQuery);
+        }
+        return session;
+    }
+
     private static void handleDatabaseException(Exception e)
             throws DatabaseConnectionException {
+        // statement was cancelled because the task was abandoned
+        var cancellation = CancellationScope.current();
+        if (cancellation != null && cancellation.isCancelled()) {
+            var cancelled = new CancellationException(
+                    "Database call was cancelled");
+            cancelled.initCause(e);
+            throw cancelled;
+        }
         // handle JDBC connection issues
         if (e instanceof JDBCConnectionException) {
             throw new DatabaseConnectionException("Database connection error",
@@ -219,19 +473,15 @@ public class HibernateUtil {
         }
     }
 
-    private static void logWarning(long start) {
-        var time = System.currentTimeMillis() - start;
-        if (time > DATABASE_CALL_WARN_LIMIT) {
-            logger.warn("Database call duration exceeded {}ms, {}ms.",
-                    DATABASE_CALL_WARN_LIMIT, time);
-        }
-    }
-
     /**
      * Closes the SessionFactory and releases all resources.
      */
     @SuppressWarnings("null")
     public static synchronized void shutdown() {
+        if (replicaSessionFactory != null) {
+            replicaSessionFactory.close();
+            replicaSessionFactory = null;
+        }
         if (sessionFactory == null) {
             return;
         }
@@ -239,7 +489,9 @@ public class HibernateUtil {
         sessionFactory = null;
     }
 
-    @SuppressWarnings("null")
-    private static Logger logger = LoggerFactory.getLogger(HibernateUtil.class);
+    // Logger is looked up on demand as it is used by the static initializer
+    private static Logger getLogger() {
+        return LoggerFactory.getLogger(HibernateUtil.class);
+    }
 
 }
@@ -104,7 +104,7 @@ public class ProductDao {
                 "Category ID must not be null");
         logger.debug("Fetching Products by Category: ({}) '{}'",
                 category.getId(), category.getName());
-        var result = HibernateUtil.inSession(session -> {
+        var result = HibernateUtil.inReadOnlySession(session -> {
             return session.createQuery(
                     "select p from Product p join p.category c where c.id = :id",
                     Product.class).setParameter("id", category.getId()).list();
@@ -127,7 +127,7 @@ public class ProductDao {
     public Collection<Product> getAllProducts() {
         // Method returns all products from the database using HibernateUtil
         logger.debug("Fetching all Products");
-        var result = HibernateUtil.inSession(session -> {
+        var result = HibernateUtil.inReadOnlySession(session -> {
             // Using LEFT JOIN FETCH to eagerly load associated categories
             // to avoid N+1 select problem
             return session.createQuery(
@@ -149,7 +149,7 @@ public class ProductDao {
      */
     public Collection<Product> getOrderableProducts() {
         logger.debug("Fetching orderable Products");
-        var result = HibernateUtil.inSession(session -> {
+        var result = HibernateUtil.inReadOnlySession(session -> {
             return session.createQuery(
                     "select distinct p from Product p left join fetch p.category where p.availability = org.vaadin.tatu.vaadincreate.backend.data.Availability.AVAILABLE and p.stockCount > 0",
                     Product.class).list();
@@ -204,7 +204,7 @@ public class ProductDao {
      */
     public Collection<Category> getAllCategories() {
         logger.debug("Fetching all Categories");
-        var result = HibernateUtil.inSession(session -> {
+        var result = HibernateUtil.inReadOnlySession(session -> {
             return session.createQuery("from Category", Category.class).list();
         });
         if (result == null) {
@@ -1,17 +1,32 @@
 package org.vaadin.tatu.vaadincreate.backend.dao;
 
 import java.time.Instant;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import org.hibernate.Hibernate;
+import org.hibernate.PessimisticLockException;
 import org.hibernate.Session;
+import org.hibernate.exception.LockAcquisitionException;
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.vaadin.tatu.vaadincreate.backend.DatabaseConnectionException;
+import org.vaadin.tatu.vaadincreate.backend.PurchaseService.DecisionResult;
+import org.vaadin.tatu.vaadincreate.backend.PurchaseService.PurgeProgressListener;
 import org.vaadin.tatu.vaadincreate.backend.data.Product;
 import org.vaadin.tatu.vaadincreate.backend.data.Purchase;
 import org.vaadin.tatu.vaadincreate.backend.data.PurchaseStatus;
@@ -32,23 +47,51 @@ public class PurchaseDao {
     private static final String PURCHASE_ID_MUST_NOT_BE_NULL = "Purchase ID must not be null";
     private static final String APPROVER_MUST_NOT_BE_NULL = "Approver must not be null";
     private static final String APPROVER_ID_PARAM = "approverId";
+    private static final int LOCK_ATTEMPTS = 3;
+
+    static int purgeChunkSize = Math.max(1,
+            Integer.getInteger("purchase.purgeChunkSize", 1000));
 
     /**
-     * Saves a batch of new purchases in a single transaction.
+     * Saves a batch of new purchases in a single transaction. The inserts are
+     * sent to the database in JDBC batches of
+     * {@link HibernateUtil#getBatchSize()} purchases, the session is flushed
+     * and cleared after each batch to keep the memory footprint constant. The
+     * per-day purchase counts are updated in the same transaction.
      *
      * @param purchases
      *            purchases to persist
      */
     public void savePurchases(List<Purchase> purchases) {
+        savePurchases(purchases, HibernateUtil.getBatchSize());
+    }
+
+    // Package private for benchmarking with different batch sizes
+    void savePurchases(List<Purchase> purchases, int batchSize) {
         Objects.requireNonNull(purchases, "Purchases must not be null");
-        logger.info("Persisting {} purchases.", purchases.size());
+        logger.info("Persisting {} purchases in batches of {}.",
+                purchases.size(), batchSize);
+        PurchasePartitions.ensurePartitions(
+                purchases.stream().map(Purchase::getCreatedAt).toList());
         HibernateUtil.inTransaction(session -> {
-            purchases.forEach(session::save);
+            session.setJdbcBatchSize(batchSize);
+            var count = 0;
+            for (var purchase : purchases) {
+                session.save(purchase);
+                count++;
+                if (count % batchSize == 0) {
+                    session.flush();
+                    session.clear();
+                }
+            }
+            PurchaseDayCounts.add(session,
+                    purchases.stream().map(Purchase::getCreatedAt).toList());
         });
     }
 
     /**
-     * Saves or updates a purchase.
+     * Saves or updates a purchase. A new purchase is added to the per-day
+     * purchase counts in the same transaction.
      *
      * @param purchase
      *            the purchase to save or update
@@ -57,7 +100,15 @@ public class PurchaseDao {
     public Purchase updatePurchase(Purchase purchase) {
         Objects.requireNonNull(purchase, "Purchase must not be null");
         logger.info("Persisting Purchase: ({})", purchase.getId());
-        return HibernateUtil.saveOrUpdate(purchase);
+        if (purchase.getId() != null) {
+            return HibernateUtil.saveOrUpdate(purchase);
+        }
+        PurchasePartitions.ensurePartitions(List.of(purchase.getCreatedAt()));
+        HibernateUtil.inTransaction(session -> {
+            session.save(purchase);
+            PurchaseDayCounts.add(session, List.of(purchase.getCreatedAt()));
+        });
+        return purchase;
     }
 
     /**
@@ -90,21 +141,39 @@ public class PurchaseDao {
      *            the starting offset for pagination
      * @param limit
      *            the maximum number of results
-     * @return list of purchases
+     * @return list of purchases with their lines
      */
     public List<Purchase> findByRequester(User requester, int offset,
             int limit) {
+        return findByRequester(requester, offset, limit, true);
+    }
+
+    /**
+     * Finds purchases by requester, optionally without loading their lines.
+     *
+     * @param requester
+     *            the user who created the purchases
+     * @param offset
+     *            the starting offset for pagination
+     * @param limit
+     *            the maximum number of results
+     * @param withLines
+     *            true to load the lines, false to load only the summaries
+     * @return list of purchases
+     */
+    public List<Purchase> findByRequester(User requester, int offset,
+            int limit, boolean withLines) {
         Objects.requireNonNull(requester, REQUESTER_MUST_NOT_BE_NULL);
         logger.debug(
                 "Fetching Purchases by requester: ({}) by offset: {} and limit: {}",
                 requester.getId(), offset, limit);
-        var result = HibernateUtil.inSession(session -> {
+        var result = HibernateUtil.inReadOnlySession(session -> {
             var purchaseIds = session.createQuery(
                     "select p.id from Purchase p where p.requester = :requester order by p.createdAt desc",
                     Integer.class)
                     .setParameter(PURCHASE_REQUESTER_PARAM, requester)
                     .setFirstResult(offset).setMaxResults(limit).list();
-            return fetchPurchasesWithLinesByIds(session, purchaseIds);
+            return fetchPurchasesByIds(session, purchaseIds, withLines);
         });
         if (result == null) {
             throw new IllegalStateException(
@@ -123,7 +192,7 @@ public class PurchaseDao {
     public long countByRequester(User requester) {
         Objects.requireNonNull(requester, REQUESTER_MUST_NOT_BE_NULL);
         logger.info("Counting Purchases by requester: ({})", requester.getId());
-        var result = HibernateUtil.inSession(session -> {
+        var result = HibernateUtil.inReadOnlySession(session -> {
             @Nullable
             Long count = session.createQuery(
                     "select count(p) from Purchase p where p.requester = :requester",
@@ -146,21 +215,42 @@ public class PurchaseDao {
      *            the starting offset for pagination
      * @param limit
      *            the maximum number of results
-     * @return list of purchases
+     * @return list of purchases with their lines
      */
     public List<Purchase> findByApproverAndStatus(User approver,
             PurchaseStatus status, int offset, int limit) {
+        return findByApproverAndStatus(approver, status, offset, limit, true);
+    }
+
+    /**
+     * Finds purchases by approver and status, optionally without loading
+     * their lines.
+     *
+     * @param approver
+     *            the approver user
+     * @param status
+     *            the purchase status to filter by
+     * @param offset
+     *            the starting offset for pagination
+     * @param limit
+     *            the maximum number of results
+     * @param withLines
+     *            true to load the lines, false to load only the summaries
+     * @return list of purchases
+     */
+    public List<Purchase> findByApproverAndStatus(User approver,
+            PurchaseStatus status, int offset, int limit, boolean withLines) {
         Objects.requireNonNull(approver, APPROVER_MUST_NOT_BE_NULL);
         Objects.requireNonNull(status, "Status must not be null");
         logger.debug("Fetching Purchases by approver: ({}) and status: {}",
                 approver.getId(), status);
-        var result = HibernateUtil.inSession(session -> {
+        var result = HibernateUtil.inReadOnlySession(session -> {
             var purchaseIds = session.createQuery(
                     "select p.id from Purchase p where p.approver = :approver and p.status = :status order by p.createdAt desc",
                     Integer.class).setParameter("approver", approver)
                     .setParameter(PURCHASE_STATUS_PARAM, status)
                     .setFirstResult(offset).setMaxResults(limit).list();
-            return fetchPurchasesWithLinesByIds(session, purchaseIds);
+            return fetchPurchasesByIds(session, purchaseIds, withLines);
         });
         if (result == null) {
             throw new IllegalStateException(
@@ -186,7 +276,7 @@ public class PurchaseDao {
 
         logger.info("Counting Purchases by approver: ({}) and status: {}",
                 approverId, status);
-        var result = HibernateUtil.inSession(session -> {
+        var result = HibernateUtil.inReadOnlySession(session -> {
             @Nullable
             Long count = session.createQuery(
                     "select count(p) from Purchase p where p.approver.id = :approverId and p.status = :status",
@@ -204,17 +294,33 @@ public class PurchaseDao {
      *            the starting offset for pagination
      * @param limit
      *            the maximum number of results
-     * @return list of all purchases
+     * @return list of all purchases with their lines
      */
     public List<Purchase> findAll(int offset, int limit) {
+        return findAll(offset, limit, true);
+    }
+
+    /**
+     * Finds all purchases with pagination, optionally without loading their
+     * lines.
+     *
+     * @param offset
+     *            the starting offset for pagination
+     * @param limit
+     *            the maximum number of results
+     * @param withLines
+     *            true to load the lines, false to load only the summaries
+     * @return list of all purchases
+     */
+    public List<Purchase> findAll(int offset, int limit, boolean withLines) {
         logger.debug("Fetching purchases by offset: {} and limit: {}", offset,
                 limit);
-        var result = HibernateUtil.inSession(session -> {
+        var result = HibernateUtil.inReadOnlySession(session -> {
             var purchaseIds = session.createQuery(
                     "select p.id from Purchase p order by p.createdAt desc",
                     Integer.class).setFirstResult(offset).setMaxResults(limit)
                     .list();
-            return fetchPurchasesWithLinesByIds(session, purchaseIds);
+            return fetchPurchasesByIds(session, purchaseIds, withLines);
         });
         if (result == null) {
             throw new IllegalStateException("Result of findAll is null");
@@ -229,7 +335,7 @@ public class PurchaseDao {
      */
     public long countAll() {
         logger.debug("Counting all Purchases");
-        var result = HibernateUtil.inSession(session -> {
+        var result = HibernateUtil.inReadOnlySession(session -> {
             @Nullable
             Long count = session
                     .createQuery("select count(p) from Purchase p", Long.class)
@@ -292,7 +398,7 @@ public class PurchaseDao {
                 and p.decidedAt > :since
                 order by p.decidedAt desc
                 """;
-        var result = HibernateUtil.inSession(session -> {
+        var result = HibernateUtil.inReadOnlySession(session -> {
             return session.createQuery(query, Purchase.class)
                     .setParameter(PURCHASE_REQUESTER_PARAM, requester)
                     .setParameter("completed", PurchaseStatus.COMPLETED)
@@ -307,13 +413,37 @@ public class PurchaseDao {
         return result;
     }
 
+    /**
+     * Fetches purchases with their lines by ids in one query.
+     *
+     * @param purchaseIds
+     *            the purchase ids
+     * @return the found purchases in the order of the given ids
+     */
+    public List<Purchase> findByIds(List<Integer> purchaseIds) {
+        Objects.requireNonNull(purchaseIds, "Purchase IDs must not be null");
+        var result = HibernateUtil.inReadOnlySession(
+                session -> fetchPurchasesWithLinesByIds(session, purchaseIds));
+        if (result == null) {
+            throw new IllegalStateException("Result of findByIds is null");
+        }
+        return result;
+    }
+
     @SuppressWarnings("null")
     private List<Purchase> fetchPurchasesWithLinesByIds(Session session,
             List<Integer> purchaseIds) {
+        return fetchPurchasesByIds(session, purchaseIds, true);
+    }
+
+    // Without the lines one row per purchase is returned instead of one per
+    // line, and the lines are loaded only when the details are shown
+    private List<Purchase> fetchPurchasesByIds(Session session,
+            List<Integer> purchaseIds, boolean withLines) {
         if (purchaseIds.isEmpty()) {
             return List.of();
         }
-        final String fetchQuery = """
+        final String fetchQuery = withLines ? """
                 select distinct p
                 from Purchase p
                 left join fetch p.requester
@@ -321,6 +451,12 @@ public class PurchaseDao {
                 left join fetch p.lines l
                 left join fetch l.product
                 where p.id in (:ids)
+                """ : """
+                select p
+                from Purchase p
+                left join fetch p.requester
+                left join fetch p.approver
+                where p.id in (:ids)
                 """;
         var purchases = session.createQuery(fetchQuery, Purchase.class)
                 .setParameter("ids", purchaseIds).list();
@@ -363,10 +499,16 @@ public class PurchaseDao {
      * Approves a pending purchase in a single transaction. If all lines have
      * sufficient stock, decrements product stock and marks the purchase as
      * COMPLETED. If any product lacks stock, marks the purchase as CANCELLED
-     * with a human-readable reason. Optimistic locking is enforced via the
-     * {@code @Version} field on {@code Product}; an
-     * {@code OptimisticLockException} will propagate out of this method if a
-     * concurrent modification is detected at commit time.
+     * with a human-readable reason.
+     * <p>
+     * The products are loaded with one query and the stock is reserved with
+     * conditional bulk updates ({@code stock_count >= quantity}) in product id
+     * order. Concurrent approvals therefore wait for each other's row locks
+     * instead of failing with optimistic lock conflicts, and the fixed lock
+     * order prevents deadlocks. If the lock wait times out under heavy
+     * contention, the approval is retried in a new transaction. The product
+     * version is incremented so that concurrent product edits still detect
+     * the change.
      *
      * @param purchaseId
      *            the purchase to approve
@@ -385,6 +527,22 @@ public class PurchaseDao {
         Objects.requireNonNull(currentUser, "Current user must not be null");
         logger.info("Approving Purchase: ({}) by user: ({})", purchaseId,
                 currentUser.getId());
+        for (var attempt = 1;; attempt++) {
+            try {
+                return approveInTransaction(purchaseId, currentUser,
+                        decisionCommentOrNull);
+            } catch (RuntimeException e) {
+                if (attempt == LOCK_ATTEMPTS || !isLockTimeout(e)) {
+                    throw e;
+                }
+                logger.warn("Lock wait timed out approving Purchase: ({}), "
+                        + "retrying", purchaseId);
+            }
+        }
+    }
+
+    private Purchase approveInTransaction(Integer purchaseId, User currentUser,
+            @Nullable String decisionCommentOrNull) {
         @SuppressWarnings("unused")
         var result = HibernateUtil.inTransaction(session -> {
             @Nullable
@@ -404,17 +562,20 @@ public class PurchaseDao {
                         "Current user is not the assigned approver");
             }
             Hibernate.initialize(purchase.getLines());
-            // Load products within the same session for optimistic locking.
-            var productsById = new HashMap<Integer, Product>();
-            var insufficientItems = retrieveLowStockItems(session, purchase,
+            var quantities = orderedQuantities(purchase);
+            var productsById = loadProducts(session, quantities.keySet());
+            var insufficientItems = retrieveLowStockItems(quantities,
                     productsById);
+            if (insufficientItems.isEmpty()) {
+                insufficientItems = reserveStock(session, quantities,
+                        productsById);
+            }
             if (!insufficientItems.isEmpty()) {
                 purchase.setStatus(PurchaseStatus.CANCELLED);
                 purchase.setDecidedAt(getCurrentInstant());
                 purchase.setDecisionReason("Insufficient stock: "
                         + String.join(", ", insufficientItems));
             } else {
-                updateProductStock(purchase, productsById);
                 purchase.setStatus(PurchaseStatus.COMPLETED);
                 purchase.setDecidedAt(getCurrentInstant());
                 purchase.setDecisionReason(decisionCommentOrNull);
@@ -430,33 +591,24 @@ public class PurchaseDao {
         return result;
     }
 
+    // The lock timeout is converted to different exceptions depending on the
+    // dialect and the API used, the Hibernate one is the cause of all of them
+    private static boolean isLockTimeout(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause
+                .getCause()) {
+            if (cause instanceof PessimisticLockException
+                    || cause instanceof LockAcquisitionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @SuppressWarnings("null")
     private static Instant getCurrentInstant() {
         return Instant.now();
     }
 
-    // Must be called within a transaction with products loaded in the session
-    private void updateProductStock(Purchase purchase,
-            HashMap<Integer, Product> productsById) {
-        for (var line : purchase.getLines()) {
-            var prod = line.getProduct();
-            ensureProductExists(prod);
-            var productId = prod.getId();
-            var product = productsById.get(productId);
-            if (product == null) {
-                logger.error(
-                        "Product with id {} from purchase {} not found in productsById map",
-                        productId, purchase.getId());
-                throw new IllegalStateException(
-                        "Product not found in productsById map for id: "
-                                + productId);
-            }
-            product.setStockCount(product.getStockCount() - line.getQuantity());
-            // product is already managed by the session; dirty
-            // checking will flush the change on commit.
-        }
-    }
-
     @SuppressWarnings("unused")
     private static void ensureProductExists(Product prod) {
         if (prod == null) {
@@ -465,26 +617,112 @@ public class PurchaseDao {
         }
     }
 
-    private ArrayList<String> retrieveLowStockItems(Session session,
-            Purchase purchase, HashMap<Integer, Product> productsById) {
-        var insufficientItems = new ArrayList<String>();
+    // Total quantity per product ordered by product id, the order in which
+    // the product rows are locked
+    private static TreeMap<Integer, Integer> orderedQuantities(
+            Purchase purchase) {
+        var quantities = new TreeMap<Integer, Integer>();
         for (var line : purchase.getLines()) {
             var prod = line.getProduct();
             ensureProductExists(prod);
-            var productId = prod.getId();
-            @Nullable
-            Product product = session.get(Product.class, productId);
-            ensureProductExists(prod);
-            productsById.put(productId, product);
-            if (product.getStockCount() < line.getQuantity()) {
-                insufficientItems.add(String.format("%s: needs %d, has %d",
-                        product.getProductName(), line.getQuantity(),
-                        product.getStockCount()));
-            }
+            quantities.merge(prod.getId(), line.getQuantity(), Integer::sum);
         }
+        return quantities;
+    }
+
+    private static Map<Integer, Product> loadProducts(Session session,
+            Collection<Integer> productIds) {
+        var products = session.createQuery(
+                "from Product p where p.id in (:ids) order by p.id",
+                Product.class).setParameter("ids", productIds).list();
+        var productsById = HashMap
+                .<Integer, Product> newHashMap(products.size());
+        for (var product : products) {
+            productsById.put(product.getId(), product);
+        }
+        return productsById;
+    }
+
+    private static List<String> retrieveLowStockItems(
+            Map<Integer, Integer> quantities,
+            Map<Integer, Product> productsById) {
+        var insufficientItems = new ArrayList<String>();
+        quantities.forEach((productId, quantity) -> {
+            var product = productsById.get(productId);
+            if (product == null) {
+                throw new IllegalStateException(
+                        "Product not found for id: " + productId);
+            }
+            if (product.getStockCount() < quantity) {
+                insufficientItems.add(lowStockItem(product.getProductName(),
+                        quantity, product.getStockCount()));
+            }
+        });
         return insufficientItems;
     }
 
+    // Reserves the stock with conditional updates in product id order. If the
+    // stock of some product was taken by a concurrent approval, the
+    // reservations made so far are released and the low stock items are
+    // returned.
+    private static List<String> reserveStock(Session session,
+            Map<Integer, Integer> quantities,
+            Map<Integer, Product> productsById) {
+        var reserved = new ArrayList<Map.Entry<Integer, Integer>>();
+        for (var entry : quantities.entrySet()) {
+            var updated = session.createQuery(
+                    """
+                            update versioned Product p
+                            set p.stockCount = p.stockCount - :quantity
+                            where p.id = :id and p.stockCount >= :quantity
+                            """)
+                    .setParameter("quantity", entry.getValue())
+                    .setParameter("id", entry.getKey()).executeUpdate();
+            if (updated == 0) {
+                releaseStock(session, reserved);
+                var product = productsById.get(entry.getKey());
+                var stock = session.createQuery(
+                        "select p.stockCount from Product p where p.id = :id",
+                        Integer.class).setParameter("id", entry.getKey())
+                        .getSingleResult();
+                return List.of(lowStockItem(
+                        product != null ? product.getProductName() : "",
+                        entry.getValue(), stock));
+            }
+            reserved.add(entry);
+        }
+        // Keep the loaded products in line with the database without
+        // flushing them, the stock was already updated in bulk
+        reserved.forEach(entry -> {
+            var product = productsById.get(entry.getKey());
+            if (product != null) {
+                session.setReadOnly(product, true);
+                product.setStockCount(
+                        product.getStockCount() - entry.getValue());
+                product.setVersion(product.getVersion() + 1);
+            }
+        });
+        return List.of();
+    }
+
+    private static void releaseStock(Session session,
+            List<Map.Entry<Integer, Integer>> reserved) {
+        for (var entry : reserved) {
+            session.createQuery("""
+                    update versioned Product p
+                    set p.stockCount = p.stockCount + :quantity
+                    where p.id = :id
+                    """).setParameter("quantity", entry.getValue())
+                    .setParameter("id", entry.getKey()).executeUpdate();
+        }
+    }
+
+    private static String lowStockItem(String productName, int quantity,
+            int stock) {
+        return String.format("%s: needs %d, has %d", productName, quantity,
+                stock);
+    }
+
     /**
      * Rejects a pending purchase in a single transaction.
      *
@@ -496,26 +734,23 @@ public class PurchaseDao {
      *            required non-empty reason for rejection
      * @return the updated {@link Purchase}
      * @throws IllegalArgumentException
-     *             if the purchase is not PENDING
+     *             if the purchase is not PENDING, {@code currentUser} is not
+     *             the assigned approver or the reason is blank
      */
     public Purchase rejectPurchase(Integer purchaseId, User currentUser,
             String reason) {
         Objects.requireNonNull(purchaseId, PURCHASE_ID_MUST_NOT_BE_NULL);
         Objects.requireNonNull(currentUser, "Current user must not be null");
-        Objects.requireNonNull(reason, "Reason must not be null");
+        requireReason(reason);
         logger.info("Rejecting Purchase: ({}) by user: ({})", purchaseId,
                 currentUser.getId());
         @SuppressWarnings("unused")
         var result = HibernateUtil.inTransaction(session -> {
             @Nullable
             Purchase purchase = session.get(Purchase.class, purchaseId);
-            if (purchase == null) {
-                throw new IllegalArgumentException(
-                        "Purchase not found: " + purchaseId);
-            }
-            if (purchase.getStatus() != PurchaseStatus.PENDING) {
-                throw new IllegalArgumentException(
-                        "Purchase is not PENDING: " + purchaseId);
+            var error = validateDecision(purchaseId, purchase, currentUser);
+            if (error != null || purchase == null) {
+                throw new IllegalArgumentException(error);
             }
             purchase.setStatus(PurchaseStatus.REJECTED);
             purchase.setDecidedAt(getCurrentInstant());
@@ -530,6 +765,234 @@ public class PurchaseDao {
         return result;
     }
 
+    /**
+     * Approves pending purchases in chunked transactions of
+     * {@link HibernateUtil#getBatchSize()} purchases. The stock of each chunk
+     * is checked against one product load and reserved with one conditional
+     * update per product, in product id order. Purchases are allocated stock
+     * in the given order, purchases that do not get enough stock are
+     * cancelled. If the stock was changed concurrently or the chunk fails
+     * otherwise, the purchases of the chunk are approved one by one.
+     *
+     * @param purchaseIds
+     *            the purchases to approve
+     * @param currentUser
+     *            the user performing the approval
+     * @param decisionCommentOrNull
+     *            optional comment
+     * @return result per purchase in the given order
+     */
+    public List<DecisionResult> approvePurchases(List<Integer> purchaseIds,
+            User currentUser, @Nullable String decisionCommentOrNull) {
+        Objects.requireNonNull(purchaseIds, "Purchase IDs must not be null");
+        Objects.requireNonNull(currentUser, "Current user must not be null");
+        logger.info("Approving {} purchases by user: ({})", purchaseIds.size(),
+                currentUser.getId());
+        return decideInChunks(purchaseIds,
+                chunk -> approveChunk(chunk, currentUser,
+                        decisionCommentOrNull),
+                purchaseId -> toResult(approvePurchase(purchaseId,
+                        currentUser, decisionCommentOrNull)));
+    }
+
+    /**
+     * Rejects pending purchases in chunked transactions of
+     * {@link HibernateUtil#getBatchSize()} purchases. If a chunk fails, the
+     * purchases of the chunk are rejected one by one.
+     *
+     * @param purchaseIds
+     *            the purchases to reject
+     * @param currentUser
+     *            the user performing the rejection
+     * @param reason
+     *            required non-empty reason for rejection
+     * @return result per purchase in the given order
+     * @throws IllegalArgumentException
+     *             if the reason is blank
+     */
+    public List<DecisionResult> rejectPurchases(List<Integer> purchaseIds,
+            User currentUser, String reason) {
+        Objects.requireNonNull(purchaseIds, "Purchase IDs must not be null");
+        Objects.requireNonNull(currentUser, "Current user must not be null");
+        requireReason(reason);
+        logger.info("Rejecting {} purchases by user: ({})", purchaseIds.size(),
+                currentUser.getId());
+        return decideInChunks(purchaseIds,
+                chunk -> rejectChunk(chunk, currentUser, reason),
+                purchaseId -> toResult(
+                        rejectPurchase(purchaseId, currentUser, reason)));
+    }
+
+    private static void requireReason(String reason) {
+        Objects.requireNonNull(reason, "Reason must not be null");
+        if (reason.isBlank()) {
+            throw new IllegalArgumentException("Reason must not be empty");
+        }
+    }
+
+    private List<DecisionResult> decideInChunks(List<Integer> purchaseIds,
+            Function<List<Integer>, List<DecisionResult>> chunkDecision,
+            Function<Integer, DecisionResult> singleDecision) {
+        var ids = List.copyOf(new LinkedHashSet<>(purchaseIds));
+        var batchSize = HibernateUtil.getBatchSize();
+        var results = new ArrayList<DecisionResult>(ids.size());
+        for (int i = 0; i < ids.size(); i += batchSize) {
+            var chunk = ids.subList(i, Math.min(ids.size(), i + batchSize));
+            try {
+                results.addAll(chunkDecision.apply(chunk));
+            } catch (DatabaseConnectionException | CancellationException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                logger.warn("Deciding {} purchases failed, retrying one by one",
+                        chunk.size(), e);
+                for (var purchaseId : chunk) {
+                    results.add(decideSingle(purchaseId, singleDecision));
+                }
+            }
+        }
+        return results;
+    }
+
+    private DecisionResult decideSingle(Integer purchaseId,
+            Function<Integer, DecisionResult> singleDecision) {
+        try {
+            return singleDecision.apply(purchaseId);
+        } catch (DatabaseConnectionException | CancellationException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            logger.warn("Deciding purchase ({}) failed: {}", purchaseId,
+                    e.getMessage());
+            return DecisionResult.failed(purchaseId,
+                    String.valueOf(e.getMessage()));
+        }
+    }
+
+    private List<DecisionResult> approveChunk(List<Integer> chunk,
+            User currentUser, @Nullable String decisionCommentOrNull) {
+        return decideChunk(chunk, currentUser, (session, pending) -> {
+            var quantitiesByPurchase = new LinkedHashMap<Purchase, TreeMap<Integer, Integer>>();
+            var required = new TreeMap<Integer, Integer>();
+            for (var purchase : pending) {
+                var quantities = orderedQuantities(purchase);
+                quantitiesByPurchase.put(purchase, quantities);
+                quantities.forEach((productId, quantity) -> required
+                        .merge(productId, quantity, Integer::sum));
+            }
+            if (required.isEmpty()) {
+                return;
+            }
+            // Allocate the stock of one product load to the purchases in
+            // order, then reserve the total with one update per product
+            var productsById = loadProducts(session, required.keySet());
+            var available = new HashMap<Integer, Integer>();
+            productsById.forEach((productId, product) -> available
+                    .put(productId, product.getStockCount()));
+            var reserved = new TreeMap<Integer, Integer>();
+            quantitiesByPurchase.forEach((purchase, quantities) -> {
+                var insufficientItems = new ArrayList<String>();
+                quantities.forEach((productId, quantity) -> {
+                    var product = productsById.get(productId);
+                    if (product == null) {
+                        throw new IllegalStateException(
+                                "Product not found for id: " + productId);
+                    }
+                    var stock = available.getOrDefault(productId, 0);
+                    if (stock < quantity) {
+                        insufficientItems.add(lowStockItem(
+                                product.getProductName(), quantity, stock));
+                    }
+                });
+                purchase.setDecidedAt(getCurrentInstant());
+                if (insufficientItems.isEmpty()) {
+                    quantities.forEach((productId, quantity) -> {
+                        available.merge(productId, -quantity, Integer::sum);
+                        reserved.merge(productId, quantity, Integer::sum);
+                    });
+                    purchase.setStatus(PurchaseStatus.COMPLETED);
+                    purchase.setDecisionReason(decisionCommentOrNull);
+                } else {
+                    purchase.setStatus(PurchaseStatus.CANCELLED);
+                    purchase.setDecisionReason("Insufficient stock: "
+                            + String.join(", ", insufficientItems));
+                }
+            });
+            if (!reserveStock(session, reserved, productsById).isEmpty()) {
+                // Rolls back the chunk, approved again one by one
+                throw new IllegalStateException(
+                        "Stock was changed concurrently");
+            }
+        });
+    }
+
+    private List<DecisionResult> rejectChunk(List<Integer> chunk,
+            User currentUser, String reason) {
+        return decideChunk(chunk, currentUser,
+                (session, pending) -> pending.forEach(purchase -> {
+                    purchase.setStatus(PurchaseStatus.REJECTED);
+                    purchase.setDecidedAt(getCurrentInstant());
+                    purchase.setDecisionReason(reason);
+                }));
+    }
+
+    // Loads the purchases of the chunk in one transaction, validates them and
+    // applies the decision to the pending ones
+    private List<DecisionResult> decideChunk(List<Integer> chunk,
+            User currentUser,
+            BiConsumer<Session, List<Purchase>> decision) {
+        var result = HibernateUtil.inTransaction(session -> {
+            var purchasesById = new HashMap<Integer, Purchase>();
+            for (var purchase : fetchPurchasesWithLinesByIds(session, chunk)) {
+                purchasesById.put(purchase.getId(), purchase);
+            }
+            var errors = new HashMap<Integer, String>();
+            var pending = new ArrayList<Purchase>();
+            for (var purchaseId : chunk) {
+                var purchase = purchasesById.get(purchaseId);
+                var error = validateDecision(purchaseId, purchase,
+                        currentUser);
+                if (error != null) {
+                    errors.put(purchaseId, error);
+                } else if (purchase != null) {
+                    pending.add(purchase);
+                }
+            }
+            decision.accept(session, pending);
+            return chunk.stream()
+                    .map(purchaseId -> errors.containsKey(purchaseId)
+                            ? DecisionResult.failed(purchaseId,
+                                    errors.get(purchaseId))
+                            : toResult(purchasesById.get(purchaseId)))
+                    .toList();
+        });
+        if (result == null) {
+            throw new IllegalStateException("Result of decideChunk is null");
+        }
+        return result;
+    }
+
+    @Nullable
+    private static String validateDecision(Integer purchaseId,
+            @Nullable Purchase purchase, User currentUser) {
+        if (purchase == null) {
+            return "Purchase not found: " + purchaseId;
+        }
+        if (purchase.getStatus() != PurchaseStatus.PENDING) {
+            return "Purchase is not PENDING: " + purchaseId;
+        }
+        var storedApprover = purchase.getApprover();
+        if (storedApprover == null || !Objects.equals(storedApprover.getId(),
+                currentUser.getId())) {
+            return "Current user is not the assigned approver";
+        }
+        return null;
+    }
+
+    @SuppressWarnings("null")
+    private static DecisionResult toResult(Purchase purchase) {
+        return new DecisionResult(purchase.getId(), purchase.getStatus(),
+                purchase.getDecisionReason());
+    }
+
     /**
      * Returns the top N products by total purchased quantity (COMPLETED
      * purchases only), ordered descending.
@@ -551,7 +1014,7 @@ public class PurchaseDao {
                 group by pl.product.id, pl.product.productName
                 order by sum(pl.quantity) desc
                 """;
-        var result = HibernateUtil.inSession(session -> {
+        var result = HibernateUtil.inReadOnlySession(session -> {
             return session
                     .createQuery(topProductsByQuantityQuery, Object[].class)
                     .setParameter(PURCHASE_STATUS_PARAM,
@@ -588,7 +1051,7 @@ public class PurchaseDao {
                 having sum(pl.quantity) > 0
                 order by sum(pl.quantity) asc
                 """;
-        var result = HibernateUtil.inSession(session -> {
+        var result = HibernateUtil.inReadOnlySession(session -> {
             return session
                     .createQuery(leastProductsByQuantityQuery, Object[].class)
                     .setParameter(PURCHASE_STATUS_PARAM,
@@ -623,7 +1086,7 @@ public class PurchaseDao {
                 where pl.purchase.status = :status
                 and pl.purchase.decidedAt >= :since
                 """;
-        var result = HibernateUtil.inSession(session -> {
+        var result = HibernateUtil.inReadOnlySession(session -> {
             return session
                     .createQuery(completedPurchaseLinesQuery, Object[].class)
                     .setParameter(PURCHASE_STATUS_PARAM,
@@ -649,7 +1112,7 @@ public class PurchaseDao {
     public long countPurchasesOlderThan(Instant cutoff) {
         Objects.requireNonNull(cutoff, "Cutoff must not be null");
         logger.debug("Counting purchases older than {}", cutoff);
-        var result = HibernateUtil.inSession(session -> {
+        var result = HibernateUtil.inReadOnlySession(session -> {
             @Nullable
             Long count = session
                     .createQuery(
@@ -661,42 +1124,165 @@ public class PurchaseDao {
         return result != null ? result : 0L;
     }
 
+    /**
+     * Creates the partitions of the current and the next months if the
+     * purchase table is partitioned. The partitions of later months are
+     * created when the purchases of them are saved.
+     */
+    public void createUpcomingPartitions() {
+        PurchasePartitions.createUpcomingPartitions();
+    }
+
     /**
      * Deletes all purchases whose {@code createdAt} is strictly before the
-     * given cutoff instant in a single transaction. Associated
+     * given cutoff instant. If the purchase table is partitioned by month, the
+     * partitions of the months before the cutoff are dropped. The remaining
+     * purchases are deleted in chunks of {@code -Dpurchase.purgeChunkSize}
+     * (default 1000) purchases, each chunk in its own transaction, so that the
+     * bind lists, the transactions and the held locks stay small. Associated
      * {@link org.vaadin.tatu.vaadincreate.backend.data.PurchaseLine} entities
      * are removed first (JPQL bulk delete bypasses JPA cascade, so lines are
      * explicitly deleted before purchases). Referenced {@code User} and
      * {@code Product} master data are not modified.
+     * <p>
+     * The committed chunks stay deleted if the purge is interrupted, e.g. by
+     * cancelling the {@code CancellationScope} it runs in, and running the
+     * purge again with the same cutoff resumes from where it stopped.
+     *
+     * @param cutoff
+     *            the exclusive upper bound for {@code createdAt}; must not be
+     *            null
+     * @param listener
+     *            notified after each committed chunk
+     * @return number of purchases deleted
+     */
+    public long purgePurchasesOlderThan(Instant cutoff,
+            PurgeProgressListener listener) {
+        return purgePurchasesOlderThan(cutoff, null, listener);
+    }
+
+    /**
+     * Deletes all purchases whose {@code createdAt} is strictly before the
+     * given cutoff instant like
+     * {@link #purgePurchasesOlderThan(Instant, PurgeProgressListener)}, and
+     * passes the purchases with their lines to the archiver before deleting
+     * them. The archiver is called in the transaction deleting the purchases,
+     * so the purchases are not deleted if archiving fails.
      *
      * @param cutoff
      *            the exclusive upper bound for {@code createdAt}; must not be
      *            null
+     * @param archiver
+     *            called with the purchases to delete, or null for no archiving
+     * @param listener
+     *            notified after each committed chunk
      * @return number of purchases deleted
      */
-    public long purgePurchasesOlderThan(Instant cutoff) {
+    public long purgePurchasesOlderThan(Instant cutoff,
+            @Nullable Consumer<List<Purchase>> archiver,
+            PurgeProgressListener listener) {
         Objects.requireNonNull(cutoff, "Cutoff must not be null");
-        logger.info("Purging purchases older than {}", cutoff);
-        var result = HibernateUtil.inTransaction(session -> {
-            var ids = session
-                    .createQuery(
-                            "select p.id from Purchase p where p.createdAt < :cutoff")
-                    .setParameter("cutoff", cutoff).list();
+        Objects.requireNonNull(listener, "Listener must not be null");
+        var total = countPurchasesOlderThan(cutoff);
+        logger.info("Purging {} purchases older than {} in chunks of {}",
+                total, cutoff, purgeChunkSize);
+        return purgeInChunks(cutoff, archiver, listener, total);
+    }
+
+    private long purgeInChunks(Instant cutoff,
+            @Nullable Consumer<List<Purchase>> archiver,
+            PurgeProgressListener listener, long total) {
+        long purged = 0;
+        // Whole months of a partitioned purchase table are dropped at once
+        var months = HibernateUtil.inSession(session -> {
+            return PurchasePartitions.findMonthsOlderThan(session, cutoff);
+        });
+        if (months == null) {
+            throw new IllegalStateException(
+                    "Result of findMonthsOlderThan is null");
+        }
+        for (var month : months) {
+            var dropped = HibernateUtil.inTransaction(session -> {
+                if (archiver != null) {
+                    archiveMonth(session, month, archiver);
+                }
+                PurchaseDayCounts.removeMonth(session, month);
+                return PurchasePartitions.dropMonth(session, month);
+            });
+            if (dropped == null) {
+                throw new IllegalStateException("Result of dropMonth is null");
+            }
+            purged += dropped;
+            listener.purgeProgress(purged, Math.max(total, purged));
+        }
+        // The rest, or everything if the table is not partitioned, in chunks
+        while (true) {
+            // A cancelled scope fails when the next session is opened
+            var result = HibernateUtil.inTransaction(session -> {
+                return purgeChunk(session, cutoff, archiver);
+            });
+            if (result == null) {
+                throw new IllegalStateException("Result of purgeChunk is null");
+            }
+            if (result == 0) {
+                break;
+            }
+            purged += result;
+            logger.debug("Purged {}/{} purchases older than {}", purged, total,
+                    cutoff);
+            listener.purgeProgress(purged, Math.max(total, purged));
+        }
+        logger.info("Purged {} purchases older than {}", purged, cutoff);
+        return purged;
+    }
+
+    // Archives the purchases of the month in chunks ordered by id
+    private void archiveMonth(Session session, YearMonth month,
+            Consumer<List<Purchase>> archiver) {
+        var start = PurchasePartitions.monthStart(month);
+        var end = PurchasePartitions.monthStart(month.plusMonths(1));
+        var lastId = Integer.MIN_VALUE;
+        while (true) {
+            var ids = session.createQuery("""
+                    select p.id from Purchase p
+                    where p.createdAt >= :start and p.createdAt < :end
+                    and p.id > :lastId
+                    order by p.id
+                    """, Integer.class).setParameter("start", start)
+                    .setParameter("end", end).setParameter("lastId", lastId)
+                    .setMaxResults(purgeChunkSize).list();
             if (ids.isEmpty()) {
-                return 0L;
+                return;
             }
-            // JPQL bulk delete bypasses JPA cascade; delete child lines first.
-            session.createQuery(
-                    "delete from PurchaseLine pl where pl.purchase.id in (:ids)")
-                    .setParameter("ids", ids).executeUpdate();
-            long deleted = session
-                    .createQuery(
-                            "delete from Purchase p where p.id in (:ids)")
-                    .setParameter("ids", ids).executeUpdate();
-            logger.info("Purged {} purchases older than {}", deleted, cutoff);
-            return deleted;
-        });
-        return result != null ? result : 0L;
+            archiver.accept(fetchPurchasesWithLinesByIds(session, ids));
+            session.clear();
+            lastId = ids.get(ids.size() - 1);
+        }
+    }
+
+    private long purgeChunk(Session session, Instant cutoff,
+            @Nullable Consumer<List<Purchase>> archiver) {
+        var rows = session.createQuery(
+                "select p.id, p.createdAt from Purchase p where p.createdAt < :cutoff",
+                Object[].class).setParameter("cutoff", cutoff)
+                .setMaxResults(purgeChunkSize).list();
+        if (rows.isEmpty()) {
+            return 0L;
+        }
+        var ids = rows.stream().map(row -> (Integer) row[0]).toList();
+        PurchaseDayCounts.remove(session,
+                rows.stream().map(row -> (Instant) row[1]).toList());
+        if (archiver != null) {
+            archiver.accept(fetchPurchasesWithLinesByIds(session, ids));
+            session.clear();
+        }
+        // JPQL bulk delete bypasses JPA cascade; delete child lines first.
+        session.createQuery(
+                "delete from PurchaseLine pl where pl.purchase.id in (:ids)")
+                .setParameter("ids", ids).executeUpdate();
+        return session
+                .createQuery("delete from Purchase p where p.id in (:ids)")
+                .setParameter("ids", ids).executeUpdate();
     }
 
     /**
@@ -708,7 +1294,7 @@ public class PurchaseDao {
         Objects.requireNonNull(from, "From must not be null");
         Objects.requireNonNull(toExclusive, "To must not be null");
         logger.debug("Fetching purchases between {} and {}", from, toExclusive);
-        var result = HibernateUtil.inSession(session -> {
+        var result = HibernateUtil.inReadOnlySession(session -> {
             var purchaseIds = session.createQuery(
                     """
                             select p.id from Purchase p
@@ -729,7 +1315,11 @@ public class PurchaseDao {
     /**
      * Resolves the first index in history ordering where created-at is on or
      * after the given boundary. Ordering is created-at descending, id
-     * ascending.
+     * ascending. If there is no row at the boundary, the index of the last row
+     * after it is returned. The rows of the days after the day of the boundary
+     * are summed up from the per-day purchase counts, and only the rows of
+     * that day are counted with a conditional count query, which counts the
+     * rows after the boundary and the rows at the boundary together.
      *
      * @param fromInclusive
      *            inclusive boundary instant
@@ -740,39 +1330,7 @@ public class PurchaseDao {
         Objects.requireNonNull(fromInclusive, "From must not be null");
         logger.debug("Resolving first matching row index from {}",
                 fromInclusive);
-        var result = HibernateUtil.inSession(session -> {
-            @Nullable
-            Long countBefore = session.createQuery(
-                    """
-                            select count(p) from Purchase p
-                            where p.createdAt > :from
-                            """,
-                    Long.class).setParameter("from", fromInclusive)
-                    .uniqueResult();
-            @Nullable
-            Long equalCount = session.createQuery(
-                    """
-                            select count(p) from Purchase p
-                            where p.createdAt = :from
-                            """,
-                    Long.class).setParameter("from", fromInclusive)
-                    .uniqueResult();
-            long before = countBefore != null ? countBefore : 0L;
-            long equals = equalCount != null ? equalCount : 0L;
-            if (equals > 0L) {
-                return before;
-            }
-            @Nullable
-            Long lastBefore = session.createQuery(
-                    """
-                            select count(p) from Purchase p
-                            where p.createdAt >= :from
-                            """,
-                    Long.class).setParameter("from", fromInclusive)
-                    .uniqueResult();
-            long index = lastBefore != null ? lastBefore : 0L;
-            return index > 0L ? index - 1L : null;
-        });
+        var result = queryFirstMatchingRowIndex(fromInclusive);
         if (result == null) {
             return null;
         }
@@ -780,6 +1338,36 @@ public class PurchaseDao {
                 : Integer.valueOf(result.intValue());
     }
 
+    @Nullable
+    private Long queryFirstMatchingRowIndex(Instant fromInclusive) {
+        var day = PurchaseDayCounts.dayOf(fromInclusive);
+        var nextDayStart = PurchaseDayCounts.dayStart(day.plusDays(1));
+        return HibernateUtil.inReadOnlySession(session -> {
+            var counts = session.createQuery(
+                    """
+                            select
+                            sum(case when p.createdAt > :from then 1 else 0 end),
+                            sum(case when p.createdAt = :from then 1 else 0 end)
+                            from Purchase p
+                            where p.createdAt >= :from and p.createdAt < :to
+                            """,
+                    Object[].class).setParameter("from", fromInclusive)
+                    .setParameter("to", nextDayStart).uniqueResult();
+            // The sums are null when no row matches
+            long after = PurchaseDayCounts.countAfter(session, day)
+                    + (counts != null && counts[0] != null
+                            ? ((Number) counts[0]).longValue()
+                            : 0L);
+            long equal = counts != null && counts[1] != null
+                    ? ((Number) counts[1]).longValue()
+                    : 0L;
+            if (equal > 0L) {
+                return after;
+            }
+            return after > 0L ? after - 1L : null;
+        });
+    }
+
     @SuppressWarnings("null")
     private Logger logger = LoggerFactory.getLogger(this.getClass());
 }
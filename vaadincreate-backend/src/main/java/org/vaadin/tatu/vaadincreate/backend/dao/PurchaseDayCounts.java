@@ -0,0 +1,199 @@
+package org.vaadin.tatu.vaadincreate.backend.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import org.hibernate.Session;
+import org.jspecify.annotations.NullMarked;
+import org.vaadin.tatu.vaadincreate.backend.data.PurchaseDayCount;
+
+/**
+ * Maintenance of the per-day purchase counts in {@link PurchaseDayCount}. The
+ * counts are updated in the transaction that inserts or deletes the
+ * purchases, so they are consistent with the purchase table on every node
+ * without database triggers.
+ * <p>
+ * The counts are updated with plain SQL that works on H2 and PostgreSQL. The
+ * days are updated in date order, so concurrent transactions lock the rows in
+ * the same order. If two transactions insert the first purchase of a day at
+ * the same time, the loser of the insert rolls back to a savepoint and
+ * updates the row inserted by the winner.
+ */
+@NullMarked
+final class PurchaseDayCounts {
+
+    private static final String UPDATE = """
+            update purchase_day_count
+            set purchase_count = purchase_count + ?
+            where purchase_day = ?
+            """;
+    private static final String INSERT = """
+            insert into purchase_day_count (purchase_day, purchase_count)
+            values (?, ?)
+            """;
+    private static final String DELETE_EMPTY = """
+            delete from purchase_day_count
+            where purchase_day = ? and purchase_count <= 0
+            """;
+    private static final String DELETE_RANGE = """
+            delete from purchase_day_count
+            where purchase_day >= ? and purchase_day < ?
+            """;
+
+    private PurchaseDayCounts() {
+        // Utility class
+    }
+
+    /**
+     * Adds the purchases created at the given instants to the counts.
+     *
+     * @param session
+     *            the session of the transaction inserting the purchases
+     * @param createdAts
+     *            the created-at instants of the inserted purchases
+     */
+    static void add(Session session, Collection<Instant> createdAts) {
+        apply(session, deltas(createdAts, 1));
+    }
+
+    /**
+     * Removes the purchases created at the given instants from the counts.
+     *
+     * @param session
+     *            the session of the transaction deleting the purchases
+     * @param createdAts
+     *            the created-at instants of the deleted purchases
+     */
+    static void remove(Session session, Collection<Instant> createdAts) {
+        apply(session, deltas(createdAts, -1));
+    }
+
+    /**
+     * Removes the counts of the days of the month, when the whole month has
+     * been deleted.
+     *
+     * @param session
+     *            the session of the transaction deleting the month
+     * @param month
+     *            the deleted month
+     */
+    static void removeMonth(Session session, YearMonth month) {
+        Objects.requireNonNull(month, "Month must not be null");
+        session.doWork(connection -> {
+            try (var delete = connection.prepareStatement(DELETE_RANGE)) {
+                delete.setObject(1, month.atDay(1));
+                delete.setObject(2, month.plusMonths(1).atDay(1));
+                delete.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Counts the purchases created on the days after the given day.
+     *
+     * @param session
+     *            the session
+     * @param day
+     *            the day
+     * @return the number of purchases
+     */
+    static long countAfter(Session session, LocalDate day) {
+        var count = session.createQuery("""
+                select coalesce(sum(c.purchaseCount), 0)
+                from PurchaseDayCount c where c.purchaseDay > :day
+                """, Long.class).setParameter("day", day).getSingleResult();
+        return count != null ? count : 0L;
+    }
+
+    /**
+     * Gets the day of the created-at instant.
+     *
+     * @param createdAt
+     *            the instant
+     * @return the day in the JVM time zone
+     */
+    static LocalDate dayOf(Instant createdAt) {
+        return LocalDate.ofInstant(createdAt, ZoneId.systemDefault());
+    }
+
+    /**
+     * Gets the start of the day as stored in {@code created_at}.
+     *
+     * @param day
+     *            the day
+     * @return the start of the day in the JVM time zone
+     */
+    static Instant dayStart(LocalDate day) {
+        return day.atStartOfDay(ZoneId.systemDefault()).toInstant();
+    }
+
+    private static Map<LocalDate, Long> deltas(Collection<Instant> createdAts,
+            long delta) {
+        Objects.requireNonNull(createdAts, "Created-at must not be null");
+        var deltas = new TreeMap<LocalDate, Long>();
+        createdAts.forEach(createdAt -> deltas.merge(dayOf(createdAt), delta,
+                Long::sum));
+        return deltas;
+    }
+
+    private static void apply(Session session, Map<LocalDate, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        session.doWork(connection -> {
+            for (var entry : deltas.entrySet()) {
+                var day = entry.getKey();
+                long delta = entry.getValue();
+                if (update(connection, day, delta) == 0 && delta > 0) {
+                    insert(connection, day, delta);
+                }
+                if (delta < 0) {
+                    try (var delete = connection
+                            .prepareStatement(DELETE_EMPTY)) {
+                        delete.setObject(1, day);
+                        delete.executeUpdate();
+                    }
+                }
+            }
+        });
+    }
+
+    private static int update(Connection connection, LocalDate day,
+            long delta) throws SQLException {
+        try (var update = connection.prepareStatement(UPDATE)) {
+            update.setLong(1, delta);
+            update.setObject(2, day);
+            return update.executeUpdate();
+        }
+    }
+
+    private static void insert(Connection connection, LocalDate day,
+            long delta) throws SQLException {
+        var savepoint = connection.setSavepoint();
+        try (var insert = connection.prepareStatement(INSERT)) {
+            insert.setObject(1, day);
+            insert.setLong(2, delta);
+            insert.executeUpdate();
+            connection.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            // Integrity constraint violation, the row was inserted by a
+            // concurrent transaction after the update
+            var state = e.getSQLState();
+            if (state == null || !state.startsWith("23")) {
+                throw e;
+            }
+            connection.rollback(savepoint);
+            if (update(connection, day, delta) == 0) {
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package org.vaadin.tatu.vaadincreate.backend.dao;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+import org.hibernate.Session;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Maintenance of the monthly partitions of the purchase table. The partitions
+ * are optional and exist only in PostgreSQL databases migrated with
+ * {@code vaadincreate-partitioning.sql}, in other databases the purchase table
+ * is unpartitioned and the methods of this class do nothing.
+ * <p>
+ * The partitions are named {@code purchase_yYYYYmMM} and range over the
+ * {@code created_at} timestamps of the month. They are created before the
+ * purchases of the month are inserted, so that the purchases are routed to
+ * their partition instead of the default partition.
+ */
+@NullMarked
+final class PurchasePartitions {
+
+    private static final Pattern PARTITION_NAME = Pattern
+            .compile("purchase_y(\\d{4})m(\\d{2})");
+
+    // Number of months ahead for which the partitions are created
+    private static final int MONTHS_AHEAD = 2;
+
+    @Nullable
+    private static volatile Boolean partitioned;
+
+    // The last month up to which the partitions are known to exist
+    @Nullable
+    private static volatile YearMonth createdUntil;
+
+    private PurchasePartitions() {
+        // Utility class
+    }
+
+    /**
+     * Checks whether the purchase table is partitioned. The result is cached.
+     *
+     * @param session
+     *            the session
+     * @return true if the purchase table is partitioned
+     */
+    static boolean isPartitioned(Session session) {
+        var result = partitioned;
+        if (result == null) {
+            result = detectPartitioning(session);
+            partitioned = result;
+            logger.info("Purchase table partitioned: {}", result);
+        }
+        return result;
+    }
+
+    /**
+     * Creates the partitions of the current and the next months unless they
+     * already exist.
+     */
+    static void createUpcomingPartitions() {
+        ensurePartitions(List.of());
+    }
+
+    /**
+     * Creates the partitions for the purchases about to be inserted, and for
+     * the months following them, unless they are known to exist already. The
+     * database is accessed only when a purchase falls after the months created
+     * so far, e.g. once a month on a long running node. The partitions are
+     * created in their own transaction, so that they are not rolled back with
+     * a failed insert.
+     *
+     * @param createdAts
+     *            the {@code createdAt} timestamps of the purchases
+     */
+    static void ensurePartitions(Collection<Instant> createdAts) {
+        var months = monthsToCreate(createdUntil, YearMonth.now(), createdAts);
+        if (months.isEmpty() || Boolean.FALSE.equals(partitioned)) {
+            return;
+        }
+        HibernateUtil.inTransaction(session -> {
+            if (isPartitioned(session)) {
+                months.forEach(month -> createPartition(session, month));
+            }
+        });
+        createdUntil = months.get(months.size() - 1);
+    }
+
+    private static void createPartition(Session session, YearMonth month) {
+        // Returns false if the partition exists, e.g. created by another node
+        var created = session
+                .createNativeQuery(
+                        "select public.create_purchase_partition(:month)")
+                .setParameter("month", month.atDay(1)).getSingleResult();
+        if (Boolean.TRUE.equals(created)) {
+            logger.info("Created purchase partition for {}", month);
+        }
+    }
+
+    /**
+     * Gets the months whose partitions need to be created. These are the
+     * months from the current month, or from the month after the last one
+     * already created, up to {@value #MONTHS_AHEAD} months after the latest
+     * purchase. Nothing is created if the latest purchase falls within the
+     * months already created.
+     *
+     * @param createdUntil
+     *            the last month already created, or {@code null} if none
+     * @param current
+     *            the current month
+     * @param createdAts
+     *            the {@code createdAt} timestamps of the purchases
+     * @return the months ordered from the oldest
+     */
+    static List<YearMonth> monthsToCreate(@Nullable YearMonth createdUntil,
+            YearMonth current, Collection<Instant> createdAts) {
+        var latest = createdAts.stream().filter(Objects::nonNull)
+                .map(PurchasePartitions::monthOf)
+                .filter(month -> month.isAfter(current))
+                .max(YearMonth::compareTo).orElse(current);
+        if (createdUntil != null && !latest.isAfter(createdUntil)) {
+            return List.of();
+        }
+        var month = createdUntil != null && createdUntil.isAfter(current)
+                ? createdUntil.plusMonths(1)
+                : current;
+        var last = latest.plusMonths(MONTHS_AHEAD);
+        var months = new ArrayList<YearMonth>();
+        while (!month.isAfter(last)) {
+            months.add(month);
+            month = month.plusMonths(1);
+        }
+        return months;
+    }
+
+    /**
+     * Finds the monthly partitions which contain only purchases created
+     * before the cutoff, i.e. the partitions of the months ending at or before
+     * the cutoff.
+     *
+     * @param session
+     *            the session
+     * @param cutoff
+     *            the exclusive upper bound for {@code createdAt}
+     * @return the months ordered from the oldest
+     */
+    static List<YearMonth> findMonthsOlderThan(Session session,
+            Instant cutoff) {
+        if (!isPartitioned(session)) {
+            return List.of();
+        }
+        // created_at is stored as local timestamp of the JVM time zone
+        var localCutoff = LocalDateTime.ofInstant(cutoff,
+                ZoneId.systemDefault());
+        @SuppressWarnings("unchecked")
+        List<String> names = session.createNativeQuery(
+                "select c.relname from pg_inherits i "
+                        + "join pg_class c on c.oid = i.inhrelid "
+                        + "join pg_class p on p.oid = i.inhparent "
+                        + "where p.relname = 'purchase'")
+                .getResultList();
+        return names.stream().map(PARTITION_NAME::matcher)
+                .filter(matcher -> matcher.matches())
+                .map(matcher -> YearMonth.of(
+                        Integer.parseInt(matcher.group(1)),
+                        Integer.parseInt(matcher.group(2))))
+                .filter(month -> !month.plusMonths(1).atDay(1).atStartOfDay()
+                        .isAfter(localCutoff))
+                .sorted().toList();
+    }
+
+    /**
+     * Drops the partition of the month after deleting the lines of its
+     * purchases.
+     *
+     * @param session
+     *            the session, in a transaction
+     * @param month
+     *            the month
+     * @return number of purchases dropped
+     */
+    static long dropMonth(Session session, YearMonth month) {
+        Objects.requireNonNull(month, "Month must not be null");
+        var name = partitionName(month);
+        var count = ((Number) session
+                .createNativeQuery("select count(*) from public." + name)
+                .getSingleResult()).longValue();
+        session.createNativeQuery("delete from public.purchase_line "
+                + "where purchase_id in (select id from public." + name + ")")
+                .executeUpdate();
+        session.createNativeQuery("alter table public.purchase "
+                + "detach partition public." + name).executeUpdate();
+        session.createNativeQuery("drop table public." + name)
+                .executeUpdate();
+        logger.info("Dropped purchase partition {} with {} purchases", name,
+                count);
+        return count;
+    }
+
+    /**
+     * Gets the start of the month as stored in {@code created_at}.
+     *
+     * @param month
+     *            the month
+     * @return the start of the month in the JVM time zone
+     */
+    static Instant monthStart(YearMonth month) {
+        return month.atDay(1).atStartOfDay(ZoneId.systemDefault()).toInstant();
+    }
+
+    // created_at is stored as local timestamp of the JVM time zone
+    private static YearMonth monthOf(Instant createdAt) {
+        return YearMonth.from(createdAt.atZone(ZoneId.systemDefault()));
+    }
+
+    // The name is built from numbers only, so it is safe to use in SQL
+    private static String partitionName(YearMonth month) {
+        return "purchase_y%04dm%02d".formatted(month.getYear(),
+                month.getMonthValue());
+    }
+
+    private static boolean detectPartitioning(Session session) {
+        var dialect = session.getSessionFactory()
+                .unwrap(SessionFactoryImplementor.class).getJdbcServices()
+                .getDialect();
+        if (!(dialect instanceof PostgreSQL81Dialect)) {
+            return false;
+        }
+        var count = (Number) session.createNativeQuery(
+                "select count(*) from pg_partitioned_table t "
+                        + "join pg_class c on c.oid = t.partrelid "
+                        + "where c.relname = 'purchase'")
+                .getSingleResult();
+        return count.longValue() > 0;
+    }
+
+    private static Logger logger = LoggerFactory
+            .getLogger(PurchasePartitions.class);
+}
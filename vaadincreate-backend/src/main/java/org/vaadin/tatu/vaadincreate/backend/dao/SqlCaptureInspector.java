@@ -0,0 +1,20 @@
+package org.vaadin.tatu.vaadincreate.backend.dao;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * Statement inspector that captures the SQL statements of the current database
+ * call for slow call logging, see {@link DatabaseCallTracker}. Configured with
+ * {@code hibernate.session_factory.statement_inspector}. The statements are
+ * not modified and bind parameters are not captured.
+ */
+@NullMarked
+public class SqlCaptureInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        DatabaseCallTracker.statementPrepared(sql);
+        return sql;
+    }
+}
@@ -16,17 +16,20 @@ import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
-import javax.persistence.Transient;
 import javax.validation.constraints.NotNull;
 
+import org.hibernate.Hibernate;
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
 
 /**
  * Entity representing a purchase request in the system. A purchase contains
  * multiple lines of products, delivery information, and approval workflow
- * state.
+ * state. The total amount and the number of lines are stored with the
+ * purchase, so that they are available without loading the lines.
  */
 @NullMarked
 @SuppressWarnings({ "serial", "java:S2160" })
@@ -69,6 +72,12 @@ public class Purchase extends AbstractEntity {
     @Embedded
     private Address deliveryAddress;
 
+    @Column(name = "total_amount", nullable = false, precision = 12, scale = 2)
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+
+    @Column(name = "line_count", nullable = false)
+    private int lineCount;
+
     @OneToMany(mappedBy = "purchase", cascade = CascadeType.ALL, orphanRemoval = true)
     @SuppressWarnings("null")
     private List<PurchaseLine> lines = new ArrayList<>();
@@ -194,15 +203,46 @@ public class Purchase extends AbstractEntity {
     }
 
     /**
-     * Calculates the total amount for this purchase. This is a derived value
-     * summing all line totals.
+     * Gets the total amount for this purchase, i.e. the sum of all line
+     * totals. If the lines are not loaded, the stored total is returned.
      *
      * @return the total purchase amount
      */
-    @Transient
-    @SuppressWarnings("null")
     public BigDecimal getTotalAmount() {
+        return Hibernate.isInitialized(lines) ? sumLineTotals() : totalAmount;
+    }
+
+    /**
+     * Gets the number of lines in this purchase. If the lines are not loaded,
+     * the stored count is returned.
+     *
+     * @return the number of lines
+     */
+    public int getLineCount() {
+        return Hibernate.isInitialized(lines) ? lines.size() : lineCount;
+    }
+
+    /**
+     * Updates the stored total amount and line count from the lines. Called
+     * automatically before the purchase is inserted or updated, if the lines
+     * are loaded.
+     */
+    public void updateSummary() {
+        totalAmount = sumLineTotals();
+        lineCount = lines.size();
+    }
+
+    @SuppressWarnings("null")
+    private BigDecimal sumLineTotals() {
         return lines.stream().map(PurchaseLine::getLineTotal)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
+
+    @PrePersist
+    @PreUpdate
+    void updateSummaryIfLinesLoaded() {
+        if (Hibernate.isInitialized(lines)) {
+            updateSummary();
+        }
+    }
 }
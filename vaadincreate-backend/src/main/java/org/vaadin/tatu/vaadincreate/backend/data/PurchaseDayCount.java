@@ -0,0 +1,50 @@
+package org.vaadin.tatu.vaadincreate.backend.data;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Number of purchases created on a day, in the JVM time zone like the
+ * {@code created_at} timestamps. The counts are maintained in the same
+ * transactions that insert and purge purchases, and are used to resolve the
+ * row index of a date in the purchase history without counting the rows of
+ * the later days.
+ */
+@NullMarked
+@SuppressWarnings("serial")
+@Entity
+@Table(name = "purchase_day_count")
+public class PurchaseDayCount implements Serializable {
+
+    @Id
+    @Column(name = "purchase_day")
+    @Nullable
+    private LocalDate purchaseDay;
+
+    @Column(name = "purchase_count", nullable = false)
+    private long purchaseCount;
+
+    /**
+     * Default constructor.
+     */
+    public PurchaseDayCount() {
+        // Needed by JPA
+    }
+
+    @Nullable
+    public LocalDate getPurchaseDay() {
+        return purchaseDay;
+    }
+
+    public long getPurchaseCount() {
+        return purchaseCount;
+    }
+}
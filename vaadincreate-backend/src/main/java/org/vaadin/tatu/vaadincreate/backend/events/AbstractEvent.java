@@ -12,11 +12,14 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
         @JsonSubTypes.Type(value = UserUpdatedEvent.class, name = "UserUpdatedEvent"),
         @JsonSubTypes.Type(value = ShutdownEvent.class, name = "ShutdownEvent"),
         @JsonSubTypes.Type(value = PurchaseStatusChangedEvent.class, name = "PurchaseStatusChangedEvent"),
-        @JsonSubTypes.Type(value = PurchaseSavedEvent.class, name = "PurchaseSavedEvent") })
+        @JsonSubTypes.Type(value = PurchaseStatusesChangedEvent.class, name = "PurchaseStatusesChangedEvent"),
+        @JsonSubTypes.Type(value = PurchaseSavedEvent.class, name = "PurchaseSavedEvent"),
+        @JsonSubTypes.Type(value = HeartbeatEvent.class, name = "HeartbeatEvent") })
 public sealed interface AbstractEvent
         permits LockingEvent, MessageEvent, BooksChangedEvent,
         CategoriesUpdatedEvent, UserUpdatedEvent, ShutdownEvent,
-        PurchaseStatusChangedEvent, PurchaseSavedEvent {
+        PurchaseStatusChangedEvent, PurchaseStatusesChangedEvent,
+        PurchaseSavedEvent, HeartbeatEvent {
     // This interface serves as a marker for all event types in the system.
     // It can be extended with common methods or properties if needed in the
     // future.
@@ -0,0 +1,9 @@
+package org.vaadin.tatu.vaadincreate.backend.events;
+
+/**
+ * Published periodically by each node of the cluster to tell the other nodes
+ * that it is alive, and once more with {@code leaving} set when the node shuts
+ * down. The node is identified by the envelope of the event.
+ */
+public record HeartbeatEvent(boolean leaving) implements AbstractEvent {
+}
@@ -1,8 +1,11 @@
 package org.vaadin.tatu.vaadincreate.backend.events;
 
 /**
- * Locking event, which will be fired when object is locked or unlocked.
+ * Locking event, which will be fired when object is locked or unlocked. The
+ * nodeId is the id of the cluster node the lock is held on, so that the locks
+ * can be released if the node leaves the cluster.
  */
 public record LockingEvent(Class<?> type, Integer id, Integer userId,
-        String userName, boolean locked) implements AbstractEvent {
+        String userName, boolean locked, String nodeId)
+        implements AbstractEvent {
 }
@@ -0,0 +1,13 @@
+package org.vaadin.tatu.vaadincreate.backend.events;
+
+import java.util.List;
+
+/**
+ * Represents an event that is published when the statuses of several purchases
+ * change at once, e.g. in a bulk approval. Carries only the purchase ids;
+ * consumers must fetch the latest {@code Purchase} instances from the service.
+ */
+public record PurchaseStatusesChangedEvent(List<Integer> purchaseIds)
+        implements
+            AbstractEvent {
+}
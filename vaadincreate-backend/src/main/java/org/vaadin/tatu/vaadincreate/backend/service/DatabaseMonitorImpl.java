@@ -0,0 +1,53 @@
+package org.vaadin.tatu.vaadincreate.backend.service;
+
+import java.util.Objects;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.vaadin.tatu.vaadincreate.backend.DatabaseMonitor;
+import org.vaadin.tatu.vaadincreate.backend.dao.DatabaseCallTracker;
+
+/**
+ * Implementation of DatabaseMonitor delegating to the call tracking of the
+ * data access layer.
+ */
+@NullMarked
+@SuppressWarnings("java:S6548")
+public class DatabaseMonitorImpl implements DatabaseMonitor {
+
+    @Nullable
+    private static DatabaseMonitorImpl instance;
+
+    private DatabaseMonitorImpl() {
+    }
+
+    /**
+     * Gets the singleton instance of DatabaseMonitorImpl.
+     *
+     * @return the singleton instance
+     */
+    @SuppressWarnings("null")
+    public static synchronized DatabaseMonitor getInstance() {
+        if (instance == null) {
+            instance = new DatabaseMonitorImpl();
+        }
+        return instance;
+    }
+
+    @Override
+    public void addListener(DatabaseCallListener listener) {
+        Objects.requireNonNull(listener, "Listener must not be null");
+        DatabaseCallTracker.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(DatabaseCallListener listener) {
+        Objects.requireNonNull(listener, "Listener must not be null");
+        DatabaseCallTracker.removeListener(listener);
+    }
+
+    @Override
+    public DatabaseStatistics getStatistics() {
+        return DatabaseCallTracker.getStatistics();
+    }
+}
@@ -0,0 +1,366 @@
+package org.vaadin.tatu.vaadincreate.backend.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.vaadin.tatu.vaadincreate.backend.PurchaseService.PurchaseExportRow;
+
+/**
+ * Archive of purged purchases on local disk. The archive has one file per
+ * month of {@code createdAt}, holding the flattened export rows of the
+ * purchases of the month. The months are in the JVM time zone, like the
+ * months purged at once from a partitioned purchase table.
+ * <p>
+ * The files are column oriented: each write appends a block with the values
+ * of each column stored together, strings dictionary encoded, and each block
+ * compressed as a gzip member. A month purged in several chunks thus becomes
+ * a file of several blocks, which the reader concatenates. Rows are written
+ * and synced to disk before the purchases are deleted, so a purge which
+ * fails after archiving may archive the same rows again; the reader keeps
+ * the last copy of each row.
+ */
+@NullMarked
+final class PurchaseArchive {
+
+    private static final int MAGIC = 0x50415243; // "PARC"
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".col.gz";
+    private static final Pattern FILE_NAME = Pattern
+            .compile("purchases-(\\d{4}-\\d{2})\\.col\\.gz");
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter
+            .ofPattern("yyyy-MM");
+
+    private final Path directory;
+
+    /**
+     * Creates an archive in the given directory. The directory is created
+     * when the first rows are archived.
+     *
+     * @param directory
+     *            the archive directory
+     */
+    PurchaseArchive(Path directory) {
+        this.directory = Objects.requireNonNull(directory,
+                "Directory must not be null");
+    }
+
+    /**
+     * Creates the archive configured with {@code -Dpurchase.archive.dir}.
+     *
+     * @return the archive, or null if archiving is not configured
+     */
+    @Nullable
+    static PurchaseArchive fromSystemProperty() {
+        var dir = System.getProperty("purchase.archive.dir");
+        if (dir == null || dir.isBlank()) {
+            return null;
+        }
+        logger.info("Archiving purged purchases to {}", dir);
+        return new PurchaseArchive(Path.of(dir));
+    }
+
+    /**
+     * Appends the rows to the files of their months and syncs the files to
+     * disk.
+     *
+     * @param rows
+     *            the rows to archive
+     * @throws UncheckedIOException
+     *             if writing fails
+     */
+    synchronized void write(List<PurchaseExportRow> rows) {
+        Objects.requireNonNull(rows, "Rows must not be null");
+        var rowsByMonth = rows.stream()
+                .collect(Collectors.groupingBy(
+                        row -> monthOf(row.purchaseCreatedAt()),
+                        TreeMap::new, Collectors.toList()));
+        try {
+            Files.createDirectories(directory);
+            for (var entry : rowsByMonth.entrySet()) {
+                writeBlock(file(entry.getKey()), entry.getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Archiving purchases failed", e);
+        }
+        logger.debug("Archived {} purchase rows of months {}", rows.size(),
+                rowsByMonth.keySet());
+    }
+
+    /**
+     * Lists the archived months.
+     *
+     * @return the months, newest first
+     */
+    List<YearMonth> getMonths() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (var files = Files.list(directory)) {
+            return files
+                    .map(path -> FILE_NAME
+                            .matcher(path.getFileName().toString()))
+                    .filter(matcher -> matcher.matches())
+                    .map(matcher -> YearMonth.parse(matcher.group(1),
+                            MONTH_FORMAT))
+                    .sorted(Comparator.reverseOrder()).toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Listing archive failed", e);
+        }
+    }
+
+    /**
+     * Reads the rows of the month in history order, i.e. created-at
+     * descending, purchase id and line index ascending.
+     *
+     * @param month
+     *            the month
+     * @return the rows, empty if the month is not archived
+     */
+    synchronized List<PurchaseExportRow> read(YearMonth month) {
+        Objects.requireNonNull(month, "Month must not be null");
+        var file = file(month);
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+        // Rows archived twice are replaced by the latest copy
+        var rows = new LinkedHashMap<String, PurchaseExportRow>();
+        try (var in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file))))) {
+            while (readBlock(in, rows)) {
+                // Read all blocks
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Reading archive failed", e);
+        }
+        return rows.values().stream()
+                .sorted(Comparator
+                        .comparing(PurchaseExportRow::purchaseCreatedAt)
+                        .reversed()
+                        .thenComparing(PurchaseExportRow::purchaseId)
+                        .thenComparingInt(PurchaseExportRow::lineIndex))
+                .toList();
+    }
+
+    private Path file(YearMonth month) {
+        return directory.resolve(
+                "purchases-" + month.format(MONTH_FORMAT) + SUFFIX);
+    }
+
+    private static YearMonth monthOf(Instant instant) {
+        return YearMonth.from(instant.atZone(ZoneId.systemDefault()));
+    }
+
+    private static void writeBlock(Path file, List<PurchaseExportRow> rows)
+            throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            var gzip = new GZIPOutputStream(Channels.newOutputStream(channel));
+            var out = new DataOutputStream(new BufferedOutputStream(gzip));
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(rows.size());
+            writeInts(out, rows, PurchaseExportRow::purchaseId);
+            writeInstants(out, rows, PurchaseExportRow::purchaseCreatedAt);
+            writeStrings(out, rows, PurchaseExportRow::purchaseStatus);
+            writeStrings(out, rows, PurchaseExportRow::requesterName);
+            writeStrings(out, rows, PurchaseExportRow::approverName);
+            writeInstants(out, rows, PurchaseExportRow::purchaseDecidedAt);
+            writeStrings(out, rows, PurchaseExportRow::decisionReason);
+            writeDecimals(out, rows, PurchaseExportRow::purchaseTotalAmount);
+            writeInts(out, rows, PurchaseExportRow::lineIndex);
+            writeInts(out, rows, PurchaseExportRow::productId);
+            writeStrings(out, rows, PurchaseExportRow::productName);
+            writeDecimals(out, rows, PurchaseExportRow::unitPrice);
+            writeInts(out, rows, PurchaseExportRow::quantity);
+            writeDecimals(out, rows, PurchaseExportRow::lineTotal);
+            out.flush();
+            gzip.finish();
+            out.flush();
+            channel.force(true);
+        }
+    }
+
+    private static boolean readBlock(DataInputStream in,
+            Map<String, PurchaseExportRow> rows) throws IOException {
+        int magic;
+        try {
+            magic = in.readInt();
+        } catch (EOFException e) {
+            return false;
+        }
+        if (magic != MAGIC || in.readByte() != VERSION) {
+            throw new IOException("Unsupported archive format");
+        }
+        var count = in.readInt();
+        var purchaseIds = readInts(in, count);
+        var createdAts = readInstants(in, count);
+        var statuses = readStrings(in, count);
+        var requesters = readStrings(in, count);
+        var approvers = readStrings(in, count);
+        var decidedAts = readInstants(in, count);
+        var reasons = readStrings(in, count);
+        var totals = readDecimals(in, count);
+        var lineIndexes = readInts(in, count);
+        var productIds = readInts(in, count);
+        var productNames = readStrings(in, count);
+        var unitPrices = readDecimals(in, count);
+        var quantities = readInts(in, count);
+        var lineTotals = readDecimals(in, count);
+        for (int i = 0; i < count; i++) {
+            var row = new PurchaseExportRow(purchaseIds[i],
+                    required(createdAts[i]), required(statuses[i]),
+                    required(requesters[i]), approvers[i], decidedAts[i],
+                    reasons[i], required(totals[i]), lineIndexes[i],
+                    productIds[i], required(productNames[i]),
+                    required(unitPrices[i]), quantities[i],
+                    required(lineTotals[i]));
+            rows.put(row.purchaseId() + "/" + row.lineIndex(), row);
+        }
+        return true;
+    }
+
+    private static <T> T required(@Nullable T value) throws IOException {
+        if (value == null) {
+            throw new IOException("Missing value in archive");
+        }
+        return value;
+    }
+
+    private static void writeInts(DataOutputStream out,
+            List<PurchaseExportRow> rows,
+            Function<PurchaseExportRow, Integer> column) throws IOException {
+        for (var row : rows) {
+            out.writeInt(column.apply(row));
+        }
+    }
+
+    private static int[] readInts(DataInputStream in, int count)
+            throws IOException {
+        var values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    private static void writeInstants(DataOutputStream out,
+            List<PurchaseExportRow> rows,
+            Function<PurchaseExportRow, @Nullable Instant> column)
+            throws IOException {
+        for (var row : rows) {
+            var value = column.apply(row);
+            out.writeBoolean(value != null);
+            if (value != null) {
+                out.writeLong(value.getEpochSecond());
+                out.writeInt(value.getNano());
+            }
+        }
+    }
+
+    private static @Nullable Instant[] readInstants(DataInputStream in,
+            int count) throws IOException {
+        var values = new @Nullable Instant[count];
+        for (int i = 0; i < count; i++) {
+            if (in.readBoolean()) {
+                values[i] = Instant.ofEpochSecond(in.readLong(),
+                        in.readInt());
+            }
+        }
+        return values;
+    }
+
+    // Dictionary encoded: the distinct values followed by an index per row
+    private static void writeStrings(DataOutputStream out,
+            List<PurchaseExportRow> rows,
+            Function<PurchaseExportRow, @Nullable String> column)
+            throws IOException {
+        var dictionary = new LinkedHashMap<String, Integer>();
+        var indexes = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            var value = column.apply(rows.get(i));
+            indexes[i] = value == null ? -1
+                    : dictionary.computeIfAbsent(value,
+                            key -> dictionary.size());
+        }
+        out.writeInt(dictionary.size());
+        for (var value : dictionary.keySet()) {
+            out.writeUTF(value);
+        }
+        for (var index : indexes) {
+            out.writeInt(index);
+        }
+    }
+
+    private static @Nullable String[] readStrings(DataInputStream in,
+            int count) throws IOException {
+        var dictionary = new String[in.readInt()];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = in.readUTF();
+        }
+        var values = new @Nullable String[count];
+        for (int i = 0; i < count; i++) {
+            var index = in.readInt();
+            values[i] = index < 0 ? null : dictionary[index];
+        }
+        return values;
+    }
+
+    private static void writeDecimals(DataOutputStream out,
+            List<PurchaseExportRow> rows,
+            Function<PurchaseExportRow, BigDecimal> column)
+            throws IOException {
+        for (var row : rows) {
+            var value = column.apply(row);
+            var unscaled = value.unscaledValue().toByteArray();
+            out.writeInt(value.scale());
+            out.writeByte(unscaled.length);
+            out.write(unscaled);
+        }
+    }
+
+    private static @Nullable BigDecimal[] readDecimals(DataInputStream in,
+            int count) throws IOException {
+        var values = new @Nullable BigDecimal[count];
+        for (int i = 0; i < count; i++) {
+            var scale = in.readInt();
+            var unscaled = new byte[in.readUnsignedByte()];
+            in.readFully(unscaled);
+            values[i] = new BigDecimal(new BigInteger(unscaled), scale);
+        }
+        return values;
+    }
+
+    private static Logger logger = LoggerFactory
+            .getLogger(PurchaseArchive.class);
+}
@@ -43,9 +43,13 @@ public class PurchaseServiceImpl implements PurchaseService {
     @Nullable
     private static PurchaseServiceImpl instance;
     private final PurchaseDao purchaseDao;
+    @Nullable
+    private final PurchaseArchive archive;
 
     private PurchaseServiceImpl() {
         this.purchaseDao = new PurchaseDao();
+        this.archive = PurchaseArchive.fromSystemProperty();
+        purchaseDao.createUpcomingPartitions();
         logger.info("PurchaseService initialized");
 
         // Optional: generate a large Purchase dataset for UX testing.
@@ -121,6 +125,15 @@ public class PurchaseServiceImpl implements PurchaseService {
         return purchaseDao.getPurchase(purchaseId);
     }
 
+    @Override
+    public List<Purchase> fetchPurchasesByIds(List<Integer> purchaseIds) {
+        Objects.requireNonNull(purchaseIds, "Purchase IDs must not be null");
+        if (purchaseIds.isEmpty()) {
+            return List.of();
+        }
+        return purchaseDao.findByIds(purchaseIds);
+    }
+
     @Override
     public Purchase createPendingPurchase(Cart cart,
             Address address, User requester,
@@ -236,12 +249,14 @@ public class PurchaseServiceImpl implements PurchaseService {
             int offset, int limit, User currentUser) {
         Objects.requireNonNull(mode, "Mode must not be null");
         Objects.requireNonNull(currentUser, CURRENT_USER_MUST_NOT_BE_NULL);
+        // Grid pages show only the summaries, the lines are fetched with
+        // fetchPurchaseById when the details are opened
         return switch (mode) {
         case MY_PURCHASES -> purchaseDao.findByRequester(currentUser, offset,
-                limit);
-        case ALL -> purchaseDao.findAll(offset, limit);
+                limit, false);
+        case ALL -> purchaseDao.findAll(offset, limit, false);
         case PENDING_APPROVALS -> purchaseDao.findByApproverAndStatus(
-                currentUser, PurchaseStatus.PENDING, offset, limit);
+                currentUser, PurchaseStatus.PENDING, offset, limit, false);
         };
     }
 
@@ -287,6 +302,28 @@ public class PurchaseServiceImpl implements PurchaseService {
         return purchaseDao.rejectPurchase(purchaseId, currentUser, reason);
     }
 
+    @Override
+    public List<DecisionResult> approveAll(List<Integer> purchaseIds,
+            User currentUser, @Nullable String decisionCommentOrNull) {
+        Objects.requireNonNull(purchaseIds, "Purchase IDs must not be null");
+        Objects.requireNonNull(currentUser, CURRENT_USER_MUST_NOT_BE_NULL);
+        logger.info("Approving {} purchases by user: '{}'",
+                purchaseIds.size(), currentUser.getName());
+        return purchaseDao.approvePurchases(purchaseIds, currentUser,
+                decisionCommentOrNull);
+    }
+
+    @Override
+    public List<DecisionResult> rejectAll(List<Integer> purchaseIds,
+            User currentUser, String reason) {
+        Objects.requireNonNull(purchaseIds, "Purchase IDs must not be null");
+        Objects.requireNonNull(currentUser, CURRENT_USER_MUST_NOT_BE_NULL);
+        Objects.requireNonNull(reason, "Reason must not be null");
+        logger.info("Rejecting {} purchases by user: '{}'", purchaseIds.size(),
+                currentUser.getName());
+        return purchaseDao.rejectPurchases(purchaseIds, currentUser, reason);
+    }
+
     @Override
     @SuppressWarnings("null")
     public List<ProductPurchaseStat> getTopProductsByQuantity(
@@ -363,8 +400,77 @@ public class PurchaseServiceImpl implements PurchaseService {
 
     @Override
     public long purgePurchasesOlderThan(Instant cutoff) {
+        return purgePurchasesOlderThan(cutoff, (purged, total) -> {
+            // No progress reporting
+        });
+    }
+
+    @Override
+    public long purgePurchasesOlderThan(Instant cutoff,
+            PurgeProgressListener listener) {
         Objects.requireNonNull(cutoff, "Cutoff must not be null");
-        return purchaseDao.purgePurchasesOlderThan(cutoff);
+        Objects.requireNonNull(listener, "Listener must not be null");
+        var purchaseArchive = archive;
+        if (purchaseArchive == null) {
+            return purchaseDao.purgePurchasesOlderThan(cutoff, listener);
+        }
+        return purchaseDao.purgePurchasesOlderThan(cutoff,
+                purchases -> purchaseArchive.write(toExportRows(purchases)),
+                listener);
+    }
+
+    @Override
+    public List<YearMonth> getArchivedMonths() {
+        return archive != null ? archive.getMonths() : List.of();
+    }
+
+    @Override
+    public List<PurchaseExportRow> fetchArchivedExportRows(YearMonth month) {
+        Objects.requireNonNull(month, "Month must not be null");
+        return archive != null ? archive.read(month) : List.of();
+    }
+
+    @Override
+    public List<Purchase> fetchArchivedPurchases(YearMonth month) {
+        Objects.requireNonNull(month, "Month must not be null");
+        var purchases = new LinkedHashMap<Integer, Purchase>();
+        for (var row : fetchArchivedExportRows(month)) {
+            var purchase = purchases.computeIfAbsent(row.purchaseId(),
+                    id -> toArchivedPurchase(row));
+            var product = new Product();
+            product.setId(row.productId());
+            product.setProductName(row.productName());
+            var line = new PurchaseLine();
+            line.setProduct(product);
+            line.setQuantity(row.quantity());
+            line.setUnitPrice(row.unitPrice());
+            purchase.addLine(line);
+        }
+        return List.copyOf(purchases.values());
+    }
+
+    static Purchase toArchivedPurchase(PurchaseExportRow row) {
+        var purchase = new Purchase();
+        purchase.setId(row.purchaseId());
+        purchase.setCreatedAt(row.purchaseCreatedAt());
+        purchase.setStatus(PurchaseStatus.valueOf(row.purchaseStatus()));
+        purchase.setRequester(archivedUser(row.requesterName()));
+        var approverName = row.approverName();
+        if (approverName != null) {
+            purchase.setApprover(archivedUser(approverName));
+        }
+        var decidedAt = row.purchaseDecidedAt();
+        if (decidedAt != null) {
+            purchase.setDecidedAt(decidedAt);
+        }
+        purchase.setDecisionReason(row.decisionReason());
+        return purchase;
+    }
+
+    private static User archivedUser(String name) {
+        var user = new User();
+        user.setName(name);
+        return user;
     }
 
     @Override
@@ -378,6 +484,14 @@ public class PurchaseServiceImpl implements PurchaseService {
         }
         var purchases = purchaseDao.findAllByCreatedAtBetween(fromInclusive,
                 toExclusive);
+        var rows = toExportRows(purchases);
+        logger.info(
+                "Created {} flattened purchase export rows for range: {} to {}",
+                rows.size(), fromInclusive, toExclusive);
+        return rows;
+    }
+
+    static List<PurchaseExportRow> toExportRows(List<Purchase> purchases) {
         var rows = new ArrayList<PurchaseExportRow>();
         for (var purchase : purchases) {
             var lineIndex = 0;
@@ -386,13 +500,10 @@ public class PurchaseServiceImpl implements PurchaseService {
                 addProductToExportRow(rows, purchase, lineIndex, line);
             }
         }
-        logger.info(
-                "Created {} flattened purchase export rows for range: {} to {}",
-                rows.size(), fromInclusive, toExclusive);
         return rows;
     }
 
-    private void addProductToExportRow(List<PurchaseExportRow> rows,
+    private static void addProductToExportRow(List<PurchaseExportRow> rows,
             @Nullable Purchase purchase, int lineIndex,
             @Nullable PurchaseLine line) {
         if (purchase == null) {
@@ -406,7 +517,8 @@ public class PurchaseServiceImpl implements PurchaseService {
         }
         var requesterName = requester.getName();
         var approver = purchase.getApprover();
-        var approverName = approver != null ? approver.getName() : "";
+        // Null, not empty, so that it is read back as no approver
+        var approverName = approver != null ? approver.getName() : null;
         var purchaseId = purchase.getId();
         if (purchaseId == null) {
             throw new IllegalStateException(
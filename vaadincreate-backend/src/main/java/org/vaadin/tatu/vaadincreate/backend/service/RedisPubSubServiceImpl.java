@@ -8,6 +8,7 @@ import redis.clients.jedis.exceptions.JedisConnectionException;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 import org.jspecify.annotations.NullMarked;
@@ -25,6 +26,7 @@ public class RedisPubSubServiceImpl implements RedisPubSubService {
     private final String channel;
     private final ExecutorService executor;
     private final ObjectMapper mapper;
+    private final AtomicLong sequence = new AtomicLong();
     private boolean localMode = false;
 
     @Nullable
@@ -75,15 +77,19 @@ public class RedisPubSubServiceImpl implements RedisPubSubService {
     }
 
     @Override
-    public void publishEvent(String nodeId, AbstractEvent event) {
+    public synchronized void publishEvent(String nodeId, AbstractEvent event) {
         if (localMode) {
             logger.trace("Local mode is enabled; event not published: {}",
                     event);
             return;
         }
         try {
-            var envelope = new EventEnvelope(nodeId, event);
+            // Synchronized, so that the events are published in the order of
+            // the sequence, and an event failing to serialize leaves no gap
+            var envelope = new EventEnvelope(nodeId, sequence.get() + 1,
+                    System.currentTimeMillis(), event);
             var message = mapper.writeValueAsString(envelope);
+            sequence.incrementAndGet();
             publisherJedis.publish(channel, message);
             logger.debug("Published event: {}", message);
         } catch (JedisConnectionException e) {
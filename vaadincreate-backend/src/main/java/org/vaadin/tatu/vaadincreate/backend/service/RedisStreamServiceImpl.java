@@ -0,0 +1,422 @@
+package org.vaadin.tatu.vaadincreate.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.params.XAddParams;
+import redis.clients.jedis.params.XReadGroupParams;
+import redis.clients.jedis.resps.StreamConsumerInfo;
+import redis.clients.jedis.resps.StreamEntry;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.vaadin.tatu.vaadincreate.backend.RedisPubSubService;
+import org.vaadin.tatu.vaadincreate.backend.events.AbstractEvent;
+
+/**
+ * {@link RedisPubSubService} implemented with a Redis Stream. Unlike with
+ * pub/sub, the events published while the subscriber of a node is
+ * reconnecting stay in the stream and are delivered when the connection is
+ * back.
+ * <p>
+ * Each node reads the stream with a consumer group of its own, so that all
+ * the nodes receive all the events and Redis keeps the offset of each node.
+ * The group is named with {@code -Deventbus.node}, defaulting to the host
+ * name, and a random suffix of the process, so that two processes on the
+ * same host do not share a group and split the entries between them. The
+ * entries are read in batches and acknowledged after they have been
+ * handled. After reconnecting the node first replays its pending entries,
+ * i.e. the ones delivered but not acknowledged, and then continues from the
+ * last entry delivered to its group. When the node starts, its group is moved
+ * to the end of the stream, as the events published before the start are of
+ * no use to it. The stream is trimmed to about
+ * {@code -Deventbus.stream.maxLength} (default 10000) entries.
+ * <p>
+ * As the groups are named after the processes, a restarted node leaves its
+ * old group behind. When a node joins, it destroys the groups whose
+ * consumers have not read the stream for
+ * {@code -Deventbus.stream.groupIdleTimeout} milliseconds (default one hour).
+ * A node that has been disconnected for longer joins again with a new group
+ * once it is back.
+ * <p>
+ * If Redis is unavailable, the subscriber keeps reconnecting, and the
+ * published events are buffered, at most as many as the stream holds, and
+ * added to the stream in order when the connection is back.
+ * <p>
+ * Selected with {@code -Deventbus.transport=stream}.
+ */
+@NullMarked
+public class RedisStreamServiceImpl implements RedisPubSubService {
+
+    static final String FIELD = "envelope";
+    private static final int BATCH_SIZE = 100;
+    // Below the default socket timeout of Jedis
+    private static final int BLOCK_MILLIS = 1000;
+
+    static long reconnectDelay = 1000;
+
+    static long groupIdleTimeout = Long
+            .getLong("eventbus.stream.groupIdleTimeout", 3_600_000);
+
+    protected Jedis publisherJedis;
+    protected Jedis subscriberJedis;
+    private final String host;
+    private final int port;
+    @Nullable
+    private final String password;
+    private final String stream;
+    private final String group;
+    private final long maxLength;
+    private final ExecutorService executor;
+    private final ObjectMapper mapper;
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile boolean running = false;
+    // True while Redis is unavailable for publishing, cleared also by the
+    // subscriber when the connection is back
+    private volatile boolean localMode = false;
+    // Serialized envelopes not yet added to the stream, guarded by this
+    private final ArrayDeque<String> unpublished = new ArrayDeque<>();
+    private long retryAt;
+
+    @Nullable
+    private static RedisStreamServiceImpl instance;
+
+    @SuppressWarnings("null")
+    public static synchronized RedisPubSubService getInstance() {
+        if (instance == null) {
+            instance = new RedisStreamServiceImpl("redis", 6379,
+                    "eventbus_stream", "creator", resolveNodeName(),
+                    Long.getLong("eventbus.stream.maxLength", 10_000));
+        }
+        return instance;
+    }
+
+    protected RedisStreamServiceImpl(String host, int port, String stream,
+            @Nullable String password, String node, long maxLength) {
+        this.host = host;
+        this.port = port;
+        this.password = password;
+        this.stream = stream;
+        this.group = node;
+        this.maxLength = maxLength;
+        publisherJedis = connect();
+        subscriberJedis = connect();
+        executor = buildVirtualThreadExecutor();
+
+        this.mapper = new ObjectMapper();
+        mapper.findAndRegisterModules();
+    }
+
+    @SuppressWarnings("null")
+    private ExecutorService buildVirtualThreadExecutor() {
+        return Executors.newSingleThreadExecutor(
+                Thread.ofVirtual().name("redis-stream").factory());
+    }
+
+    /**
+     * Opens a new connection to Redis.
+     *
+     * @return the connection, not null.
+     */
+    protected Jedis connect() {
+        var jedis = new Jedis(host, port);
+        if (password != null) {
+            try {
+                jedis.auth(password);
+            } catch (JedisConnectionException e) {
+                logger.error("Authentication failed. Error: {}",
+                        e.getMessage());
+            }
+        }
+        return jedis;
+    }
+
+    @Override
+    public synchronized void publishEvent(String nodeId, AbstractEvent event) {
+        try {
+            var envelope = new EventEnvelope(nodeId, sequence.get() + 1,
+                    System.currentTimeMillis(), event);
+            unpublished.add(mapper.writeValueAsString(envelope));
+            sequence.incrementAndGet();
+        } catch (JsonProcessingException e) {
+            logger.error("Error serializing event", e);
+            return;
+        }
+        if (localMode && System.currentTimeMillis() < retryAt) {
+            logger.trace("Redis is unavailable; event buffered: {}", event);
+            dropOverflow();
+            return;
+        }
+        flush(true);
+    }
+
+    // Called by the subscriber when the connection to Redis is back
+    private synchronized void publishUnpublished() {
+        if (localMode) {
+            flush(true);
+        }
+    }
+
+    // Adds the buffered envelopes to the stream in order. If the connection
+    // has been lost, reconnects and retries once, then keeps buffering.
+    private void flush(boolean retry) {
+        try {
+            while (!unpublished.isEmpty()) {
+                var message = unpublished.peek();
+                // Approximate trimming lets Redis trim whole nodes of the
+                // stream
+                publisherJedis.xadd(stream, XAddParams.xAddParams()
+                        .maxLen(maxLength).approximateTrimming(),
+                        Map.of(FIELD, message));
+                unpublished.poll();
+                logger.debug("Published event: {}", message);
+            }
+            if (localMode) {
+                logger.info(
+                        "Redis is available again; buffered events published");
+                localMode = false;
+            }
+        } catch (JedisConnectionException e) {
+            reconnectPublisher();
+            if (retry) {
+                flush(false);
+                return;
+            }
+            if (!localMode) {
+                logger.warn(
+                        "Redis is unavailable; buffering events and retrying in {}ms. Error: {}",
+                        reconnectDelay, e.getMessage());
+                localMode = true;
+            }
+            retryAt = System.currentTimeMillis() + reconnectDelay;
+            dropOverflow();
+        }
+    }
+
+    // The stream would trim the oldest entries anyway. The subscribers see
+    // the dropped events as a gap in the sequence.
+    private void dropOverflow() {
+        var dropped = 0;
+        while (unpublished.size() > maxLength) {
+            unpublished.poll();
+            dropped++;
+        }
+        if (dropped > 0) {
+            logger.warn("Dropped {} buffered events while Redis is unavailable",
+                    dropped);
+        }
+    }
+
+    private void reconnectPublisher() {
+        try {
+            publisherJedis.close();
+        } catch (JedisException e) {
+            // Already broken
+        }
+        publisherJedis = connect();
+    }
+
+    @Override
+    public void startSubscriber(Consumer<EventEnvelope> envelopeHandler) {
+        running = true;
+        executor.submit(() -> subscribe(envelopeHandler));
+    }
+
+    private void subscribe(Consumer<EventEnvelope> envelopeHandler) {
+        var joined = false;
+        while (running) {
+            try {
+                if (!joined) {
+                    joinGroup();
+                    joined = true;
+                    removeStaleGroups();
+                }
+                // Replay the entries delivered before the connection was lost
+                while (running && read(envelopeHandler,
+                        StreamEntryID.MINIMUM_ID) > 0) {
+                    logger.debug("Replayed pending events of {}", group);
+                }
+                if (localMode) {
+                    publishUnpublished();
+                }
+                while (running) {
+                    read(envelopeHandler,
+                            StreamEntryID.XREADGROUP_UNDELIVERED_ENTRY);
+                }
+            } catch (JedisConnectionException e) {
+                // Also when Redis is not yet available on start
+                if (running) {
+                    logger.warn(
+                            "Redis stream connection lost; reconnecting in {}ms. Error: {}",
+                            reconnectDelay, e.getMessage());
+                    reconnect();
+                }
+            } catch (JedisDataException e) {
+                if (e.getMessage() != null
+                        && e.getMessage().startsWith("NOGROUP")) {
+                    // The stream has been deleted, e.g. Redis was flushed, or
+                    // the group was removed as stale by another node
+                    logger.warn("Redis stream group lost; joining again");
+                    joined = false;
+                } else {
+                    logger.error("Error in Redis stream subscription", e);
+                    reconnect();
+                }
+            } catch (Exception e) {
+                logger.error("Error in Redis stream subscription", e);
+                reconnect();
+            }
+        }
+    }
+
+    // Creates the group of the node, or moves it to the end of the stream
+    private void joinGroup() {
+        try {
+            subscriberJedis.xgroupCreate(stream, group,
+                    StreamEntryID.XGROUP_LAST_ENTRY, true);
+        } catch (JedisDataException e) {
+            if (e.getMessage() == null
+                    || !e.getMessage().startsWith("BUSYGROUP")) {
+                throw e;
+            }
+            // Pending entries of the previous run are dropped with the
+            // consumer
+            subscriberJedis.xgroupDelConsumer(stream, group, group);
+            subscriberJedis.xgroupSetID(stream, group,
+                    StreamEntryID.XGROUP_LAST_ENTRY);
+        }
+        logger.info("Joined Redis stream {} as {}", stream, group);
+    }
+
+    // Destroys the groups of the nodes that have not read the stream for
+    // the idle timeout. A group without consumers may have just been joined.
+    private void removeStaleGroups() {
+        for (var info : subscriberJedis.xinfoGroups(stream)) {
+            if (info.getName().equals(group) || info.getConsumers() == 0) {
+                continue;
+            }
+            var idle = subscriberJedis.xinfoConsumers2(stream, info.getName())
+                    .stream().mapToLong(StreamConsumerInfo::getIdle).min()
+                    .orElse(0);
+            if (idle > groupIdleTimeout) {
+                subscriberJedis.xgroupDestroy(stream, info.getName());
+                logger.info("Removed stale group {} of Redis stream {}",
+                        info.getName(), stream);
+            }
+        }
+    }
+
+    private void reconnect() {
+        try {
+            Thread.sleep(reconnectDelay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+            return;
+        }
+        try {
+            subscriberJedis.close();
+        } catch (JedisConnectionException e) {
+            // Already broken
+        }
+        subscriberJedis = connect();
+    }
+
+    // Reads and acknowledges one batch, returns the number of entries read
+    private int read(Consumer<EventEnvelope> envelopeHandler,
+            StreamEntryID id) {
+        var params = XReadGroupParams.xReadGroupParams().count(BATCH_SIZE);
+        if (id == StreamEntryID.XREADGROUP_UNDELIVERED_ENTRY) {
+            params.block(BLOCK_MILLIS);
+        }
+        var batches = subscriberJedis.xreadGroup(group, group, params,
+                Map.of(stream, id));
+        if (batches == null) {
+            return 0;
+        }
+        var ids = new ArrayList<StreamEntryID>();
+        for (var batch : batches) {
+            for (var entry : batch.getValue()) {
+                ids.add(entry.getID());
+                deliver(envelopeHandler, entry);
+            }
+        }
+        if (!ids.isEmpty()) {
+            subscriberJedis.xack(stream, group,
+                    ids.toArray(StreamEntryID[]::new));
+        }
+        return ids.size();
+    }
+
+    private void deliver(Consumer<EventEnvelope> envelopeHandler,
+            StreamEntry entry) {
+        // Fields of a pending entry are null if it has been trimmed
+        var fields = entry.getFields();
+        var message = fields != null ? fields.get(FIELD) : null;
+        if (message == null) {
+            logger.warn("Skipping trimmed or empty stream entry {}",
+                    entry.getID());
+            return;
+        }
+        try {
+            var envelope = mapper.readValue(message, EventEnvelope.class);
+            envelopeHandler.accept(envelope);
+        } catch (JsonProcessingException e) {
+            logger.error("Error deserializing event message", e);
+        } catch (Exception e) {
+            logger.error("Unexpected error in handling stream entry", e);
+        }
+    }
+
+    @Override
+    public void stopSubscriber() {
+        running = false;
+        executor.shutdownNow();
+        if (subscriberJedis != null && subscriberJedis.isConnected()) {
+            subscriberJedis.close();
+        }
+    }
+
+    @Override
+    public void closePublisher() {
+        if (publisherJedis != null && publisherJedis.isConnected()) {
+            publisherJedis.close();
+        }
+    }
+
+    @SuppressWarnings("null")
+    static String resolveNodeName() {
+        var node = System.getProperty("eventbus.node");
+        if (node == null) {
+            node = System.getenv("HOSTNAME");
+        }
+        if (node == null) {
+            try {
+                node = InetAddress.getLocalHost().getHostName();
+            } catch (UnknownHostException e) {
+                node = "node";
+            }
+        }
+        return node + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @SuppressWarnings("null")
+    private Logger logger = LoggerFactory.getLogger(this.getClass());
+}
@@ -0,0 +1,215 @@
+package org.vaadin.tatu.vaadincreate.backend.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.hibernate.Session;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.vaadin.tatu.vaadincreate.backend.DatabaseMonitor.DatabaseCall;
+import org.vaadin.tatu.vaadincreate.backend.DatabaseMonitor.DatabaseCallListener;
+import org.vaadin.tatu.vaadincreate.backend.data.Product;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Tests for {@link DatabaseCallTracker} using the in-memory database.
+ */
+@SuppressWarnings("null")
+public class DatabaseCallTrackerTest {
+
+    private final List<DatabaseCall> calls = new CopyOnWriteArrayList<>();
+    private final DatabaseCallListener listener = calls::add;
+    private long threshold;
+
+    @Before
+    public void setUp() {
+        threshold = DatabaseCallTracker.slowCallThreshold;
+        DatabaseCallTracker.addListener(listener);
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseCallTracker.removeListener(listener);
+        DatabaseCallTracker.slowCallThreshold = threshold;
+    }
+
+    @Test
+    public void callIsNamedByCallerAndRowsAreCounted() {
+        var products = HibernateUtil.inSession(session -> {
+            return session.createQuery("from Product", Product.class).list();
+        });
+
+        assertEquals(1, calls.size());
+        var call = calls.get(0);
+        assertEquals(
+                "DatabaseCallTrackerTest.callIsNamedByCallerAndRowsAreCounted",
+                call.operation());
+        assertEquals(products.size(), call.rows());
+        assertFalse(call.replica());
+        assertNull(call.failure());
+        assertTrue(call.durationNanos() > 0);
+    }
+
+    @Test
+    public void callSitesAreNamedOnce() {
+        var product = HibernateUtil.inSession(session -> {
+            return session.createQuery("from Product", Product.class)
+                    .setMaxResults(1).getSingleResult();
+        });
+        countProducts();
+        countProducts();
+        // The lambda of saveOrUpdate is shared by all its callers
+        saveProduct(product);
+        HibernateUtil.saveOrUpdate(product);
+
+        var test = "DatabaseCallTrackerTest.callSitesAreNamedOnce";
+        assertEquals(List.of(test, "DatabaseCallTrackerTest.countProducts",
+                "DatabaseCallTrackerTest.countProducts",
+                "DatabaseCallTrackerTest.saveProduct", test),
+                calls.stream().map(DatabaseCall::operation).toList());
+    }
+
+    private void countProducts() {
+        HibernateUtil.inSession(session -> {
+            return session
+                    .createQuery("select count(p) from Product p", Long.class)
+                    .getSingleResult();
+        });
+    }
+
+    private void saveProduct(Product product) {
+        HibernateUtil.saveOrUpdate(product);
+    }
+
+    @Test
+    public void slowCallCapturesStatements() {
+        DatabaseCallTracker.slowCallThreshold = -1;
+
+        HibernateUtil.inSession(session -> {
+            return session
+                    .createQuery("select count(p) from Product p", Long.class)
+                    .getSingleResult();
+        });
+
+        var call = calls.get(0);
+        assertEquals(1, call.rows());
+        assertEquals(1, call.statements().size());
+        assertTrue(call.statements().get(0).contains("count"));
+    }
+
+    @Test
+    public void fastCallDoesNotCaptureStatements() {
+        DatabaseCallTracker.slowCallThreshold = Long.MAX_VALUE / 1_000_000;
+
+        HibernateUtil.inSession(session -> {
+            session.createQuery("from Product", Product.class).list();
+        });
+
+        assertTrue(calls.get(0).statements().isEmpty());
+    }
+
+    @Test
+    public void failedCallIsReported() {
+        var exception = new IllegalStateException("failure");
+        try {
+            HibernateUtil.inTransaction((Session session) -> {
+                throw exception;
+            });
+            fail("Exception should be propagated");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        var call = calls.get(0);
+        assertSame(exception, call.failure());
+        assertEquals(-1, call.rows());
+    }
+
+    @Test
+    public void nestedCallStatementsBelongToOuterCall() {
+        DatabaseCallTracker.slowCallThreshold = -1;
+
+        HibernateUtil.inSession(session -> {
+            HibernateUtil.inSession(inner -> {
+                inner.createQuery("from Product", Product.class).list();
+            });
+            return session.createQuery("from Category").list();
+        });
+
+        assertEquals(2, calls.size());
+        assertEquals(1, calls.get(0).statements().size());
+        assertEquals(2, calls.get(1).statements().size());
+    }
+
+    @Test
+    public void failingListenerDoesNotBreakCall() {
+        DatabaseCallListener failing = call -> {
+            throw new IllegalStateException("listener failure");
+        };
+        DatabaseCallTracker.addListener(failing);
+        try {
+            var result = HibernateUtil.inSession(session -> {
+                return "result";
+            });
+            assertEquals("result", result);
+            assertEquals(1, calls.size());
+        } finally {
+            DatabaseCallTracker.removeListener(failing);
+        }
+    }
+
+    @Test
+    public void callIsRecordedAsFlightRecorderEvent() throws IOException {
+        var file = Files.createTempFile("database-call", ".jfr");
+        try (var recording = new Recording()) {
+            recording.enable(DatabaseCallEvent.class);
+            recording.start();
+            var products = HibernateUtil.inSession(session -> {
+                return session.createQuery("from Product", Product.class)
+                        .list();
+            });
+            recording.stop();
+            recording.dump(file);
+
+            var events = RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName()
+                            .equals("vaadincreate.DatabaseCall"))
+                    .toList();
+            assertEquals(1, events.size());
+            var event = events.get(0);
+            assertEquals(
+                    "DatabaseCallTrackerTest.callIsRecordedAsFlightRecorderEvent",
+                    event.getString("operation"));
+            assertEquals(products.size(), event.getInt("rows"));
+            assertFalse(event.getBoolean("failed"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void statisticsAreCollected() {
+        HibernateUtil.inSession(session -> {
+            session.createQuery("from Product", Product.class).list();
+        });
+
+        var statistics = DatabaseCallTracker.getStatistics();
+        assertTrue(statistics.queryExecutionCount() > 0);
+        assertTrue(statistics.sessionOpenCount() > 0);
+        // No connection pool in the test configuration
+        assertEquals(-1, statistics.activeConnections());
+        assertEquals(-1, statistics.primaryMaxConnections());
+    }
+}
@@ -3,6 +3,8 @@ package org.vaadin.tatu.vaadincreate.backend.dao;
 import static org.mockito.Mockito.*;
 import static org.junit.Assert.*;
 
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -10,12 +12,16 @@ import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
 import org.hibernate.exception.JDBCConnectionException;
+import org.hibernate.jpa.QueryHints;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.vaadin.tatu.vaadincreate.backend.CancellationScope;
+import org.vaadin.tatu.vaadincreate.backend.ConsistencyScope;
 import org.vaadin.tatu.vaadincreate.backend.DatabaseConnectionException;
+import org.vaadin.tatu.vaadincreate.backend.dao.HibernateUtil.ReplicaStaleness;
 
 /**
  * Test class for {@link HibernateUtil}.
@@ -35,6 +41,12 @@ public class HibernateUtilTest {
     @Mock
     private Transaction transaction;
 
+    @Mock
+    private SessionFactory mockReplicaFactory;
+
+    @Mock
+    private Session replicaSession;
+
     // Backup the original session factory to restore it after tests
     // to avoid side effects on other tests
     private SessionFactory backupFactory;
@@ -46,11 +58,17 @@ public class HibernateUtilTest {
         HibernateUtil.sessionFactory = mockFactory;
         when(mockFactory.openSession()).thenReturn(hibernateSession);
         when(hibernateSession.beginTransaction()).thenReturn(transaction);
+        when(mockReplicaFactory.openSession()).thenReturn(replicaSession);
     }
 
     @After
     public void tearDown() {
         HibernateUtil.sessionFactory = backupFactory;
+        HibernateUtil.replicaSessionFactory = null;
+        HibernateUtil.replicaStaleness = ReplicaStaleness.READ_YOUR_WRITES;
+        HibernateUtil.replicaUnavailableUntil = 0;
+        HibernateUtil.lastWrites.clear();
+        ConsistencyScope.clear();
     }
 
     @Test
@@ -196,4 +214,176 @@ public class HibernateUtilTest {
             assertEquals(exception, e.getCause());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void readOnlySessionWithoutReplicaUsesPrimary() {
+        String result = HibernateUtil.inReadOnlySession(session -> {
+            assertSame(hibernateSession, session);
+            return "result";
+        });
+        assertEquals("result", result);
+        verify(hibernateSession).close();
+    }
+
+    @Test
+    public void readOnlySessionUsesReplica() {
+        HibernateUtil.replicaSessionFactory = mockReplicaFactory;
+        String result = HibernateUtil.inReadOnlySession(session -> {
+            assertSame(replicaSession, session);
+            return "result";
+        });
+        assertEquals("result", result);
+        verify(replicaSession).setDefaultReadOnly(true);
+        verify(replicaSession).close();
+        verify(mockFactory, never()).openSession();
+    }
+
+    @Test
+    public void readYourWrites_readsAfterWriteUsePrimaryInSameScope() {
+        HibernateUtil.replicaSessionFactory = mockReplicaFactory;
+        ConsistencyScope.set("session-1");
+        HibernateUtil.inTransaction(session -> {
+        });
+        HibernateUtil.inReadOnlySession(session -> {
+            assertSame(hibernateSession, session);
+            return "result";
+        });
+
+        // Other scopes are not affected by the write
+        ConsistencyScope.set("session-2");
+        HibernateUtil.inReadOnlySession(session -> {
+            assertSame(replicaSession, session);
+            return "result";
+        });
+
+        // After the lag window reads go to replica again
+        HibernateUtil.lastWrites.put("session-1",
+                System.currentTimeMillis() - 10000);
+        ConsistencyScope.set("session-1");
+        HibernateUtil.inReadOnlySession(session -> {
+            assertSame(replicaSession, session);
+            return "result";
+        });
+    }
+
+    @Test
+    public void onPrimary_readsUsePrimary() {
+        HibernateUtil.replicaSessionFactory = mockReplicaFactory;
+        HibernateUtil.replicaStaleness = ReplicaStaleness.EVENTUAL;
+        String result = ConsistencyScope.onPrimary(() -> HibernateUtil
+                .inReadOnlySession(session -> {
+                    assertSame(hibernateSession, session);
+                    return "result";
+                }));
+        assertEquals("result", result);
+        verify(mockReplicaFactory, never()).openSession();
+
+        HibernateUtil.inReadOnlySession(session -> {
+            assertSame(replicaSession, session);
+            return "result";
+        });
+    }
+
+    @Test
+    public void eventualStaleness_readsAfterWriteUseReplica() {
+        HibernateUtil.replicaSessionFactory = mockReplicaFactory;
+        HibernateUtil.replicaStaleness = ReplicaStaleness.EVENTUAL;
+        HibernateUtil.inTransaction(session -> {
+        });
+        HibernateUtil.inReadOnlySession(session -> {
+            assertSame(replicaSession, session);
+            return "result";
+        });
+        assertTrue(HibernateUtil.lastWrites.isEmpty());
+    }
+
+    @Test
+    public void replicaConnectionFailure_fallsBackToPrimary() {
+        HibernateUtil.replicaSessionFactory = mockReplicaFactory;
+        when(mockReplicaFactory.openSession())
+                .thenThrow(new JDBCConnectionException("Replica down", null));
+        String result = HibernateUtil.inReadOnlySession(session -> {
+            assertSame(hibernateSession, session);
+            return "result";
+        });
+        assertEquals("result", result);
+        assertTrue(HibernateUtil.replicaUnavailableUntil > System
+                .currentTimeMillis());
+
+        // Replica is not retried until the retry interval has passed
+        HibernateUtil.inReadOnlySession(session -> "result");
+        verify(mockReplicaFactory, times(1)).openSession();
+    }
+
+    @Test
+    public void replicaQueryFailure_otherErrorsArePropagated() {
+        HibernateUtil.replicaSessionFactory = mockReplicaFactory;
+        try {
+            HibernateUtil.inReadOnlySession(session -> {
+                throw new IllegalArgumentException("Bad query");
+            });
+            fail("Expected IllegalArgumentException was not thrown");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Bad query", e.getMessage());
+        }
+        verify(replicaSession).close();
+        verify(mockFactory, never()).openSession();
+    }
+
+    @Test
+    public void cancellationScope_cancelCancelsRunningQuery() {
+        var scope = new CancellationScope();
+        String result = scope.call(() -> HibernateUtil.inSession(session -> {
+            scope.cancel();
+            return "result";
+        }));
+        assertEquals("result", result);
+        verify(hibernateSession).cancelQuery();
+    }
+
+    @Test
+    public void cancellationScope_cancelledScopeDoesNotOpenSession() {
+        var scope = new CancellationScope();
+        scope.cancel();
+        try {
+            scope.call(() -> HibernateUtil.inSession(session -> "result"));
+            fail("Expected CancellationException was not thrown");
+        } catch (CancellationException e) {
+            // expected
+        }
+        verify(mockFactory, never()).openSession();
+    }
+
+    @Test
+    public void cancellationScope_failureAfterCancelIsCancellation() {
+        var scope = new CancellationScope();
+        try {
+            scope.call(() -> HibernateUtil
+                    .inTransaction((Function<Session, String>) session -> {
+                        scope.cancel();
+                        throw new IllegalStateException(
+                                "Statement cancelled");
+                    }));
+            fail("Expected CancellationException was not thrown");
+        } catch (CancellationException e) {
+            assertEquals("Statement cancelled", e.getCause().getMessage());
+        }
+        verify(transaction).rollback();
+        verify(hibernateSession).close();
+    }
+
+    @Test
+    public void cancellationScope_queryTimeoutIsApplied() {
+        var scope = new CancellationScope(Duration.ofSeconds(2));
+        scope.call(() -> HibernateUtil.inSession(session -> "result"));
+        verify(hibernateSession).setProperty(QueryHints.SPEC_HINT_TIMEOUT,
+                2000);
+    }
+
+    @Test
+    public void noCancellationScope_noQueryTimeout() {
+        HibernateUtil.inSession(session -> "result");
+        verify(hibernateSession, never()).setProperty(anyString(), any());
+        verify(hibernateSession, never()).addEventListeners(any());
+    }
+}
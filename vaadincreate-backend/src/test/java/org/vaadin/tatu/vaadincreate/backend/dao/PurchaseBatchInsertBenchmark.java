@@ -0,0 +1,105 @@
+package org.vaadin.tatu.vaadincreate.backend.dao;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.vaadin.tatu.vaadincreate.backend.data.Address;
+import org.vaadin.tatu.vaadincreate.backend.data.Product;
+import org.vaadin.tatu.vaadincreate.backend.data.Purchase;
+import org.vaadin.tatu.vaadincreate.backend.data.PurchaseLine;
+import org.vaadin.tatu.vaadincreate.backend.data.PurchaseStatus;
+import org.vaadin.tatu.vaadincreate.backend.data.User;
+import org.vaadin.tatu.vaadincreate.backend.service.ProductDataServiceImpl;
+import org.vaadin.tatu.vaadincreate.backend.service.UserServiceImpl;
+
+/**
+ * Benchmark for bulk inserting purchases with {@link PurchaseDao}, comparing
+ * unbatched inserts with JDBC batching and periodic flush/clear.
+ * <p>
+ * Not run as part of the normal build, run explicitly with:
+ *
+ * <pre>
+ * mvn test -Dtest=PurchaseBatchInsertBenchmark -Dbenchmark.lines=1000000
+ * </pre>
+ *
+ * By default one million purchase lines are inserted per run into the
+ * in-memory H2 database, ten lines per purchase.
+ */
+@SuppressWarnings("null")
+public class PurchaseBatchInsertBenchmark {
+
+    private static final int LINES_PER_PURCHASE = 10;
+    private static final int PURCHASES_PER_CHUNK = 10000;
+
+    private final PurchaseDao purchaseDao = new PurchaseDao();
+    private List<User> users;
+    private List<Product> products;
+
+    @Before
+    public void setUp() {
+        // Ensure that the mock users and products exist
+        UserServiceImpl.getInstance();
+        ProductDataServiceImpl.getInstance();
+        users = new UserDao().getAllUsers().stream().toList();
+        products = new ProductDao().getAllProducts().stream().toList();
+    }
+
+    @Test
+    public void insertPurchaseLines() {
+        var lines = Integer.getInteger("benchmark.lines", 1_000_000);
+        var purchases = lines / LINES_PER_PURCHASE;
+
+        var unbatched = run(purchases, 1);
+        var batched = run(purchases, HibernateUtil.getBatchSize());
+
+        logger.info("Inserted {} purchase lines: unbatched {}ms, batched {}ms",
+                lines, unbatched, batched);
+    }
+
+    private long run(int purchases, int batchSize) {
+        var countBefore = purchaseDao.countAll();
+        var start = System.currentTimeMillis();
+        for (int i = 0; i < purchases; i += PURCHASES_PER_CHUNK) {
+            var chunk = createPurchases(
+                    Math.min(PURCHASES_PER_CHUNK, purchases - i));
+            purchaseDao.savePurchases(chunk, batchSize);
+        }
+        var duration = System.currentTimeMillis() - start;
+        assertEquals(countBefore + purchases, purchaseDao.countAll());
+        logger.info("Batch size {}: {} purchases in {}ms ({} lines/s)",
+                batchSize, purchases, duration,
+                purchases * LINES_PER_PURCHASE * 1000L
+                        / Math.max(1L, duration));
+        return duration;
+    }
+
+    private List<Purchase> createPurchases(int count) {
+        var purchases = new ArrayList<Purchase>(count);
+        for (int i = 0; i < count; i++) {
+            var purchase = new Purchase();
+            purchase.setRequester(users.get(i % users.size()));
+            purchase.setApprover(users.get((i + 1) % users.size()));
+            purchase.setStatus(PurchaseStatus.PENDING);
+            purchase.setCreatedAt(Instant.now());
+            purchase.setDeliveryAddress(
+                    new Address("Street 1", "12345", "City", "Country"));
+            for (int j = 0; j < LINES_PER_PURCHASE; j++) {
+                var product = products.get((i + j) % products.size());
+                purchase.addLine(new PurchaseLine(purchase, product, 1,
+                        product.getPrice()));
+            }
+            purchases.add(purchase);
+        }
+        return purchases;
+    }
+
+    private static final Logger logger = LoggerFactory
+            .getLogger(PurchaseBatchInsertBenchmark.class);
+}
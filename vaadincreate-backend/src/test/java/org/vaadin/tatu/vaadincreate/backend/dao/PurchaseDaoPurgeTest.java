@@ -0,0 +1,138 @@
+package org.vaadin.tatu.vaadincreate.backend.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.hibernate.Hibernate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.vaadin.tatu.vaadincreate.backend.CancellationScope;
+import org.vaadin.tatu.vaadincreate.backend.data.Purchase;
+import org.vaadin.tatu.vaadincreate.backend.service.ProductDataServiceImpl;
+import org.vaadin.tatu.vaadincreate.backend.service.PurchaseServiceImpl;
+import org.vaadin.tatu.vaadincreate.backend.service.UserServiceImpl;
+
+/**
+ * Tests for the chunked purge of {@link PurchaseDao} using the in-memory
+ * database. Only the oldest week of the mock purchases is purged.
+ */
+@SuppressWarnings("null")
+public class PurchaseDaoPurgeTest {
+
+    private final PurchaseDao purchaseDao = new PurchaseDao();
+    private int chunkSize;
+    private Instant cutoff;
+
+    @Before
+    public void setUp() {
+        // Generates the mock purchases if not yet done
+        UserServiceImpl.getInstance();
+        ProductDataServiceImpl.getInstance();
+        PurchaseServiceImpl.getInstance();
+        chunkSize = PurchaseDao.purgeChunkSize;
+        PurchaseDao.purgeChunkSize = 2;
+        var oldest = HibernateUtil.inSession(session -> {
+            return session.createQuery(
+                    "select min(p.createdAt) from Purchase p", Instant.class)
+                    .getSingleResult();
+        });
+        cutoff = oldest.plus(7, ChronoUnit.DAYS);
+    }
+
+    @After
+    public void tearDown() {
+        PurchaseDao.purgeChunkSize = chunkSize;
+    }
+
+    @Test
+    public void purgeReportsProgressPerChunk() {
+        var total = purchaseDao.countPurchasesOlderThan(cutoff);
+        assertTrue("Expected several chunks to purge", total > 2);
+        var progress = new CopyOnWriteArrayList<long[]>();
+
+        var purged = purchaseDao.purgePurchasesOlderThan(cutoff,
+                (count, of) -> progress.add(new long[] { count, of }));
+
+        assertEquals(total, purged);
+        assertEquals(0, purchaseDao.countPurchasesOlderThan(cutoff));
+        assertEquals((total + 1) / 2, progress.size());
+        assertProgressIncreasing(progress, total);
+        // The per-day counts are updated in the purge transactions
+        long counted = HibernateUtil.inSession(session -> {
+            return session.createQuery(
+                    "select coalesce(sum(c.purchaseCount), 0) from PurchaseDayCount c",
+                    Long.class).getSingleResult();
+        });
+        assertEquals(purchaseDao.countAll(), counted);
+    }
+
+    @Test
+    public void cancelledPurgeCanBeResumed() {
+        var total = purchaseDao.countPurchasesOlderThan(cutoff);
+        assertTrue("Expected several chunks to purge", total > 2);
+        var scope = new CancellationScope();
+
+        try {
+            scope.call(() -> purchaseDao.purgePurchasesOlderThan(cutoff,
+                    (count, of) -> scope.cancel()));
+            fail("Purge should be cancelled");
+        } catch (CancellationException e) {
+            // expected
+        }
+
+        // The first chunk was committed before the cancellation
+        var remaining = purchaseDao.countPurchasesOlderThan(cutoff);
+        assertEquals(total - 2, remaining);
+
+        var purged = purchaseDao.purgePurchasesOlderThan(cutoff,
+                (count, of) -> {
+                    // No progress reporting
+                });
+        assertEquals(remaining, purged);
+        assertEquals(0, purchaseDao.countPurchasesOlderThan(cutoff));
+    }
+
+    @Test
+    public void purchasesAreArchivedBeforeDelete() {
+        var total = purchaseDao.countPurchasesOlderThan(cutoff);
+        var archived = new CopyOnWriteArrayList<Purchase>();
+
+        var purged = purchaseDao.purgePurchasesOlderThan(cutoff, purchases -> {
+            // Still in the database when archived
+            assertEquals(purchases.size(), purchaseDao
+                    .findByIds(purchases.stream().map(Purchase::getId)
+                            .toList())
+                    .size());
+            purchases.forEach(purchase -> assertTrue(
+                    Hibernate.isInitialized(purchase.getLines())));
+            archived.addAll(purchases);
+        }, (count, of) -> {
+            // No progress reporting
+        });
+
+        assertEquals(total, purged);
+        assertEquals(total, archived.size());
+        assertTrue(archived.stream()
+                .allMatch(purchase -> purchase.getCreatedAt().isBefore(cutoff)
+                        && !purchase.getLines().isEmpty()));
+    }
+
+    private static void assertProgressIncreasing(List<long[]> progress,
+            long total) {
+        var previous = 0L;
+        for (var step : progress) {
+            assertTrue(step[0] > previous);
+            assertEquals(total, step[1]);
+            previous = step[0];
+        }
+        assertEquals(total, previous);
+    }
+}
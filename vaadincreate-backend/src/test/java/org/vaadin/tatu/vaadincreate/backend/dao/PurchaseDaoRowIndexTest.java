@@ -0,0 +1,120 @@
+package org.vaadin.tatu.vaadincreate.backend.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.TreeMap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.vaadin.tatu.vaadincreate.backend.data.Purchase;
+import org.vaadin.tatu.vaadincreate.backend.data.PurchaseDayCount;
+import org.vaadin.tatu.vaadincreate.backend.service.ProductDataServiceImpl;
+import org.vaadin.tatu.vaadincreate.backend.service.PurchaseServiceImpl;
+import org.vaadin.tatu.vaadincreate.backend.service.UserServiceImpl;
+
+/**
+ * Tests for resolving the history row index of a date with
+ * {@link PurchaseDao#findFirstMatchingRowIndex(java.time.Instant)}.
+ */
+@SuppressWarnings("null")
+public class PurchaseDaoRowIndexTest {
+
+    private final PurchaseDao purchaseDao = new PurchaseDao();
+
+    @Before
+    public void setUp() {
+        // Generates the mock purchases if not yet done
+        UserServiceImpl.getInstance();
+        ProductDataServiceImpl.getInstance();
+        PurchaseServiceImpl.getInstance();
+    }
+
+    @Test
+    public void newestPurchaseIsTheFirstRow() {
+        var purchase = purchaseDao.findAll(0, 1).get(0);
+
+        assertEquals(Integer.valueOf(0),
+                purchaseDao.findFirstMatchingRowIndex(purchase.getCreatedAt()));
+    }
+
+    @Test
+    public void noRowAfterBoundaryResolvesToNull() {
+        var tomorrow = LocalDate.now().plusDays(1)
+                .atStartOfDay(ZoneId.systemDefault()).toInstant();
+
+        assertNull(purchaseDao.findFirstMatchingRowIndex(tomorrow));
+    }
+
+    @Test
+    public void purchaseSavedByAnotherDaoIsCountedImmediately() {
+        var dayStart = LocalDate.now().minusDays(3)
+                .atStartOfDay(ZoneId.systemDefault()).toInstant();
+        var before = purchaseDao.findFirstMatchingRowIndex(dayStart);
+        assertNotNull(before);
+
+        // Like a purchase saved by another node, on a later day than the
+        // boundary so that it is counted from the per-day counts
+        var template = purchaseDao.findAll(0, 1).get(0);
+        var purchase = new Purchase(template.getRequester(),
+                template.getDeliveryAddress());
+        purchase.setCreatedAt(dayStart.plus(1, ChronoUnit.DAYS));
+        var saved = new PurchaseDao().updatePurchase(purchase);
+        try {
+            assertEquals(Integer.valueOf(before + 1),
+                    purchaseDao.findFirstMatchingRowIndex(dayStart));
+            assertDayCountsMatchPurchases();
+        } finally {
+            HibernateUtil.inTransaction(session -> {
+                session.createQuery("delete from Purchase p where p.id = :id")
+                        .setParameter("id", saved.getId()).executeUpdate();
+                PurchaseDayCounts.remove(session,
+                        List.of(saved.getCreatedAt()));
+            });
+        }
+        assertEquals(before, purchaseDao.findFirstMatchingRowIndex(dayStart));
+    }
+
+    @Test
+    public void rowIndexMatchesCountOfLaterRows() {
+        assertDayCountsMatchPurchases();
+        var purchases = purchaseDao.findAll(0, 200);
+        for (var purchase : List.of(purchases.get(10), purchases.get(100),
+                purchases.get(199))) {
+            var from = purchase.getCreatedAt();
+            long later = HibernateUtil.inSession(session -> {
+                return session.createQuery(
+                        "select count(p) from Purchase p where p.createdAt > :from",
+                        Long.class).setParameter("from", from)
+                        .getSingleResult();
+            });
+
+            assertEquals(Integer.valueOf((int) later),
+                    purchaseDao.findFirstMatchingRowIndex(from));
+        }
+    }
+
+    private static void assertDayCountsMatchPurchases() {
+        var createdAts = HibernateUtil.inSession(session -> {
+            return session.createQuery("select p.createdAt from Purchase p",
+                    Instant.class).list();
+        });
+        var expected = new TreeMap<LocalDate, Long>();
+        createdAts.forEach(createdAt -> expected
+                .merge(PurchaseDayCounts.dayOf(createdAt), 1L, Long::sum));
+        var counts = HibernateUtil.inSession(session -> {
+            return session.createQuery("from PurchaseDayCount",
+                    PurchaseDayCount.class).list();
+        });
+        var actual = new TreeMap<LocalDate, Long>();
+        counts.forEach(count -> actual.put(count.getPurchaseDay(),
+                count.getPurchaseCount()));
+        assertEquals(expected, actual);
+    }
+}
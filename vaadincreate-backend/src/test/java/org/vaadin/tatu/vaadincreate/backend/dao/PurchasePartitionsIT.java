@@ -0,0 +1,121 @@
+package org.vaadin.tatu.vaadincreate.backend.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.List;
+
+import javax.persistence.PersistenceException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.vaadin.tatu.vaadincreate.backend.data.Address;
+import org.vaadin.tatu.vaadincreate.backend.data.Purchase;
+import org.vaadin.tatu.vaadincreate.backend.data.PurchaseLine;
+import org.vaadin.tatu.vaadincreate.backend.data.PurchaseStatus;
+
+/**
+ * Tests the monthly partitions against a PostgreSQL database migrated with
+ * {@code vaadincreate-partitioning.sql}, e.g.
+ *
+ * <pre>
+ * mvn test -Dtest=PurchasePartitionsIT -Dhibernate.config=hibernate-prod.cfg.xml
+ * </pre>
+ *
+ * The tests are skipped if the purchase table is not partitioned.
+ */
+@SuppressWarnings("null")
+public class PurchasePartitionsIT {
+
+    private final PurchaseDao purchaseDao = new PurchaseDao();
+    private Purchase purchase;
+
+    @Before
+    public void setUp() {
+        var partitioned = HibernateUtil.inSession(session -> {
+            return PurchasePartitions.isPartitioned(session);
+        });
+        assumeTrue("Purchase table is not partitioned", partitioned);
+    }
+
+    @After
+    public void tearDown() {
+        if (purchase != null && purchase.getId() != null) {
+            HibernateUtil.inTransaction(session -> {
+                session.createQuery(
+                        "delete from PurchaseLine l where l.purchase.id = :id")
+                        .setParameter("id", purchase.getId()).executeUpdate();
+                session.createQuery("delete from Purchase p where p.id = :id")
+                        .setParameter("id", purchase.getId()).executeUpdate();
+            });
+        }
+    }
+
+    @Test
+    public void partitionIsCreatedAndPurchaseRoutedToItBeforeInsert() {
+        var month = YearMonth.now().plusYears(1);
+        purchase = createPurchase(month);
+
+        purchaseDao.savePurchases(List.of(purchase));
+
+        var partition = HibernateUtil.inSession(session -> {
+            return (String) session.createNativeQuery(
+                    "select tableoid::regclass::text from public.purchase "
+                            + "where id = :id")
+                    .setParameter("id", purchase.getId()).getSingleResult();
+        });
+        assertEquals("purchase_y%04dm%02d".formatted(month.getYear(),
+                month.getMonthValue()), partition);
+        var linesCreatedAt = HibernateUtil.inSession(session -> {
+            return session.createNativeQuery(
+                    "select count(*) from public.purchase_line "
+                            + "where purchase_id = :id "
+                            + "and purchase_created_at is not null")
+                    .setParameter("id", purchase.getId()).getSingleResult();
+        });
+        assertEquals(1L, ((Number) linesCreatedAt).longValue());
+    }
+
+    @Test
+    public void lineOfMissingPurchaseIsRejected() {
+        try {
+            HibernateUtil.inTransaction(session -> {
+                session.createNativeQuery(
+                        "insert into public.purchase_line (id, version, "
+                                + "quantity, unit_price, product_id, "
+                                + "purchase_id) select nextval("
+                                + "'public.idgenerator'), 0, 1, 1, min(id), "
+                                + "-1 from public.product")
+                        .executeUpdate();
+            });
+            fail("Line without a purchase should be rejected");
+        } catch (PersistenceException e) {
+            // Expected, purchase_created_at is not null
+        }
+    }
+
+    private static Purchase createPurchase(YearMonth month) {
+        var users = new UserDao().getAllUsers().stream().toList();
+        var product = new ProductDao().getAllProducts().iterator().next();
+        var purchase = new Purchase();
+        purchase.setRequester(users.get(0));
+        purchase.setApprover(users.get(1));
+        purchase.setStatus(PurchaseStatus.PENDING);
+        purchase.setCreatedAt(createdAt(month));
+        purchase.setDeliveryAddress(
+                new Address("Street 1", "12345", "City", "Country"));
+        purchase.addLine(
+                new PurchaseLine(purchase, product, 1, product.getPrice()));
+        return purchase;
+    }
+
+    private static Instant createdAt(YearMonth month) {
+        return month.atDay(15).atStartOfDay(ZoneId.systemDefault())
+                .toInstant();
+    }
+}
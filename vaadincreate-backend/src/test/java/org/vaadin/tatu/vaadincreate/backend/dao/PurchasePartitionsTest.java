@@ -0,0 +1,76 @@
+package org.vaadin.tatu.vaadincreate.backend.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for the creation of the monthly partitions in
+ * {@link PurchasePartitions}. The in-memory database is not partitioned, the
+ * routing to the partitions is tested in {@link PurchasePartitionsIT}.
+ */
+public class PurchasePartitionsTest {
+
+    private static final YearMonth CURRENT = YearMonth.of(2026, 10);
+
+    @Test
+    public void currentAndUpcomingMonthsAreCreatedFirst() {
+        assertEquals(
+                List.of(CURRENT, CURRENT.plusMonths(1), CURRENT.plusMonths(2)),
+                PurchasePartitions.monthsToCreate(null, CURRENT, List.of()));
+    }
+
+    @Test
+    public void nothingIsCreatedForPurchasesOfCreatedMonths() {
+        var createdUntil = CURRENT.plusMonths(2);
+
+        assertEquals(List.of(), PurchasePartitions.monthsToCreate(createdUntil,
+                CURRENT, List.of(createdAt(CURRENT), createdAt(createdUntil),
+                        createdAt(CURRENT.minusMonths(5)))));
+    }
+
+    @Test
+    public void purchaseAfterCreatedMonthsCreatesMonthsAheadOfIt() {
+        var createdUntil = CURRENT.plusMonths(2);
+
+        assertEquals(
+                List.of(CURRENT.plusMonths(3), CURRENT.plusMonths(4),
+                        CURRENT.plusMonths(5), CURRENT.plusMonths(6)),
+                PurchasePartitions.monthsToCreate(createdUntil, CURRENT,
+                        List.of(createdAt(CURRENT),
+                                createdAt(CURRENT.plusMonths(4)))));
+    }
+
+    @Test
+    public void monthRolloverCreatesFromTheLastCreatedMonth() {
+        // Created at startup three months ago
+        var createdUntil = CURRENT.minusMonths(1);
+
+        assertEquals(
+                List.of(CURRENT, CURRENT.plusMonths(1), CURRENT.plusMonths(2)),
+                PurchasePartitions.monthsToCreate(createdUntil, CURRENT,
+                        List.of(createdAt(CURRENT))));
+    }
+
+    @Test
+    public void unpartitionedTableIsDetectedAndSavingIsUnaffected() {
+        var partitioned = HibernateUtil.inSession(session -> {
+            return PurchasePartitions.isPartitioned(session);
+        });
+
+        assertFalse(partitioned);
+        PurchasePartitions.ensurePartitions(
+                List.of(createdAt(YearMonth.now().plusYears(1))));
+    }
+
+    private static Instant createdAt(YearMonth month) {
+        return month.atDay(15).atStartOfDay(ZoneId.systemDefault())
+                .toInstant();
+    }
+}
@@ -36,4 +36,24 @@ public class PurchaseTest {
         assertTrue(purchase.getLines().isEmpty());
         assertNull(line.getPurchase());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void should_SumLineTotalsAndCountLines_When_LinesAdded() {
+        User requester = new User(1, "customer1", "secret", User.Role.CUSTOMER);
+        Address address = new Address("Main St 1", "00100", "Helsinki", "FI");
+        Purchase purchase = new Purchase(requester, address);
+        assertEquals(BigDecimal.ZERO, purchase.getTotalAmount());
+        assertEquals(0, purchase.getLineCount());
+
+        for (var price : new String[] { "12.50", "3.25" }) {
+            PurchaseLine line = new PurchaseLine();
+            line.setProduct(new Product());
+            line.setQuantity(2);
+            line.setUnitPrice(new BigDecimal(price));
+            purchase.addLine(line);
+        }
+
+        assertEquals(new BigDecimal("31.50"), purchase.getTotalAmount());
+        assertEquals(2, purchase.getLineCount());
+    }
+}
@@ -0,0 +1,121 @@
+package org.vaadin.tatu.vaadincreate.backend.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.vaadin.tatu.vaadincreate.backend.PurchaseService.PurchaseExportRow;
+import org.vaadin.tatu.vaadincreate.backend.data.Product;
+import org.vaadin.tatu.vaadincreate.backend.data.Purchase;
+import org.vaadin.tatu.vaadincreate.backend.data.PurchaseLine;
+import org.vaadin.tatu.vaadincreate.backend.data.PurchaseStatus;
+import org.vaadin.tatu.vaadincreate.backend.data.User;
+
+@SuppressWarnings("null")
+public class PurchaseArchiveTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private PurchaseArchive archive;
+
+    @Before
+    public void setUp() throws IOException {
+        archive = new PurchaseArchive(folder.getRoot().toPath()
+                .resolve("archive"));
+    }
+
+    @Test
+    public void emptyArchiveHasNoMonths() {
+        assertTrue(archive.getMonths().isEmpty());
+        assertTrue(archive.read(YearMonth.of(2020, 1)).isEmpty());
+    }
+
+    @Test
+    public void rowsAreWrittenToMonthlyFilesAndReadBack() {
+        var january = row(1, "2020-01-10T10:00:00Z", 1, "Approver", null);
+        var januaryLine = row(1, "2020-01-10T10:00:00Z", 2, "Approver",
+                Instant.parse("2020-01-11T10:00:00Z"));
+        var february = row(2, "2020-02-01T00:00:00Z", 1, null, null);
+
+        archive.write(List.of(january, february, januaryLine));
+
+        assertEquals(List.of(YearMonth.of(2020, 2), YearMonth.of(2020, 1)),
+                archive.getMonths());
+        assertEquals(List.of(january, januaryLine),
+                archive.read(YearMonth.of(2020, 1)));
+        var read = archive.read(YearMonth.of(2020, 2));
+        assertEquals(List.of(february), read);
+        assertNull(read.get(0).approverName());
+    }
+
+    @Test
+    public void blocksAreConcatenatedInHistoryOrder() {
+        var older = row(1, "2020-01-10T10:00:00Z", 1, "Approver", null);
+        var newer = row(2, "2020-01-20T10:00:00Z", 1, "Approver", null);
+
+        archive.write(List.of(older));
+        archive.write(List.of(newer));
+
+        assertEquals(List.of(newer, older),
+                archive.read(YearMonth.of(2020, 1)));
+    }
+
+    @Test
+    public void rowArchivedTwiceIsReadOnce() {
+        var row = row(1, "2020-01-10T10:00:00Z", 1, "Approver", null);
+
+        archive.write(List.of(row));
+        archive.write(List.of(row));
+
+        assertEquals(List.of(row), archive.read(YearMonth.of(2020, 1)));
+    }
+
+    @Test
+    public void undecidedPurchaseIsReadBackWithoutApprover() {
+        var requester = new User();
+        requester.setName("Customer");
+        var product = new Product();
+        product.setId(10);
+        product.setProductName("Product");
+        var line = new PurchaseLine();
+        line.setProduct(product);
+        line.setQuantity(2);
+        line.setUnitPrice(new BigDecimal("10.25"));
+        var purchase = new Purchase();
+        purchase.setId(1);
+        purchase.setRequester(requester);
+        purchase.setCreatedAt(Instant.parse("2020-01-10T10:00:00Z"));
+        purchase.addLine(line);
+
+        var rows = PurchaseServiceImpl.toExportRows(List.of(purchase));
+        archive.write(rows);
+
+        var read = archive.read(YearMonth.of(2020, 1));
+        assertEquals(rows, read);
+        assertNull(read.get(0).approverName());
+        var archived = PurchaseServiceImpl.toArchivedPurchase(read.get(0));
+        assertEquals(PurchaseStatus.PENDING, archived.getStatus());
+        assertNull(archived.getApprover());
+        assertNull(archived.getDecidedAt());
+    }
+
+    private static PurchaseExportRow row(int purchaseId, String createdAt,
+            int lineIndex, String approver, Instant decidedAt) {
+        return new PurchaseExportRow(purchaseId, Instant.parse(createdAt),
+                "COMPLETED", "Customer", approver, decidedAt,
+                decidedAt != null ? "Approved" : null, new BigDecimal("30.50"),
+                lineIndex, 10 + lineIndex, "Product " + lineIndex,
+                new BigDecimal("10.25"), 2, new BigDecimal("20.50"));
+    }
+}
@@ -1,8 +1,12 @@
 package org.vaadin.tatu.vaadincreate.backend.service;
 
+import org.hibernate.Hibernate;
 import org.junit.Before;
 import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.vaadin.tatu.vaadincreate.backend.ProductDataService;
+import org.vaadin.tatu.vaadincreate.backend.PurchaseHistoryMode;
 import org.vaadin.tatu.vaadincreate.backend.PurchaseService;
 import org.vaadin.tatu.vaadincreate.backend.UserService;
 import org.vaadin.tatu.vaadincreate.backend.data.Address;
@@ -18,12 +22,19 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.YearMonth;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Test class for {@link PurchaseService}.
@@ -186,6 +197,23 @@ public class PurchaseServiceTest {
         assertEquals(expectedTotal, purchase.getTotalAmount());
     }
 
+    @Test
+    public void should_FetchSummariesWithoutLines_When_FetchingHistoryPage() {
+        var purchases = purchaseService.fetchPurchases(PurchaseHistoryMode.ALL,
+                0, 20, supervisorUser);
+        assertFalse(purchases.isEmpty());
+
+        for (Purchase summary : purchases) {
+            assertFalse(Hibernate.isInitialized(summary.getLines()));
+            var purchase = purchaseService.fetchPurchaseById(summary.getId());
+            var expectedTotal = purchase.getLines().stream()
+                    .map(PurchaseLine::getLineTotal)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            assertEquals(0, expectedTotal.compareTo(summary.getTotalAmount()));
+            assertEquals(purchase.getLines().size(), summary.getLineCount());
+        }
+    }
+
     @Test
     public void should_FindMyPurchases_When_PurchasesExist() {
         // Arrange
@@ -380,6 +408,167 @@ public class PurchaseServiceTest {
         productService.updateProduct(testProduct);
     }
 
+    @Test
+    public void should_ReserveStockWithoutConflicts_When_ApprovedConcurrently()
+            throws Exception {
+        // Arrange – 50 purchases of two popular products, the products are
+        // added in different order to the carts
+        int approvers = 50;
+        int stock = 30;
+        var products = productService.getAllProducts().stream().limit(2)
+                .map(p -> productService.getProductById(p.getId())).toList();
+        var savedStock = products.stream().map(Product::getStockCount)
+                .toList();
+        for (var product : products) {
+            product.setStockCount(stock);
+            productService.updateProduct(product);
+        }
+        Address address = new Address("123 Main St", "12345", "Anytown", "USA");
+        var purchaseIds = new ArrayList<Integer>();
+        for (int i = 0; i < approvers; i++) {
+            Cart cart = new Cart();
+            cart.addItem(products.get(i % 2), 1);
+            cart.addItem(products.get((i + 1) % 2), 1);
+            purchaseIds.add(purchaseService.createPendingPurchase(cart,
+                    address, customerUser, supervisorUser).getId());
+        }
+
+        // Act – approve all purchases in parallel
+        var executor = Executors.newFixedThreadPool(approvers);
+        var start = new CountDownLatch(1);
+        var futures = new ArrayList<Future<Purchase>>();
+        for (var purchaseId : purchaseIds) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return purchaseService.approve(purchaseId, supervisorUser,
+                        null);
+            }));
+        }
+        var startTime = System.nanoTime();
+        start.countDown();
+        int completed = 0;
+        int cancelled = 0;
+        for (var future : futures) {
+            // Fails the test if any approval failed
+            var status = future.get(60, TimeUnit.SECONDS).getStatus();
+            if (status == PurchaseStatus.COMPLETED) {
+                completed++;
+            } else if (status == PurchaseStatus.CANCELLED) {
+                cancelled++;
+            }
+        }
+        var millis = TimeUnit.NANOSECONDS
+                .toMillis(System.nanoTime() - startTime);
+        executor.shutdown();
+        logger.info("{} concurrent approvals in {}ms ({} approvals/s)",
+                approvers, millis, approvers * 1000L / Math.max(1L, millis));
+
+        // Assert – stock is never oversold
+        assertEquals(stock, completed);
+        assertEquals(approvers - stock, cancelled);
+        for (var product : products) {
+            assertEquals(Integer.valueOf(0), productService
+                    .getProductById(product.getId()).getStockCount());
+        }
+
+        // Restore stock for other tests
+        for (int i = 0; i < products.size(); i++) {
+            var product = productService
+                    .getProductById(products.get(i).getId());
+            product.setStockCount(savedStock.get(i));
+            productService.updateProduct(product);
+        }
+    }
+
+    @Test
+    public void should_AllocateStockInOrder_When_ApprovingAll() {
+        // Arrange – stock for three of the five purchases
+        var product = productService.getProductById(testProduct.getId());
+        int savedStock = product.getStockCount();
+        product.setStockCount(3);
+        product = productService.updateProduct(product);
+        Address address = new Address("123 Main St", "12345", "Anytown", "USA");
+        var purchaseIds = new ArrayList<Integer>();
+        for (int i = 0; i < 5; i++) {
+            Cart cart = new Cart();
+            cart.addItem(product, 1);
+            purchaseIds.add(purchaseService.createPendingPurchase(cart,
+                    address, customerUser, supervisorUser).getId());
+        }
+        Cart cart = new Cart();
+        cart.addItem(product, 1);
+        var decided = purchaseService.createPendingPurchase(cart, address,
+                customerUser, supervisorUser);
+        purchaseService.reject(decided.getId(), supervisorUser, "Rejected");
+        purchaseIds.add(decided.getId());
+        purchaseIds.add(-1);
+
+        // Act
+        var results = purchaseService.approveAll(purchaseIds, supervisorUser,
+                "Bulk");
+
+        // Assert – results are in the given order
+        assertEquals(purchaseIds.size(), results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(purchaseIds.get(i), results.get(i).purchaseId());
+        }
+        for (int i = 0; i < 3; i++) {
+            assertEquals(PurchaseStatus.COMPLETED, results.get(i).status());
+            assertEquals("Bulk", results.get(i).message());
+        }
+        for (int i = 3; i < 5; i++) {
+            assertEquals(PurchaseStatus.CANCELLED, results.get(i).status());
+            assertTrue(results.get(i).message().contains("Insufficient"));
+        }
+        assertFalse(results.get(5).isDecided());
+        assertTrue(results.get(5).message().contains("not PENDING"));
+        assertFalse(results.get(6).isDecided());
+        assertEquals(PurchaseStatus.COMPLETED, purchaseService
+                .fetchPurchaseById(purchaseIds.get(0)).getStatus());
+        assertEquals(Integer.valueOf(0),
+                productService.getProductById(product.getId()).getStockCount());
+
+        // Restore stock for other tests
+        product = productService.getProductById(product.getId());
+        product.setStockCount(savedStock);
+        productService.updateProduct(product);
+    }
+
+    @Test
+    public void should_RejectAll_Without_StockChange() {
+        // Arrange
+        int originalStock = productService.getProductById(testProduct.getId())
+                .getStockCount();
+        Address address = new Address("123 Main St", "12345", "Anytown", "USA");
+        var purchaseIds = new ArrayList<Integer>();
+        for (int i = 0; i < 3; i++) {
+            Cart cart = new Cart();
+            cart.addItem(testProduct, 1);
+            purchaseIds.add(purchaseService.createPendingPurchase(cart,
+                    address, customerUser, supervisorUser).getId());
+        }
+
+        // Act
+        var results = purchaseService.rejectAll(purchaseIds, supervisorUser,
+                "Budget exceeded");
+
+        // Assert
+        assertEquals(3, results.size());
+        results.forEach(result -> {
+            assertEquals(PurchaseStatus.REJECTED, result.status());
+            assertEquals("Budget exceeded", result.message());
+        });
+        var purchases = purchaseService.fetchPurchasesByIds(purchaseIds);
+        assertEquals(3, purchases.size());
+        purchases.forEach(purchase -> {
+            assertEquals(PurchaseStatus.REJECTED, purchase.getStatus());
+            assertNotNull(purchase.getDecidedAt());
+        });
+        assertEquals(originalStock, productService
+                .getProductById(testProduct.getId()).getStockCount()
+                .intValue());
+    }
+
     @Test
     public void should_RejectPurchase_Without_StockChange_When_ReasonProvided() {
         // Arrange
@@ -438,6 +627,40 @@ public class PurchaseServiceTest {
                 "Second rejection");
     }
 
+    @Test
+    public void should_ThrowException_When_RejectingAsOtherThanApprover() {
+        Cart cart = new Cart();
+        cart.addItem(testProduct, 1);
+        Address address = new Address("123 Main St", "12345", "Anytown", "USA");
+        Purchase purchase = purchaseService.createPendingPurchase(cart, address,
+                customerUser, supervisorUser);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> purchaseService.reject(purchase.getId(), customerUser,
+                        "Not mine"));
+
+        assertEquals(PurchaseStatus.PENDING, purchaseService
+                .fetchPurchaseById(purchase.getId()).getStatus());
+    }
+
+    @Test
+    public void should_ThrowException_When_RejectingWithBlankReason() {
+        Cart cart = new Cart();
+        cart.addItem(testProduct, 1);
+        Address address = new Address("123 Main St", "12345", "Anytown", "USA");
+        Purchase purchase = purchaseService.createPendingPurchase(cart, address,
+                customerUser, supervisorUser);
+        var purchaseIds = List.of(purchase.getId());
+
+        assertThrows(IllegalArgumentException.class, () -> purchaseService
+                .reject(purchase.getId(), supervisorUser, " "));
+        assertThrows(IllegalArgumentException.class, () -> purchaseService
+                .rejectAll(purchaseIds, supervisorUser, ""));
+
+        assertEquals(PurchaseStatus.PENDING, purchaseService
+                .fetchPurchaseById(purchase.getId()).getStatus());
+    }
+
     @Test
     public void should_ReturnMonthlyTotals_InChronologicalOrder_OldestToNewest() {
         int months = 12;
@@ -531,4 +754,7 @@ public class PurchaseServiceTest {
         assertEquals("No purchases should remain after full purge", 0,
                 remainingOld);
     }
+
+    private static final Logger logger = LoggerFactory
+            .getLogger(PurchaseServiceTest.class);
 }
@@ -1,6 +1,7 @@
 package org.vaadin.tatu.vaadincreate.backend.service;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
@@ -59,6 +60,26 @@ public class RedisPubSubServiceTest {
         assertEquals("testEvent", ((MessageEvent) envelope.event()).message());
     }
 
+    @Test
+    public void testPublishedEnvelopesAreNumbered() throws Exception {
+        var publisherMock = mock(Jedis.class);
+        service.publisherJedis = publisherMock;
+        var before = System.currentTimeMillis();
+
+        var first = getPublishedMessage(publisherMock);
+        var second = getPublishedMessage(publisherMock);
+
+        var mapper = new ObjectMapper();
+        mapper.findAndRegisterModules();
+        var firstEnvelope = mapper.readValue(first, EventEnvelope.class);
+        var secondEnvelope = mapper.readValue(second, EventEnvelope.class);
+        assertEquals(1, firstEnvelope.sequence());
+        assertEquals(2, secondEnvelope.sequence());
+        assertTrue(firstEnvelope.publishedAt() >= before);
+        assertTrue(secondEnvelope.publishedAt() <= System
+                .currentTimeMillis());
+    }
+
     @Test
     public void testPublishEventSetsLocalModeOnException() {
         // Arrange: Replace the publisherJedis with a mock that throws
@@ -97,7 +118,8 @@ public class RedisPubSubServiceTest {
         doAnswer(invocation -> {
             JedisPubSub pubSub = invocation.getArgument(0);
             // Simulate a received message.
-            var envelope = new EventEnvelope("node1",
+            var envelope = new EventEnvelope("node1", 1,
+                    System.currentTimeMillis(),
                     new MessageEvent("testEvent", LocalDateTime.now()));
             var mapper = new ObjectMapper();
             mapper.findAndRegisterModules();
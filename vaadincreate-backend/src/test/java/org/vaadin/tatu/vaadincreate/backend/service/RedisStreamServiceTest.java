@@ -0,0 +1,352 @@
+package org.vaadin.tatu.vaadincreate.backend.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.vaadin.tatu.vaadincreate.backend.RedisPubSubService.EventEnvelope;
+import org.vaadin.tatu.vaadincreate.backend.events.MessageEvent;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.params.XAddParams;
+import redis.clients.jedis.params.XReadGroupParams;
+import redis.clients.jedis.resps.StreamConsumerInfo;
+import redis.clients.jedis.resps.StreamEntry;
+import redis.clients.jedis.resps.StreamGroupInfo;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@SuppressWarnings({ "null", "unchecked" })
+public class RedisStreamServiceTest {
+
+    private static final String STREAM = "test_stream";
+    private static final String NODE = "node1";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Deque<Jedis> connections = new ArrayDeque<>();
+    private final List<EventEnvelope> received = new CopyOnWriteArrayList<>();
+    private long reconnectDelay;
+    private RedisStreamServiceImpl service;
+
+    @Before
+    public void setUp() {
+        mapper.findAndRegisterModules();
+        reconnectDelay = RedisStreamServiceImpl.reconnectDelay;
+        RedisStreamServiceImpl.reconnectDelay = 10;
+    }
+
+    @After
+    public void tearDown() {
+        if (service != null) {
+            service.stopSubscriber();
+            service.closePublisher();
+        }
+        RedisStreamServiceImpl.reconnectDelay = reconnectDelay;
+    }
+
+    @Test
+    public void publishedEventIsAddedToTrimmedStream() throws Exception {
+        service = createService(mock(Jedis.class), mock(Jedis.class));
+
+        service.publishEvent(NODE,
+                new MessageEvent("testEvent", LocalDateTime.now()));
+
+        ArgumentCaptor<Map<String, String>> fields = ArgumentCaptor
+                .forClass(Map.class);
+        verify(service.publisherJedis).xadd(eq(STREAM), any(XAddParams.class),
+                fields.capture());
+        var envelope = mapper.readValue(
+                fields.getValue().get(RedisStreamServiceImpl.FIELD),
+                EventEnvelope.class);
+        assertEquals(NODE, envelope.nodeId());
+        assertEquals(1, envelope.sequence());
+        assertEquals("testEvent", ((MessageEvent) envelope.event()).message());
+    }
+
+    @Test
+    public void pendingEntriesAreReplayedBeforeNewOnes() throws Exception {
+        var subscriber = mock(Jedis.class);
+        stubReads(subscriber, new ArrayDeque<>(List.of(List.of(entry(1, "1")))),
+                new ArrayDeque<>(
+                        List.of(List.of(entry(2, "2"), entry(3, "3")))));
+        service = createService(mock(Jedis.class), subscriber);
+        var latch = new CountDownLatch(3);
+
+        service.startSubscriber(envelope -> {
+            received.add(envelope);
+            latch.countDown();
+        });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("1", "2", "3"), messages());
+        verify(subscriber).xgroupCreate(STREAM, NODE,
+                StreamEntryID.XGROUP_LAST_ENTRY, true);
+        verify(subscriber, timeout(1000)).xack(STREAM, NODE,
+                new StreamEntryID(1, 0));
+        verify(subscriber, timeout(1000)).xack(STREAM, NODE,
+                new StreamEntryID(2, 0), new StreamEntryID(3, 0));
+    }
+
+    @Test
+    public void pendingEntriesAreReplayedAfterReconnect() throws Exception {
+        var subscriber = mock(Jedis.class);
+        when(subscriber.xreadGroup(anyString(), anyString(),
+                any(XReadGroupParams.class), anyMap())).thenAnswer(
+                        invocation -> {
+                            if (isPendingRead(invocation.getArgument(3))) {
+                                return List.of();
+                            }
+                            throw new JedisConnectionException("Lost");
+                        });
+        var reconnected = mock(Jedis.class);
+        stubReads(reconnected,
+                new ArrayDeque<>(List.of(List.of(entry(5, "replayed")))),
+                new ArrayDeque<>());
+        connections.add(reconnected);
+        service = createService(mock(Jedis.class), subscriber);
+        var latch = new CountDownLatch(1);
+
+        service.startSubscriber(envelope -> {
+            received.add(envelope);
+            latch.countDown();
+        });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("replayed"), messages());
+        // The offset of the group is kept over the reconnect
+        verify(reconnected, never()).xgroupCreate(anyString(), anyString(),
+                any(StreamEntryID.class), anyBoolean());
+        verify(reconnected, timeout(1000)).xack(STREAM, NODE,
+                new StreamEntryID(5, 0));
+    }
+
+    @Test
+    public void existingGroupIsMovedToEndOfStream() {
+        var subscriber = mock(Jedis.class);
+        stubReads(subscriber, new ArrayDeque<>(), new ArrayDeque<>());
+        when(subscriber.xgroupCreate(anyString(), anyString(),
+                any(StreamEntryID.class), anyBoolean()))
+                .thenThrow(new JedisDataException(
+                        "BUSYGROUP Consumer Group name already exists"));
+        service = createService(mock(Jedis.class), subscriber);
+
+        service.startSubscriber(received::add);
+
+        verify(subscriber, timeout(1000)).xgroupDelConsumer(STREAM, NODE,
+                NODE);
+        verify(subscriber, timeout(1000)).xgroupSetID(STREAM, NODE,
+                StreamEntryID.XGROUP_LAST_ENTRY);
+    }
+
+    @Test
+    public void publishingIsRetriedOnNewConnection() {
+        var publisher = mock(Jedis.class);
+        when(publisher.xadd(anyString(), any(XAddParams.class), anyMap()))
+                .thenThrow(new JedisConnectionException("Lost"));
+        service = createService(publisher, mock(Jedis.class));
+        var reconnected = mock(Jedis.class);
+        connections.addFirst(reconnected);
+
+        service.publishEvent(NODE,
+                new MessageEvent("testEvent", LocalDateTime.now()));
+
+        verify(reconnected).xadd(eq(STREAM), any(XAddParams.class), anyMap());
+    }
+
+    @Test
+    public void eventsAreBufferedWhileRedisIsUnavailable() throws Exception {
+        var publisher = mock(Jedis.class);
+        when(publisher.xadd(anyString(), any(XAddParams.class), anyMap()))
+                .thenThrow(new JedisConnectionException("Down"));
+        service = createService(publisher, mock(Jedis.class));
+        connections.addFirst(publisher);
+        connections.addFirst(publisher);
+        RedisStreamServiceImpl.reconnectDelay = 60_000;
+
+        service.publishEvent(NODE,
+                new MessageEvent("first", LocalDateTime.now()));
+        // Not retried before the reconnect delay has passed
+        service.publishEvent(NODE,
+                new MessageEvent("second", LocalDateTime.now()));
+        verify(publisher, times(2)).xadd(anyString(), any(XAddParams.class),
+                anyMap());
+
+        // Redis is back when the subscriber gets connected
+        var reconnected = mock(Jedis.class);
+        connections.addFirst(reconnected);
+        stubReads(service.subscriberJedis, new ArrayDeque<>(),
+                new ArrayDeque<>());
+        service.startSubscriber(received::add);
+
+        ArgumentCaptor<Map<String, String>> fields = ArgumentCaptor
+                .forClass(Map.class);
+        verify(reconnected, timeout(1000).times(2)).xadd(eq(STREAM),
+                any(XAddParams.class), fields.capture());
+        var sequences = fields.getAllValues().stream()
+                .map(map -> map.get(RedisStreamServiceImpl.FIELD))
+                .map(this::readEnvelope).map(EventEnvelope::sequence)
+                .toList();
+        assertEquals(List.of(1L, 2L), sequences);
+    }
+
+    @Test
+    public void subscriberRetriesWhenRedisIsUnavailableOnStart()
+            throws Exception {
+        var subscriber = mock(Jedis.class);
+        when(subscriber.xgroupCreate(anyString(), anyString(),
+                any(StreamEntryID.class), anyBoolean()))
+                .thenThrow(new JedisConnectionException("Down"));
+        var reconnected = mock(Jedis.class);
+        stubReads(reconnected, new ArrayDeque<>(),
+                new ArrayDeque<>(List.of(List.of(entry(1, "1")))));
+        connections.add(reconnected);
+        service = createService(mock(Jedis.class), subscriber);
+        var latch = new CountDownLatch(1);
+
+        service.startSubscriber(envelope -> {
+            received.add(envelope);
+            latch.countDown();
+        });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("1"), messages());
+        verify(reconnected).xgroupCreate(STREAM, NODE,
+                StreamEntryID.XGROUP_LAST_ENTRY, true);
+    }
+
+    @Test
+    public void processesOnSameNodeHaveGroupsOfTheirOwn() {
+        var node = System.getProperty("eventbus.node");
+        System.setProperty("eventbus.node", NODE);
+        try {
+            var group = RedisStreamServiceImpl.resolveNodeName();
+            var otherGroup = RedisStreamServiceImpl.resolveNodeName();
+
+            assertTrue(group.startsWith(NODE + "-"));
+            assertTrue(otherGroup.startsWith(NODE + "-"));
+            assertNotEquals(group, otherGroup);
+        } finally {
+            if (node == null) {
+                System.clearProperty("eventbus.node");
+            } else {
+                System.setProperty("eventbus.node", node);
+            }
+        }
+    }
+
+    @Test
+    public void groupsOfIdleNodesAreRemovedOnJoin() {
+        var subscriber = mock(Jedis.class);
+        stubReads(subscriber, new ArrayDeque<>(), new ArrayDeque<>());
+        var groups = List.of(group(NODE), group("stale"), group("active"));
+        when(subscriber.xinfoGroups(STREAM)).thenReturn(groups);
+        var staleConsumer = consumer(
+                RedisStreamServiceImpl.groupIdleTimeout + 1);
+        when(subscriber.xinfoConsumers2(STREAM, "stale"))
+                .thenReturn(List.of(staleConsumer));
+        var activeConsumer = consumer(100);
+        when(subscriber.xinfoConsumers2(STREAM, "active"))
+                .thenReturn(List.of(activeConsumer));
+        service = createService(mock(Jedis.class), subscriber);
+
+        service.startSubscriber(received::add);
+
+        verify(subscriber, timeout(1000)).xgroupDestroy(STREAM, "stale");
+        verify(subscriber, never()).xgroupDestroy(STREAM, "active");
+        verify(subscriber, never()).xgroupDestroy(STREAM, NODE);
+    }
+
+    private static StreamGroupInfo group(String name) {
+        var info = mock(StreamGroupInfo.class);
+        when(info.getName()).thenReturn(name);
+        when(info.getConsumers()).thenReturn(1L);
+        return info;
+    }
+
+    private static StreamConsumerInfo consumer(long idle) {
+        var info = mock(StreamConsumerInfo.class);
+        when(info.getIdle()).thenReturn(idle);
+        return info;
+    }
+
+    private EventEnvelope readEnvelope(String message) {
+        try {
+            return mapper.readValue(message, EventEnvelope.class);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private RedisStreamServiceImpl createService(Jedis publisher,
+            Jedis subscriber) {
+        connections.addFirst(subscriber);
+        connections.addFirst(publisher);
+        return new RedisStreamServiceImpl("localhost", 6379, STREAM, null,
+                NODE, 1000) {
+            @Override
+            protected Jedis connect() {
+                var connection = connections.poll();
+                return connection != null ? connection : mock(Jedis.class);
+            }
+        };
+    }
+
+    // Serves the pending and the new entries batch by batch, then blocks
+    private static void stubReads(Jedis jedis,
+            Deque<List<StreamEntry>> pending, Deque<List<StreamEntry>> fresh) {
+        when(jedis.xreadGroup(anyString(), anyString(),
+                any(XReadGroupParams.class), anyMap())).thenAnswer(
+                        invocation -> {
+                            var batches = isPendingRead(
+                                    invocation.getArgument(3)) ? pending
+                                            : fresh;
+                            var batch = batches.poll();
+                            if (batch == null) {
+                                Thread.sleep(10);
+                                return isPendingRead(invocation.getArgument(3))
+                                        ? List.of()
+                                        : null;
+                            }
+                            return List.of(Map.entry(STREAM, batch));
+                        });
+    }
+
+    private static boolean isPendingRead(Map<String, StreamEntryID> ids) {
+        return !">".equals(ids.get(STREAM).toString());
+    }
+
+    private StreamEntry entry(long id, String message) throws Exception {
+        var envelope = new EventEnvelope("node2", id,
+                System.currentTimeMillis(),
+                new MessageEvent(message, LocalDateTime.now()));
+        return new StreamEntry(new StreamEntryID(id, 0),
+                Map.of(RedisStreamServiceImpl.FIELD,
+                        mapper.writeValueAsString(envelope)));
+    }
+
+    private List<String> messages() {
+        return received.stream()
+                .map(envelope -> ((MessageEvent) envelope.event()).message())
+                .toList();
+    }
+}
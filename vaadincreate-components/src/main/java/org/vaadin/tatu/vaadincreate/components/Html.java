@@ -1,5 +1,7 @@
 package org.vaadin.tatu.vaadincreate.components;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 
 import org.jsoup.Jsoup;
@@ -22,6 +24,24 @@ public abstract class Html<T extends Html<T>> {
     protected final List<Object> children = new ArrayList<>();
     protected @Nullable String text;
 
+    private static final int CACHE_SIZE = 2000;
+
+    // Attributes allowed on all tags
+    private static final Set<String> allowedAttributes = createAllowedAttributes();
+    // Read only after creation, so it can be shared by all threads
+    private static final Safelist safelist = Safelist.relaxed()
+            .addAttributes(":all", allowedAttributes.toArray(String[]::new));
+    // Built content -> sanitized content, least recently used evicted first
+    @SuppressWarnings("serial")
+    private static final Map<String, String> cache = Collections
+            .synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(
+                        Map.Entry<String, String> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+
     protected Html(String name) {
         this.name = name;
     }
@@ -157,43 +177,95 @@ public abstract class Html<T extends Html<T>> {
     }
 
     /**
-     * Build HTML string and sanitize it with Jsoup.
+     * Build HTML string and sanitize it with Jsoup. Fragments composed only of
+     * builder tags, escaped text and attributes allowed by the safelist are
+     * safe by construction and are not sanitized. Fragments with raw HTML are
+     * sanitized once at the root, and the sanitized results are cached by the
+     * built content, which includes the localized texts.
      *
      * @return the built HTML string
      */
     public String build() {
         var sb = new StringBuilder();
-        sb.append('<').append(name);
-        attrs.forEach((k, v) -> sb.append(' ').append(k).append('=').append('"')
-                .append(escape(v)).append('"'));
+        try {
+            write(sb);
+        } catch (IOException e) {
+            // StringBuilder does not throw
+            throw new UncheckedIOException(e);
+        }
+        var built = sb.toString();
+        if (built == null) {
+            built = "";
+        }
+        if (this instanceof Br || isSafe()) {
+            return built;
+        }
+        var sanitized = cache.get(built);
+        if (sanitized == null) {
+            sanitized = sanitize(built);
+            cache.put(built, sanitized);
+        }
+        return sanitized;
+    }
+
+    /**
+     * Write the HTML to the given appendable in one pass, escaping text and
+     * attribute values as they are written. Fragments that are safe by
+     * construction, see {@link #build()}, are streamed without intermediate
+     * strings. Other fragments are built and sanitized once at the root.
+     *
+     * @param out
+     *            the appendable to write to, e.g. a StringBuilder or a Writer
+     * @throws IOException
+     *             if writing to the appendable fails
+     */
+    public void writeTo(Appendable out) throws IOException {
+        Objects.requireNonNull(out, "Appendable cannot be null");
+        if (this instanceof Br || isSafe()) {
+            write(out);
+        } else {
+            out.append(build());
+        }
+    }
+
+    private void write(Appendable out) throws IOException {
+        out.append('<').append(name);
+        for (var attr : attrs.entrySet()) {
+            out.append(' ').append(attr.getKey()).append("=\"");
+            escape(attr.getValue(), out);
+            out.append('"');
+        }
         // Only void tags (currently just <br>) self-close. Others must have
         // explicit closing tag
-        boolean isVoid = this instanceof Br;
-        if (isVoid) {
-            sb.append('/').append('>');
-            var built = sb.toString();
-            if (built == null) {
-                built = "";
-            }
-            return built;
+        if (this instanceof Br) {
+            out.append("/>");
+            return;
         }
-        sb.append('>');
+        out.append('>');
         if (text != null) {
-            sb.append(escape(text));
+            escape(text, out);
         }
         for (var child : children) {
             if (child instanceof Raw raw) {
-                sb.append(raw.html);
+                out.append(raw.html);
             } else if (child instanceof Html<?> html) {
-                sb.append(html.build());
+                html.write(out);
             }
         }
-        sb.append("</").append(name).append('>');
-        var built = sb.toString();
-        if (built == null) {
-            built = "";
+        out.append("</").append(name).append('>');
+    }
+
+    // True if there is no raw HTML and all attributes are allowed
+    private boolean isSafe() {
+        if (!allowedAttributes.containsAll(attrs.keySet())) {
+            return false;
         }
-        return sanitize(built);
+        for (var child : children) {
+            if (!(child instanceof Html<?> html) || !html.isSafe()) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -209,22 +281,6 @@ public abstract class Html<T extends Html<T>> {
                 "Input string for sanitization cannot be null");
         var settings = new OutputSettings();
         settings.prettyPrint(false);
-        // @formatter:off
-       var safelist = Safelist.relaxed().addAttributes(":all",
-                "id",
-                "class",
-                "style",
-                "tabindex");
-        // @formatter:on
-        // Add all constants in AriaAttributes to safelist
-        for (var field : AriaAttributes.class.getDeclaredFields()) {
-            try {
-                var attrName = (String) field.get(null);
-                safelist.addAttributes(":all", attrName);
-            } catch (IllegalAccessException e) {
-                // Ignore
-            }
-        }
         var sanitized = Jsoup.clean(unsanitized, "", safelist, settings);
         if (sanitized == null) {
             sanitized = "";
@@ -232,14 +288,38 @@ public abstract class Html<T extends Html<T>> {
         return sanitized;
     }
 
-    private static String escape(String s) {
-        assert s != null;
-        var escaped = s.replace("&", "&amp;").replace("<", "&lt;")
-                .replace(">", "&gt;").replace("\"", "&quot;");
-        if (escaped == null) {
-            escaped = "";
+    private static Set<String> createAllowedAttributes() {
+        var attributes = new HashSet<String>();
+        attributes.addAll(List.of("id", "class", "style", "tabindex"));
+        // Add all constants in AriaAttributes
+        for (var field : AriaAttributes.class.getDeclaredFields()) {
+            try {
+                attributes.add((String) field.get(null));
+            } catch (IllegalAccessException e) {
+                // Ignore
+            }
+        }
+        return Set.copyOf(attributes);
+    }
+
+    // Appends the unescaped runs between the escaped characters as is
+    private static void escape(String s, Appendable out) throws IOException {
+        int start = 0;
+        for (int i = 0; i < s.length(); i++) {
+            @Nullable
+            String entity = switch (s.charAt(i)) {
+            case '&' -> "&amp;";
+            case '<' -> "&lt;";
+            case '>' -> "&gt;";
+            case '"' -> "&quot;";
+            default -> null;
+            };
+            if (entity != null) {
+                out.append(s, start, i).append(entity);
+                start = i + 1;
+            }
         }
-        return escaped;
+        out.append(s, start, s.length());
     }
 
     private static final class Raw {
@@ -2,6 +2,8 @@ package org.vaadin.tatu.vaadincreate.components;
 
 import static org.junit.Assert.*;
 
+import java.io.IOException;
+
 import org.junit.Test;
 import org.vaadin.tatu.vaadincreate.components.AttributeExtension.AriaAttributes;
 import org.vaadin.tatu.vaadincreate.components.AttributeExtension.AriaRoles;
@@ -92,4 +94,52 @@ public class HtmlBuilderTest {
         var html = Html.br().build();
         assertEquals("<br/>", html);
     }
+
+    @Test
+    public void safeFragmentIsSameAsSanitized() {
+        var fragment = Html.div().cls("wrapper")
+                .add(Html.span().style("color:red").text("\u25cf"))
+                .add(Html.span().attr(AriaAttributes.LABEL, "In stock 5")
+                        .text(" In stock & <ok>"));
+        var html = fragment.build();
+        assertEquals(Html.sanitize(html), html);
+    }
+
+    @Test
+    public void disallowedAttributeIsSanitized() {
+        var html = Html.span().attr("onclick", "evil()").text("X").build();
+        assertEquals("<span>X</span>", html);
+        html = Html.div().add(Html.span().attr("onclick", "evil()"))
+                .build();
+        assertEquals("<div><span></span></div>", html);
+    }
+
+    @Test
+    public void rawHtmlInChildIsSanitizedAtRoot() {
+        var html = Html.div()
+                .add(Html.b().raw("<img src=x onerror='evil()'>Name"))
+                .add(Html.br()).build();
+        assertEquals(html, Html.div()
+                .add(Html.b().raw("<img src=x onerror='evil()'>Name"))
+                .add(Html.br()).build());
+        assertFalse(html.contains("onerror"));
+        assertTrue(html.contains("Name"));
+    }
+
+    @Test
+    public void writeToStreamsSameHtmlAsBuild() throws IOException {
+        var safe = Html.div().add(Html.span().attr(AriaAttributes.LABEL,
+                "\"quoted\" & <tag>").text("a < b & c > \"d\""))
+                .add(Html.br());
+        var unsafe = Html.div().add(Html.b().raw("<i onclick='x'>raw</i>"));
+
+        var out = new StringBuilder();
+        safe.writeTo(out);
+        unsafe.writeTo(out);
+
+        assertEquals(safe.build() + unsafe.build(), out.toString());
+        assertTrue(out.toString().contains(
+                "aria-label=\"&quot;quoted&quot; &amp; &lt;tag&gt;\""));
+        assertFalse(out.toString().contains("onclick"));
+    }
 }
@@ -0,0 +1,119 @@
+package org.vaadin.tatu.vaadincreate.components;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document.OutputSettings;
+import org.jsoup.safety.Safelist;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.vaadin.tatu.vaadincreate.components.AttributeExtension.AriaAttributes;
+
+/**
+ * JMH benchmark for rendering the HTML of the book grid cells with
+ * {@link Html}, comparing {@link Html#build()} with its safe fast path, static
+ * safelist and render cache with sanitizing every fragment with a freshly
+ * built safelist.
+ * <p>
+ * Not run as part of the normal build, run explicitly with:
+ *
+ * <pre>
+ * mvn test -Dtest=HtmlRenderBenchmark
+ * </pre>
+ *
+ * Each invocation renders the availability cell and the description with raw
+ * HTML of every row of a 10k-row grid.
+ */
+@SuppressWarnings("null")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HtmlRenderBenchmark {
+
+    private static final String[] AVAILABILITY = { "Available", "Coming",
+            "Discontinued" };
+
+    @Param("10000")
+    private int rows;
+
+    @Test
+    public void renderGrid() throws RunnerException {
+        assertEquals(legacy(HtmlRenderBenchmark::description, 1),
+                description(1).build());
+        new Runner(new OptionsBuilder()
+                .include(HtmlRenderBenchmark.class.getName()).build()).run();
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole) {
+        for (int row = 0; row < rows; row++) {
+            blackhole.consume(legacy(HtmlRenderBenchmark::availability, row));
+            blackhole.consume(legacy(HtmlRenderBenchmark::description, row));
+        }
+    }
+
+    @Benchmark
+    public void current(Blackhole blackhole) {
+        for (int row = 0; row < rows; row++) {
+            blackhole.consume(availability(row).build());
+            blackhole.consume(description(row).build());
+        }
+    }
+
+    static Html<?> availability(int row) {
+        var text = AVAILABILITY[row % AVAILABILITY.length];
+        return Html.div()
+                .add(Html.span().style("color: green").text("●"))
+                .add(Html.span().cls("availability-label-aria-label")
+                        .attr(AriaAttributes.LABEL, text + " " + row % 50))
+                .add(Html.span().cls("availability-label").text(" " + text));
+    }
+
+    static Html<?> description(int row) {
+        return Html.div()
+                .add(Html.span().cls("caption").text("Product name: "))
+                .add(Html.b().raw("Book " + row % 100)).add(Html.br())
+                .add(Html.span().cls("caption").text("In stock: "))
+                .add(Html.span().text(Integer.toString(row % 50)));
+    }
+
+    // Sanitizes the fragment with a freshly built safelist, as build() did
+    // before the render cache and the safe fast path
+    static String legacy(IntFunction<Html<?>> fragment, int row) {
+        return legacySanitize(fragment.apply(row).build());
+    }
+
+    static String legacySanitize(String html) {
+        var settings = new OutputSettings();
+        settings.prettyPrint(false);
+        var safelist = Safelist.relaxed().addAttributes(":all", "id",
+                "class", "style", "tabindex");
+        for (var field : AriaAttributes.class.getDeclaredFields()) {
+            try {
+                safelist.addAttributes(":all", (String) field.get(null));
+            } catch (IllegalAccessException e) {
+                // Ignore
+            }
+        }
+        return Jsoup.clean(html, "", safelist, settings);
+    }
+}
@@ -0,0 +1,119 @@
+package org.vaadin.tatu.vaadincreate.components;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.vaadin.tatu.vaadincreate.components.AttributeExtension.AriaAttributes;
+import org.vaadin.tatu.vaadincreate.components.AttributeExtension.AriaRoles;
+
+/**
+ * JMH benchmark for writing {@link Html} trees in one pass, comparing
+ * {@link Html#writeTo(Appendable)} and {@link Html#build()} with sanitizing
+ * each nested fragment and then its parent again, as build() did before the
+ * root-only sanitization.
+ * <p>
+ * Not run as part of the normal build, run explicitly with:
+ *
+ * <pre>
+ * mvn test -Dtest=HtmlStreamBenchmark
+ * </pre>
+ *
+ * Each invocation renders a book grid row like {@link HtmlRenderBenchmark}
+ * and the purchase details of a purchase with five lines like the purchase
+ * history grid. The streaming variant writes into one reused buffer.
+ */
+@SuppressWarnings("null")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HtmlStreamBenchmark {
+
+    private final StringBuilder buffer = new StringBuilder();
+    private int row;
+
+    @Test
+    public void writeFragments() throws RunnerException, IOException {
+        var details = purchaseDetails(1);
+        details.writeTo(buffer);
+        assertEquals(details.build(), buffer.toString());
+        // Jsoup serializes the same content differently
+        assertEquals(nested(details),
+                HtmlRenderBenchmark.legacySanitize(buffer.toString()));
+        new Runner(new OptionsBuilder()
+                .include(HtmlStreamBenchmark.class.getName()).build()).run();
+    }
+
+    @Benchmark
+    public void nested(Blackhole blackhole) {
+        row++;
+        blackhole.consume(nested(HtmlRenderBenchmark.availability(row)));
+        blackhole.consume(nested(HtmlRenderBenchmark.description(row)));
+        blackhole.consume(nested(purchaseDetails(row)));
+    }
+
+    @Benchmark
+    public void built(Blackhole blackhole) {
+        row++;
+        blackhole.consume(HtmlRenderBenchmark.availability(row).build());
+        blackhole.consume(HtmlRenderBenchmark.description(row).build());
+        blackhole.consume(purchaseDetails(row).build());
+    }
+
+    @Benchmark
+    public void streamed(Blackhole blackhole) throws IOException {
+        row++;
+        buffer.setLength(0);
+        HtmlRenderBenchmark.availability(row).writeTo(buffer);
+        HtmlRenderBenchmark.description(row).writeTo(buffer);
+        purchaseDetails(row).writeTo(buffer);
+        blackhole.consume(buffer);
+    }
+
+    private static Html<?> purchaseDetails(int row) {
+        var root = Html.div().style("padding: 10px;");
+        root.add(Html.strong().text("Purchase ID"))
+                .add(Html.span().text(": " + row)).add(Html.br());
+        root.add(Html.strong().text("Decision reason"))
+                .add(Html.span().text(": Out of \"budget\" & <stock>"))
+                .add(Html.br());
+        var lines = Html.div();
+        for (int line = 0; line < 5; line++) {
+            lines.add(Html.span().text(String.format(
+                    "Book %d: 12,50 € x %d = %d,50 €", line, line + 1,
+                    12 * (line + 1)))).add(Html.br());
+        }
+        return root.add(Html.br()).add(lines)
+                .attr(AriaAttributes.LIVE, "assertive")
+                .attr(AriaAttributes.ROLE, AriaRoles.ALERT);
+    }
+
+    // Sanitizes the fragments of all the nested tags with a freshly built
+    // safelist before the fragment itself, like the recursive build() did
+    private static String nested(Html<?> html) {
+        for (var child : html.children) {
+            if (child instanceof Html<?> tag) {
+                nested(tag);
+            }
+        }
+        return HtmlRenderBenchmark.legacySanitize(html.build());
+    }
+}
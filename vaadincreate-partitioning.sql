@@ -0,0 +1,157 @@
+--
+-- Optional migration of the purchase table to monthly range partitions on
+-- created_at (PostgreSQL 13 or newer). Run after loading vaadincreate.sql:
+--
+--   psql -U creator -d vaadincreate -f vaadincreate-partitioning.sql
+--
+-- The partitions are named purchase_yYYYYmMM. Rows outside the existing
+-- partitions go to purchase_default, and public.create_purchase_partition
+-- moves them to the monthly partition when it is created. The application
+-- creates the partitions of the current and the next months at startup and
+-- before inserting purchases of later months, and drops whole months when
+-- purging old purchases.
+--
+-- The primary key of a partitioned table must include the partition key, so
+-- the key of purchase becomes (id, created_at). The ids are still unique as
+-- they are allocated from idgenerator. purchase_line stays unpartitioned. A
+-- foreign key must reference the whole key, so purchase_line gets the
+-- created_at of its purchase in purchase_created_at, filled in by a trigger,
+-- and the foreign key to purchase references (id, created_at).
+--
+
+BEGIN;
+
+ALTER TABLE public.purchase_line
+    DROP CONSTRAINT IF EXISTS fkf13kjx8dac73h8k13urbl613i;
+ALTER TABLE public.purchase_line
+    ADD COLUMN purchase_created_at timestamp without time zone;
+UPDATE public.purchase_line l SET purchase_created_at = p.created_at
+    FROM public.purchase p WHERE p.id = l.purchase_id;
+
+ALTER TABLE public.purchase RENAME TO purchase_unpartitioned;
+ALTER TABLE public.purchase_unpartitioned
+    DROP CONSTRAINT IF EXISTS fkgs57qse1tn06weqpd57lo1v6g;
+ALTER TABLE public.purchase_unpartitioned
+    DROP CONSTRAINT IF EXISTS fkmusayi051hmyr9n7xuc4ds94i;
+ALTER TABLE public.purchase_unpartitioned
+    DROP CONSTRAINT IF EXISTS purchase_pkey;
+DROP INDEX IF EXISTS public.idx_purchase_status_decided_at;
+DROP INDEX IF EXISTS public.idx_purchase_requester_created_at;
+DROP INDEX IF EXISTS public.idx_purchase_created_at;
+DROP INDEX IF EXISTS public.idx_purchase_approver_status_created_at;
+
+CREATE TABLE public.purchase (
+    id integer NOT NULL,
+    version integer,
+    created_at timestamp without time zone NOT NULL,
+    decided_at timestamp without time zone,
+    decision_reason character varying(500),
+    city character varying(255),
+    country character varying(255),
+    postal_code character varying(255),
+    street character varying(255),
+    status character varying(255) NOT NULL,
+    approver_id integer,
+    requester_id integer NOT NULL,
+    total_amount numeric(12,2) DEFAULT 0 NOT NULL,
+    line_count integer DEFAULT 0 NOT NULL,
+    CONSTRAINT purchase_pkey PRIMARY KEY (id, created_at),
+    CONSTRAINT fkgs57qse1tn06weqpd57lo1v6g FOREIGN KEY (approver_id)
+        REFERENCES public.application_user(id),
+    CONSTRAINT fkmusayi051hmyr9n7xuc4ds94i FOREIGN KEY (requester_id)
+        REFERENCES public.application_user(id)
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE public.purchase_default PARTITION OF public.purchase DEFAULT;
+
+CREATE INDEX idx_purchase_approver_status_created_at
+    ON public.purchase USING btree (approver_id, status, created_at);
+CREATE INDEX idx_purchase_created_at
+    ON public.purchase USING btree (created_at);
+CREATE INDEX idx_purchase_requester_created_at
+    ON public.purchase USING btree (requester_id, created_at);
+CREATE INDEX idx_purchase_status_decided_at
+    ON public.purchase USING btree (status, decided_at);
+
+--
+-- Creates the partition of the month containing the given date, moving the
+-- rows of the month from the default partition. Their lines are deleted and
+-- inserted again around the move, as the foreign key does not allow removing
+-- the purchases even for a moment. Returns false if the partition already
+-- exists. Concurrent calls, e.g. from several application nodes, are
+-- serialized with an advisory lock.
+--
+CREATE OR REPLACE FUNCTION public.create_purchase_partition(month date)
+RETURNS boolean
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    month_start timestamp := date_trunc('month', month);
+    month_end timestamp := date_trunc('month', month) + interval '1 month';
+    partition_name text := 'purchase_' || to_char(month, '"y"YYYY"m"MM');
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('public.create_purchase_partition'));
+    IF to_regclass('public.' || partition_name) IS NOT NULL THEN
+        RETURN false;
+    END IF;
+    CREATE TEMPORARY TABLE moved_purchase_line AS
+        SELECT l.* FROM public.purchase_line l
+        JOIN public.purchase_default p ON p.id = l.purchase_id
+        WHERE p.created_at >= month_start AND p.created_at < month_end;
+    DELETE FROM public.purchase_line l USING moved_purchase_line m
+        WHERE l.id = m.id;
+    EXECUTE format('CREATE TABLE public.%I (LIKE public.purchase '
+            'INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+    EXECUTE format('INSERT INTO public.%I SELECT * FROM public.purchase_default '
+            'WHERE created_at >= %L AND created_at < %L', partition_name,
+            month_start, month_end);
+    EXECUTE format('DELETE FROM public.purchase_default '
+            'WHERE created_at >= %L AND created_at < %L', month_start,
+            month_end);
+    EXECUTE format('ALTER TABLE public.purchase ATTACH PARTITION public.%I '
+            'FOR VALUES FROM (%L) TO (%L)', partition_name, month_start,
+            month_end);
+    INSERT INTO public.purchase_line SELECT * FROM moved_purchase_line;
+    DROP TABLE moved_purchase_line;
+    RETURN true;
+END;
+$$;
+
+SELECT public.create_purchase_partition(month::date)
+FROM generate_series(
+        date_trunc('month',
+                (SELECT min(created_at) FROM public.purchase_unpartitioned)),
+        date_trunc('month', now()) + interval '2 months',
+        interval '1 month') AS month;
+
+INSERT INTO public.purchase SELECT * FROM public.purchase_unpartitioned;
+
+DROP TABLE public.purchase_unpartitioned;
+
+--
+-- Fills in the created_at of the purchase of a new line. A line of a missing
+-- purchase gets null, which the not null constraint rejects.
+--
+CREATE OR REPLACE FUNCTION public.set_purchase_line_created_at()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    SELECT created_at INTO NEW.purchase_created_at
+    FROM public.purchase WHERE id = NEW.purchase_id;
+    RETURN NEW;
+END;
+$$;
+
+CREATE TRIGGER purchase_line_created_at
+    BEFORE INSERT OR UPDATE OF purchase_id ON public.purchase_line
+    FOR EACH ROW EXECUTE FUNCTION public.set_purchase_line_created_at();
+
+ALTER TABLE public.purchase_line
+    ALTER COLUMN purchase_created_at SET NOT NULL;
+ALTER TABLE public.purchase_line
+    ADD CONSTRAINT fk_purchase_line_purchase
+    FOREIGN KEY (purchase_id, purchase_created_at)
+    REFERENCES public.purchase (id, created_at);
+
+COMMIT;
@@ -0,0 +1,145 @@
+package org.vaadin.tatu.vaadincreate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.vaadin.tatu.vaadincreate.observability.Telemetry;
+
+import com.vaadin.ui.UI;
+import com.vaadin.ui.UIDetachedException;
+
+/**
+ * Coalesces the UI updates made from background threads, so that a burst of
+ * updates is pushed to the browser once instead of once per update.
+ * <p>
+ * The updates of a UI are collected for {@code -Dpush.coalesceMillis}
+ * milliseconds (by default {@value #DEFAULT_WINDOW_MILLIS}) and then run in
+ * one {@link UI#access(Runnable)} cycle. The updates made until the access
+ * cycle gets the session lock are run in the same cycle, in the order they
+ * were made. An update with a key replaces the pending update of the UI with
+ * the same key, e.g. refreshing the same item many times is done once, and is
+ * run in the position of the latest update.
+ * <p>
+ * The whole batch is run in one {@link AccessTask}, so its tracing span and
+ * the {@code UiAccessEvent} cover all the updates of the batch.
+ * <p>
+ * The number of pushes saved and the latency added by the coalescing are
+ * recorded with {@link Telemetry}.
+ */
+@NullMarked
+public final class AccessCoalescer {
+
+    private static final long DEFAULT_WINDOW_MILLIS = 20;
+    private static final long WINDOW_MILLIS = Long
+            .getLong("push.coalesceMillis", DEFAULT_WINDOW_MILLIS);
+
+    // The batch collecting the updates of the UI, guarded by itself
+    private static final Map<UI, Batch> batches = new WeakHashMap<>();
+
+    private AccessCoalescer() {
+        // Utility class, prevent instantiation
+    }
+
+    private record Update(Runnable command, long enqueuedNanos) {
+    }
+
+    private static final class Batch {
+        private final Map<Object, Update> updates = new LinkedHashMap<>();
+        // Including the replaced updates
+        private int count;
+
+        private void add(Object key, Runnable command) {
+            count++;
+            // The replacing update is run after the updates made before it,
+            // but its delay is measured from the replaced update
+            var previous = updates.remove(key);
+            updates.put(key, new Update(command, previous != null
+                    ? previous.enqueuedNanos()
+                    : System.nanoTime()));
+        }
+    }
+
+    /**
+     * Runs the command in the next access cycle of the UI. If the current
+     * thread holds the session lock, the command is run with
+     * {@link UI#access(Runnable)} without delay.
+     *
+     * @param ui
+     *            the UI to update
+     * @param key
+     *            the key of the update, the pending update with the same key
+     *            is replaced, or null if the update is not to be replaced
+     * @param command
+     *            the update
+     */
+    public static void access(UI ui, @Nullable Object key, Runnable command) {
+        Objects.requireNonNull(ui, "UI must not be null");
+        Objects.requireNonNull(command, "Command must not be null");
+        var session = ui.getSession();
+        if (session != null && session.hasLock()) {
+            ui.access(new AccessTask(command));
+            return;
+        }
+        Batch batch;
+        boolean schedule;
+        synchronized (batches) {
+            batch = batches.get(ui);
+            schedule = batch == null;
+            if (batch == null) {
+                batch = new Batch();
+                batches.put(ui, batch);
+            }
+            batch.add(key != null ? key : new Object(), command);
+        }
+        if (schedule) {
+            var scheduled = batch;
+            CompletableFuture
+                    .delayedExecutor(WINDOW_MILLIS, TimeUnit.MILLISECONDS)
+                    .execute(() -> flush(ui, scheduled));
+        }
+    }
+
+    private static void flush(UI ui, Batch batch) {
+        try {
+            ui.access(new AccessTask(() -> run(ui, batch)));
+        } catch (UIDetachedException e) {
+            logger.info("Browser window was closed while pushing updates.");
+            synchronized (batches) {
+                batches.remove(ui, batch);
+            }
+        }
+    }
+
+    private static void run(UI ui, Batch batch) {
+        ArrayList<Update> updates;
+        int count;
+        synchronized (batches) {
+            // Updates made from now on are pushed in the next cycle
+            batches.remove(ui, batch);
+            updates = new ArrayList<>(batch.updates.values());
+            count = batch.count;
+        }
+        var now = System.nanoTime();
+        for (var update : updates) {
+            Telemetry.pushDelayed(now - update.enqueuedNanos());
+            try {
+                update.command().run();
+            } catch (RuntimeException e) {
+                logger.error("Error while pushing updates", e);
+            }
+        }
+        Telemetry.pushesCoalesced(count - 1);
+    }
+
+    private static Logger logger = LoggerFactory
+            .getLogger(AccessCoalescer.class);
+}
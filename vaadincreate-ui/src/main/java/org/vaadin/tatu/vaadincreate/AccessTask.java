@@ -8,6 +8,7 @@ import org.slf4j.LoggerFactory;
 import org.vaadin.tatu.vaadincreate.observability.Telemetry;
 
 import com.vaadin.server.ErrorHandlingRunnable;
+import com.vaadin.ui.UI;
 import com.vaadin.ui.UIDetachedException;
 
 @NullMarked
@@ -15,6 +16,8 @@ public class AccessTask implements ErrorHandlingRunnable {
 
     @Nullable
     private final transient Runnable command;
+    // For measuring the time the task waits for the session lock
+    private final long created = System.nanoTime();
 
     public AccessTask(Runnable command) {
         this.command = command;
@@ -31,7 +34,25 @@ public class AccessTask implements ErrorHandlingRunnable {
 
     @Override
     public void run() {
-        Telemetry.accessTask(command);
+        var queueWait = System.nanoTime() - created;
+        var event = new UiAccessEvent();
+        event.begin();
+        var failed = true;
+        try {
+            Telemetry.accessTask(command, queueWait);
+            failed = false;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                var ui = UI.getCurrent();
+                event.uiId = ui != null ? ui.getUIId() : -1;
+                event.task = command != null ? command.getClass().getName()
+                        : "";
+                event.queueWait = queueWait;
+                event.failed = failed;
+                event.commit();
+            }
+        }
     }
 
     private static Logger logger = LoggerFactory.getLogger(AccessTask.class);
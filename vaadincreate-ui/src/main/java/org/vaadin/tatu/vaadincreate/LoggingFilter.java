@@ -15,6 +15,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.vaadin.tatu.vaadincreate.auth.CurrentUser;
+import org.vaadin.tatu.vaadincreate.backend.ConsistencyScope;
 import org.vaadin.tatu.vaadincreate.backend.data.User;
 
 import java.io.IOException;
@@ -65,10 +66,18 @@ public class LoggingFilter implements Filter {
         }
         if (session != null) {
             populateUserDetails(session);
+            // Reads done in this request see the writes of the same session
+            ConsistencyScope.set(session.getId());
         }
 
-        // Pass the request along the filter chain
-        chain.doFilter(request, response);
+        try {
+            // Pass the request along the filter chain
+            chain.doFilter(request, response);
+        } finally {
+            ConsistencyScope.clear();
+            // Request threads are pooled, do not leak the user to next request
+            MDC.remove("userId");
+        }
     }
 
     private static void getHttpResponse(ServletResponse response,
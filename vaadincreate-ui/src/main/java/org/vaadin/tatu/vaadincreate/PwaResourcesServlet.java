@@ -1,7 +1,16 @@
 package org.vaadin.tatu.vaadincreate;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
@@ -9,38 +18,111 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 /**
  * Serves PWA static resources with explicit MIME types.
+ * <p>
+ * The resources are loaded into memory when the servlet is initialized,
+ * together with a gzip compressed variant of the text resources and a brotli
+ * compressed variant if the webapp contains one ({@code <resource>.br}), as
+ * there is no brotli encoder in the JDK. The variant is chosen by the
+ * {@code Accept-Encoding} request header. Each variant has a strong ETag, and
+ * conditional requests with {@code If-None-Match} or
+ * {@code If-Modified-Since} are answered with 304 Not Modified. The
+ * modification time is that of the resource in the webapp, and is not sent
+ * if the container does not know it.
  */
+@NullMarked
 @WebServlet(urlPatterns = { "/sw.js", "/manifest.webmanifest", "/offline.html",
         "/icons/*" })
 @SuppressWarnings("serial")
 public class PwaResourcesServlet extends HttpServlet {
 
+    private static final String[] RESOURCES = { "/sw.js",
+            "/manifest.webmanifest", "/offline.html" };
+    private static final String ICONS = "/icons/";
+    private static final String GZIP = "gzip";
+    private static final String BROTLI = "br";
+
+    // Path -> resource, not modified after init
+    private transient Map<String, Resource> resources = Map.of();
+
+    /**
+     * Encoded content of a resource. The content is never modified after
+     * loading, so it is written to the responses as is.
+     */
+    private record Variant(byte[] content, String etag) {
+    }
+
+    // lastModified is in epoch milliseconds truncated to seconds, 0 if not
+    // known
+    private record Resource(String contentType, String cacheControl,
+            long lastModified, Variant identity, @Nullable Variant gzip,
+            @Nullable Variant brotli) {
+    }
+
+    private record Content(byte[] bytes, long lastModified) {
+    }
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        var loaded = new HashMap<String, Resource>();
+        for (var path : RESOURCES) {
+            load(path, loaded);
+        }
+        var icons = getServletContext().getResourcePaths(ICONS);
+        if (icons != null) {
+            icons.stream()
+                    .filter(path -> !path.endsWith("/")
+                            && !path.endsWith("." + BROTLI))
+                    .forEach(path -> load(path, loaded));
+        }
+        resources = Map.copyOf(loaded);
+        logger.info("Loaded {} PWA resources", resources.size());
+    }
+
     @Override
     protected void doGet(HttpServletRequest request,
             HttpServletResponse response) throws ServletException, IOException {
         String resourcePath = resolveResourcePath(request);
-        if (resourcePath == null || resourcePath.contains("..")) {
+        var resource = resourcePath != null ? resources.get(resourcePath)
+                : null;
+        if (resource == null) {
             response.sendError(HttpServletResponse.SC_NOT_FOUND);
             return;
         }
 
-        try (InputStream resourceStream = getServletContext()
-                .getResourceAsStream(resourcePath)) {
-            if (resourceStream == null) {
-                response.sendError(HttpServletResponse.SC_NOT_FOUND);
-                return;
-            }
-            response.setContentType(resolveContentType(resourcePath));
-            if (resourcePath.endsWith("/sw.js")) {
-                // SW updates should be checked frequently.
-                response.setHeader("Cache-Control", "no-cache");
-            }
-            resourceStream.transferTo(response.getOutputStream());
+        var variant = selectVariant(resource,
+                request.getHeader("Accept-Encoding"));
+        response.setHeader("ETag", variant.etag());
+        if (resource.lastModified() > 0) {
+            response.setDateHeader("Last-Modified", resource.lastModified());
+        }
+        response.setHeader("Cache-Control", resource.cacheControl());
+        if (resource.gzip() != null || resource.brotli() != null) {
+            response.setHeader("Vary", "Accept-Encoding");
+        }
+        if (isNotModified(request, resource, variant)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(resource.contentType());
+        if (variant == resource.gzip()) {
+            response.setHeader("Content-Encoding", GZIP);
+        } else if (variant == resource.brotli()) {
+            response.setHeader("Content-Encoding", BROTLI);
         }
+        response.setContentLength(variant.content().length);
+        response.getOutputStream().write(variant.content());
     }
 
+    @Nullable
     private String resolveResourcePath(HttpServletRequest request) {
         String servletPath = request.getServletPath();
         if ("/icons".equals(servletPath)) {
@@ -68,4 +150,173 @@ public class PwaResourcesServlet extends HttpServlet {
         }
         return "application/octet-stream";
     }
+
+    private static String resolveCacheControl(String resourcePath) {
+        if (resourcePath.endsWith("/sw.js")) {
+            // SW updates should be checked frequently, revalidating with the
+            // ETag is cheap
+            return "no-cache";
+        }
+        if (resourcePath.startsWith(ICONS)) {
+            return "public, max-age=604800";
+        }
+        return "public, max-age=3600";
+    }
+
+    private void load(String path, Map<String, Resource> loaded) {
+        var content = read(path);
+        if (content == null) {
+            logger.warn("PWA resource {} not found", path);
+            return;
+        }
+        var contentType = resolveContentType(path);
+        var etag = etag(content.bytes());
+        var identity = new Variant(content.bytes(), quote(etag));
+        Variant gzip = null;
+        // Images are already compressed
+        if (!contentType.startsWith("image/")) {
+            var compressed = gzip(content.bytes());
+            if (compressed.length < content.bytes().length) {
+                gzip = new Variant(compressed, quote(etag + "-" + GZIP));
+            }
+        }
+        Variant brotli = null;
+        var lastModified = content.lastModified();
+        var brotliContent = read(path + "." + BROTLI);
+        if (brotliContent != null) {
+            brotli = new Variant(brotliContent.bytes(),
+                    quote(etag + "-" + BROTLI));
+            if (lastModified > 0) {
+                lastModified = Math.max(lastModified,
+                        brotliContent.lastModified());
+            }
+        }
+        loaded.put(path, new Resource(contentType, resolveCacheControl(path),
+                lastModified / 1000 * 1000, identity, gzip, brotli));
+    }
+
+    @Nullable
+    private Content read(String path) {
+        try {
+            var url = getServletContext().getResource(path);
+            if (url == null) {
+                return null;
+            }
+            var connection = url.openConnection();
+            try (InputStream stream = connection.getInputStream()) {
+                return new Content(stream.readAllBytes(),
+                        connection.getLastModified());
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to read PWA resource {}", path, e);
+            return null;
+        }
+    }
+
+    private static Variant selectVariant(Resource resource,
+            @Nullable String acceptEncoding) {
+        var brotli = resource.brotli();
+        if (brotli != null && accepts(acceptEncoding, BROTLI)) {
+            return brotli;
+        }
+        var gzip = resource.gzip();
+        if (gzip != null && accepts(acceptEncoding, GZIP)) {
+            return gzip;
+        }
+        return resource.identity();
+    }
+
+    // True if the coding is listed and not refused with q=0. A listed coding
+    // takes precedence over *.
+    static boolean accepts(@Nullable String acceptEncoding, String coding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        var wildcard = false;
+        for (var part : acceptEncoding.split(",")) {
+            var params = part.split(";");
+            var name = params[0].trim().toLowerCase(Locale.ROOT);
+            if (name.equals(coding)) {
+                return !isRefused(params);
+            }
+            if (name.equals("*")) {
+                wildcard = !isRefused(params);
+            }
+        }
+        return wildcard;
+    }
+
+    private static boolean isRefused(String[] params) {
+        for (int i = 1; i < params.length; i++) {
+            var param = params[i].trim();
+            if (param.startsWith("q=") && isZero(param.substring(2).trim())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isZero(String quality) {
+        try {
+            return Double.parseDouble(quality) == 0d;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static boolean isNotModified(HttpServletRequest request,
+            Resource resource, Variant variant) {
+        var ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            // Weak comparison, as required for If-None-Match
+            for (var tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(variant.etag())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (resource.lastModified() <= 0) {
+            return false;
+        }
+        try {
+            var ifModifiedSince = request.getDateHeader("If-Modified-Since");
+            return ifModifiedSince >= resource.lastModified();
+        } catch (IllegalArgumentException e) {
+            // Malformed date is ignored
+            return false;
+        }
+    }
+
+    private static String etag(byte[] content) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    Arrays.copyOf(digest, 16));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String quote(String etag) {
+        return "\"" + etag + "\"";
+    }
+
+    private static byte[] gzip(byte[] content) {
+        var bytes = new ByteArrayOutputStream(content.length / 2);
+        try (var gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(content);
+        } catch (IOException e) {
+            // Not thrown by ByteArrayOutputStream
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Logger logger = LoggerFactory
+            .getLogger(PwaResourcesServlet.class);
 }
@@ -0,0 +1,282 @@
+package org.vaadin.tatu.vaadincreate;
+
+import java.io.IOException;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+import javax.servlet.annotation.WebFilter;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.vaadin.tatu.vaadincreate.observability.Telemetry;
+
+import com.vaadin.ui.UI;
+
+/**
+ * Records the latency, response size and number of in-flight requests of the
+ * HTTP requests with {@link Telemetry}. The requests are split by endpoint:
+ * {@code uidl}, {@code push}, {@code heartbeat}, {@code static} (Vaadin and
+ * PWA resources) and {@code app} (the application URLs). The UIDL requests
+ * are also tagged with the view of the UI, see
+ * {@link #viewEntered(UI, String)}.
+ * <p>
+ * The response size is counted from the bytes written to the output stream,
+ * or taken from the Content-Length header. Asynchronous requests, e.g. long
+ * polling push, are recorded when the asynchronous processing completes.
+ */
+@NullMarked
+@WebFilter(urlPatterns = "/*", asyncSupported = true)
+public class RequestMetricsFilter implements Filter {
+
+    static final String UIDL = "uidl";
+    static final String PUSH = "push";
+    static final String HEARTBEAT = "heartbeat";
+    static final String STATIC = "static";
+    static final String APP = "app";
+    static final String NO_VIEW = "none";
+
+    private static final String VIEW_ATTRIBUTE = "metrics.view.";
+    private static final String UI_ID_PARAMETER = "v-uiId=";
+    private static final String[] STATIC_PREFIXES = { "/VAADIN",
+            "/manifest.webmanifest", "/sw.js", "/offline.html", "/icons/" };
+
+    /**
+     * Sets the view of the UI that the UIDL requests of the UI are tagged
+     * with.
+     *
+     * @param ui
+     *            the UI
+     * @param viewName
+     *            the name of the view entered
+     */
+    public static void viewEntered(UI ui, String viewName) {
+        var session = ui.getSession();
+        if (session != null) {
+            session.getSession().setAttribute(VIEW_ATTRIBUTE + ui.getUIId(),
+                    viewName);
+        }
+    }
+
+    /**
+     * Removes the view of the UI when the UI is detached.
+     *
+     * @param ui
+     *            the UI
+     */
+    public static void uiDetached(UI ui) {
+        var session = ui.getSession();
+        if (session != null) {
+            session.getSession()
+                    .removeAttribute(VIEW_ATTRIBUTE + ui.getUIId());
+        }
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response,
+            FilterChain chain) throws IOException, ServletException {
+        var httpRequest = (HttpServletRequest) request;
+        var endpoint = resolveEndpoint(httpRequest);
+        var start = System.nanoTime();
+        var counted = response;
+        CountingResponse countingResponse = null;
+        // Push responses are handled by Atmosphere, they are not wrapped
+        if (!PUSH.equals(endpoint)) {
+            countingResponse = new CountingResponse(
+                    (HttpServletResponse) response);
+            counted = countingResponse;
+        }
+        Telemetry.requestStarted(endpoint);
+        var recorder = new Recorder(endpoint, resolveView(httpRequest,
+                endpoint), start, (HttpServletResponse) response,
+                countingResponse);
+        try {
+            chain.doFilter(request, counted);
+        } catch (IOException | ServletException | RuntimeException e) {
+            // The container responds with an error
+            recorder.failed = true;
+            throw e;
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(recorder);
+            } else {
+                recorder.record();
+            }
+        }
+    }
+
+    static String resolveEndpoint(HttpServletRequest request) {
+        var uri = request.getRequestURI();
+        var contextPath = request.getContextPath();
+        var path = uri.startsWith(contextPath)
+                ? uri.substring(contextPath.length())
+                : uri;
+        if (path.startsWith("/UIDL")) {
+            return UIDL;
+        }
+        if (path.startsWith("/PUSH")) {
+            return PUSH;
+        }
+        if (path.startsWith("/HEARTBEAT")) {
+            return HEARTBEAT;
+        }
+        for (var prefix : STATIC_PREFIXES) {
+            if (path.startsWith(prefix)) {
+                return STATIC;
+            }
+        }
+        return APP;
+    }
+
+    private static String resolveView(HttpServletRequest request,
+            String endpoint) {
+        var session = request.getSession(false);
+        var query = request.getQueryString();
+        if (!UIDL.equals(endpoint) || session == null || query == null) {
+            return NO_VIEW;
+        }
+        // Parsed from the query string, as getParameter could read the body
+        var index = query.indexOf(UI_ID_PARAMETER);
+        if (index < 0) {
+            return NO_VIEW;
+        }
+        var end = query.indexOf('&', index);
+        var uiId = query.substring(index + UI_ID_PARAMETER.length(),
+                end < 0 ? query.length() : end);
+        var view = session.getAttribute(VIEW_ATTRIBUTE + uiId);
+        return view instanceof String name ? name : NO_VIEW;
+    }
+
+    private static final class Recorder implements AsyncListener {
+        private final String endpoint;
+        private final String view;
+        private final long start;
+        private final HttpServletResponse response;
+        @Nullable
+        private final CountingResponse countingResponse;
+        private boolean failed;
+
+        private Recorder(String endpoint, String view, long start,
+                HttpServletResponse response,
+                @Nullable CountingResponse countingResponse) {
+            this.endpoint = endpoint;
+            this.view = view;
+            this.start = start;
+            this.response = response;
+            this.countingResponse = countingResponse;
+        }
+
+        private void record() {
+            var status = failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR
+                    : response.getStatus();
+            Telemetry.requestCompleted(endpoint, view, status,
+                    System.nanoTime() - start, responseSize());
+        }
+
+        private long responseSize() {
+            var written = countingResponse != null ? countingResponse.count
+                    : 0L;
+            if (written > 0) {
+                return written;
+            }
+            var contentLength = response.getHeader("Content-Length");
+            try {
+                return contentLength != null ? Long.parseLong(contentLength)
+                        : 0L;
+            } catch (NumberFormatException e) {
+                return 0L;
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            record();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // Completed after the timeout
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            // Completed after the error
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Restarted asynchronous processing is recorded once
+            event.getAsyncContext().addListener(this);
+        }
+    }
+
+    // Counts the bytes written to the output stream
+    private static final class CountingResponse
+            extends HttpServletResponseWrapper {
+        private long count;
+        @Nullable
+        private ServletOutputStream outputStream;
+
+        private CountingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new CountingOutputStream(
+                        super.getOutputStream());
+            }
+            return outputStream;
+        }
+
+        private final class CountingOutputStream extends ServletOutputStream {
+            private final ServletOutputStream delegate;
+
+            private CountingOutputStream(ServletOutputStream delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                delegate.write(b);
+                count++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                delegate.write(b, off, len);
+                count += len;
+            }
+
+            @Override
+            public void flush() throws IOException {
+                delegate.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                delegate.close();
+            }
+
+            @Override
+            public boolean isReady() {
+                return delegate.isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                delegate.setWriteListener(writeListener);
+            }
+        }
+    }
+}
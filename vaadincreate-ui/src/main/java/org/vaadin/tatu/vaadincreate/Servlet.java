@@ -53,6 +53,7 @@ public class Servlet extends VaadinServlet {
     @Override
     protected void servletInitialized() throws ServletException {
         super.servletInitialized();
+        Telemetry.registerDatabaseMonitoring();
         // Disable session expired notification and redirect to login view
         getService().setSystemMessagesProvider(systemMessagesInfo -> {
             CustomizedSystemMessages messages = new CustomizedSystemMessages();
@@ -64,6 +65,7 @@ public class Servlet extends VaadinServlet {
         // Add session init and destroy listeners
         getService().addSessionInitListener(event -> {
             logger.debug("Session started");
+            Telemetry.sessionStarted();
             VaadinSession session = event.getSession();
             session.getSession().setMaxInactiveInterval(300);
             session.addRequestHandler(this::handleRequest);
@@ -86,9 +88,13 @@ public class Servlet extends VaadinServlet {
                     logger.warn("Session already invalidated");
                 }
             }
+            Telemetry.sessionEnded();
             logger.debug("Session ended");
         });
-        getService().addServiceDestroyListener(_ -> EventBus.get().shutdown());
+        getService().addServiceDestroyListener(_ -> {
+            EventBus.get().shutdown();
+            TaskScheduler.get().shutdown();
+        });
     }
 
     protected void handleError(ErrorEvent errorEvent, VaadinSession session) {
@@ -0,0 +1,291 @@
+package org.vaadin.tatu.vaadincreate;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.vaadin.tatu.vaadincreate.backend.ConsistencyScope;
+import org.vaadin.tatu.vaadincreate.backend.DatabaseMonitor;
+import org.vaadin.tatu.vaadincreate.observability.Telemetry;
+
+import io.opentelemetry.context.Context;
+
+/**
+ * Node-wide scheduler for the background tasks of the UIs, e.g. loading data
+ * and exporting. The tasks run in virtual threads, but at most
+ * {@code -Dtasks.maxConcurrent} tasks at a time, by default as many as there
+ * are connections in the pool of the primary database, as the tasks are mostly
+ * waiting for the database. The rest are queued:
+ * <ul>
+ * <li>{@link Priority#INTERACTIVE} tasks are started before
+ * {@link Priority#BULK} tasks, and bulk tasks may use at most half of the
+ * permits, so that long exports do not block loading the views.</li>
+ * <li>Within a priority the sessions take turns, so that a session queueing
+ * many tasks does not delay the tasks of the other sessions.</li>
+ * </ul>
+ * The MDC and the OpenTelemetry context of the submitting thread are
+ * propagated to the task, and the reads of the task see the writes of its
+ * session, see {@link ConsistencyScope}. The queue wait and the execution
+ * time of the tasks are recorded with {@link Telemetry}.
+ */
+@NullMarked
+public final class TaskScheduler {
+
+    /**
+     * Priority class of a task.
+     */
+    public enum Priority {
+        /** Tasks the user is waiting for, e.g. loading a view. */
+        INTERACTIVE,
+        /** Long running tasks, e.g. exports. */
+        BULK
+    }
+
+    private static final int DEFAULT_MAX_CONCURRENT = 10;
+
+    @Nullable
+    private static TaskScheduler instance;
+
+    private final int maxConcurrent;
+    private final int maxBulk;
+    private final Semaphore permits;
+    private final ExecutorService threads = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("ui-task-", 0).factory());
+    // Session id -> queued tasks, the first session has the next turn
+    private final Map<Priority, LinkedHashMap<String, ArrayDeque<Task>>> queues = new EnumMap<>(
+            Priority.class);
+    private int runningBulk;
+    private int queued;
+
+    private record Task(String sessionId, Priority priority, Runnable command,
+            long enqueuedNanos) {
+    }
+
+    // Package private for testing with a given number of permits
+    TaskScheduler(int maxConcurrent) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException(
+                    "Max concurrent must be at least 1");
+        }
+        this.maxConcurrent = maxConcurrent;
+        permits = new Semaphore(maxConcurrent);
+        maxBulk = Math.max(1, maxConcurrent / 2);
+        for (var priority : Priority.values()) {
+            queues.put(priority, new LinkedHashMap<>());
+        }
+        logger.info("Task scheduler running {} tasks at most, {} bulk",
+                maxConcurrent, maxBulk);
+    }
+
+    /**
+     * Gets the scheduler of this node.
+     *
+     * @return the scheduler
+     */
+    public static synchronized TaskScheduler get() {
+        if (instance == null) {
+            var scheduler = new TaskScheduler(resolveMaxConcurrent());
+            Telemetry.registerTaskScheduler(scheduler::getQueuedCount,
+                    scheduler::getRunningCount);
+            instance = scheduler;
+        }
+        return instance;
+    }
+
+    /**
+     * Gets an executor submitting the tasks of the session with the given
+     * priority to this scheduler.
+     *
+     * @param sessionId
+     *            the id of the HTTP session
+     * @param priority
+     *            the priority of the tasks
+     * @return the executor
+     */
+    public Executor executor(String sessionId, Priority priority) {
+        Objects.requireNonNull(sessionId, "Session id must not be null");
+        Objects.requireNonNull(priority, "Priority must not be null");
+        return command -> submit(sessionId, priority, command);
+    }
+
+    /**
+     * Submits a task of the session. The task is started when a permit is
+     * available and it is the turn of the session.
+     *
+     * @param sessionId
+     *            the id of the HTTP session
+     * @param priority
+     *            the priority of the task
+     * @param command
+     *            the task
+     */
+    public void submit(String sessionId, Priority priority, Runnable command) {
+        Objects.requireNonNull(sessionId, "Session id must not be null");
+        Objects.requireNonNull(priority, "Priority must not be null");
+        Objects.requireNonNull(command, "Command must not be null");
+        if (threads.isShutdown()) {
+            throw new RejectedExecutionException("Task scheduler is shut down");
+        }
+        var task = new Task(sessionId, priority,
+                withContext(sessionId, command), System.nanoTime());
+        synchronized (this) {
+            queues.get(priority)
+                    .computeIfAbsent(sessionId, id -> new ArrayDeque<>())
+                    .add(task);
+            queued++;
+        }
+        dispatch();
+    }
+
+    /**
+     * Gets the number of tasks waiting for a permit.
+     *
+     * @return the number of queued tasks
+     */
+    public synchronized int getQueuedCount() {
+        return queued;
+    }
+
+    /**
+     * Gets the number of running tasks.
+     *
+     * @return the number of running tasks
+     */
+    public int getRunningCount() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    /**
+     * Stops starting new tasks. The running tasks are completed.
+     */
+    public void shutdown() {
+        threads.shutdown();
+    }
+
+    // Starts queued tasks while there are permits
+    private void dispatch() {
+        while (true) {
+            Task task;
+            synchronized (this) {
+                if (!permits.tryAcquire()) {
+                    return;
+                }
+                task = nextTask();
+                if (task == null) {
+                    permits.release();
+                    return;
+                }
+                queued--;
+                if (task.priority() == Priority.BULK) {
+                    runningBulk++;
+                }
+            }
+            start(task);
+        }
+    }
+
+    @Nullable
+    private Task nextTask() {
+        var task = poll(queues.get(Priority.INTERACTIVE));
+        if (task == null && runningBulk < maxBulk) {
+            task = poll(queues.get(Priority.BULK));
+        }
+        return task;
+    }
+
+    // Takes the task of the session in turn and moves the session last
+    @Nullable
+    private static Task poll(LinkedHashMap<String, ArrayDeque<Task>> queue) {
+        var iterator = queue.entrySet().iterator();
+        if (!iterator.hasNext()) {
+            return null;
+        }
+        var entry = iterator.next();
+        iterator.remove();
+        var task = entry.getValue().poll();
+        if (!entry.getValue().isEmpty()) {
+            queue.put(entry.getKey(), entry.getValue());
+        }
+        return task;
+    }
+
+    private void start(Task task) {
+        try {
+            threads.execute(() -> run(task));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Task of session dropped, scheduler is shut down");
+            finished(task);
+        }
+    }
+
+    private void run(Task task) {
+        var started = System.nanoTime();
+        var failed = false;
+        try {
+            task.command().run();
+        } catch (RuntimeException | Error e) {
+            failed = true;
+            logger.error("Background task failed", e);
+        } finally {
+            Telemetry.taskCompleted(task.priority().name(),
+                    started - task.enqueuedNanos(),
+                    System.nanoTime() - started, failed);
+            finished(task);
+        }
+    }
+
+    private void finished(Task task) {
+        synchronized (this) {
+            if (task.priority() == Priority.BULK) {
+                runningBulk--;
+            }
+            permits.release();
+        }
+        dispatch();
+    }
+
+    private static Runnable withContext(String sessionId, Runnable command) {
+        var mdc = MDC.getCopyOfContextMap();
+        var context = Context.current();
+        return context.wrap(() -> {
+            if (mdc != null) {
+                MDC.setContextMap(mdc);
+            }
+            // Background reads see the writes of the same session
+            ConsistencyScope.set(sessionId);
+            try {
+                command.run();
+            } finally {
+                ConsistencyScope.clear();
+                MDC.clear();
+            }
+        });
+    }
+
+    private static int resolveMaxConcurrent() {
+        var configured = Integer.getInteger("tasks.maxConcurrent", -1);
+        if (configured > 0) {
+            return configured;
+        }
+        // The replica serves only reads, so the tasks are bounded by the
+        // connections to the primary
+        var poolSize = DatabaseMonitor.get().getStatistics()
+                .primaryMaxConnections();
+        return poolSize > 0 ? poolSize : DEFAULT_MAX_CONCURRENT;
+    }
+
+    private static Logger logger = LoggerFactory
+            .getLogger(TaskScheduler.class);
+}
@@ -0,0 +1,40 @@
+package org.vaadin.tatu.vaadincreate;
+
+import org.jspecify.annotations.NullMarked;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JDK Flight Recorder event of running an {@link AccessTask} while holding
+ * the session lock. Enabled and filtered by duration with the JFR settings,
+ * see {@code jfr/vaadincreate.jfc}.
+ */
+@NullMarked
+@Name("vaadincreate.UiAccess")
+@Label("UI Access")
+@Category({ "Vaadin Create", "UI" })
+@Description("UI.access task run while holding the session lock")
+@StackTrace(false)
+class UiAccessEvent extends Event {
+
+    @Label("UI Id")
+    @Description("Id of the UI in its session, or -1 if not known")
+    int uiId = -1;
+
+    @Label("Task")
+    String task = "";
+
+    @Label("Queue Wait")
+    @Description("Time from UI.access to running the task")
+    @Timespan(Timespan.NANOSECONDS)
+    long queueWait;
+
+    @Label("Failed")
+    boolean failed;
+}
@@ -2,8 +2,7 @@ package org.vaadin.tatu.vaadincreate;
 
 import java.time.LocalDateTime;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 import org.jspecify.annotations.NullMarked;
@@ -11,6 +10,7 @@ import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.vaadin.tatu.vaadincreate.TaskScheduler.Priority;
 import org.vaadin.tatu.vaadincreate.about.AboutView;
 import org.vaadin.tatu.vaadincreate.admin.AdminView;
 import org.vaadin.tatu.vaadincreate.applayout.AppLayout;
@@ -34,6 +34,7 @@ import org.vaadin.tatu.vaadincreate.eventbus.EventBus.EventBusListener;
 import org.vaadin.tatu.vaadincreate.i18n.HasI18N;
 import org.vaadin.tatu.vaadincreate.i18n.I18n;
 import org.vaadin.tatu.vaadincreate.login.LoginView;
+import org.vaadin.tatu.vaadincreate.observability.Telemetry;
 import org.vaadin.tatu.vaadincreate.purchases.PurchasesView;
 import org.vaadin.tatu.vaadincreate.stats.StatsView;
 import org.vaadin.tatu.vaadincreate.storefront.StorefrontView;
@@ -75,9 +76,6 @@ public class VaadinCreateUI extends UI implements EventBusListener, HasI18N {
     @Nullable
     private transient AppDataService appService = AppDataService.get();
 
-    @Nullable
-    private transient ExecutorService executor;
-
     @Nullable
     private String target;
 
@@ -314,15 +312,17 @@ public class VaadinCreateUI extends UI implements EventBusListener, HasI18N {
 
     @Override
     public void detach() {
+        RequestMetricsFilter.uiDetached(this);
+        Telemetry.uiDetached();
         super.detach();
         // Unregister this UI instance from the event bus when it is detached
         getEventBus().unregisterEventBusListener(this);
-        shutdownExecutor();
     }
 
     @Override
     public void attach() {
         super.attach();
+        Telemetry.uiAttached();
         getPage().getJavaScript().execute(
                 """
                         setTimeout(() => {
@@ -331,6 +331,15 @@ public class VaadinCreateUI extends UI implements EventBusListener, HasI18N {
                         """);
     }
 
+    @Override
+    public void push() {
+        var pushConnection = getPushConnection();
+        if (pushConnection != null && pushConnection.isConnected()) {
+            Telemetry.pushed();
+        }
+        super.push();
+    }
+
     /**
      * Retrieves the singleton instance of the EventBus.
      * 
@@ -341,39 +350,40 @@ public class VaadinCreateUI extends UI implements EventBusListener, HasI18N {
     }
 
     /**
-     * Retrieves the ExecutorService instance, initializing it if necessary. The
-     * executor is used to run background tasks.
+     * Retrieves the executor for the interactive background tasks of this UI,
+     * e.g. loading data. The tasks are run by the shared
+     * {@link TaskScheduler}.
      * 
-     * @return the ExecutorService instance
+     * @return the executor
      */
-    public ExecutorService getExecutor() {
-        if (executor == null) {
-            logger.info("Creating executor");
-            executor = Executors.newSingleThreadExecutor(
-                    Thread.ofVirtual().name("user-job").factory());
-            executor.execute(() -> {
-                if (!executor.isShutdown()) {
-                    // Add user id to MDC for logging
-                    logger.debug("Adding user id to MDC");
-                    var user = (User) getSession().getSession().getAttribute(
-                            CurrentUser.CURRENT_USER_SESSION_ATTRIBUTE_KEY);
-                    if (user != null) {
-                        var userId = String.format("[%s/%s]",
-                                user.getRole().toString(), user.getName());
-                        MDC.put("userId", userId);
-                    }
-                }
-            });
-        }
-        return executor;
+    public Executor getExecutor() {
+        return getExecutor(Priority.INTERACTIVE);
     }
 
-    private void shutdownExecutor() {
-        if (executor != null) {
-            logger.info("Shutting down executor");
-            executor.shutdown();
-            executor = null;
-        }
+    /**
+     * Retrieves the executor for the background tasks of this UI with the
+     * given priority. Use {@link Priority#BULK} for long running tasks, e.g.
+     * exports.
+     *
+     * @param priority
+     *            the priority of the tasks
+     * @return the executor
+     */
+    public Executor getExecutor(Priority priority) {
+        var session = getSession().getSession();
+        var user = (User) session
+                .getAttribute(CurrentUser.CURRENT_USER_SESSION_ATTRIBUTE_KEY);
+        // Add user id to MDC for logging
+        var userId = user != null ? String.format("[%s/%s]",
+                user.getRole().toString(), user.getName()) : null;
+        var executor = TaskScheduler.get().executor(session.getId(),
+                priority);
+        return command -> executor.execute(() -> {
+            if (userId != null) {
+                MDC.put("userId", userId);
+            }
+            command.run();
+        });
     }
 
     private static Logger logger = LoggerFactory
@@ -7,6 +7,7 @@ import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.vaadin.tatu.vaadincreate.ErrorView;
+import org.vaadin.tatu.vaadincreate.RequestMetricsFilter;
 import org.vaadin.tatu.vaadincreate.auth.AccessControl;
 import org.vaadin.tatu.vaadincreate.auth.AllPermitted;
 import org.vaadin.tatu.vaadincreate.auth.CurrentUser;
@@ -162,6 +163,10 @@ public class AppLayout extends Composite implements HasI18N {
                 logger.info("User '{}' navigated to view '{}'", getUserName(),
                         viewName);
                 menuLayout.removeStyleName(ValoTheme.MENU_VISIBLE);
+                var ui = getUI();
+                if (ui != null) {
+                    RequestMetricsFilter.viewEntered(ui, viewName);
+                }
                 Telemetry.entered((ComponentContainer) afterChange.getOldView(),
                         (ComponentContainer) afterChange.getNewView());
             }
@@ -52,6 +52,9 @@ public class BookGrid extends Grid<Product>
     private static final String AVAILABILITY_ID = "availability";
     private static final String PRICE_ID = "price";
 
+    private static final Comparator<Category> CATEGORY_ORDER = Comparator
+            .comparing(Category::getId);
+
     @Nullable
     private Registration resizeReg;
     private Label availabilityCaption;
@@ -341,11 +344,15 @@ public class BookGrid extends Grid<Product>
     private String formatCategories(Product product) {
         assert product != null : PRODUCT_MUST_NOT_BE_NULL;
 
-        if (product.getCategory().isEmpty()) {
+        var categories = product.getCategory();
+        if (categories.isEmpty()) {
             return getTranslation(I18n.Books.EMPTY);
         }
-        return product.getCategory().stream()
-                .sorted(Comparator.comparing(Category::getId))
+        // Most books have one category, no need to sort
+        if (categories.size() == 1) {
+            return categories.iterator().next().getName();
+        }
+        return categories.stream().sorted(CATEGORY_ORDER)
                 .map(Category::getName).collect(Collectors.joining(", "));
     }
 
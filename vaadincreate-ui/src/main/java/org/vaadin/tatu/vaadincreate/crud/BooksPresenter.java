@@ -5,7 +5,7 @@ import java.util.Collection;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
 
 import javax.persistence.OptimisticLockException;
 
@@ -15,6 +15,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.vaadin.tatu.vaadincreate.VaadinCreateUI;
 import org.vaadin.tatu.vaadincreate.auth.AccessControl;
+import org.vaadin.tatu.vaadincreate.backend.CancellationScope;
 import org.vaadin.tatu.vaadincreate.backend.EntityInUseException;
 import org.vaadin.tatu.vaadincreate.backend.ProductDataService;
 import org.vaadin.tatu.vaadincreate.backend.data.Category;
@@ -48,6 +49,8 @@ public class BooksPresenter implements Serializable, EventBusListener {
     private final BooksView view;
     @Nullable
     private transient CompletableFuture<Void> future;
+    @Nullable
+    private transient CancellationScope cancellation;
     private final AccessControl accessControl = VaadinCreateUI.get()
             .getAccessControl();
 
@@ -71,8 +74,14 @@ public class BooksPresenter implements Serializable, EventBusListener {
     private CompletableFuture<Collection<Product>> loadProductsAsync() {
         logger.info("Fetching products");
         var service = getService();
-        return CompletableFuture.supplyAsync(service::getAllProducts,
-                getExecutor());
+        var scope = new CancellationScope();
+        // Stop the queries of a load still running for an earlier request
+        if (cancellation != null) {
+            cancellation.cancel();
+        }
+        cancellation = scope;
+        return CompletableFuture.supplyAsync(
+                () -> scope.call(service::getAllProducts), getExecutor());
     }
 
     /**
@@ -119,12 +128,16 @@ public class BooksPresenter implements Serializable, EventBusListener {
 
     /**
      * Cancels the update of products and unlocks the book. If there is a future
-     * task running, it will be cancelled and the future reference will be set
-     * to null.
+     * task running, it will be cancelled together with its database queries
+     * and the future reference will be set to null.
      */
     public void cancelUpdateProducts() {
         unlockBook();
         getEventBus().unregisterEventBusListener(this);
+        if (cancellation != null) {
+            cancellation.cancel();
+            cancellation = null;
+        }
         if (future != null) {
             boolean cancelled = future.cancel(true);
             future = null;
@@ -482,7 +495,7 @@ public class BooksPresenter implements Serializable, EventBusListener {
         return VaadinCreateUI.get().getProductService();
     }
 
-    private ExecutorService getExecutor() {
+    private Executor getExecutor() {
         return VaadinCreateUI.get().getExecutor();
     }
 
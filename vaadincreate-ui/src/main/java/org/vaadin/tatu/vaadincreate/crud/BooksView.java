@@ -650,13 +650,14 @@ public class BooksView extends CssLayout implements VaadinCreateView {
      * provided UI access utility to ensure that the refresh operation is
      * performed in a thread-safe manner. If the UI can push updates, it filters
      * the data provider's items to find the book with the specified ID and
-     * refreshes that item.
+     * refreshes that item. A burst of refreshes of the same product is pushed
+     * as one refresh.
      *
      * @param id
      *            the ID of the product to refresh
      */
     public void refreshProductAsync(Integer id) {
-        Utils.access(ui, () -> {
+        Utils.access(ui, "refresh-product-" + id, () -> {
             if (canPush()) {
                 refreshProductById(id);
             }
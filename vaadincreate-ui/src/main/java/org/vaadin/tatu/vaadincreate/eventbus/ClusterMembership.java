@@ -0,0 +1,101 @@
+package org.vaadin.tatu.vaadincreate.eventbus;
+
+import java.util.Set;
+
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * Tracks the nodes of the cluster that share the event bus. Each node
+ * publishes a heartbeat on the event bus periodically, and a node is
+ * considered to have left the cluster when it announces that it is shutting
+ * down, or when nothing has been received from it for three heartbeat
+ * intervals. The interval is set in seconds with
+ * {@code -Dcluster.heartbeat.interval} (default 10).
+ * <p>
+ * Subsystems that hold state on behalf of other nodes, like the locks, can
+ * subscribe to the join and leave events to clean up the state of the departed
+ * nodes, and to the missed events to reload state kept up to date from the
+ * events. The listeners are held with strong references, so they are meant to
+ * be application scoped.
+ */
+@NullMarked
+public interface ClusterMembership {
+
+    /**
+     * Listener notified when a node joins or leaves the cluster. The listener
+     * is called from the thread of the event bus that detected the change, so
+     * it should return quickly.
+     */
+    public interface MembershipListener {
+
+        /**
+         * Called when a node is seen for the first time.
+         *
+         * @param nodeId
+         *            the id of the node
+         */
+        public void nodeJoined(String nodeId);
+
+        /**
+         * Called when a node has shut down or stopped sending heartbeats.
+         *
+         * @param nodeId
+         *            the id of the node
+         */
+        public void nodeLeft(String nodeId);
+
+        /**
+         * Called when envelopes published by a node have not been delivered
+         * to this node, so the state kept up to date from the events of the
+         * node may be stale.
+         *
+         * @param nodeId
+         *            the id of the node
+         * @param missed
+         *            the number of envelopes missed
+         */
+        public default void eventsMissed(String nodeId, long missed) {
+            // No action by default
+        }
+    }
+
+    /**
+     * Gets the id of this node.
+     *
+     * @return the node id
+     */
+    public String getNodeId();
+
+    /**
+     * Gets the ids of the other nodes currently alive.
+     *
+     * @return an unmodifiable set of node ids
+     */
+    public Set<String> getNodes();
+
+    /**
+     * Adds a listener for the nodes joining and leaving the cluster.
+     *
+     * @param listener
+     *            the listener to add
+     */
+    public void addMembershipListener(MembershipListener listener);
+
+    /**
+     * Removes a listener added with
+     * {@link #addMembershipListener(MembershipListener)}.
+     *
+     * @param listener
+     *            the listener to remove
+     */
+    public void removeMembershipListener(MembershipListener listener);
+
+    /**
+     * Retrieves the membership of the node, which is owned by the event bus.
+     *
+     * @return the membership of this node
+     */
+    public static ClusterMembership get() {
+        return EventBus.get().getMembership();
+    }
+}
@@ -0,0 +1,164 @@
+package org.vaadin.tatu.vaadincreate.eventbus;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.jspecify.annotations.NullMarked;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.vaadin.tatu.vaadincreate.backend.events.AbstractEvent;
+import org.vaadin.tatu.vaadincreate.backend.events.HeartbeatEvent;
+
+/**
+ * Membership of the cluster driven by the event bus. The event bus feeds it
+ * with every envelope received from the other nodes, so any event counts as a
+ * sign of life, and the heartbeats are needed only when the node is idle.
+ */
+@NullMarked
+class ClusterMembershipImpl implements ClusterMembership {
+
+    private static final int MISSED_HEARTBEATS = 3;
+
+    private final String nodeId;
+    private final Consumer<AbstractEvent> publisher;
+    private final long intervalMillis;
+    private final long timeoutNanos;
+    // Node id -> System.nanoTime() of the last envelope received
+    private final Map<String, Long> lastSeen = new ConcurrentHashMap<>();
+    private final List<MembershipListener> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Creates the membership of a node.
+     *
+     * @param nodeId
+     *            the id of this node
+     * @param publisher
+     *            publishes an event to the other nodes only
+     * @param intervalMillis
+     *            the interval of the heartbeats
+     */
+    @SuppressWarnings("null")
+    ClusterMembershipImpl(String nodeId, Consumer<AbstractEvent> publisher,
+            long intervalMillis) {
+        this.nodeId = nodeId;
+        this.publisher = publisher;
+        this.intervalMillis = intervalMillis;
+        this.timeoutNanos = TimeUnit.MILLISECONDS
+                .toNanos(intervalMillis * MISSED_HEARTBEATS);
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofVirtual().name("cluster-heartbeat").factory());
+    }
+
+    /**
+     * Announces this node to the cluster and starts sending the heartbeats.
+     */
+    void start() {
+        publisher.accept(new HeartbeatEvent(false));
+        scheduler.scheduleAtFixedRate(this::heartbeat, intervalMillis,
+                intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void heartbeat() {
+        try {
+            publisher.accept(new HeartbeatEvent(false));
+            checkLiveness(System.nanoTime());
+        } catch (Exception e) {
+            // An exception would cancel the scheduled heartbeats
+            logger.error("Error in cluster heartbeat", e);
+        }
+    }
+
+    /**
+     * Records an envelope received from another node.
+     *
+     * @param node
+     *            the id of the node that published the envelope
+     * @param event
+     *            the event of the envelope
+     * @param now
+     *            the current System.nanoTime()
+     */
+    void received(String node, AbstractEvent event, long now) {
+        if (event instanceof HeartbeatEvent(boolean leaving) && leaving) {
+            if (lastSeen.remove(node) != null) {
+                logger.info("Node {} left the cluster", node);
+                listeners.forEach(listener -> listener.nodeLeft(node));
+            }
+            return;
+        }
+        if (lastSeen.put(node, now) == null) {
+            logger.info("Node {} joined the cluster", node);
+            listeners.forEach(listener -> listener.nodeJoined(node));
+        }
+    }
+
+    /**
+     * Records envelopes of another node that were not delivered to this node.
+     *
+     * @param node
+     *            the id of the node that published the envelopes
+     * @param missed
+     *            the number of envelopes missed
+     */
+    void missed(String node, long missed) {
+        listeners.forEach(listener -> listener.eventsMissed(node, missed));
+    }
+
+    /**
+     * Removes the nodes not heard of within three heartbeat intervals.
+     *
+     * @param now
+     *            the current System.nanoTime()
+     */
+    void checkLiveness(long now) {
+        lastSeen.forEach((node, seen) -> {
+            // Removed only if no envelope was received in between
+            if (now - seen > timeoutNanos && lastSeen.remove(node, seen)) {
+                logger.warn("Node {} has not been heard of in {}ms; removed",
+                        node, TimeUnit.NANOSECONDS.toMillis(now - seen));
+                listeners.forEach(listener -> listener.nodeLeft(node));
+            }
+        });
+    }
+
+    /**
+     * Stops the heartbeats and tells the other nodes that this node leaves.
+     */
+    void shutdown() {
+        if (!scheduler.isShutdown()) {
+            scheduler.shutdownNow();
+            publisher.accept(new HeartbeatEvent(true));
+        }
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @SuppressWarnings("null")
+    @Override
+    public Set<String> getNodes() {
+        return Set.copyOf(lastSeen.keySet());
+    }
+
+    @Override
+    public void addMembershipListener(MembershipListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeMembershipListener(MembershipListener listener) {
+        listeners.remove(listener);
+    }
+
+    private Logger logger = LoggerFactory.getLogger(this.getClass());
+}
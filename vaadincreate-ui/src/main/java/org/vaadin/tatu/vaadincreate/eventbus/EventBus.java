@@ -78,6 +78,13 @@ public interface EventBus {
 
     public void shutdown();
 
+    /**
+     * Gets the membership of this node in the cluster sharing the event bus.
+     *
+     * @return the cluster membership
+     */
+    public ClusterMembership getMembership();
+
     /**
      * Retrieves the singleton instance of the EventBus.
      *
@@ -2,14 +2,17 @@ package org.vaadin.tatu.vaadincreate.eventbus;
 
 import java.util.UUID;
 import java.util.WeakHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.jspecify.annotations.NullMarked;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.vaadin.tatu.vaadincreate.backend.RedisPubSubService;
 import org.vaadin.tatu.vaadincreate.backend.events.AbstractEvent;
+import org.vaadin.tatu.vaadincreate.backend.events.HeartbeatEvent;
+import org.vaadin.tatu.vaadincreate.eventbus.ClusterMembership.MembershipListener;
 import org.vaadin.tatu.vaadincreate.observability.Telemetry;
 
 /**
@@ -20,11 +23,17 @@ import org.vaadin.tatu.vaadincreate.observability.Telemetry;
 @SuppressWarnings("java:S6548")
 public class EventBusImpl implements EventBus {
 
+    private static final long LOCAL = -1;
+
     private static EventBusImpl instance;
     private final String nodeId = UUID.randomUUID().toString();
 
     private RedisPubSubService redisService;
 
+    final SequenceTracker sequences = new SequenceTracker();
+
+    final ClusterMembershipImpl membership;
+
     /**
      * It is <em>VERY IMPORTANT</em> we use a weak hash map when registering
      * Vaadin components. Without it, this class would keep references to the UI
@@ -32,7 +41,8 @@ public class EventBusImpl implements EventBus {
      */
     protected WeakHashMap<EventBusListener, Object> eventListeners = new WeakHashMap<>();
 
-    private final ExecutorService executor = Executors.newFixedThreadPool(5,
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(5, 5,
+            0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
             Thread.ofVirtual().name("eventbus").factory());
 
     public static synchronized EventBus getInstance() {
@@ -45,18 +55,53 @@ public class EventBusImpl implements EventBus {
     protected EventBusImpl(RedisPubSubService redisService) {
         this.redisService = redisService;
         logger.info("Starting EventBus");
+        Telemetry.registerEventBus(() -> executor.getQueue().size(),
+                this::getListenerCount);
+        // Heartbeats are published to the other nodes only
+        var interval = Long.getLong("cluster.heartbeat.interval", 10);
+        membership = new ClusterMembershipImpl(nodeId,
+                event -> redisService.publishEvent(nodeId, event),
+                TimeUnit.SECONDS.toMillis(interval));
+        Telemetry.registerClusterMembership(
+                () -> membership.getNodes().size() + 1L);
+        membership.addMembershipListener(new MembershipListener() {
+            @Override
+            public void nodeJoined(String node) {
+                // Nothing to do
+            }
+
+            @Override
+            public void nodeLeft(String node) {
+                sequences.forget(node);
+            }
+        });
         // Start the subscriber and handle incoming envelopes.
         redisService.startSubscriber(envelope -> {
             logger.debug("EventBus event received from {}: {}",
                     envelope.nodeId(), envelope.event());
             // Ignore events from the same node.
             if (!nodeId.equals(envelope.nodeId())) {
+                var missed = sequences.received(envelope.nodeId(),
+                        envelope.sequence());
+                if (missed > 0) {
+                    logger.warn("Missed {} events from node {}", missed,
+                            envelope.nodeId());
+                    Telemetry.remoteEventsMissed(missed);
+                    membership.missed(envelope.nodeId(), missed);
+                }
+                membership.received(envelope.nodeId(), envelope.event(),
+                        System.nanoTime());
+                if (envelope.event() instanceof HeartbeatEvent) {
+                    // Of no interest to the listeners
+                    return;
+                }
                 // Dispatch the unwrapped event locally.
                 logger.info("Relaying event to local listeners: {}",
                         envelope.event().getClass().getName());
-                postLocal(envelope.event());
+                postLocal(envelope.event(), envelope.publishedAt());
             }
         });
+        membership.start();
     }
 
     @Override
@@ -64,16 +109,50 @@ public class EventBusImpl implements EventBus {
         // Publish the event using the Redis service.
         redisService.publishEvent(nodeId, event);
         // Immediately dispatch locally.
-        postLocal(event);
+        postLocal(event, LOCAL);
     }
 
-    private void postLocal(AbstractEvent event) {
+    // publishedAt is the publish time of an event from another node in epoch
+    // milliseconds, or LOCAL
+    private void postLocal(AbstractEvent event, long publishedAt) {
+        var posted = System.nanoTime();
+        var eventType = event.getClass().getSimpleName();
         synchronized (eventListeners) {
             logger.debug("EventBus event fired for {} recipients.",
                     eventListeners.size());
-            eventListeners
-                    .forEach((listener, o) -> executor.execute(() -> Telemetry
-                            .eventTask(() -> listener.eventFired(event))));
+            eventListeners.forEach((listener, o) -> executor
+                    .execute(() -> dispatch(event, eventType, listener,
+                            System.nanoTime() - posted, publishedAt)));
+        }
+    }
+
+    private static void dispatch(AbstractEvent event, String eventType,
+            EventBusListener listener, long queueWait, long publishedAt) {
+        Telemetry.eventDispatched(eventType, queueWait);
+        // Envelopes of nodes not setting the publish time have 0
+        if (publishedAt > 0) {
+            // Across nodes, subject to the clock skew between the nodes
+            Telemetry.remoteEventDispatched(eventType,
+                    System.currentTimeMillis() - publishedAt);
+        }
+        var recorded = new EventDispatchEvent();
+        recorded.begin();
+        try {
+            Telemetry.eventTask(() -> listener.eventFired(event));
+        } finally {
+            recorded.end();
+            if (recorded.shouldCommit()) {
+                recorded.eventType = eventType;
+                recorded.listener = listener.getClass().getName();
+                recorded.queueWait = queueWait;
+                recorded.commit();
+            }
+        }
+    }
+
+    private long getListenerCount() {
+        synchronized (eventListeners) {
+            return eventListeners.size();
         }
     }
 
@@ -99,9 +178,15 @@ public class EventBusImpl implements EventBus {
         }
     }
 
+    @Override
+    public ClusterMembership getMembership() {
+        return membership;
+    }
+
     @Override
     public void shutdown() {
         logger.info("Shutting down EventBus");
+        membership.shutdown();
         redisService.stopSubscriber();
         redisService.closePublisher();
         executor.shutdown();
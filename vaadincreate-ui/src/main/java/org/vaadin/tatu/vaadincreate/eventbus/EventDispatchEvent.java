@@ -0,0 +1,36 @@
+package org.vaadin.tatu.vaadincreate.eventbus;
+
+import org.jspecify.annotations.NullMarked;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JDK Flight Recorder event of delivering an event of the event bus to one
+ * listener. Enabled and filtered by duration with the JFR settings, see
+ * {@code jfr/vaadincreate.jfc}.
+ */
+@NullMarked
+@Name("vaadincreate.EventDispatch")
+@Label("Event Dispatch")
+@Category({ "Vaadin Create", "Event Bus" })
+@Description("Delivery of an event bus event to a listener")
+@StackTrace(false)
+class EventDispatchEvent extends Event {
+
+    @Label("Event Type")
+    String eventType = "";
+
+    @Label("Listener")
+    String listener = "";
+
+    @Label("Queue Wait")
+    @Description("Time from posting the event to the delivery")
+    @Timespan(Timespan.NANOSECONDS)
+    long queueWait;
+}
@@ -0,0 +1,67 @@
+package org.vaadin.tatu.vaadincreate.eventbus;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * Tracks the sequence numbers of the envelopes received from the other nodes
+ * of the cluster to detect envelopes lost in between. Redis pub/sub delivers
+ * the messages of a publisher in order, so a skipped sequence number means
+ * that the envelope was not delivered to this node.
+ */
+@NullMarked
+class SequenceTracker {
+
+    // Origin node id -> highest sequence number received
+    private final Map<String, Long> lastSequences = new ConcurrentHashMap<>();
+    private final AtomicLong missed = new AtomicLong();
+
+    /**
+     * Records a received envelope.
+     *
+     * @param nodeId
+     *            the id of the node that published the envelope
+     * @param sequence
+     *            the sequence number of the envelope, 0 if not known
+     * @return the number of envelopes of the node missed before this one
+     */
+    long received(String nodeId, long sequence) {
+        if (sequence <= 0) {
+            // Published by a node without sequence numbers
+            return 0;
+        }
+        var gap = new long[1];
+        // The first envelope of a node sets the baseline, as this node may
+        // have joined after the node started publishing
+        lastSequences.merge(nodeId, sequence, (last, current) -> {
+            if (current > last + 1) {
+                gap[0] = current - last - 1;
+            }
+            return Math.max(last, current);
+        });
+        missed.addAndGet(gap[0]);
+        return gap[0];
+    }
+
+    /**
+     * Forgets a node that has left the cluster.
+     *
+     * @param nodeId
+     *            the id of the node
+     */
+    void forget(String nodeId) {
+        lastSequences.remove(nodeId);
+    }
+
+    /**
+     * Gets the total number of envelopes missed from all the nodes.
+     *
+     * @return the number of missed envelopes
+     */
+    long getMissedCount() {
+        return missed.get();
+    }
+}
@@ -3,10 +3,12 @@ package org.vaadin.tatu.vaadincreate.i18n;
 import java.text.MessageFormat;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.MissingResourceException;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.jspecify.annotations.NullMarked;
 import org.slf4j.Logger;
@@ -31,6 +33,17 @@ public class DefaultI18NProvider implements I18NProvider {
 
     protected static I18NProvider instance;
 
+    /**
+     * The translations of a locale loaded from the resource bundle, and the
+     * parsed message formats of the translations used with parameters.
+     */
+    private record Translations(Map<String, String> values,
+            ConcurrentHashMap<String, MessageFormat> formats) {
+    }
+
+    // Loaded once per supported locale
+    private static final Map<Locale, Translations> translations = new ConcurrentHashMap<>();
+
     public static synchronized I18NProvider getInstance() {
         if (instance == null) {
             instance = new DefaultI18NProvider();
@@ -45,24 +58,39 @@ public class DefaultI18NProvider implements I18NProvider {
 
     @Override
     public String getTranslation(String key, Locale locale, Object... params) {
-        ResourceBundle bundle;
-        if (getLocales().contains(locale)) {
-            bundle = ResourceBundle.getBundle(BUNDLE_PREFIX, locale);
-        } else {
-            bundle = ResourceBundle.getBundle(BUNDLE_PREFIX, LOCALE_EN);
-        }
-
-        String value;
-        try {
-            value = bundle.getString(key);
-        } catch (final MissingResourceException e) {
-            logger.warn("Missing resource", e);
+        var translations = getTranslations(
+                getLocales().contains(locale) ? locale : LOCALE_EN);
+        var value = translations.values().get(key);
+        if (value == null) {
+            logger.warn("Missing resource {} for locale {}", key, locale);
             return "!" + locale.getLanguage() + ": " + key;
         }
-        if (params.length > 0) {
-            value = MessageFormat.format(value, params);
+        if (params.length == 0) {
+            return value;
+        }
+        var format = translations.formats().computeIfAbsent(key,
+                k -> new MessageFormat(value));
+        // MessageFormat is not thread safe
+        synchronized (format) {
+            return format.format(params);
+        }
+    }
+
+    private static Translations getTranslations(Locale locale) {
+        return translations.computeIfAbsent(locale,
+                DefaultI18NProvider::loadTranslations);
+    }
+
+    private static Translations loadTranslations(Locale locale) {
+        var bundle = ResourceBundle.getBundle(BUNDLE_PREFIX, locale);
+        var values = new HashMap<String, String>();
+        for (var key : bundle.keySet()) {
+            values.put(key, bundle.getString(key));
         }
-        return value;
+        logger.info("Loaded {} translations for locale {}", values.size(),
+                locale);
+        return new Translations(Map.copyOf(values),
+                new ConcurrentHashMap<>());
     }
 
 }
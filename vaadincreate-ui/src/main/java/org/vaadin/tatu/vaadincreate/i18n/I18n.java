@@ -214,6 +214,7 @@ public final class I18n {
         public static final String SUBMIT = "submit";
         public static final String STEP1_TITLE = "step1-title";
         public static final String NO_PRODUCTS_AVAILABLE = "no-products-available";
+        public static final String OUT_OF_STOCK = "out-of-stock";
         public static final String STEP2_TITLE = "step2-title";
         public static final String STEP3_TITLE = "step3-title";
         public static final String STEP4_TITLE = "step4-title";
@@ -258,6 +259,7 @@ public final class I18n {
         public static final String DECISION_REASON = "decision-reason";
         public static final String PENDING = "pending";
         public static final String NOT_AVAILABLE = "not-available";
+        public static final String PURCHASE_NOT_FOUND = "purchase-not-found";
         public static final String APPROVE = "approve";
         public static final String REJECT = "reject";
         public static final String DECISION_COMMENT = "decision-comment";
@@ -266,6 +268,10 @@ public final class I18n {
         public static final String INSUFFICIENT_STOCK = "insufficient-stock";
         public static final String APPROVE_CONFLICT = "approve-conflict";
         public static final String REASON_REQUIRED = "reason-required";
+        public static final String APPROVE_SELECTED = "approve-selected";
+        public static final String REJECT_SELECTED = "reject-selected";
+        public static final String BULK_DECISION_RESULT = "bulk-decision-result";
+        public static final String BULK_DECISION_FAILED = "bulk-decision-failed";
 
         public static final String PURCHASE_STATUS_APPROVED = "purchase-status-approved";
         public static final String PURCHASE_STATUS_REJECTED = "purchase-status-rejected";
@@ -287,6 +293,9 @@ public final class I18n {
         public static final String PURGE_CONFIRM_CAPTION = "purge-confirm-caption";
         public static final String PURGE_CONFIRM_MESSAGE = "purge-confirm-message";
         public static final String PURGE_SUCCESS = "purge-success";
+        public static final String PURGE_PROGRESS = "purge-progress";
+        public static final String PURGE_FAILED = "purge-failed";
+        public static final String PURGE_ALREADY_RUNNING = "purge-already-running";
         public static final String FROM = "from";
         public static final String TO = "to";
         public static final String DATE_FIELD_ASSISTIVE_TEXT = "date-field-assistive-text";
@@ -305,6 +314,8 @@ public final class I18n {
         public static final String EXPORT_READY = "export-ready";
         public static final String DOWNLOAD = "download";
         public static final String PURGE_TOOLTIP = "purge-tooltip";
+        public static final String ARCHIVE = "archive";
+        public static final String ARCHIVE_LOAD_FAILED = "archive-load-failed";
 
         private Purchases() {
             // private constructor to hide the implicit public one
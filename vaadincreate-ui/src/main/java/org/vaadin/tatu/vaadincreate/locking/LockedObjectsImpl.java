@@ -12,15 +12,19 @@ import org.vaadin.tatu.vaadincreate.backend.data.AbstractEntity;
 import org.vaadin.tatu.vaadincreate.backend.data.User;
 import org.vaadin.tatu.vaadincreate.backend.events.AbstractEvent;
 import org.vaadin.tatu.vaadincreate.backend.events.LockingEvent;
+import org.vaadin.tatu.vaadincreate.eventbus.ClusterMembership;
+import org.vaadin.tatu.vaadincreate.eventbus.ClusterMembership.MembershipListener;
 import org.vaadin.tatu.vaadincreate.eventbus.EventBus;
 import org.vaadin.tatu.vaadincreate.eventbus.EventBus.EventBusListener;
 
 @NullMarked
 @SuppressWarnings("java:S6548")
-public class LockedObjectsImpl implements LockedObjects, EventBusListener {
+public class LockedObjectsImpl
+        implements LockedObjects, EventBusListener, MembershipListener {
 
     private static LockedObjectsImpl instance;
-    private EventBus eventBus = EventBus.get();
+    private final EventBus eventBus;
+    private final ClusterMembership membership;
     private static final String NOT_NULL_ERROR = "object can't be null";
 
     private final HashMap<Integer, UserData> lockedObjects = new LinkedHashMap<>();
@@ -33,7 +37,15 @@ public class LockedObjectsImpl implements LockedObjects, EventBusListener {
     }
 
     private LockedObjectsImpl() {
+        this(EventBus.get());
+    }
+
+    // For running several nodes in one test
+    LockedObjectsImpl(EventBus eventBus) {
+        this.eventBus = eventBus;
+        this.membership = eventBus.getMembership();
         eventBus.registerEventBusListener(this);
+        membership.addMembershipListener(this);
     }
 
     @Nullable
@@ -66,9 +78,11 @@ public class LockedObjectsImpl implements LockedObjects, EventBusListener {
                         String.format("Can't lock object already locked: %s",
                                 object.getId()));
             }
-            lockedObjects.put(id, new UserData(userName, userId));
+            var nodeId = membership.getNodeId();
+            lockedObjects.put(id, new UserData(userName, userId, nodeId,
+                    object.getClass()));
             eventBus.post(new LockingEvent(object.getClass(), id, userId,
-                    userName, true));
+                    userName, true, nodeId));
             logger.debug("{} locked {} ({})", user.getName(),
                     object.getClass().getSimpleName(), object.getId());
         }
@@ -85,7 +99,7 @@ public class LockedObjectsImpl implements LockedObjects, EventBusListener {
                 var userId = userData.id();
                 var userName = userData.name();
                 eventBus.post(new LockingEvent(object.getClass(), id, userId,
-                        userName, false));
+                        userName, false, userData.nodeId()));
                 logger.debug("Unlocked {} ({})",
                         object.getClass().getSimpleName(), object.getId());
             }
@@ -94,12 +108,13 @@ public class LockedObjectsImpl implements LockedObjects, EventBusListener {
 
     @Override
     public void eventFired(AbstractEvent event) {
-        if (event instanceof LockingEvent(Class<?> type, Integer id, Integer userId, String userName, boolean locked)) {
+        if (event instanceof LockingEvent(Class<?> type, Integer id, Integer userId, String userName, boolean locked, String nodeId)) {
             synchronized (lockedObjects) {
                 if (locked && !lockedObjects.containsKey(id)) {
                     logger.debug("Remote locked {} ({}) by user {}",
                             type.getSimpleName(), id, userId);
-                    lockedObjects.put(id, new UserData(userName, userId));
+                    lockedObjects.put(id,
+                            new UserData(userName, userId, nodeId, type));
                 } else if (!locked && lockedObjects.containsKey(id)) {
                     logger.debug("Remote unlocked {} ({}) by user {}",
                             type.getSimpleName(), id, userId);
@@ -109,7 +124,47 @@ public class LockedObjectsImpl implements LockedObjects, EventBusListener {
         }
     }
 
-    private record UserData(String name, Integer id) {
+    @Override
+    public void nodeJoined(String nodeId) {
+        // The joined node has not seen the locks taken before it started, so
+        // each node publishes its own locks again
+        var ownNodeId = membership.getNodeId();
+        synchronized (lockedObjects) {
+            lockedObjects.forEach((id, userData) -> {
+                if (ownNodeId.equals(userData.nodeId())) {
+                    eventBus.post(new LockingEvent(userData.type(), id,
+                            userData.id(), userData.name(), true, ownNodeId));
+                }
+            });
+        }
+        logger.debug("Published the locks of this node for joined node {}",
+                nodeId);
+    }
+
+    @Override
+    public void nodeLeft(String nodeId) {
+        synchronized (lockedObjects) {
+            var iterator = lockedObjects.entrySet().iterator();
+            while (iterator.hasNext()) {
+                var entry = iterator.next();
+                var userData = entry.getValue();
+                if (nodeId.equals(userData.nodeId())) {
+                    iterator.remove();
+                    logger.info("Released {} ({}) locked by {} on departed node {}",
+                            userData.type().getSimpleName(), entry.getKey(),
+                            userData.name(), nodeId);
+                    // Lets the views refresh, the other nodes release the
+                    // lock on their own too
+                    eventBus.post(new LockingEvent(userData.type(),
+                            entry.getKey(), userData.id(), userData.name(),
+                            false, nodeId));
+                }
+            }
+        }
+    }
+
+    private record UserData(String name, Integer id, String nodeId,
+            Class<?> type) {
     }
 
     private Logger logger = LoggerFactory.getLogger(this.getClass());
@@ -1,9 +1,18 @@
 package org.vaadin.tatu.vaadincreate.observability;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
 
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
+import org.vaadin.tatu.vaadincreate.backend.DatabaseMonitor;
+import org.vaadin.tatu.vaadincreate.backend.DatabaseMonitor.DatabaseCall;
+import org.vaadin.tatu.vaadincreate.backend.DatabaseMonitor.DatabaseStatistics;
 import org.vaadin.tatu.vaadincreate.backend.data.AbstractEntity;
 
 import com.vaadin.ui.ComponentContainer;
@@ -11,6 +20,12 @@ import com.vaadin.ui.ComponentContainer;
 import io.opentelemetry.api.GlobalOpenTelemetry;
 import io.opentelemetry.api.common.AttributeKey;
 import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.LongHistogram;
+import io.opentelemetry.api.metrics.LongUpDownCounter;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.ObservableLongMeasurement;
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.StatusCode;
 import io.opentelemetry.api.trace.Tracer;
@@ -24,6 +39,74 @@ public final class Telemetry {
     private static final String ITEM_CANNOT_BE_NULL = "Item cannot be null";
     private static final Tracer tracer = GlobalOpenTelemetry.get()
             .getTracer("vaadincreate");
+    private static final AttributeKey<String> DB_OPERATION = AttributeKey
+            .stringKey("db.operation");
+    private static final AttributeKey<Boolean> DB_REPLICA = AttributeKey
+            .booleanKey("db.replica");
+    private static final AttributeKey<String> TASK_PRIORITY = AttributeKey
+            .stringKey("task.priority");
+    private static final AttributeKey<Boolean> TASK_FAILED = AttributeKey
+            .booleanKey("task.failed");
+    private static final Meter meter = GlobalOpenTelemetry.get()
+            .getMeter("vaadincreate");
+    private static final DoubleHistogram taskWait = meter
+            .histogramBuilder("task.queue.wait")
+            .setDescription("Time background tasks wait for a permit")
+            .setUnit("ms").build();
+    private static final DoubleHistogram taskDuration = meter
+            .histogramBuilder("task.duration")
+            .setDescription("Execution time of background tasks")
+            .setUnit("ms").build();
+    private static final AttributeKey<String> HTTP_ENDPOINT = AttributeKey
+            .stringKey("http.endpoint");
+    private static final AttributeKey<String> VAADIN_VIEW = AttributeKey
+            .stringKey("vaadin.view");
+    private static final AttributeKey<Long> HTTP_STATUS = AttributeKey
+            .longKey("http.response.status_code");
+    private static final DoubleHistogram requestDuration = meter
+            .histogramBuilder("http.server.request.duration")
+            .setDescription("Duration and count of HTTP requests")
+            .setUnit("ms").build();
+    private static final LongHistogram responseSize = meter
+            .histogramBuilder("http.server.response.size").ofLongs()
+            .setDescription("Size of HTTP response bodies").setUnit("By")
+            .build();
+    private static final LongUpDownCounter activeRequests = meter
+            .upDownCounterBuilder("http.server.active_requests")
+            .setDescription("Number of HTTP requests in flight").build();
+    private static final DoubleHistogram pushDelay = meter
+            .histogramBuilder("push.coalesce.delay")
+            .setDescription("Latency added to UI updates by coalescing")
+            .setUnit("ms").build();
+    private static final LongCounter pushesSaved = meter
+            .counterBuilder("push.coalesce.saved")
+            .setDescription("Pushes saved by coalescing UI updates").build();
+    private static final LongCounter pushes = meter
+            .counterBuilder("push.messages")
+            .setDescription("UI changes pushed to the browser").build();
+    private static final LongUpDownCounter activeUIs = meter
+            .upDownCounterBuilder("vaadin.ui.active")
+            .setDescription("Number of attached UIs").build();
+    private static final LongUpDownCounter activeSessions = meter
+            .upDownCounterBuilder("vaadin.session.active")
+            .setDescription("Number of open Vaadin sessions").build();
+    private static final DoubleHistogram accessWait = meter
+            .histogramBuilder("ui.access.wait")
+            .setDescription("Time UI.access tasks wait for the session lock")
+            .setUnit("ms").build();
+    private static final AttributeKey<String> EVENT_TYPE = AttributeKey
+            .stringKey("event.type");
+    private static final DoubleHistogram eventDispatch = meter
+            .histogramBuilder("eventbus.dispatch.latency")
+            .setDescription("Time from posting an event to its listener")
+            .setUnit("ms").build();
+    private static final DoubleHistogram remoteEventLag = meter
+            .histogramBuilder("eventbus.remote.lag")
+            .setDescription("Time from publishing on another node to listener")
+            .setUnit("ms").build();
+    private static final LongCounter remoteEventsMissed = meter
+            .counterBuilder("eventbus.remote.missed")
+            .setDescription("Events of other nodes not received").build();
 
     private Telemetry() {
         // Utility class, prevent instantiation
@@ -136,6 +219,21 @@ public final class Telemetry {
         }
     }
 
+    /**
+     * Records the time an {@code UI.access()} task was queued before running
+     * to the "ui.access.wait" histogram, and runs the task with
+     * {@link #accessTask(Runnable)}.
+     *
+     * @param command
+     *            the runnable to execute and measure
+     * @param waitNanos
+     *            the time from {@code UI.access()} to running the task
+     */
+    public static void accessTask(Runnable command, long waitNanos) {
+        accessWait.record(waitNanos / 1_000_000d);
+        accessTask(command);
+    }
+
     /**
      * Runs a command as a measured OpenTelemetry span named "access.task". Use
      * this to track the duration of UI-access runnables submitted via
@@ -206,4 +304,318 @@ public final class Telemetry {
         }
     }
 
+    /**
+     * Registers database monitoring to telemetry. Each database call is
+     * recorded as a span named "db." followed by the DAO method name and to
+     * the "db.call.duration" histogram, and the Hibernate and connection pool
+     * statistics are exposed as observable metrics.
+     */
+    public static void registerDatabaseMonitoring() {
+        var monitor = DatabaseMonitor.get();
+        var histogram = meter.histogramBuilder("db.call.duration")
+                .setDescription("Duration of database calls").setUnit("ms")
+                .build();
+        monitor.addListener(call -> databaseCall(call, histogram));
+
+        // The statistics are read once per collection for all the metrics
+        var statistics = new LinkedHashMap<ObservableLongMeasurement, ToLongFunction<DatabaseStatistics>>();
+        statistics.put(counter("db.query.executions"),
+                DatabaseStatistics::queryExecutionCount);
+        statistics.put(counter("db.query.cache.hits"),
+                DatabaseStatistics::queryCacheHitCount);
+        statistics.put(counter("db.query.cache.misses"),
+                DatabaseStatistics::queryCacheMissCount);
+        statistics.put(counter("db.cache.hits"),
+                DatabaseStatistics::secondLevelCacheHitCount);
+        statistics.put(counter("db.cache.misses"),
+                DatabaseStatistics::secondLevelCacheMissCount);
+        statistics.put(counter("db.entity.loads"),
+                DatabaseStatistics::entityLoadCount);
+        statistics.put(counter("db.entity.fetches"),
+                DatabaseStatistics::entityFetchCount);
+        statistics.put(counter("db.entity.inserts"),
+                DatabaseStatistics::entityInsertCount);
+        statistics.put(counter("db.entity.updates"),
+                DatabaseStatistics::entityUpdateCount);
+        statistics.put(counter("db.entity.deletes"),
+                DatabaseStatistics::entityDeleteCount);
+        statistics.put(counter("db.transactions"),
+                DatabaseStatistics::transactionCount);
+        statistics.put(counter("db.sessions"),
+                DatabaseStatistics::sessionOpenCount);
+        statistics.put(gauge("db.query.max.time"),
+                DatabaseStatistics::queryExecutionMaxTime);
+        statistics.put(gauge("db.connections.active"),
+                DatabaseStatistics::activeConnections);
+        statistics.put(gauge("db.connections.idle"),
+                DatabaseStatistics::idleConnections);
+        statistics.put(gauge("db.connections.total"),
+                DatabaseStatistics::totalConnections);
+        statistics.put(gauge("db.connections.pending"),
+                DatabaseStatistics::pendingThreads);
+        var measurements = statistics.keySet()
+                .toArray(ObservableLongMeasurement[]::new);
+        meter.batchCallback(
+                () -> recordStatistics(monitor.getStatistics(), statistics),
+                measurements[0], Arrays.copyOfRange(measurements, 1,
+                        measurements.length));
+    }
+
+    /**
+     * Registers the queued and running task counts of the task scheduler as
+     * observable metrics.
+     *
+     * @param queued
+     *            supplier of the number of tasks waiting for a thread
+     * @param running
+     *            supplier of the number of running tasks
+     */
+    public static void registerTaskScheduler(LongSupplier queued,
+            LongSupplier running) {
+        Objects.requireNonNull(queued, "Queued supplier cannot be null");
+        Objects.requireNonNull(running, "Running supplier cannot be null");
+        meter.gaugeBuilder("task.queued").ofLongs().buildWithCallback(
+                measurement -> measurement.record(queued.getAsLong()));
+        meter.gaugeBuilder("task.running").ofLongs().buildWithCallback(
+                measurement -> measurement.record(running.getAsLong()));
+    }
+
+    /**
+     * Records a completed background task to the "task.queue.wait" and
+     * "task.duration" histograms.
+     *
+     * @param priority
+     *            the priority class of the task
+     * @param waitNanos
+     *            the time the task was queued
+     * @param durationNanos
+     *            the execution time of the task
+     * @param failed
+     *            true if the task threw an exception
+     */
+    @SuppressWarnings("null")
+    public static void taskCompleted(String priority, long waitNanos,
+            long durationNanos, boolean failed) {
+        var attributes = Attributes.of(TASK_PRIORITY, priority, TASK_FAILED,
+                failed);
+        taskWait.record(waitNanos / 1_000_000d, attributes);
+        taskDuration.record(durationNanos / 1_000_000d, attributes);
+    }
+
+    /**
+     * Adds a request of the endpoint to the "http.server.active_requests"
+     * gauge. Must be followed by
+     * {@link #requestCompleted(String, String, int, long, long)}.
+     *
+     * @param endpoint
+     *            the endpoint of the request, e.g. "uidl"
+     */
+    @SuppressWarnings("null")
+    public static void requestStarted(String endpoint) {
+        activeRequests.add(1, Attributes.of(HTTP_ENDPOINT, endpoint));
+    }
+
+    /**
+     * Records a completed request to the "http.server.request.duration" and
+     * "http.server.response.size" histograms, and removes it from the
+     * "http.server.active_requests" gauge.
+     *
+     * @param endpoint
+     *            the endpoint of the request, e.g. "uidl"
+     * @param view
+     *            the view of the UI, or "none"
+     * @param status
+     *            the HTTP status code of the response
+     * @param durationNanos
+     *            the duration of the request
+     * @param size
+     *            the size of the response body in bytes
+     */
+    @SuppressWarnings("null")
+    public static void requestCompleted(String endpoint, String view,
+            int status, long durationNanos, long size) {
+        activeRequests.add(-1, Attributes.of(HTTP_ENDPOINT, endpoint));
+        var attributes = Attributes.of(HTTP_ENDPOINT, endpoint, VAADIN_VIEW,
+                view, HTTP_STATUS, (long) status);
+        requestDuration.record(durationNanos / 1_000_000d, attributes);
+        responseSize.record(size, attributes);
+    }
+
+    /**
+     * Records the latency added to a UI update by coalescing it with the
+     * other updates of the UI to the "push.coalesce.delay" histogram.
+     *
+     * @param delayNanos
+     *            the time from the update to the access cycle running it
+     */
+    public static void pushDelayed(long delayNanos) {
+        pushDelay.record(delayNanos / 1_000_000d);
+    }
+
+    /**
+     * Adds the pushes saved by running several UI updates in one access
+     * cycle to the "push.coalesce.saved" counter.
+     *
+     * @param saved
+     *            the number of updates minus one
+     */
+    public static void pushesCoalesced(long saved) {
+        if (saved > 0) {
+            pushesSaved.add(saved);
+        }
+    }
+
+    /**
+     * Adds a message pushed to the browser to the "push.messages" counter.
+     */
+    public static void pushed() {
+        pushes.add(1);
+    }
+
+    /**
+     * Adds an attached UI to the "vaadin.ui.active" gauge. Must be followed by
+     * {@link #uiDetached()} when the UI is detached.
+     */
+    public static void uiAttached() {
+        activeUIs.add(1);
+    }
+
+    /**
+     * Removes a detached UI from the "vaadin.ui.active" gauge.
+     */
+    public static void uiDetached() {
+        activeUIs.add(-1);
+    }
+
+    /**
+     * Adds an opened session to the "vaadin.session.active" gauge. Must be
+     * followed by {@link #sessionEnded()} when the session is destroyed.
+     */
+    public static void sessionStarted() {
+        activeSessions.add(1);
+    }
+
+    /**
+     * Removes a destroyed session from the "vaadin.session.active" gauge.
+     */
+    public static void sessionEnded() {
+        activeSessions.add(-1);
+    }
+
+    /**
+     * Registers the number of queued event deliveries and registered
+     * listeners of the event bus as observable metrics.
+     *
+     * @param queued
+     *            supplier of the number of deliveries waiting for a thread
+     * @param listeners
+     *            supplier of the number of registered listeners
+     */
+    public static void registerEventBus(LongSupplier queued,
+            LongSupplier listeners) {
+        Objects.requireNonNull(queued, "Queued supplier cannot be null");
+        Objects.requireNonNull(listeners, "Listeners supplier cannot be null");
+        meter.gaugeBuilder("eventbus.queue.depth").ofLongs().buildWithCallback(
+                measurement -> measurement.record(queued.getAsLong()));
+        meter.gaugeBuilder("eventbus.listeners").ofLongs().buildWithCallback(
+                measurement -> measurement.record(listeners.getAsLong()));
+    }
+
+    /**
+     * Registers the "cluster.nodes" gauge reporting the number of nodes alive
+     * in the cluster, as seen by this node.
+     *
+     * @param nodes
+     *            supplies the number of nodes, including this node
+     */
+    public static void registerClusterMembership(LongSupplier nodes) {
+        Objects.requireNonNull(nodes, "Nodes supplier cannot be null");
+        meter.gaugeBuilder("cluster.nodes").ofLongs().buildWithCallback(
+                measurement -> measurement.record(nodes.getAsLong()));
+    }
+
+    /**
+     * Records the time from posting an event to delivering it to a listener
+     * to the "eventbus.dispatch.latency" histogram.
+     *
+     * @param eventType
+     *            the simple class name of the event
+     * @param latencyNanos
+     *            the time from posting to delivery
+     */
+    @SuppressWarnings("null")
+    public static void eventDispatched(String eventType, long latencyNanos) {
+        eventDispatch.record(latencyNanos / 1_000_000d,
+                Attributes.of(EVENT_TYPE, eventType));
+    }
+
+    /**
+     * Records the time from publishing an event on another node to
+     * delivering it to a listener on this node to the "eventbus.remote.lag"
+     * histogram. The time includes the clock skew between the nodes.
+     *
+     * @param eventType
+     *            the simple class name of the event
+     * @param lagMillis
+     *            the time from publishing to delivery in milliseconds
+     */
+    @SuppressWarnings("null")
+    public static void remoteEventDispatched(String eventType,
+            long lagMillis) {
+        remoteEventLag.record(lagMillis, Attributes.of(EVENT_TYPE, eventType));
+    }
+
+    /**
+     * Adds the events of other nodes detected as lost by a gap in their
+     * sequence numbers to the "eventbus.remote.missed" counter.
+     *
+     * @param missed
+     *            the number of missed events
+     */
+    public static void remoteEventsMissed(long missed) {
+        remoteEventsMissed.add(missed);
+    }
+
+    @SuppressWarnings("null")
+    private static void databaseCall(DatabaseCall call,
+            DoubleHistogram histogram) {
+        var attributes = Attributes.of(DB_OPERATION, call.operation(),
+                DB_REPLICA, call.replica());
+        histogram.record(call.durationNanos() / 1_000_000d, attributes);
+        var span = tracer.spanBuilder("db." + call.operation())
+                .setParent(Context.current())
+                .setStartTimestamp(call.startTime()).startSpan();
+        span.setAllAttributes(attributes);
+        span.setAttribute("db.rows", call.rows());
+        span.setAttribute("db.connection.wait",
+                TimeUnit.NANOSECONDS.toMillis(call.connectionWaitNanos()));
+        var failure = call.failure();
+        if (failure != null) {
+            span.recordException(failure);
+            span.setStatus(StatusCode.ERROR, failure.getMessage());
+        } else {
+            span.setStatus(StatusCode.OK);
+        }
+        span.end(call.startTime().plusNanos(call.durationNanos()));
+    }
+
+    private static ObservableLongMeasurement counter(String name) {
+        return meter.counterBuilder(name).buildObserver();
+    }
+
+    private static ObservableLongMeasurement gauge(String name) {
+        return meter.gaugeBuilder(name).ofLongs().buildObserver();
+    }
+
+    private static void recordStatistics(DatabaseStatistics current,
+            Map<ObservableLongMeasurement, ToLongFunction<DatabaseStatistics>> statistics) {
+        statistics.forEach((measurement, value) -> {
+            var recorded = value.applyAsLong(current);
+            // Negative values mean that the pool does not report
+            if (recorded >= 0) {
+                measurement.record(recorded);
+            }
+        });
+    }
+
 }
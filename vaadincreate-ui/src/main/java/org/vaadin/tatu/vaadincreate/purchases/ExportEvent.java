@@ -0,0 +1,35 @@
+package org.vaadin.tatu.vaadincreate.purchases;
+
+import org.jspecify.annotations.NullMarked;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event of generating a CSV export of the purchase
+ * history. Enabled and filtered by duration with the JFR settings, see
+ * {@code jfr/vaadincreate.jfc}.
+ */
+@NullMarked
+@Name("vaadincreate.Export")
+@Label("Export")
+@Category({ "Vaadin Create", "Export" })
+@Description("CSV export of the purchase history")
+@StackTrace(false)
+class ExportEvent extends Event {
+
+    @Label("Rows")
+    int rows;
+
+    @Label("Size")
+    @DataAmount
+    long size;
+
+    @Label("Locale")
+    String locale = "";
+}
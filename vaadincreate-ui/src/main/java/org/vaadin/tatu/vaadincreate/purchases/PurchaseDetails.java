@@ -41,10 +41,10 @@ class PurchaseDetails extends Composite implements HasI18N {
                 .add(Html.span().text(": " + purchase.getId())).add(Html.br());
 
         var approver = purchase.getApprover();
-        assert approver != null : "Approver cannot be null";
+        var approverValue = approver != null ? approver.getName()
+                : getTranslation(I18n.Storefront.NOT_AVAILABLE);
         root.add(Html.strong().text(getTranslation(I18n.Storefront.APPROVER)))
-                .add(Html.span().text(": " + approver.getName()))
-                .add(Html.br());
+                .add(Html.span().text(": " + approverValue)).add(Html.br());
 
         Instant decidedAt = purchase.getDecidedAt();
         var decidedAtValue = decidedAt != null ? Utils.formatDateTime(decidedAt)
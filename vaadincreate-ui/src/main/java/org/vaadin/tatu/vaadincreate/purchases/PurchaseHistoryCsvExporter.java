@@ -43,6 +43,21 @@ public class PurchaseHistoryCsvExporter implements Serializable {
     }
 
     byte[] toCsvBytes(List<PurchaseExportRow> rows, Locale locale) {
+        var event = new ExportEvent();
+        event.begin();
+        var bytes = writeCsv(rows, locale);
+        event.end();
+        if (event.shouldCommit()) {
+            event.rows = rows.size();
+            event.size = bytes.length;
+            event.locale = locale.toLanguageTag();
+            event.commit();
+        }
+        return bytes;
+    }
+
+    private static byte[] writeCsv(List<PurchaseExportRow> rows,
+            Locale locale) {
         var out = new ByteArrayOutputStream();
         var separator = separatorFor(locale);
         try (var writer = new CSVWriter(
@@ -1,7 +1,9 @@
 package org.vaadin.tatu.vaadincreate.purchases;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
@@ -19,15 +21,18 @@ import org.vaadin.tatu.vaadincreate.util.Utils;
 
 import com.vaadin.data.provider.CallbackDataProvider;
 import com.vaadin.data.provider.DataProvider;
+import com.vaadin.server.SerializableConsumer;
 import com.vaadin.server.SerializableFunction;
 import com.vaadin.shared.Registration;
 import com.vaadin.shared.ui.grid.ScrollDestination;
 import com.vaadin.ui.Component;
 import com.vaadin.ui.Composite;
 import com.vaadin.ui.Grid;
+import com.vaadin.ui.Label;
 import com.vaadin.ui.Notification;
 import com.vaadin.ui.Notification.Type;
 import com.vaadin.ui.UI;
+import com.vaadin.ui.themes.ValoTheme;
 
 /**
  * Grid component for displaying purchase history. Supports pagination via
@@ -58,6 +63,8 @@ public class PurchaseHistoryGrid extends Composite implements HasI18N {
     private UI ui;
     @Nullable
     private Registration resizeRegistration;
+    // Archived purchases have their lines, they are not in the database
+    private boolean archived;
 
     /**
      * Creates a new PurchaseHistoryGrid.
@@ -130,8 +137,11 @@ public class PurchaseHistoryGrid extends Composite implements HasI18N {
                 .setCaption(getTranslation(I18n.REQUESTER)).setSortable(false)
                 .setId(REQUESTER);
 
-        grid.addColumn(purchase -> purchase.getApprover().getName())
-                .setCaption(getTranslation(I18n.Storefront.APPROVER))
+        grid.addColumn(purchase -> {
+            // Archived purchases may have no approver
+            var approver = purchase.getApprover();
+            return approver != null ? approver.getName() : "";
+        }).setCaption(getTranslation(I18n.Storefront.APPROVER))
                 .setSortable(false).setId(APPROVER);
 
         grid.addColumn(
@@ -173,6 +183,28 @@ public class PurchaseHistoryGrid extends Composite implements HasI18N {
         grid.setDataProvider(dataProvider);
     }
 
+    /**
+     * Shows the given archived purchases instead of the purchases in the
+     * database. The archived purchases are not refreshed by the events.
+     *
+     * @param purchases
+     *            the archived purchases
+     */
+    public void showArchivedPurchases(List<Purchase> purchases) {
+        Objects.requireNonNull(purchases, "Purchases must not be null");
+        archived = true;
+        grid.setDataProvider(DataProvider.ofCollection(purchases));
+    }
+
+    /**
+     * Shows the purchases in the database again after
+     * {@link #showArchivedPurchases(List)}.
+     */
+    public void showLivePurchases() {
+        archived = false;
+        configureDataProvider();
+    }
+
     /**
      * Scrolls the grid to the given index from the bottom.
      *
@@ -206,8 +238,23 @@ public class PurchaseHistoryGrid extends Composite implements HasI18N {
     }
 
     private void configureDetailsGenerator(PurchaseHistoryMode mode) {
-        grid.setDetailsGenerator(
-                purchase -> new PurchaseDetails(purchase, mode));
+        // The grid rows are summaries, the lines are fetched for the details
+        grid.setDetailsGenerator(purchase -> createDetails(purchase, mode));
+    }
+
+    private Component createDetails(Purchase purchase,
+            PurchaseHistoryMode mode) {
+        if (archived) {
+            return new PurchaseDetails(purchase, mode);
+        }
+        var withLines = presenter.fetchPurchaseWithLines(purchase);
+        if (withLines == null) {
+            var label = new Label(
+                    getTranslation(I18n.Storefront.PURCHASE_NOT_FOUND));
+            label.addStyleName(ValoTheme.LABEL_FAILURE);
+            return label;
+        }
+        return new PurchaseDetails(withLines, mode);
     }
 
     /**
@@ -361,6 +408,38 @@ public class PurchaseHistoryGrid extends Composite implements HasI18N {
         };
     }
 
+    /**
+     * Enables selecting multiple purchases with check boxes.
+     *
+     * @param selectionListener
+     *            called with the selected purchases when the selection changes
+     */
+    public void setMultiSelect(
+            SerializableConsumer<Set<Purchase>> selectionListener) {
+        Objects.requireNonNull(selectionListener,
+                "Selection listener must not be null");
+        grid.setSelectionMode(Grid.SelectionMode.MULTI);
+        grid.addSelectionListener(
+                event -> selectionListener.accept(event.getAllSelectedItems()));
+    }
+
+    /**
+     * Gets the selected purchases.
+     *
+     * @return the selected purchases, empty if none or multi select is not
+     *         enabled
+     */
+    public Set<Purchase> getSelectedItems() {
+        return grid.getSelectedItems();
+    }
+
+    /**
+     * Clears the selection.
+     */
+    public void deselectAll() {
+        grid.deselectAll();
+    }
+
     /**
      * Adds an action column to the end of the grid. The provided function
      * produces a component (e.g. buttons) for each row.
@@ -4,18 +4,25 @@ import java.io.Serializable;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.Instant;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.vaadin.tatu.vaadincreate.TaskScheduler;
+import org.vaadin.tatu.vaadincreate.TaskScheduler.Priority;
 import org.vaadin.tatu.vaadincreate.VaadinCreateUI;
 import org.vaadin.tatu.vaadincreate.auth.AccessControl;
+import org.vaadin.tatu.vaadincreate.backend.CancellationScope;
 import org.vaadin.tatu.vaadincreate.backend.PurchaseHistoryMode;
 import org.vaadin.tatu.vaadincreate.backend.PurchaseService;
 import org.vaadin.tatu.vaadincreate.backend.PurchaseService.PurchaseExportRow;
@@ -25,14 +32,15 @@ import org.vaadin.tatu.vaadincreate.backend.data.User.Role;
 import org.vaadin.tatu.vaadincreate.backend.events.AbstractEvent;
 import org.vaadin.tatu.vaadincreate.backend.events.PurchaseSavedEvent;
 import org.vaadin.tatu.vaadincreate.backend.events.PurchaseStatusChangedEvent;
+import org.vaadin.tatu.vaadincreate.backend.events.PurchaseStatusesChangedEvent;
 import org.vaadin.tatu.vaadincreate.eventbus.EventBus;
 import org.vaadin.tatu.vaadincreate.eventbus.EventBus.EventBusListener;
 import org.vaadin.tatu.vaadincreate.util.Utils;
 
 /**
  * Presenter for fetching purchase history data. Subscribes to
- * {@link PurchaseStatusChangedEvent} and {@link PurchaseSavedEvent} to provide
- * live grid updates.
+ * {@link PurchaseStatusChangedEvent}, {@link PurchaseStatusesChangedEvent}
+ * and {@link PurchaseSavedEvent} to provide live grid updates.
  */
 @NullMarked
 @SuppressWarnings("serial")
@@ -44,6 +52,9 @@ public class PurchaseHistoryPresenter
     private static final Logger logger = LoggerFactory
             .getLogger(PurchaseHistoryPresenter.class);
 
+    // Shared by all UIs so that the purges run one at a time
+    private static final AtomicBoolean purgeRunning = new AtomicBoolean();
+
     @Nullable
     private transient PurchaseService purchaseService;
 
@@ -53,7 +64,9 @@ public class PurchaseHistoryPresenter
     @Nullable
     private User currentUser;
     @Nullable
-    private transient ExecutorService executor;
+    private transient Executor executor;
+    @Nullable
+    private transient CancellationScope purgeScope;
 
     @FunctionalInterface
     public interface ExportSuccessCallback extends Serializable {
@@ -65,6 +78,31 @@ public class PurchaseHistoryPresenter
         void onFailure(Throwable throwable);
     }
 
+    @FunctionalInterface
+    public interface ArchiveLoadSuccessCallback extends Serializable {
+        void onSuccess(List<Purchase> purchases);
+    }
+
+    @FunctionalInterface
+    public interface ArchiveLoadFailureCallback extends Serializable {
+        void onFailure(Throwable throwable);
+    }
+
+    @FunctionalInterface
+    public interface PurgeProgressCallback extends Serializable {
+        void onProgress(long purged, long total);
+    }
+
+    @FunctionalInterface
+    public interface PurgeSuccessCallback extends Serializable {
+        void onSuccess(long purged);
+    }
+
+    @FunctionalInterface
+    public interface PurgeFailureCallback extends Serializable {
+        void onFailure(Throwable throwable);
+    }
+
     /**
      * Fetches purchases for the given mode and user.
      *
@@ -86,6 +124,27 @@ public class PurchaseHistoryPresenter
                 currentUser);
     }
 
+    /**
+     * Fetches the purchase with its lines for showing the details of a grid
+     * row, as the rows are fetched without the lines.
+     *
+     * @param purchase
+     *            the purchase of the grid row
+     * @return the purchase with its lines, or null if it has been deleted
+     *         since the row was fetched, e.g. purged
+     */
+    @Nullable
+    public Purchase fetchPurchaseWithLines(Purchase purchase) {
+        Objects.requireNonNull(purchase, "Purchase must not be null");
+        var purchaseId = Objects.requireNonNull(purchase.getId(),
+                "Purchase id must not be null");
+        var withLines = getPurchaseService().fetchPurchaseById(purchaseId);
+        if (withLines == null) {
+            logger.warn("Purchase {} not found for details", purchaseId);
+        }
+        return withLines;
+    }
+
     public LocalDate getEarliestPurchaseDate(PurchaseHistoryMode mode,
             User currentUser) {
         var purchases = fetchPurchases(mode, 0, 1, currentUser);
@@ -122,23 +181,101 @@ public class PurchaseHistoryPresenter
     }
 
     /**
-     * Purges all purchases older than the given cutoff. Asserts that the
-     * current user has {@code ADMIN} role as a defense-in-depth check.
+     * Starts purging all purchases older than the given cutoff in the
+     * background. The purchases are deleted in chunks, and the progress is
+     * reported after each chunk. The purge runs as a bulk task of the
+     * {@link TaskScheduler}, so that it does not block the background loads of
+     * the UIs, and one purge at a time on the node, see
+     * {@link #isPurgeRunning()}. Asserts that the current user has
+     * {@code ADMIN} role as a defense-in-depth check.
+     * <p>
+     * If the purge is cancelled with {@link #cancelPurge()}, the chunks deleted
+     * so far stay deleted, and the purge can be resumed by starting it again.
      *
      * @param cutoff
      *            the exclusive upper bound; must not be null
-     * @return number of purchases deleted
+     * @param progress
+     *            progress callback, called from the background thread
+     * @param success
+     *            success callback with the number of purchases deleted
+     * @param failure
+     *            failure callback, not called if the purge was cancelled,
+     *            called with {@link IllegalStateException} if another purge
+     *            is running
+     * @return future representing the purge task
      * @throws IllegalStateException
      *             if the current user does not have the ADMIN role
      */
-    public long purgePurchases(Instant cutoff) {
+    public CompletableFuture<Void> startPurge(Instant cutoff,
+            PurgeProgressCallback progress, PurgeSuccessCallback success,
+            PurgeFailureCallback failure) {
         Objects.requireNonNull(cutoff, "Cutoff must not be null");
+        Objects.requireNonNull(progress, "Progress callback must not be null");
+        Objects.requireNonNull(success, "Success callback must not be null");
+        Objects.requireNonNull(failure, "Failure callback must not be null");
         AccessControl.get().assertAdmin();
-        logger.info("Admin initiating purge of purchases older than {}",
-                cutoff);
-        long purged = getPurchaseService().purgePurchasesOlderThan(cutoff);
-        logger.info("Purged {} purchases older than {}", purged, cutoff);
-        return purged;
+        var current = Utils.getCurrentUserOrThrow();
+        logger.info("Admin '{}' initiating purge of purchases older than {}",
+                current.getName(), cutoff);
+        if (!purgeRunning.compareAndSet(false, true)) {
+            logger.warn("Purge not started, another purge is running");
+            failure.onFailure(
+                    new IllegalStateException("Another purge is running"));
+            return CompletableFuture.completedFuture(null);
+        }
+        var service = getPurchaseService();
+        var scope = new CancellationScope();
+        purgeScope = scope;
+        var started = System.currentTimeMillis();
+        CompletableFuture<Long> purge;
+        try {
+            purge = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return scope.call(() -> service.purgePurchasesOlderThan(
+                            cutoff, progress::onProgress));
+                } finally {
+                    purgeRunning.set(false);
+                }
+            }, getExecutor());
+        } catch (RejectedExecutionException e) {
+            purgeRunning.set(false);
+            purge = CompletableFuture.failedFuture(e);
+        }
+        return purge.thenAccept(purged -> {
+            logger.info("Purged {} purchases older than {}, durationMs: {}",
+                    purged, cutoff, System.currentTimeMillis() - started);
+            success.onSuccess(purged);
+        }).exceptionally(throwable -> {
+            if (Utils.throwableHasCause(throwable,
+                    CancellationException.class)) {
+                logger.info("Purge of purchases older than {} cancelled",
+                        cutoff);
+            } else {
+                logger.error("Purge of purchases older than {} failed", cutoff,
+                        throwable);
+                failure.onFailure(throwable);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Checks whether a purge is running on this node, started from any UI.
+     *
+     * @return true if a purge is running
+     */
+    public static boolean isPurgeRunning() {
+        return purgeRunning.get();
+    }
+
+    /**
+     * Cancels the running purge. The purchases deleted so far stay deleted.
+     */
+    public void cancelPurge() {
+        if (purgeScope != null) {
+            purgeScope.cancel();
+            purgeScope = null;
+        }
     }
 
     /**
@@ -206,6 +343,96 @@ public class PurchaseHistoryPresenter
                 });
     }
 
+    /**
+     * Gets the months of the purchase archive, i.e. the months of which
+     * purchases have been archived when purged.
+     *
+     * @return the archived months, newest first
+     */
+    public List<YearMonth> getArchivedMonths() {
+        return getPurchaseService().getArchivedMonths();
+    }
+
+    /**
+     * Starts asynchronous loading of the archived purchases of the month, as
+     * the whole month is read and decompressed from the archive, and delegates
+     * completion via callbacks. Asserts that the current user has
+     * {@code ADMIN} role as a defense-in-depth check.
+     *
+     * @param month
+     *            the archived month
+     * @param success
+     *            success callback, called with the purchases newest first
+     * @param failure
+     *            failure callback
+     * @return future representing the load task
+     */
+    public CompletableFuture<Void> startArchiveLoad(YearMonth month,
+            ArchiveLoadSuccessCallback success,
+            ArchiveLoadFailureCallback failure) {
+        Objects.requireNonNull(month, "Month must not be null");
+        Objects.requireNonNull(success, "Success callback must not be null");
+        Objects.requireNonNull(failure, "Failure callback must not be null");
+        AccessControl.get().assertAdmin();
+
+        var started = System.currentTimeMillis();
+        return CompletableFuture
+                .supplyAsync(() -> getPurchaseService()
+                        .fetchArchivedPurchases(month), getExecutor())
+                .thenAccept(purchases -> {
+                    logger.info(
+                            "Loaded {} archived purchases of {}, durationMs: {}",
+                            purchases.size(), month,
+                            System.currentTimeMillis() - started);
+                    success.onSuccess(purchases);
+                }).exceptionally(throwable -> {
+                    logger.error("Loading archived purchases of {} failed",
+                            month, throwable);
+                    failure.onFailure(throwable);
+                    return null;
+                });
+    }
+
+    /**
+     * Starts asynchronous CSV export row retrieval from the purchase archive
+     * and delegates completion via callbacks.
+     *
+     * @param month
+     *            the archived month
+     * @param success
+     *            success callback
+     * @param failure
+     *            failure callback
+     * @return future representing export task
+     */
+    public CompletableFuture<Void> startArchiveExport(YearMonth month,
+            ExportSuccessCallback success, ExportFailureCallback failure) {
+        Objects.requireNonNull(month, "Month must not be null");
+        Objects.requireNonNull(success, "Success callback must not be null");
+        Objects.requireNonNull(failure, "Failure callback must not be null");
+        AccessControl.get().assertAdmin();
+        var current = Utils.getCurrentUserOrThrow();
+
+        logger.info("Archive export started by '{}' for month {}",
+                current.getName(), month);
+        var started = System.currentTimeMillis();
+        return CompletableFuture
+                .supplyAsync(() -> getPurchaseService()
+                        .fetchArchivedExportRows(month), getExecutor())
+                .thenAccept(rows -> {
+                    logger.info(
+                            "Archive export completed by '{}' for month {}, rows: {}, durationMs: {}",
+                            current.getName(), month, rows.size(),
+                            System.currentTimeMillis() - started);
+                    success.onSuccess(rows);
+                }).exceptionally(throwable -> {
+                    logger.error("Archive export failed for month {}", month,
+                            throwable);
+                    failure.onFailure(throwable);
+                    return null;
+                });
+    }
+
     private void validateExportRange(LocalDate fromDate, LocalDate toDate) {
         if (toDate.isBefore(fromDate)) {
             throw new IllegalArgumentException("To date cannot be before from");
@@ -247,6 +474,8 @@ public class PurchaseHistoryPresenter
         case PurchaseStatusChangedEvent(Integer purchaseId) ->
             handleStatusChanged(
                     purchaseId);
+        case PurchaseStatusesChangedEvent(List<Integer> purchaseIds) ->
+            handleStatusesChanged(purchaseIds);
         case PurchaseSavedEvent(Integer purchaseId) -> handlePurchaseSaved(
                 purchaseId);
         default -> {
@@ -272,6 +501,26 @@ public class PurchaseHistoryPresenter
         grid.refreshItemAsync(purchase);
     }
 
+    private void handleStatusesChanged(List<Integer> purchaseIds) {
+        assert grid != null : "Grid reference is null";
+        assert currentUser != null : "Current user reference is null";
+
+        // One query for the whole batch instead of one per purchase
+        var purchases = getPurchaseService().fetchPurchasesByIds(purchaseIds)
+                .stream()
+                .filter(purchase -> currentUser.equals(purchase.getRequester()))
+                .toList();
+        if (purchases.isEmpty()) {
+            return;
+        }
+
+        logger.info(
+                "PurchaseStatusesChangedEvent received for {} purchases, refreshing grid",
+                purchases.size());
+        purchases.forEach(grid::showStatusNotificationAsync);
+        grid.refreshAsync();
+    }
+
     private void handlePurchaseSaved(Integer purchaseId) {
         assert grid != null : "Grid reference is null";
         assert currentUser != null : "Current user reference is null";
@@ -300,9 +549,10 @@ public class PurchaseHistoryPresenter
         return EventBus.get();
     }
 
-    private ExecutorService getExecutor() {
+    private Executor getExecutor() {
         if (executor == null) {
-            executor = VaadinCreateUI.get().getExecutor();
+            // Exports are long running, so they must not block loading views
+            executor = VaadinCreateUI.get().getExecutor(Priority.BULK);
         }
         return executor;
     }
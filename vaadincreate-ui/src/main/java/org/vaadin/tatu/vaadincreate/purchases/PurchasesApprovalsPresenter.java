@@ -1,35 +1,55 @@
 package org.vaadin.tatu.vaadincreate.purchases;
 
 import java.io.Serializable;
+import java.util.List;
 import java.util.Objects;
-
-import javax.persistence.OptimisticLockException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.vaadin.tatu.vaadincreate.TaskScheduler.Priority;
+import org.vaadin.tatu.vaadincreate.VaadinCreateUI;
 import org.vaadin.tatu.vaadincreate.backend.PurchaseService;
+import org.vaadin.tatu.vaadincreate.backend.PurchaseService.DecisionResult;
 import org.vaadin.tatu.vaadincreate.backend.data.Purchase;
 import org.vaadin.tatu.vaadincreate.backend.data.PurchaseStatus;
 import org.vaadin.tatu.vaadincreate.backend.data.User;
 import org.vaadin.tatu.vaadincreate.backend.events.PurchaseStatusChangedEvent;
+import org.vaadin.tatu.vaadincreate.backend.events.PurchaseStatusesChangedEvent;
 import org.vaadin.tatu.vaadincreate.eventbus.EventBus;
-import org.vaadin.tatu.vaadincreate.util.Utils;
 
 /**
- * Presenter for the approvals tab. Handles approve and reject operations,
- * including a single retry on optimistic lock conflicts.
+ * Presenter for the approvals tab. Handles approve and reject operations.
  */
 @NullMarked
 @SuppressWarnings("serial")
 public class PurchasesApprovalsPresenter implements Serializable {
 
+    private static final Logger logger = LoggerFactory
+            .getLogger(PurchasesApprovalsPresenter.class);
+
     @Nullable
     private transient PurchaseService purchaseService;
+    @Nullable
+    private transient Executor executor;
+
+    @FunctionalInterface
+    public interface BulkDecisionSuccessCallback extends Serializable {
+        void onSuccess(List<DecisionResult> results);
+    }
+
+    @FunctionalInterface
+    public interface BulkDecisionFailureCallback extends Serializable {
+        void onFailure(Throwable throwable);
+    }
 
     /**
-     * Approves the given purchase, retrying once on optimistic lock conflict.
+     * Approves the given purchase. The stock is reserved with conditional
+     * updates in the backend, so concurrent approvals of the same products do
+     * not conflict.
      *
      * @param purchaseId
      *            the purchase to approve
@@ -38,37 +58,21 @@ public class PurchasesApprovalsPresenter implements Serializable {
      * @param decisionCommentOrNull
      *            optional comment
      * @return result of the approve operation
-     * @throws OptimisticLockException
-     *             if two consecutive attempts both encounter a conflict
+     * @throws IllegalArgumentException
+     *             if the purchase is not pending or the user is not its
+     *             approver
      */
     public ApproveResult approve(Integer purchaseId, User currentUser,
             @Nullable String decisionCommentOrNull) {
         Objects.requireNonNull(purchaseId, "Purchase ID must not be null");
         Objects.requireNonNull(currentUser, "Current user must not be null");
-        try {
-            var purchase = getPurchaseService().approve(purchaseId, currentUser,
-                    decisionCommentOrNull);
-            postStatusChangedEvent(purchaseId);
-            if (purchase.getStatus() == PurchaseStatus.CANCELLED) {
-                return ApproveResult.cancelled(purchase);
-            }
-            return ApproveResult.completed(purchase);
-        } catch (Exception e) {
-            if (Utils.throwableHasCause(e, OptimisticLockException.class)) {
-                logger.warn(
-                        "OptimisticLockException on first approve attempt for purchase ({}), retrying",
-                        purchaseId);
-                // Retry once.
-                var purchase = getPurchaseService().approve(purchaseId,
-                        currentUser, decisionCommentOrNull);
-                postStatusChangedEvent(purchaseId);
-                if (purchase.getStatus() == PurchaseStatus.CANCELLED) {
-                    return ApproveResult.cancelled(purchase);
-                }
-                return ApproveResult.completed(purchase);
-            }
-            throw e;
+        var purchase = getPurchaseService().approve(purchaseId, currentUser,
+                decisionCommentOrNull);
+        postStatusChangedEvent(purchaseId);
+        if (purchase.getStatus() == PurchaseStatus.CANCELLED) {
+            return ApproveResult.cancelled(purchase);
         }
+        return ApproveResult.completed(purchase);
     }
 
     /**
@@ -93,6 +97,109 @@ public class PurchasesApprovalsPresenter implements Serializable {
         return purchase;
     }
 
+    /**
+     * Approves the given purchases in bulk and publishes one status change
+     * event for the decided purchases.
+     *
+     * @param purchaseIds
+     *            the purchases to approve
+     * @param currentUser
+     *            the approver
+     * @param decisionCommentOrNull
+     *            optional comment
+     * @return result per purchase
+     */
+    public List<DecisionResult> approveAll(List<Integer> purchaseIds,
+            User currentUser, @Nullable String decisionCommentOrNull) {
+        Objects.requireNonNull(purchaseIds, "Purchase IDs must not be null");
+        Objects.requireNonNull(currentUser, "Current user must not be null");
+        var results = getPurchaseService().approveAll(purchaseIds, currentUser,
+                decisionCommentOrNull);
+        postStatusesChangedEvent(results);
+        return results;
+    }
+
+    /**
+     * Rejects the given purchases in bulk and publishes one status change
+     * event for the decided purchases.
+     *
+     * @param purchaseIds
+     *            the purchases to reject
+     * @param currentUser
+     *            the user performing the rejection
+     * @param reason
+     *            non-empty reason for rejection
+     * @return result per purchase
+     */
+    public List<DecisionResult> rejectAll(List<Integer> purchaseIds,
+            User currentUser, String reason) {
+        Objects.requireNonNull(purchaseIds, "Purchase IDs must not be null");
+        Objects.requireNonNull(currentUser, "Current user must not be null");
+        Objects.requireNonNull(reason, "Reason must not be null");
+        var results = getPurchaseService().rejectAll(purchaseIds, currentUser,
+                reason);
+        postStatusesChangedEvent(results);
+        return results;
+    }
+
+    /**
+     * Starts approving or rejecting the given purchases in bulk in the
+     * background and delegates completion via callbacks.
+     *
+     * @param purchaseIds
+     *            the purchases to decide
+     * @param isApprove
+     *            {@code true} to approve, {@code false} to reject
+     * @param currentUser
+     *            the approver
+     * @param decisionCommentOrNull
+     *            optional comment, required when rejecting
+     * @param success
+     *            success callback
+     * @param failure
+     *            failure callback
+     * @return future representing the bulk decision task
+     */
+    public CompletableFuture<Void> startBulkDecision(List<Integer> purchaseIds,
+            boolean isApprove, User currentUser,
+            @Nullable String decisionCommentOrNull,
+            BulkDecisionSuccessCallback success,
+            BulkDecisionFailureCallback failure) {
+        Objects.requireNonNull(success, "Success callback must not be null");
+        Objects.requireNonNull(failure, "Failure callback must not be null");
+        if (!isApprove) {
+            Objects.requireNonNull(decisionCommentOrNull,
+                    "Reason must not be null");
+        }
+        var purchaseIdsCopy = List.copyOf(purchaseIds);
+        var started = System.currentTimeMillis();
+        return CompletableFuture.supplyAsync(() -> isApprove
+                ? approveAll(purchaseIdsCopy, currentUser,
+                        decisionCommentOrNull)
+                : rejectAll(purchaseIdsCopy, currentUser,
+                        Objects.requireNonNull(decisionCommentOrNull)),
+                getExecutor()).thenAccept(results -> {
+                    logger.info(
+                            "Bulk decision by '{}' completed for {} purchases, durationMs: {}",
+                            currentUser.getName(), results.size(),
+                            System.currentTimeMillis() - started);
+                    success.onSuccess(results);
+                }).exceptionally(throwable -> {
+                    logger.error("Bulk decision failed for purchases {}",
+                            purchaseIdsCopy, throwable);
+                    failure.onFailure(throwable);
+                    return null;
+                });
+    }
+
+    private void postStatusesChangedEvent(List<DecisionResult> results) {
+        var decided = results.stream().filter(DecisionResult::isDecided)
+                .map(DecisionResult::purchaseId).toList();
+        if (!decided.isEmpty()) {
+            getEventBus().post(new PurchaseStatusesChangedEvent(decided));
+        }
+    }
+
     private void postStatusChangedEvent(Integer purchaseId) {
         getEventBus().post(new PurchaseStatusChangedEvent(purchaseId));
     }
@@ -108,6 +215,15 @@ public class PurchasesApprovalsPresenter implements Serializable {
         return EventBus.get();
     }
 
+    private Executor getExecutor() {
+        if (executor == null) {
+            // Bulk decisions are long running, so they must not block loading
+            // views
+            executor = VaadinCreateUI.get().getExecutor(Priority.BULK);
+        }
+        return executor;
+    }
+
     /**
      * Result of an approve operation, carrying outcome and optional details.
      */
@@ -167,8 +283,4 @@ public class PurchasesApprovalsPresenter implements Serializable {
         record Cancelled(Purchase purchase) implements ApproveResult {
         }
     }
-
-    @SuppressWarnings("null")
-    private static final Logger logger = LoggerFactory
-            .getLogger(PurchasesApprovalsPresenter.class);
 }
@@ -1,6 +1,9 @@
 package org.vaadin.tatu.vaadincreate.purchases;
 
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import javax.persistence.OptimisticLockException;
 
@@ -8,10 +11,14 @@ import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
 import org.vaadin.tatu.vaadincreate.VaadinCreateTheme;
 import org.vaadin.tatu.vaadincreate.backend.PurchaseHistoryMode;
+import org.vaadin.tatu.vaadincreate.backend.PurchaseService.DecisionResult;
 import org.vaadin.tatu.vaadincreate.backend.data.Purchase;
 import org.vaadin.tatu.vaadincreate.backend.data.PurchaseStatus;
 import org.vaadin.tatu.vaadincreate.backend.data.User;
 import org.vaadin.tatu.vaadincreate.common.TabView;
+import org.vaadin.tatu.vaadincreate.components.AttributeExtension;
+import org.vaadin.tatu.vaadincreate.components.AttributeExtension.AriaAttributes;
+import org.vaadin.tatu.vaadincreate.components.AttributeExtension.AriaRoles;
 import org.vaadin.tatu.vaadincreate.i18n.I18n;
 import org.vaadin.tatu.vaadincreate.observability.Telemetry;
 import org.vaadin.tatu.vaadincreate.purchases.PurchasesApprovalsPresenter.ApproveResult;
@@ -24,12 +31,14 @@ import com.vaadin.ui.CssLayout;
 import com.vaadin.ui.HorizontalLayout;
 import com.vaadin.ui.Notification;
 import com.vaadin.ui.Notification.Type;
+import com.vaadin.ui.UI;
 import com.vaadin.ui.VerticalLayout;
 import com.vaadin.ui.themes.ValoTheme;
 
 /**
  * Approvals tab for PurchasesView. Displays pending purchases assigned to the
- * current user with approve and reject action buttons.
+ * current user with approve and reject action buttons. Several purchases can
+ * be selected and decided at once from the toolbar.
  */
 @NullMarked
 @SuppressWarnings({ "serial", "java:S2160", "java:S110" })
@@ -40,6 +49,12 @@ public class PurchasesApprovalsView extends VerticalLayout
 
     private final PurchaseHistoryGrid approvalsGrid;
     private final PurchasesApprovalsPresenter presenter;
+    private final Button approveSelectedButton;
+    private final Button rejectSelectedButton;
+    @Nullable
+    private UI ui;
+    @Nullable
+    private transient CompletableFuture<Void> runningBulkDecision;
 
     public PurchasesApprovalsView() {
         setSizeFull();
@@ -49,10 +64,112 @@ public class PurchasesApprovalsView extends VerticalLayout
                 PurchaseHistoryMode.PENDING_APPROVALS,
                 Utils.getCurrentUserOrThrow());
         approvalsGrid.setActionColumn(this::createActionButtons);
+        approvalsGrid.setMultiSelect(this::selectionChanged);
+        approveSelectedButton = buildBulkButton(true);
+        rejectSelectedButton = buildBulkButton(false);
+        addComponent(buildToolbar());
         addComponent(approvalsGrid);
         setExpandRatio(approvalsGrid, 1);
     }
 
+    private CssLayout buildToolbar() {
+        var toolbar = new CssLayout(approveSelectedButton,
+                rejectSelectedButton);
+        toolbar.addStyleName(VaadinCreateTheme.PURCHASEHISTORYVIEW_TOOLBAR);
+        toolbar.setWidth("100%");
+        AttributeExtension.of(toolbar).setAttribute(AriaAttributes.ROLE,
+                AriaRoles.TOOLBAR);
+        return toolbar;
+    }
+
+    private Button buildBulkButton(boolean isApprove) {
+        var button = new Button(getTranslation(isApprove
+                ? I18n.Storefront.APPROVE_SELECTED
+                : I18n.Storefront.REJECT_SELECTED));
+        button.setId(isApprove ? "approve-selected-button"
+                : "reject-selected-button");
+        button.addStyleName(isApprove ? ValoTheme.BUTTON_PRIMARY
+                : ValoTheme.BUTTON_DANGER);
+        button.setIcon(isApprove ? VaadinIcons.CHECK : VaadinIcons.CLOSE);
+        button.setEnabled(false);
+        button.setDisableOnClick(true);
+        button.addClickListener(
+                clickEvent -> openBulkDecisionDialog(isApprove));
+        return button;
+    }
+
+    private void selectionChanged(Set<Purchase> selected) {
+        // Kept disabled until the running bulk decision completes
+        var pending = runningBulkDecision == null
+                && selected.stream().anyMatch(this::isPending);
+        approveSelectedButton.setEnabled(pending);
+        rejectSelectedButton.setEnabled(pending);
+    }
+
+    private boolean isPending(Purchase purchase) {
+        return purchase.getStatus() == PurchaseStatus.PENDING;
+    }
+
+    private void openBulkDecisionDialog(boolean isApprove) {
+        var purchaseIds = approvalsGrid.getSelectedItems().stream()
+                .filter(this::isPending)
+                .map(Purchase::getId).filter(Objects::nonNull).toList();
+        if (purchaseIds.isEmpty()) {
+            return;
+        }
+        var dialog = new DecisionDialog(isApprove,
+                comment -> handleBulkDecision(purchaseIds, isApprove, comment));
+        dialog.addCloseListener(closeEvent -> {
+            selectionChanged(approvalsGrid.getSelectedItems());
+            approvalsGrid.focus();
+        });
+        dialog.open();
+    }
+
+    private void handleBulkDecision(List<Integer> purchaseIds,
+            boolean isApprove, @Nullable String comment) {
+        var button = isApprove ? approveSelectedButton : rejectSelectedButton;
+        button.setIcon(VaadinIcons.SPINNER);
+        approveSelectedButton.setEnabled(false);
+        rejectSelectedButton.setEnabled(false);
+        runningBulkDecision = presenter.startBulkDecision(purchaseIds,
+                isApprove, Utils.getCurrentUserOrThrow(), comment,
+                results -> Utils.access(ui, () -> {
+                    showBulkDecisionResult(results);
+                    bulkDecisionDone();
+                }), throwable -> Utils.access(ui, () -> {
+                    Notification.show(
+                            getTranslation(
+                                    I18n.Storefront.BULK_DECISION_FAILED),
+                            Type.ERROR_MESSAGE);
+                    bulkDecisionDone();
+                }));
+    }
+
+    private void showBulkDecisionResult(List<DecisionResult> results) {
+        var decided = results.stream()
+                .filter(result -> result.isDecided()
+                        && result.status() != PurchaseStatus.CANCELLED)
+                .count();
+        var cancelled = results.stream()
+                .filter(result -> result.status() == PurchaseStatus.CANCELLED)
+                .count();
+        var failed = results.size() - decided - cancelled;
+        Notification.show(
+                getTranslation(I18n.Storefront.BULK_DECISION_RESULT, decided,
+                        cancelled, failed),
+                failed > 0 || cancelled > 0 ? Type.WARNING_MESSAGE
+                        : Type.HUMANIZED_MESSAGE);
+    }
+
+    private void bulkDecisionDone() {
+        runningBulkDecision = null;
+        approveSelectedButton.setIcon(VaadinIcons.CHECK);
+        rejectSelectedButton.setIcon(VaadinIcons.CLOSE);
+        approvalsGrid.deselectAll();
+        approvalsGrid.refresh();
+    }
+
     private Component createActionButtons(Purchase purchase) {
         if (purchase.getStatus() != PurchaseStatus.PENDING) {
             return new HorizontalLayout();
@@ -163,6 +280,23 @@ public class PurchasesApprovalsView extends VerticalLayout
         approvalsGrid.refresh();
     }
 
+    @Override
+    public void attach() {
+        super.attach();
+        ui = getUI();
+    }
+
+    @Override
+    public void detach() {
+        super.detach();
+        if (runningBulkDecision != null) {
+            // The decisions already made in the backend are not rolled back
+            runningBulkDecision.cancel(false);
+            runningBulkDecision = null;
+        }
+        ui = null;
+    }
+
     @Override
     public void enter(ViewChangeEvent event) {
         openingView(event);
@@ -2,6 +2,7 @@ package org.vaadin.tatu.vaadincreate.purchases;
 
 import java.time.Instant;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
@@ -27,10 +28,12 @@ import com.vaadin.data.StatusChangeEvent;
 import com.vaadin.icons.VaadinIcons;
 import com.vaadin.server.UserError;
 import com.vaadin.ui.Button;
+import com.vaadin.ui.ComboBox;
 import com.vaadin.ui.CssLayout;
 import com.vaadin.ui.DateField;
 import com.vaadin.ui.Notification;
 import com.vaadin.ui.Notification.Type;
+import com.vaadin.ui.ProgressBar;
 import com.vaadin.ui.UI;
 import com.vaadin.ui.VerticalLayout;
 import com.vaadin.ui.themes.ValoTheme;
@@ -38,7 +41,9 @@ import com.vaadin.ui.themes.ValoTheme;
 /**
  * History tab for PurchasesView. Displays all purchases for admin users and
  * provides a GDPR-inspired purge action for purchases older than
- * {@value #RETENTION_MONTHS} months.
+ * {@value #RETENTION_MONTHS} months. The purge runs in the background and
+ * shows its progress. When the purge archives the purchases, the archived
+ * months can be browsed and exported from the archive.
  */
 @NullMarked
 @SuppressWarnings({ "serial", "java:S2160", "java:S110" })
@@ -47,9 +52,11 @@ public class PurchasesHistoryView extends VerticalLayout
 
     /** Id of the Purge button, used by tests to locate it. */
     public static final String PURGE_BUTTON_ID = "purge-button";
+    public static final String PURGE_PROGRESS_ID = "purge-progress";
     public static final String FROM_DATE_ID = "export-from-date";
     public static final String TO_DATE_ID = "export-to-date";
     public static final String EXPORT_BUTTON_ID = "export-button";
+    public static final String ARCHIVE_MONTH_ID = "archive-month";
 
     /** Retention period in months (matching the PRD requirement). */
     static final int RETENTION_MONTHS = 24;
@@ -61,7 +68,9 @@ public class PurchasesHistoryView extends VerticalLayout
     private final DateField fromDate;
     private final DateField toDate;
     private final Button exportButton;
+    private final ComboBox<YearMonth> archiveMonth;
     private final Button purgeButton;
+    private final ProgressBar purgeProgress;
     private final PurchaseHistoryCsvExporter csvExporter;
     private final Binder<ExportRange> exportRangeBinder;
     private final ExportRange exportRange;
@@ -69,6 +78,10 @@ public class PurchasesHistoryView extends VerticalLayout
     private UI ui;
     @Nullable
     private transient CompletableFuture<Void> runningExport;
+    @Nullable
+    private transient CompletableFuture<Void> runningPurge;
+    @Nullable
+    private transient CompletableFuture<Void> runningArchiveLoad;
     private long purgeCount;
 
     public PurchasesHistoryView() {
@@ -91,7 +104,9 @@ public class PurchasesHistoryView extends VerticalLayout
                 newestPurchaseDate);
         exportButton = buildExportButton();
         bindExportRange();
+        archiveMonth = buildArchiveMonth();
         purgeButton = buildPurgeButton();
+        purgeProgress = buildPurgeProgress();
 
         var toolbar = buildToolbar();
 
@@ -101,12 +116,12 @@ public class PurchasesHistoryView extends VerticalLayout
     }
 
     private CssLayout buildToolbar() {
-        var purgeWrapper = new CssLayout(purgeButton);
+        var purgeWrapper = new CssLayout(purgeProgress, purgeButton);
         purgeWrapper.addStyleName(VaadinCreateTheme.HAS_TOOLTIP);
         var fromWrapper = new CssLayout(fromDate);
         var toWrapper = new CssLayout(toDate);
-        var toolbar = new CssLayout(fromWrapper, toWrapper, exportButton,
-                purgeWrapper);
+        var toolbar = new CssLayout(archiveMonth, fromWrapper, toWrapper,
+                exportButton, purgeWrapper);
         toolbar.addStyleName(VaadinCreateTheme.PURCHASEHISTORYVIEW_TOOLBAR);
         toolbar.setWidth("100%");
         AttributeExtension.of(toolbar).setAttribute(AriaAttributes.ROLE,
@@ -139,6 +154,12 @@ public class PurchasesHistoryView extends VerticalLayout
             runningExport.cancel(false);
             runningExport = null;
         }
+        if (runningPurge != null) {
+            // The purge resumes from where it stopped when started again
+            presenter.cancelPurge();
+            runningPurge = null;
+        }
+        cancelArchiveLoad();
         ui = null;
     }
 
@@ -164,6 +185,74 @@ public class PurchasesHistoryView extends VerticalLayout
         }
     }
 
+    private ComboBox<YearMonth> buildArchiveMonth() {
+        var comboBox = new ComboBox<YearMonth>(
+                getTranslation(I18n.Purchases.ARCHIVE));
+        comboBox.setId(ARCHIVE_MONTH_ID);
+        comboBox.setItemCaptionGenerator(YearMonth::toString);
+        comboBox.setEmptySelectionAllowed(true);
+        comboBox.addValueChangeListener(
+                valueChange -> showArchivedMonth(valueChange.getValue()));
+        updateArchivedMonths(comboBox);
+        return comboBox;
+    }
+
+    private void updateArchivedMonths(ComboBox<YearMonth> comboBox) {
+        var months = presenter.getArchivedMonths();
+        comboBox.setItems(months);
+        comboBox.setVisible(!months.isEmpty());
+    }
+
+    private void showArchivedMonth(@Nullable YearMonth month) {
+        cancelArchiveLoad();
+        fromDate.setEnabled(month == null);
+        toDate.setEnabled(month == null);
+        if (month == null) {
+            historyGrid.showLivePurchases();
+            exportButton.setEnabled(
+                    exportRangeBinder.isValid() && runningExport == null);
+        } else {
+            // Empty until the month has been read from the archive
+            historyGrid.showArchivedPurchases(List.of());
+            exportButton.setEnabled(runningExport == null);
+            archiveMonth.setIcon(VaadinIcons.SPINNER);
+            runningArchiveLoad = presenter.startArchiveLoad(month,
+                    purchases -> Utils.access(ui, () -> {
+                        if (isLoading(month)) {
+                            archiveLoadDone();
+                            historyGrid.showArchivedPurchases(purchases);
+                        }
+                    }), throwable -> Utils.access(ui, () -> {
+                        if (isLoading(month)) {
+                            archiveLoadDone();
+                            Notification.show(getTranslation(
+                                    I18n.Purchases.ARCHIVE_LOAD_FAILED),
+                                    Type.ERROR_MESSAGE);
+                            archiveMonth.clear();
+                        }
+                    }));
+        }
+    }
+
+    // A cancelled load completes too, so its result is ignored if another
+    // month has been selected since
+    private boolean isLoading(YearMonth month) {
+        return runningArchiveLoad != null
+                && month.equals(archiveMonth.getValue());
+    }
+
+    private void archiveLoadDone() {
+        runningArchiveLoad = null;
+        archiveMonth.setIcon(null);
+    }
+
+    private void cancelArchiveLoad() {
+        if (runningArchiveLoad != null) {
+            runningArchiveLoad.cancel(false);
+            archiveLoadDone();
+        }
+    }
+
     @SuppressWarnings("java:S8688")
     private DateField buildDateField(String translationKey, String id,
             LocalDate rangeEnd) {
@@ -271,6 +360,11 @@ public class PurchasesHistoryView extends VerticalLayout
     }
 
     private void startExport() {
+        var month = archiveMonth.getValue();
+        if (month != null) {
+            startArchiveExport(month);
+            return;
+        }
         if (!exportRangeBinder.isValid()) {
             return;
         }
@@ -291,6 +385,21 @@ public class PurchasesHistoryView extends VerticalLayout
                 }));
     }
 
+    private void startArchiveExport(YearMonth month) {
+        exportButton.setIcon(VaadinIcons.SPINNER);
+        Notification.show(getTranslation(I18n.Purchases.EXPORT_STARTED),
+                Type.TRAY_NOTIFICATION);
+        runningExport = presenter.startArchiveExport(month,
+                rows -> Utils.access(ui, () -> onExportReady(month.atDay(1),
+                        month.atEndOfMonth(), rows)),
+                throwable -> Utils.access(ui, () -> {
+                    Notification.show(
+                            getTranslation(I18n.Purchases.EXPORT_FAILED),
+                            Type.ERROR_MESSAGE);
+                    resetExportButtonState();
+                }));
+    }
+
     private void onExportReady(LocalDate from, LocalDate to,
             List<PurchaseExportRow> rows) {
         var resource = csvExporter.createResource(from, to, rows, getLocale(),
@@ -303,7 +412,8 @@ public class PurchasesHistoryView extends VerticalLayout
     private void resetExportButtonState() {
         exportButton.setIcon(VaadinIcons.DOWNLOAD);
         runningExport = null;
-        exportButton.setEnabled(exportRangeBinder.isValid());
+        exportButton.setEnabled(archiveMonth.getValue() != null
+                || exportRangeBinder.isValid());
         historyGrid.focus();
     }
 
@@ -320,6 +430,13 @@ public class PurchasesHistoryView extends VerticalLayout
     }
 
     private void openPurgeConfirmDialog() {
+        if (PurchaseHistoryPresenter.isPurgeRunning()) {
+            Notification.show(
+                    getTranslation(I18n.Purchases.PURGE_ALREADY_RUNNING),
+                    Type.WARNING_MESSAGE);
+            purgeButton.setEnabled(true);
+            return;
+        }
         var dialog = new ConfirmDialog(
                 getTranslation(I18n.Purchases.PURGE_CONFIRM_CAPTION),
                 getTranslation(I18n.Purchases.PURGE_CONFIRM_MESSAGE,
@@ -332,12 +449,48 @@ public class PurchasesHistoryView extends VerticalLayout
         dialog.open();
     }
 
+    private ProgressBar buildPurgeProgress() {
+        var progressBar = new ProgressBar();
+        progressBar.setId(PURGE_PROGRESS_ID);
+        progressBar.setVisible(false);
+        return progressBar;
+    }
+
     private void executePurge() {
         Instant cutoff = retentionCutoff();
-        long purged = presenter.purgePurchases(cutoff);
-        Notification.show(getTranslation(I18n.Purchases.PURGE_SUCCESS, purged,
-                RETENTION_MONTHS), Type.HUMANIZED_MESSAGE);
+        purgeButton.setIcon(VaadinIcons.SPINNER);
+        purgeProgress.setValue(0f);
+        purgeProgress.setCaption(null);
+        purgeProgress.setVisible(true);
+        runningPurge = presenter.startPurge(cutoff,
+                (purged, total) -> Utils.access(ui,
+                        () -> onPurgeProgress(purged, total)),
+                purged -> Utils.access(ui, () -> {
+                    Notification.show(
+                            getTranslation(I18n.Purchases.PURGE_SUCCESS,
+                                    purged, RETENTION_MONTHS),
+                            Type.HUMANIZED_MESSAGE);
+                    onPurgeFinished();
+                }), throwable -> Utils.access(ui, () -> {
+                    Notification.show(
+                            getTranslation(I18n.Purchases.PURGE_FAILED),
+                            Type.ERROR_MESSAGE);
+                    onPurgeFinished();
+                }));
+    }
+
+    private void onPurgeProgress(long purged, long total) {
+        purgeProgress.setValue(total > 0 ? (float) purged / total : 1f);
+        purgeProgress.setCaption(getTranslation(
+                I18n.Purchases.PURGE_PROGRESS, purged, total));
+    }
+
+    private void onPurgeFinished() {
+        runningPurge = null;
+        purgeProgress.setVisible(false);
+        purgeButton.setIcon(VaadinIcons.TRASH);
         historyGrid.refresh();
+        updateArchivedMonths(archiveMonth);
         checkRetentionPolicy();
     }
 
@@ -1,15 +1,17 @@
 package org.vaadin.tatu.vaadincreate.purchases;
 
 import java.io.Serializable;
+import java.time.Duration;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
 
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.vaadin.tatu.vaadincreate.VaadinCreateUI;
+import org.vaadin.tatu.vaadincreate.backend.CancellationScope;
 import org.vaadin.tatu.vaadincreate.backend.PurchaseService;
 import org.vaadin.tatu.vaadincreate.backend.PurchaseService.MonthlyPurchaseStat;
 import org.vaadin.tatu.vaadincreate.backend.PurchaseService.ProductPurchaseStat;
@@ -21,7 +23,7 @@ import org.vaadin.tatu.vaadincreate.backend.PurchaseService.ProductPurchaseStat;
  * <p>
  * Follows the same pattern as {@code StatsPresenter}: data is loaded in a
  * background thread via a {@link CompletableFuture} using the shared
- * {@link ExecutorService}, and the UI is updated through
+ * {@link Executor} of the UI, and the UI is updated through
  * {@code Utils.access()}.
  */
 @NullMarked
@@ -37,16 +39,22 @@ public class PurchasesStatsPresenter implements Serializable {
     /** Number of calendar months shown in the monthly line chart. */
     static final int MONTHLY_RANGE = 12;
 
+    /** Timeout of a single statistics query. */
+    static final Duration QUERY_TIMEOUT = Duration.ofSeconds(30);
+
     private final PurchasesStatsView view;
 
     @Nullable
     private transient CompletableFuture<Void> future;
 
+    @Nullable
+    private transient CancellationScope cancellation;
+
     @Nullable
     private transient PurchaseService service;
 
     @Nullable
-    private transient ExecutorService executor;
+    private transient Executor executor;
 
     /**
      * Record carrying all three stat datasets required by the Stats tab.
@@ -79,11 +87,17 @@ public class PurchasesStatsPresenter implements Serializable {
      */
     public void requestUpdateStats() {
         logger.info("Fetching purchase statistics");
+        var scope = new CancellationScope(QUERY_TIMEOUT);
+        // Superseded by this load
+        if (cancellation != null) {
+            cancellation.cancel();
+        }
+        cancellation = scope;
         future = CompletableFuture
-                .supplyAsync(this::loadStats, getExecutor())
+                .supplyAsync(() -> scope.call(this::loadStats), getExecutor())
                 .thenAccept(view::updateStatsAsync)
                 .whenComplete((result, throwable) -> {
-                    if (throwable != null) {
+                    if (throwable != null && !scope.isCancelled()) {
                         logger.error("Failed to load purchase statistics",
                                 throwable);
                     }
@@ -92,9 +106,14 @@ public class PurchasesStatsPresenter implements Serializable {
     }
 
     /**
-     * Cancels any in-progress statistics load.
+     * Cancels any in-progress statistics load, including the running database
+     * queries.
      */
     public void cancelUpdateStats() {
+        if (cancellation != null) {
+            cancellation.cancel();
+            cancellation = null;
+        }
         if (future != null) {
             boolean cancelled = future.cancel(true);
             future = null;
@@ -117,7 +136,7 @@ public class PurchasesStatsPresenter implements Serializable {
         return service;
     }
 
-    private ExecutorService getExecutor() {
+    private Executor getExecutor() {
         if (executor == null) {
             executor = VaadinCreateUI.get().getExecutor();
         }
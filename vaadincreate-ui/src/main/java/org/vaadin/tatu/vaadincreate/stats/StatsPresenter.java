@@ -4,13 +4,14 @@ import java.io.Serializable;
 import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
 
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.vaadin.tatu.vaadincreate.VaadinCreateUI;
+import org.vaadin.tatu.vaadincreate.backend.CancellationScope;
 import org.vaadin.tatu.vaadincreate.backend.ProductDataService;
 import org.vaadin.tatu.vaadincreate.backend.data.Availability;
 import org.vaadin.tatu.vaadincreate.backend.data.Category;
@@ -32,9 +33,11 @@ public class StatsPresenter implements EventBusListener, Serializable {
     private StatsView view;
     @Nullable
     private transient CompletableFuture<Void> future;
+    @Nullable
+    private transient CancellationScope cancellation;
     private transient ProductDataService service = VaadinCreateUI.get()
             .getProductService();
-    private transient ExecutorService executor = VaadinCreateUI.get()
+    private transient Executor executor = VaadinCreateUI.get()
             .getExecutor();
 
     public StatsPresenter(StatsView view) {
@@ -48,11 +51,16 @@ public class StatsPresenter implements EventBusListener, Serializable {
 
     private CompletableFuture<ProductData> loadProductsAsync() {
         var productService = getService();
-        return CompletableFuture
-                .supplyAsync(
-                        () -> new ProductData(productService.getAllProducts(),
-                                productService.getAllCategories()),
-                        getExecutor());
+        var scope = new CancellationScope();
+        // The stats are reloaded on changes, the earlier load is outdated
+        if (cancellation != null) {
+            cancellation.cancel();
+        }
+        cancellation = scope;
+        return CompletableFuture.supplyAsync(() -> scope.call(
+                () -> new ProductData(productService.getAllProducts(),
+                        productService.getAllCategories())),
+                getExecutor());
     }
 
     /**
@@ -97,6 +105,10 @@ public class StatsPresenter implements EventBusListener, Serializable {
 
     public void cancelUpdateStats() {
         getEventBus().unregisterEventBusListener(this);
+        if (cancellation != null) {
+            cancellation.cancel();
+            cancellation = null;
+        }
         if (future != null) {
             boolean cancelled = future.cancel(true);
             future = null;
@@ -111,7 +123,7 @@ public class StatsPresenter implements EventBusListener, Serializable {
         return service;
     }
 
-    private ExecutorService getExecutor() {
+    private Executor getExecutor() {
         if (executor == null) {
             executor = VaadinCreateUI.get().getExecutor();
         }
@@ -0,0 +1,245 @@
+package org.vaadin.tatu.vaadincreate.storefront;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.vaadin.tatu.vaadincreate.backend.data.Availability;
+import org.vaadin.tatu.vaadincreate.backend.data.Product;
+
+/**
+ * Node-wide snapshot of the orderable products, i.e. the available products in
+ * stock, that the storefront is served from. The snapshot is loaded from the
+ * {@link CatalogSource} on first use and then kept up to date by
+ * {@link ProductCatalogPresenter} from the events: a saved or deleted book is
+ * fetched again, and so are the products of an approved purchase, as the
+ * approval decrements the stock. Changes made to the products without posting
+ * an event are not seen.
+ * <p>
+ * If events from another node may have been missed, the snapshot is dropped
+ * with {@link #invalidate()} and loaded again on next use. The listeners are
+ * not notified of the products that ran out of stock in between, the stock is
+ * checked again on approval anyway.
+ * <p>
+ * The snapshot is immutable and replaced on each change, so it can be read
+ * without locking. The listeners are notified when products in the snapshot
+ * are no longer orderable. They are held with weak references like the
+ * listeners of the event bus.
+ */
+@NullMarked
+public class ProductCatalog {
+
+    /**
+     * An orderable product in the snapshot.
+     */
+    public record CatalogItem(Integer productId, String productName,
+            Integer stockCount, BigDecimal price) implements Serializable {
+    }
+
+    /**
+     * Listener notified when products are no longer orderable.
+     */
+    public interface OutOfStockListener {
+
+        /**
+         * Called from the event bus thread when products have run out of
+         * stock, or have been made unavailable or deleted.
+         *
+         * @param items
+         *            the products as they were before the change
+         */
+        public void productsOutOfStock(List<CatalogItem> items);
+    }
+
+    /**
+     * Source of the products of the catalog.
+     */
+    public interface CatalogSource {
+
+        /**
+         * Fetches the orderable products.
+         *
+         * @return the products in the order they are shown
+         */
+        public Collection<Product> fetchOrderableProducts();
+
+        /**
+         * Fetches a product.
+         *
+         * @param productId
+         *            the id of the product
+         * @return the product, or null if it has been deleted
+         */
+        @Nullable
+        public Product fetchProduct(Integer productId);
+
+        /**
+         * Fetches the ids of the products of the given purchases that have
+         * been approved.
+         *
+         * @param purchaseIds
+         *            the ids of the purchases
+         * @return the ids of the products
+         */
+        public Set<Integer> fetchApprovedProductIds(List<Integer> purchaseIds);
+    }
+
+    private final CatalogSource source;
+    private final WeakHashMap<OutOfStockListener, Object> listeners = new WeakHashMap<>();
+    // Product id -> item, null until loaded
+    @Nullable
+    private volatile Map<Integer, CatalogItem> snapshot;
+
+    ProductCatalog(CatalogSource source) {
+        this.source = source;
+    }
+
+    /**
+     * Gets the orderable products.
+     *
+     * @return an unmodifiable collection of the products
+     */
+    public Collection<CatalogItem> getProducts() {
+        var current = snapshot;
+        if (current == null) {
+            current = load();
+        }
+        return current.values();
+    }
+
+    private synchronized Map<Integer, CatalogItem> load() {
+        var current = snapshot;
+        if (current == null) {
+            var loaded = new LinkedHashMap<Integer, CatalogItem>();
+            source.fetchOrderableProducts()
+                    .forEach(product -> loaded.put(product.getId(),
+                            toItem(product)));
+            current = Collections.unmodifiableMap(loaded);
+            snapshot = current;
+            logger.info("Loaded {} orderable products", loaded.size());
+        }
+        return current;
+    }
+
+    /**
+     * Adds a listener for the products running out of stock.
+     *
+     * @param listener
+     *            the listener to add
+     */
+    public void addOutOfStockListener(OutOfStockListener listener) {
+        synchronized (listeners) {
+            listeners.put(listener, null);
+        }
+    }
+
+    /**
+     * Removes a listener added with
+     * {@link #addOutOfStockListener(OutOfStockListener)}.
+     *
+     * @param listener
+     *            the listener to remove
+     */
+    public void removeOutOfStockListener(OutOfStockListener listener) {
+        synchronized (listeners) {
+            listeners.remove(listener);
+        }
+    }
+
+    /**
+     * Drops the snapshot, so that it is loaded again on next use. Called from
+     * the event bus thread, so the snapshot is not loaded here.
+     */
+    public synchronized void invalidate() {
+        if (snapshot != null) {
+            logger.info("Events may have been missed, reloading products");
+            snapshot = null;
+        }
+    }
+
+    /**
+     * Updates the products of the purchases whose status has changed. Only the
+     * approval changes the stock.
+     *
+     * @param purchaseIds
+     *            the ids of the decided purchases
+     */
+    public void purchasesDecided(List<Integer> purchaseIds) {
+        if (snapshot == null) {
+            return;
+        }
+        var productIds = source.fetchApprovedProductIds(purchaseIds);
+        if (!productIds.isEmpty()) {
+            refresh(productIds);
+        }
+    }
+
+    /**
+     * Fetches the given products again and replaces them in the snapshot. The
+     * products no longer orderable are removed and the listeners notified.
+     *
+     * @param productIds
+     *            the ids of the changed products
+     */
+    public void refresh(Set<Integer> productIds) {
+        var outOfStock = new ArrayList<CatalogItem>();
+        synchronized (this) {
+            var current = snapshot;
+            if (current == null) {
+                // Loaded with the latest data when first used
+                return;
+            }
+            var updated = new LinkedHashMap<>(current);
+            for (var productId : productIds) {
+                var product = source.fetchProduct(productId);
+                if (product != null && isOrderable(product)) {
+                    updated.put(productId, toItem(product));
+                } else {
+                    var removed = updated.remove(productId);
+                    if (removed != null) {
+                        outOfStock.add(removed);
+                    }
+                }
+            }
+            snapshot = Collections.unmodifiableMap(updated);
+        }
+        if (!outOfStock.isEmpty()) {
+            logger.debug("Products out of stock: {}", outOfStock);
+            notifyOutOfStock(outOfStock);
+        }
+    }
+
+    private void notifyOutOfStock(List<CatalogItem> items) {
+        List<OutOfStockListener> current;
+        synchronized (listeners) {
+            current = new ArrayList<>(listeners.keySet());
+        }
+        var unmodifiable = List.copyOf(items);
+        current.forEach(listener -> listener.productsOutOfStock(unmodifiable));
+    }
+
+    private static boolean isOrderable(Product product) {
+        return product.getAvailability() == Availability.AVAILABLE
+                && product.getStockCount() > 0;
+    }
+
+    @SuppressWarnings("null")
+    private static CatalogItem toItem(Product product) {
+        return new CatalogItem(product.getId(), product.getProductName(),
+                product.getStockCount(), product.getPrice());
+    }
+
+    private static final Logger logger = LoggerFactory
+            .getLogger(ProductCatalog.class);
+}
@@ -0,0 +1,134 @@
+package org.vaadin.tatu.vaadincreate.storefront;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.vaadin.tatu.vaadincreate.backend.ConsistencyScope;
+import org.vaadin.tatu.vaadincreate.backend.ProductDataService;
+import org.vaadin.tatu.vaadincreate.backend.PurchaseService;
+import org.vaadin.tatu.vaadincreate.backend.data.Product;
+import org.vaadin.tatu.vaadincreate.backend.data.PurchaseStatus;
+import org.vaadin.tatu.vaadincreate.backend.events.AbstractEvent;
+import org.vaadin.tatu.vaadincreate.backend.events.BooksChangedEvent;
+import org.vaadin.tatu.vaadincreate.backend.events.PurchaseStatusChangedEvent;
+import org.vaadin.tatu.vaadincreate.backend.events.PurchaseStatusesChangedEvent;
+import org.vaadin.tatu.vaadincreate.eventbus.ClusterMembership.MembershipListener;
+import org.vaadin.tatu.vaadincreate.eventbus.EventBus;
+import org.vaadin.tatu.vaadincreate.eventbus.EventBus.EventBusListener;
+import org.vaadin.tatu.vaadincreate.storefront.ProductCatalog.CatalogSource;
+
+/**
+ * Node-wide presenter of the {@link ProductCatalog}. Separates the backend and
+ * event bus access from the catalog: it fetches the products from the services
+ * and updates the catalog from the events.
+ * <p>
+ * The events are posted after the change has been committed, but the read
+ * replica may still be lagging behind, and the event bus thread has no
+ * consistency scope of its own. Hence the products are always fetched from the
+ * primary database, see {@link ConsistencyScope#onPrimary}.
+ * <p>
+ * If events from another node have been missed, or a node joins, possibly
+ * after having been out of reach, the catalog is invalidated.
+ */
+@NullMarked
+@SuppressWarnings("java:S6548")
+public class ProductCatalogPresenter
+        implements CatalogSource, EventBusListener, MembershipListener {
+
+    private static ProductCatalogPresenter instance;
+
+    private final ProductDataService productService;
+    private final PurchaseService purchaseService;
+    private final ProductCatalog catalog;
+
+    /**
+     * Gets the node-wide instance.
+     *
+     * @return the presenter
+     */
+    public static synchronized ProductCatalogPresenter get() {
+        if (instance == null) {
+            instance = new ProductCatalogPresenter(ProductDataService.get(),
+                    PurchaseService.get(), EventBus.get());
+        }
+        return instance;
+    }
+
+    ProductCatalogPresenter(ProductDataService productService,
+            PurchaseService purchaseService, EventBus eventBus) {
+        this.productService = productService;
+        this.purchaseService = purchaseService;
+        catalog = new ProductCatalog(this);
+        eventBus.registerEventBusListener(this);
+        eventBus.getMembership().addMembershipListener(this);
+    }
+
+    /**
+     * Gets the catalog kept up to date by this presenter.
+     *
+     * @return the catalog
+     */
+    public ProductCatalog getCatalog() {
+        return catalog;
+    }
+
+    @Override
+    public Collection<Product> fetchOrderableProducts() {
+        return ConsistencyScope
+                .onPrimary(() -> productService.getOrderableProducts());
+    }
+
+    @Override
+    @Nullable
+    public Product fetchProduct(Integer productId) {
+        return ConsistencyScope
+                .onPrimary(() -> productService.getProductById(productId));
+    }
+
+    @Override
+    public Set<Integer> fetchApprovedProductIds(List<Integer> purchaseIds) {
+        var purchases = ConsistencyScope.onPrimary(
+                () -> purchaseService.fetchPurchasesByIds(purchaseIds));
+        var productIds = new LinkedHashSet<Integer>();
+        purchases.stream()
+                .filter(purchase -> purchase
+                        .getStatus() == PurchaseStatus.COMPLETED)
+                .flatMap(purchase -> purchase.getLines().stream())
+                .forEach(line -> productIds.add(line.getProduct().getId()));
+        return productIds;
+    }
+
+    @Override
+    public void eventFired(AbstractEvent event) {
+        switch (event) {
+        case BooksChangedEvent(Integer productId, var change) -> catalog
+                .refresh(Set.of(productId));
+        case PurchaseStatusChangedEvent(Integer purchaseId) -> catalog
+                .purchasesDecided(List.of(purchaseId));
+        case PurchaseStatusesChangedEvent(List<Integer> purchaseIds) -> catalog
+                .purchasesDecided(purchaseIds);
+        default -> {
+            // No action for other events
+        }
+        }
+    }
+
+    @Override
+    public void nodeJoined(String nodeId) {
+        catalog.invalidate();
+    }
+
+    @Override
+    public void nodeLeft(String nodeId) {
+        // The products are not affected
+    }
+
+    @Override
+    public void eventsMissed(String nodeId, long missed) {
+        catalog.invalidate();
+    }
+}
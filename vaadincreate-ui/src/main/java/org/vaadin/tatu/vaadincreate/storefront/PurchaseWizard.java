@@ -3,8 +3,10 @@ package org.vaadin.tatu.vaadincreate.storefront;
 import java.math.BigDecimal;
 import java.text.NumberFormat;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.jsoup.Jsoup;
 
@@ -26,9 +28,13 @@ import org.vaadin.tatu.vaadincreate.components.AttributeExtension.AriaAttributes
 import org.vaadin.tatu.vaadincreate.components.AttributeExtension.AriaRoles;
 import org.vaadin.tatu.vaadincreate.i18n.I18n;
 import org.vaadin.tatu.vaadincreate.observability.Telemetry;
+import org.vaadin.tatu.vaadincreate.storefront.ProductCatalog.CatalogItem;
+import org.vaadin.tatu.vaadincreate.util.Utils;
 
 import com.vaadin.data.Binder;
 import com.vaadin.data.ValidationException;
+import com.vaadin.data.provider.ListDataProvider;
+import com.vaadin.data.provider.Query;
 import com.vaadin.event.ShortcutAction.ModifierKey;
 import com.vaadin.shared.ui.ContentMode;
 import com.vaadin.ui.Alignment;
@@ -38,6 +44,7 @@ import com.vaadin.ui.Composite;
 import com.vaadin.ui.HorizontalLayout;
 import com.vaadin.ui.Label;
 import com.vaadin.ui.Notification;
+import com.vaadin.ui.UI;
 import com.vaadin.ui.VerticalLayout;
 import com.vaadin.ui.themes.ValoTheme;
 
@@ -85,6 +92,9 @@ public class PurchaseWizard extends Composite implements HasI18N {
 
     private StorefrontPresenter presenter;
 
+    @Nullable
+    private UI ui;
+
     /**
      * Creates the purchase wizard with the given presenter for backend
      * interactions.
@@ -194,6 +204,56 @@ public class PurchaseWizard extends Composite implements HasI18N {
         productGrid.updateFooter();
     }
 
+    @Override
+    public void attach() {
+        super.attach();
+        ui = getUI();
+        presenter.register(this);
+    }
+
+    @Override
+    public void detach() {
+        super.detach();
+        presenter.unregister();
+        ui = null;
+    }
+
+    /**
+     * Removes the products that have run out of stock from the product
+     * selection grid and notifies the user about the ones shown. Uses
+     * {@link Utils#access} so it is safe to call from non-UI threads.
+     *
+     * @param items
+     *            the products that have run out of stock
+     */
+    public void productsOutOfStockAsync(List<CatalogItem> items) {
+        var productIds = items.stream().map(CatalogItem::productId)
+                .collect(Collectors.toSet());
+        Utils.access(ui, () -> removeProducts(productIds));
+    }
+
+    private void removeProducts(Set<Integer> productIds) {
+        if (productGrid == null || !(productGrid.getDataProvider()
+                instanceof ListDataProvider<ProductDto> provider)) {
+            return;
+        }
+        var removed = provider.fetch(new Query<>())
+                .filter(dto -> productIds.contains(dto.getProductId()))
+                .toList();
+        if (removed.isEmpty()) {
+            return;
+        }
+        removed.forEach(productGrid::deselect);
+        // Filtering keeps the selection and quantities of the other products
+        provider.addFilter(dto -> !productIds.contains(dto.getProductId()));
+        productGrid.updateFooter();
+        var names = removed.stream().map(ProductDto::getProductName)
+                .collect(Collectors.joining(", "));
+        logger.info("Products out of stock removed from wizard: {}", names);
+        Notification.show(getTranslation(I18n.Storefront.OUT_OF_STOCK, names),
+                Notification.Type.WARNING_MESSAGE);
+    }
+
     private void showStep2() {
         stepTitle.setValue(getTranslation(I18n.Storefront.STEP2_TITLE));
         applyDefaultAddressIfAvailable();
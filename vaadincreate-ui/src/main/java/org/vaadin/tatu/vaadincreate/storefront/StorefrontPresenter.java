@@ -4,6 +4,7 @@ import java.io.Serializable;
 import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 import org.jspecify.annotations.NonNull;
@@ -21,30 +22,68 @@ import org.vaadin.tatu.vaadincreate.backend.data.User;
 import org.vaadin.tatu.vaadincreate.backend.data.User.Role;
 import org.vaadin.tatu.vaadincreate.backend.events.PurchaseSavedEvent;
 import org.vaadin.tatu.vaadincreate.eventbus.EventBus;
+import org.vaadin.tatu.vaadincreate.storefront.ProductCatalog.CatalogItem;
+import org.vaadin.tatu.vaadincreate.storefront.ProductCatalog.OutOfStockListener;
 
 /**
  * Presenter for StorefrontView. Separates backend access from the view layer.
  */
 @NullMarked
 @SuppressWarnings("serial")
-public class StorefrontPresenter implements Serializable {
+public class StorefrontPresenter
+        implements Serializable, OutOfStockListener {
 
     private transient ProductDataService productService;
     private transient UserService userService;
     private transient PurchaseService purchaseService;
+    @Nullable
+    private PurchaseWizard wizard;
 
     /**
-     * Gets all orderable products as DTOs.
+     * Gets all orderable products as DTOs. The products are served from the
+     * node-wide {@link ProductCatalog}, and new DTOs are created for each call
+     * as the wizard edits their order quantities.
      * 
      * @return Collection of ProductDto objects
      */
     public Collection<ProductDto> getOrderableProducts() {
-        return getProductService().getOrderableProducts().stream()
-                .map(p -> new ProductDto(p.getId(), p.getProductName(),
-                        p.getStockCount(), p.getPrice()))
+        return getCatalog().getProducts().stream()
+                .map(item -> new ProductDto(item.productId(),
+                        item.productName(), item.stockCount(), item.price()))
                 .toList();
     }
 
+    /**
+     * Registers this presenter for the products running out of stock and
+     * stores the wizard reference for the callbacks. Called from
+     * {@link PurchaseWizard} when it is attached.
+     *
+     * @param wizard
+     *            the wizard to update when products run out of stock
+     */
+    public void register(PurchaseWizard wizard) {
+        this.wizard = Objects.requireNonNull(wizard,
+                "Wizard must not be null");
+        getCatalog().addOutOfStockListener(this);
+    }
+
+    /**
+     * Unregisters this presenter from the catalog. Called from
+     * {@link PurchaseWizard} when it is detached.
+     */
+    public void unregister() {
+        getCatalog().removeOutOfStockListener(this);
+        wizard = null;
+    }
+
+    @Override
+    public void productsOutOfStock(List<CatalogItem> items) {
+        var current = wizard;
+        if (current != null) {
+            current.productsOutOfStockAsync(items);
+        }
+    }
+
     /**
      * Gets a product by ID.
      * 
@@ -206,6 +245,10 @@ public class StorefrontPresenter implements Serializable {
         return purchaseService;
     }
 
+    private ProductCatalog getCatalog() {
+        return ProductCatalogPresenter.get().getCatalog();
+    }
+
     private EventBus getEventBus() {
         return EventBus.get();
     }
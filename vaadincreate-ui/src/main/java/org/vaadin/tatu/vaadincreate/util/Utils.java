@@ -12,7 +12,7 @@ import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.vaadin.tatu.vaadincreate.AccessTask;
+import org.vaadin.tatu.vaadincreate.AccessCoalescer;
 import org.vaadin.tatu.vaadincreate.VaadinCreateTheme;
 import org.vaadin.tatu.vaadincreate.auth.CurrentUser;
 import org.vaadin.tatu.vaadincreate.backend.data.Availability;
@@ -186,6 +186,14 @@ public class Utils {
      * Executes a given command within the context of the specified UI. If the
      * UI is not available, logs a warning message. If the UI is detached (e.g.,
      * the browser window is closed), logs a warning message.
+     * <p>
+     * The updates made from background threads are coalesced, see
+     * {@link AccessCoalescer}: the command is run after a delay of 20 ms by
+     * default ({@code -Dpush.coalesceMillis}), together with the other updates
+     * of the UI made in the meantime. The tracing span of the access task and
+     * the {@code UiAccessEvent} recorded for it cover the whole batch, not
+     * only this command. Commands run from a thread holding the session lock
+     * are not delayed.
      *
      * @param ui
      *            the UI instance within which the command should be executed
@@ -193,8 +201,26 @@ public class Utils {
      *            the command to be executed
      */
     public static void access(@Nullable UI ui, Runnable command) {
+        access(ui, null, command);
+    }
+
+    /**
+     * Executes a given command within the context of the specified UI like
+     * {@link #access(UI, Runnable)}. The updates made from background threads
+     * are coalesced and pushed together, and a pending update with the same
+     * key is replaced by the command, see {@link AccessCoalescer}.
+     *
+     * @param ui
+     *            the UI instance within which the command should be executed
+     * @param key
+     *            the key of the update, or null if it is not to be replaced
+     * @param command
+     *            the command to be executed
+     */
+    public static void access(@Nullable UI ui, @Nullable Object key,
+            Runnable command) {
         if (ui != null && !ui.isClosing()) {
-            ui.access(new AccessTask(command));
+            AccessCoalescer.access(ui, key, command);
         } else {
             logger.warn("No UI available for pushing updates.");
         }
@@ -0,0 +1,89 @@
+package org.vaadin.tatu.vaadincreate;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.vaadin.tatu.vaadincreate.util.Utils;
+
+import com.vaadin.server.ServiceException;
+
+public class AccessCoalescerTest extends AbstractUITest {
+
+    private VaadinCreateUI ui;
+
+    @Before
+    public void setup() throws ServiceException {
+        ui = new VaadinCreateUI();
+        mockVaadin(ui);
+    }
+
+    @After
+    public void cleanUp() {
+        tearDown();
+    }
+
+    @Test
+    public void updatesFromBackgroundAreRunInOrderInOneCycle() {
+        var updates = new CopyOnWriteArrayList<String>();
+        var cycles = new CopyOnWriteArrayList<Boolean>();
+
+        CompletableFuture.runAsync(() -> {
+            for (var update : List.of("first", "second", "third")) {
+                Utils.access(ui, () -> {
+                    updates.add(update);
+                    cycles.add(ui.getSession().hasLock());
+                });
+            }
+        }).join();
+
+        waitWhile(() -> updates.size() < 3, 2);
+        assertEquals(List.of("first", "second", "third"), updates);
+        assertEquals(List.of(true, true, true), cycles);
+    }
+
+    @Test
+    public void pendingUpdateWithSameKeyIsReplaced() {
+        var refreshed = new CopyOnWriteArrayList<Integer>();
+
+        CompletableFuture.runAsync(() -> {
+            for (int i = 1; i <= 5; i++) {
+                var value = i;
+                Utils.access(ui, "refresh", () -> refreshed.add(value));
+            }
+            Utils.access(ui, "other", () -> refreshed.add(0));
+        }).join();
+
+        waitWhile(() -> refreshed.size() < 2, 2);
+        assertEquals(List.of(5, 0), refreshed);
+    }
+
+    @Test
+    public void replacingUpdateIsRunAfterUpdatesMadeBeforeIt() {
+        var updates = new CopyOnWriteArrayList<String>();
+
+        CompletableFuture.runAsync(() -> {
+            Utils.access(ui, "item", () -> updates.add("stale item"));
+            Utils.access(ui, () -> updates.add("remove"));
+            Utils.access(ui, "item", () -> updates.add("item"));
+        }).join();
+
+        waitWhile(() -> updates.size() < 2, 2);
+        assertEquals(List.of("remove", "item"), updates);
+    }
+
+    @Test
+    public void updateHoldingSessionLockIsRunWithoutBatch() {
+        var updated = new CopyOnWriteArrayList<Boolean>();
+
+        Utils.access(ui, () -> updated.add(true));
+
+        waitWhile(updated::isEmpty, 1);
+        assertEquals(List.of(true), updated);
+    }
+}
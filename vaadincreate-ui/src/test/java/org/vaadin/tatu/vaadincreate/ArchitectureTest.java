@@ -147,7 +147,10 @@ public class ArchitectureTest {
             .byClassesThat(have(simpleName("EventBus"))
                     .or(have(simpleName("EventBusImpl")))
                     .or(have(simpleName("EventBusTest")))
-                    .or(belongTo(simpleName("EventBusTest"))))
+                    .or(belongTo(simpleName("EventBusTest")))
+                    .or(have(simpleName("ClusterEventBusTest")))
+                    .or(belongTo(simpleName("ClusterEventBusTest")))
+                    .or(have(simpleName("SimulatedCluster"))))
             .as("EventBus should be used only by interface");
 
     @ArchTest
@@ -155,7 +158,8 @@ public class ArchitectureTest {
             .that().haveSimpleName("LockedObjectsImpl").should()
             .onlyBeAccessed()
             .byClassesThat(have(simpleName("LockedObjects"))
-                    .or(have(simpleName("LockedObjectsImpl"))))
+                    .or(have(simpleName("LockedObjectsImpl")))
+                    .or(have(simpleName("LockedObjectsClusterTest"))))
             .as("LockedObjects should be used only view interface");
 
     @ArchTest
@@ -1,11 +1,13 @@
 package org.vaadin.tatu.vaadincreate;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -55,11 +57,13 @@ public class LoggingFilterTest extends UIUnitTest {
     @Test
     public void testLoggingFilter() {
         AtomicInteger counter = new AtomicInteger(0);
+        AtomicReference<String> userId = new AtomicReference<>();
         FilterChain chain = new FilterChain() {
             @Override
             public void doFilter(ServletRequest request,
                     ServletResponse response) {
                 counter.incrementAndGet();
+                userId.set(MDC.get("userId"));
             }
         };
         var filter = new LoggingFilter();
@@ -70,7 +74,8 @@ public class LoggingFilterTest extends UIUnitTest {
             // Handle exception
         }
         assertEquals(1, counter.get());
-        assertEquals("[ADMIN/Mock]", MDC.get("userId"));
+        assertEquals("[ADMIN/Mock]", userId.get());
+        assertNull(MDC.get("userId"));
     }
 
     @Test
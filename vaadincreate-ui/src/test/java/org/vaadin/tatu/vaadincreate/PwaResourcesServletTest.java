@@ -0,0 +1,29 @@
+package org.vaadin.tatu.vaadincreate;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PwaResourcesServletTest {
+
+    @Test
+    public void listedCodingIsAccepted() {
+        assertTrue(PwaResourcesServlet.accepts("gzip, deflate, br", "gzip"));
+        assertTrue(PwaResourcesServlet.accepts("gzip, deflate, br", "br"));
+        assertTrue(PwaResourcesServlet.accepts("GZIP;q=0.5", "gzip"));
+        assertTrue(PwaResourcesServlet.accepts("*", "br"));
+        assertTrue(PwaResourcesServlet.accepts("*;q=0, gzip", "gzip"));
+        assertTrue(PwaResourcesServlet.accepts("gzip, *;q=0", "gzip"));
+    }
+
+    @Test
+    public void missingOrRefusedCodingIsNotAccepted() {
+        assertFalse(PwaResourcesServlet.accepts(null, "gzip"));
+        assertFalse(PwaResourcesServlet.accepts("deflate", "gzip"));
+        assertFalse(PwaResourcesServlet.accepts("gzip, br;q=0", "br"));
+        assertFalse(PwaResourcesServlet.accepts("gzip;q=0.0", "gzip"));
+        assertFalse(PwaResourcesServlet.accepts("*;q=0, gzip", "br"));
+        assertFalse(PwaResourcesServlet.accepts("*, br;q=0", "br"));
+    }
+}
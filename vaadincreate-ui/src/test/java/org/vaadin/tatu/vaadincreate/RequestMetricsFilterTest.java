@@ -0,0 +1,39 @@
+package org.vaadin.tatu.vaadincreate;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.Proxy;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.Test;
+
+public class RequestMetricsFilterTest {
+
+    @Test
+    public void endpointIsResolvedFromPath() {
+        assertEquals(RequestMetricsFilter.UIDL, endpoint("/app/UIDL/"));
+        assertEquals(RequestMetricsFilter.PUSH, endpoint("/app/PUSH"));
+        assertEquals(RequestMetricsFilter.HEARTBEAT,
+                endpoint("/app/HEARTBEAT/"));
+        assertEquals(RequestMetricsFilter.STATIC,
+                endpoint("/app/VAADIN/themes/vaadincreate/styles.css"));
+        assertEquals(RequestMetricsFilter.STATIC, endpoint("/app/sw.js"));
+        assertEquals(RequestMetricsFilter.STATIC,
+                endpoint("/app/icons/icon-192.png"));
+        assertEquals(RequestMetricsFilter.APP, endpoint("/app/"));
+        assertEquals(RequestMetricsFilter.APP, endpoint("/app/books"));
+    }
+
+    private static String endpoint(String uri) {
+        var request = (HttpServletRequest) Proxy.newProxyInstance(
+                RequestMetricsFilterTest.class.getClassLoader(),
+                new Class<?>[] { HttpServletRequest.class },
+                (proxy, method, args) -> switch (method.getName()) {
+                case "getRequestURI" -> uri;
+                case "getContextPath" -> "/app";
+                default -> null;
+                });
+        return RequestMetricsFilter.resolveEndpoint(request);
+    }
+}
@@ -0,0 +1,130 @@
+package org.vaadin.tatu.vaadincreate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.MDC;
+import org.vaadin.tatu.vaadincreate.TaskScheduler.Priority;
+import org.vaadin.tatu.vaadincreate.backend.ConsistencyScope;
+
+public class TaskSchedulerTest {
+
+    private TaskScheduler scheduler;
+    private CountDownLatch release;
+
+    @Before
+    public void setup() {
+        release = new CountDownLatch(1);
+    }
+
+    @After
+    public void cleanup() {
+        release.countDown();
+        scheduler.shutdown();
+        MDC.clear();
+    }
+
+    @Test
+    public void sessionsTakeTurnsAndInteractiveTasksRunFirst()
+            throws InterruptedException {
+        scheduler = new TaskScheduler(1);
+        var order = new CopyOnWriteArrayList<String>();
+        var done = new CountDownLatch(5);
+        scheduler.submit("a", Priority.INTERACTIVE, this::block);
+        submit("c", Priority.BULK, "c1", order, done);
+        submit("a", Priority.INTERACTIVE, "a1", order, done);
+        submit("a", Priority.INTERACTIVE, "a2", order, done);
+        submit("a", Priority.INTERACTIVE, "a3", order, done);
+        submit("b", Priority.INTERACTIVE, "b1", order, done);
+        assertEquals(5, scheduler.getQueuedCount());
+
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("a1", "b1", "a2", "a3", "c1"), order);
+    }
+
+    @Test
+    public void bulkTasksUseAtMostHalfOfThePermits()
+            throws InterruptedException {
+        scheduler = new TaskScheduler(4);
+        for (int i = 0; i < 3; i++) {
+            scheduler.submit("a", Priority.BULK, this::block);
+        }
+        waitWhile(() -> scheduler.getRunningCount() < 2);
+        assertEquals(2, scheduler.getRunningCount());
+        assertEquals(1, scheduler.getQueuedCount());
+
+        var interactive = new CountDownLatch(2);
+        scheduler.submit("b", Priority.INTERACTIVE, interactive::countDown);
+        scheduler.submit("b", Priority.INTERACTIVE, interactive::countDown);
+
+        assertTrue(interactive.await(5, TimeUnit.SECONDS));
+        assertEquals(1, scheduler.getQueuedCount());
+    }
+
+    @Test
+    public void contextIsPropagatedToTask() throws Exception {
+        scheduler = new TaskScheduler(1);
+        MDC.put("userId", "[USER/User0]");
+        var context = new CompletableFuture<List<String>>();
+
+        scheduler.executor("session", Priority.INTERACTIVE)
+                .execute(() -> context.complete(List.of(MDC.get("userId"),
+                        ConsistencyScope.current())));
+
+        assertEquals(List.of("[USER/User0]", "session"),
+                context.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void failingTaskReleasesPermit() throws Exception {
+        scheduler = new TaskScheduler(1);
+        scheduler.submit("a", Priority.INTERACTIVE, () -> {
+            throw new IllegalStateException("boom");
+        });
+        var next = new CompletableFuture<Void>();
+
+        scheduler.submit("a", Priority.INTERACTIVE,
+                () -> next.complete(null));
+
+        next.get(5, TimeUnit.SECONDS);
+        waitWhile(() -> scheduler.getRunningCount() > 0);
+        assertEquals(0, scheduler.getRunningCount());
+    }
+
+    private void submit(String sessionId, Priority priority, String name,
+            List<String> order, CountDownLatch done) {
+        scheduler.submit(sessionId, priority, () -> {
+            order.add(name);
+            done.countDown();
+        });
+    }
+
+    private void block() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitWhile(BooleanSupplier condition)
+            throws InterruptedException {
+        var deadline = System.currentTimeMillis() + 5000;
+        while (condition.getAsBoolean()
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package org.vaadin.tatu.vaadincreate.eventbus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.vaadin.tatu.vaadincreate.backend.events.AbstractEvent;
+import org.vaadin.tatu.vaadincreate.backend.events.HeartbeatEvent;
+import org.vaadin.tatu.vaadincreate.backend.events.MessageEvent;
+import org.vaadin.tatu.vaadincreate.eventbus.ClusterMembership.MembershipListener;
+import org.vaadin.tatu.vaadincreate.eventbus.EventBus.EventBusListener;
+
+/**
+ * Runs event bus instances, i.e. nodes of the cluster, in one JVM against a
+ * {@link SimulatedCluster}.
+ */
+public class ClusterEventBusTest {
+
+    private SimulatedCluster cluster;
+    private EventBusImpl node1;
+    private EventBusImpl node2;
+
+    @Before
+    public void setUp() {
+        cluster = new SimulatedCluster();
+        node1 = new EventBusImpl(cluster.connect());
+        node2 = new EventBusImpl(cluster.connect());
+    }
+
+    @After
+    public void tearDown() {
+        node1.shutdown();
+        node2.shutdown();
+    }
+
+    @Test
+    public void eventIsDeliveredToOtherNode() throws InterruptedException {
+        var listener = new CountingListener(1);
+        node2.registerEventBusListener(listener);
+
+        node1.post(new MessageEvent("Hello", LocalDateTime.now()));
+
+        assertTrue(listener.await());
+        assertEquals("Hello",
+                ((MessageEvent) listener.events.get(0)).message());
+        assertEquals(0, node2.sequences.getMissedCount());
+    }
+
+    @Test
+    public void lostEventsAreDetected() throws InterruptedException {
+        var listener = new CountingListener(3);
+        node2.registerEventBusListener(listener);
+
+        node1.post(new MessageEvent("1", LocalDateTime.now()));
+        cluster.dropNext(2);
+        node1.post(new MessageEvent("2", LocalDateTime.now()));
+        node1.post(new MessageEvent("3", LocalDateTime.now()));
+        node1.post(new MessageEvent("4", LocalDateTime.now()));
+        node1.post(new MessageEvent("5", LocalDateTime.now()));
+
+        assertTrue(listener.await());
+        assertEquals(2, node2.sequences.getMissedCount());
+        // The publishing node does not track its own events
+        assertEquals(0, node1.sequences.getMissedCount());
+    }
+
+    @Test
+    public void sequencesAreTrackedPerNode() {
+        var tracker = new SequenceTracker();
+
+        assertEquals(0, tracker.received("node1", 5));
+        assertEquals(0, tracker.received("node2", 1));
+        assertEquals(0, tracker.received("node1", 6));
+        assertEquals(3, tracker.received("node2", 5));
+        // Duplicates and envelopes without sequence numbers are ignored
+        assertEquals(0, tracker.received("node1", 6));
+        assertEquals(0, tracker.received("node1", 0));
+        assertEquals(1, tracker.received("node1", 8));
+        assertEquals(4, tracker.getMissedCount());
+    }
+
+    @Test
+    public void nodesJoinAndLeave() {
+        var changes = new RecordingMembershipListener();
+        node2.getMembership().addMembershipListener(changes);
+        var node1Id = node1.getMembership().getNodeId();
+        var node2Id = node2.getMembership().getNodeId();
+
+        // Node 3 announces itself to both nodes when it starts
+        var node3 = new EventBusImpl(cluster.connect());
+        var node3Id = node3.getMembership().getNodeId();
+        // Node 1 was not listening yet when node 2 started
+        assertEquals(Set.of(node2Id, node3Id),
+                node1.getMembership().getNodes());
+        node1.post(new MessageEvent("Hello", LocalDateTime.now()));
+        assertEquals(Set.of(node1Id, node3Id),
+                node2.getMembership().getNodes());
+
+        node3.shutdown();
+
+        assertEquals(Set.of(node1Id), node2.getMembership().getNodes());
+        assertEquals(List.of("joined " + node3Id, "joined " + node1Id,
+                "left " + node3Id), changes.changes);
+    }
+
+    @Test
+    public void silentNodeIsRemoved() {
+        var published = new CopyOnWriteArrayList<AbstractEvent>();
+        var membership = new ClusterMembershipImpl("node1", published::add,
+                1000);
+        var changes = new RecordingMembershipListener();
+        membership.addMembershipListener(changes);
+        membership.start();
+        assertEquals(List.of(new HeartbeatEvent(false)), published);
+
+        var second = TimeUnit.SECONDS.toNanos(1);
+        var now = System.nanoTime();
+        membership.received("node2", new HeartbeatEvent(false), now);
+        membership.received("node3", new HeartbeatEvent(false), now);
+        membership.checkLiveness(now + 2 * second);
+        assertEquals(Set.of("node2", "node3"), membership.getNodes());
+
+        // Any event counts as a heartbeat
+        membership.received("node3",
+                new MessageEvent("Hello", LocalDateTime.now()), now + second);
+        membership.checkLiveness(now + 4 * second);
+        assertEquals(Set.of("node3"), membership.getNodes());
+        assertEquals(List.of("joined node2", "joined node3", "left node2"),
+                changes.changes);
+
+        membership.shutdown();
+        assertEquals(new HeartbeatEvent(true), published.getLast());
+    }
+
+    @Test
+    public void eventsReachAllNodesDespiteReorderingAndDuplicates()
+            throws InterruptedException {
+        var faulty = new SimulatedCluster(42).latency(0, 5).reordering(true)
+                .duplication(0.2);
+        var nodes = startNodes(faulty, 3);
+        var collectors = nodes.stream().map(MessageCollector::new).toList();
+        try {
+            postMessages(nodes, 50);
+
+            assertTrue(faulty.awaitDelivery(5, TimeUnit.SECONDS));
+            for (var collector : collectors) {
+                assertTrue(SimulatedCluster
+                        .eventually(() -> collector.messages.size() == 150));
+            }
+            assertTrue(faulty.getDuplicated() > 0);
+        } finally {
+            nodes.forEach(EventBusImpl::shutdown);
+        }
+    }
+
+    @Test
+    public void lostEventsAreDetectedUnderLoad() throws InterruptedException {
+        var faulty = new SimulatedCluster(7).latency(1, 3);
+        var nodes = startNodes(faulty, 3);
+        var changes = new RecordingMembershipListener();
+        nodes.forEach(
+                node -> node.getMembership().addMembershipListener(changes));
+        try {
+            // The first event received from a node is the baseline
+            postMessages(nodes, 1);
+            faulty.loss(0.1);
+            postMessages(nodes, 50);
+            // A gap is detected when the next event of the node arrives
+            faulty.loss(0);
+            postMessages(nodes, 1);
+
+            assertTrue(faulty.awaitDelivery(5, TimeUnit.SECONDS));
+            assertTrue(faulty.getLost() > 0);
+            assertEquals(faulty.getLost(), nodes.stream()
+                    .mapToLong(node -> node.sequences.getMissedCount()).sum());
+            // The listeners are told about the gaps
+            assertTrue(SimulatedCluster.eventually(
+                    () -> changes.missed.get() == faulty.getLost()));
+        } finally {
+            nodes.forEach(EventBusImpl::shutdown);
+        }
+    }
+
+    private static List<EventBusImpl> startNodes(SimulatedCluster cluster,
+            int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new EventBusImpl(cluster.connect())).toList();
+    }
+
+    private static void postMessages(List<EventBusImpl> nodes, int count) {
+        for (int i = 0; i < count; i++) {
+            for (int node = 0; node < nodes.size(); node++) {
+                nodes.get(node).post(new MessageEvent(node + ":" + i,
+                        LocalDateTime.now()));
+            }
+        }
+    }
+
+    public static class MessageCollector implements EventBusListener {
+
+        private final Set<String> messages = ConcurrentHashMap.newKeySet();
+
+        public MessageCollector(EventBus eventBus) {
+            eventBus.registerEventBusListener(this);
+        }
+
+        @Override
+        public void eventFired(AbstractEvent event) {
+            if (event instanceof MessageEvent messageEvent) {
+                messages.add(messageEvent.message());
+            }
+        }
+    }
+
+    public static class RecordingMembershipListener
+            implements MembershipListener {
+
+        private final List<String> changes = new CopyOnWriteArrayList<>();
+        private final AtomicLong missed = new AtomicLong();
+
+        @Override
+        public void nodeJoined(String nodeId) {
+            changes.add("joined " + nodeId);
+        }
+
+        @Override
+        public void nodeLeft(String nodeId) {
+            changes.add("left " + nodeId);
+        }
+
+        @Override
+        public void eventsMissed(String nodeId, long count) {
+            missed.addAndGet(count);
+        }
+    }
+
+    public static class CountingListener implements EventBusListener {
+
+        private final List<AbstractEvent> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch latch;
+
+        public CountingListener(int count) {
+            latch = new CountDownLatch(count);
+        }
+
+        @Override
+        public void eventFired(AbstractEvent event) {
+            events.add(event);
+            latch.countDown();
+        }
+
+        public boolean await() throws InterruptedException {
+            return latch.await(5, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -122,8 +122,8 @@ public class EventBusTest {
 
     public void triggerRedisEvent() {
         var event = new MessageEvent("Redis", LocalDateTime.now());
-        envelopeHandler
-                .accept(new EventEnvelope(UUID.randomUUID().toString(), event));
+        envelopeHandler.accept(new EventEnvelope(UUID.randomUUID().toString(),
+                1, System.currentTimeMillis(), event));
     }
 
     private void wait100ms() {
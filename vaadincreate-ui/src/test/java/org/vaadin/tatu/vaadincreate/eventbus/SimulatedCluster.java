@@ -0,0 +1,382 @@
+package org.vaadin.tatu.vaadincreate.eventbus;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import org.vaadin.tatu.vaadincreate.backend.RedisPubSubService;
+import org.vaadin.tatu.vaadincreate.backend.RedisPubSubService.EventEnvelope;
+import org.vaadin.tatu.vaadincreate.backend.events.AbstractEvent;
+
+/**
+ * In-JVM stand-in of the Redis channel shared by the nodes of a cluster, for
+ * running several nodes in one test. A node is connected with
+ * {@link #connect()}, or started as a whole event bus with
+ * {@link #startNode()}, which can be passed to the subsystems that take the
+ * event bus, like the locks.
+ * <p>
+ * Without latency the envelopes are delivered to all the subscribed nodes,
+ * including the publishing node like Redis does, synchronously in the
+ * publishing thread. With latency each node receives the envelopes in a thread
+ * of its own after a random delay. The envelopes of one publisher are received
+ * in publish order, as with Redis, unless reordering is enabled. Envelopes can
+ * also be duplicated and lost at random, independently for each receiving
+ * node other than the publisher. The random generator is seeded, so that a
+ * failing run can be repeated, although the thread scheduling still varies
+ * with latency.
+ *
+ * <pre>
+ * {@code
+ * var cluster = new SimulatedCluster(42).latency(1, 10).loss(0.05);
+ * var node1 = cluster.startNode();
+ * var node2 = cluster.startNode();
+ * node1.post(event);
+ * cluster.awaitDelivery(5, TimeUnit.SECONDS);
+ * }
+ * </pre>
+ */
+public class SimulatedCluster {
+
+    private final Random random;
+    private final List<SimulatedNode> nodes = new CopyOnWriteArrayList<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong duplicated = new AtomicLong();
+    private final AtomicLong lost = new AtomicLong();
+    private long minLatency;
+    private long maxLatency;
+    private boolean reordering;
+    private double duplication;
+    private double loss;
+    private int dropNext;
+
+    /**
+     * Creates a cluster delivering the envelopes without latency or faults.
+     */
+    public SimulatedCluster() {
+        this(0);
+    }
+
+    /**
+     * Creates a cluster delivering the envelopes without latency or faults
+     * until configured otherwise.
+     *
+     * @param seed
+     *            the seed of the random latencies and faults
+     */
+    public SimulatedCluster(long seed) {
+        random = new Random(seed);
+    }
+
+    /**
+     * Sets the range of the delivery latency.
+     *
+     * @param min
+     *            the minimum latency in milliseconds
+     * @param max
+     *            the maximum latency in milliseconds, 0 for synchronous
+     *            delivery
+     * @return this cluster
+     */
+    public synchronized SimulatedCluster latency(long min, long max) {
+        if (min < 0 || max < min) {
+            throw new IllegalArgumentException(
+                    "Invalid latency range: " + min + "-" + max);
+        }
+        minLatency = min;
+        maxLatency = max;
+        return this;
+    }
+
+    /**
+     * Sets whether the envelopes of a publisher may overtake each other when
+     * they are delivered with latency.
+     *
+     * @param reordering
+     *            true to deliver in the order of the random latencies
+     * @return this cluster
+     */
+    public synchronized SimulatedCluster reordering(boolean reordering) {
+        this.reordering = reordering;
+        return this;
+    }
+
+    /**
+     * Sets the probability of an envelope being delivered twice to a node.
+     *
+     * @param probability
+     *            the probability between 0 and 1
+     * @return this cluster
+     */
+    public synchronized SimulatedCluster duplication(double probability) {
+        duplication = checkProbability(probability);
+        return this;
+    }
+
+    /**
+     * Sets the probability of an envelope not being delivered to a node.
+     *
+     * @param probability
+     *            the probability between 0 and 1
+     * @return this cluster
+     */
+    public synchronized SimulatedCluster loss(double probability) {
+        loss = checkProbability(probability);
+        return this;
+    }
+
+    /**
+     * Loses the next envelopes published, for all the nodes.
+     *
+     * @param count
+     *            the number of envelopes to lose
+     */
+    public synchronized void dropNext(int count) {
+        dropNext = count;
+    }
+
+    /**
+     * Connects a new node to the cluster.
+     *
+     * @return the transport of the node
+     */
+    public RedisPubSubService connect() {
+        var node = new SimulatedNode();
+        nodes.add(node);
+        return node;
+    }
+
+    /**
+     * Starts a new node with an event bus of its own.
+     *
+     * @return the event bus of the node
+     */
+    public EventBus startNode() {
+        return new EventBusImpl(connect());
+    }
+
+    /**
+     * Waits until the envelopes published so far have been handed to the
+     * nodes. The events are dispatched to the listeners asynchronously after
+     * that, see {@link #eventually(BooleanSupplier)}.
+     *
+     * @param timeout
+     *            the maximum time to wait
+     * @param unit
+     *            the unit of the timeout
+     * @return true if all were delivered, false if the timeout elapsed
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    public boolean awaitDelivery(long timeout, TimeUnit unit)
+            throws InterruptedException {
+        var deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (pending) {
+            while (pending.get() > 0) {
+                var left = deadline - System.nanoTime();
+                if (left <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(pending, left);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Polls the condition until it is true, for at most 5 seconds.
+     *
+     * @param condition
+     *            the condition
+     * @return true if the condition became true, false on timeout
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    public static boolean eventually(BooleanSupplier condition)
+            throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    /**
+     * Gets the number of envelopes published by all the nodes.
+     *
+     * @return the number of envelopes
+     */
+    public long getPublished() {
+        return published.get();
+    }
+
+    /**
+     * Gets the number of envelopes handed to the nodes, including the
+     * duplicates.
+     *
+     * @return the number of envelopes
+     */
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    /**
+     * Gets the number of extra copies of envelopes delivered.
+     *
+     * @return the number of duplicates
+     */
+    public long getDuplicated() {
+        return duplicated.get();
+    }
+
+    /**
+     * Gets the number of envelopes lost, counted for each receiving node
+     * other than the publisher.
+     *
+     * @return the number of lost envelopes
+     */
+    public long getLost() {
+        return lost.get();
+    }
+
+    private synchronized void publish(SimulatedNode publisher,
+            EventEnvelope envelope) {
+        published.incrementAndGet();
+        var receivers = nodes.stream().filter(node -> node.handler != null)
+                .toList();
+        if (dropNext > 0) {
+            dropNext--;
+            lost.addAndGet(receivers.size());
+            return;
+        }
+        for (var node : receivers) {
+            if (node == publisher) {
+                // Ignored by the publisher anyway
+                node.send(envelope);
+                continue;
+            }
+            if (random.nextDouble() < loss) {
+                lost.incrementAndGet();
+                continue;
+            }
+            node.send(envelope);
+            if (random.nextDouble() < duplication) {
+                duplicated.incrementAndGet();
+                node.send(envelope);
+            }
+        }
+    }
+
+    private long nextLatency() {
+        return minLatency + (long) (random.nextDouble()
+                * (maxLatency - minLatency + 1));
+    }
+
+    private static double checkProbability(double probability) {
+        if (probability < 0 || probability > 1) {
+            throw new IllegalArgumentException(
+                    "Invalid probability: " + probability);
+        }
+        return probability;
+    }
+
+    private void delivered() {
+        if (pending.decrementAndGet() == 0) {
+            synchronized (pending) {
+                pending.notifyAll();
+            }
+        }
+    }
+
+    private class SimulatedNode implements RedisPubSubService {
+
+        private final AtomicLong sequence = new AtomicLong();
+        // A platform thread, as the event bus logs while holding a monitor,
+        // which would pin the carriers of many virtual threads
+        private final ScheduledExecutorService receiver = Executors
+                .newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                        .name("simulated-node").daemon().factory());
+        // Publishing node id -> envelopes in flight, in publish order
+        private final Map<String, Queue<EventEnvelope>> inFlight = new ConcurrentHashMap<>();
+        private volatile Consumer<EventEnvelope> handler;
+        private volatile boolean closed;
+
+        @Override
+        public void publishEvent(String nodeId, AbstractEvent event) {
+            if (!closed) {
+                publish(this, new EventEnvelope(nodeId,
+                        sequence.incrementAndGet(), System.currentTimeMillis(),
+                        event));
+            }
+        }
+
+        // Called with the cluster locked
+        private void send(EventEnvelope envelope) {
+            if (maxLatency == 0) {
+                receive(envelope);
+                return;
+            }
+            pending.incrementAndGet();
+            Runnable delivery;
+            if (reordering) {
+                delivery = () -> receive(envelope);
+            } else {
+                // Each delivery takes the oldest envelope of the publisher,
+                // whichever delivery runs first
+                var queue = inFlight.computeIfAbsent(envelope.nodeId(),
+                        id -> new ConcurrentLinkedQueue<>());
+                queue.add(envelope);
+                delivery = () -> receive(queue.poll());
+            }
+            receiver.schedule(() -> {
+                try {
+                    delivery.run();
+                } finally {
+                    delivered();
+                }
+            }, nextLatency(), TimeUnit.MILLISECONDS);
+        }
+
+        private void receive(EventEnvelope envelope) {
+            var current = handler;
+            if (current != null) {
+                delivered.incrementAndGet();
+                current.accept(envelope);
+            }
+        }
+
+        @Override
+        public void startSubscriber(Consumer<EventEnvelope> handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void stopSubscriber() {
+            // The envelopes in flight are dropped when they arrive
+            synchronized (SimulatedCluster.this) {
+                handler = null;
+                receiver.shutdown();
+            }
+        }
+
+        @Override
+        public void closePublisher() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.vaadin.tatu.vaadincreate.i18n;
+
+import static org.junit.Assert.assertEquals;
+
+import java.text.MessageFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark for {@link DefaultI18NProvider#getTranslation}, comparing the
+ * precompiled translation tables with looking up the resource bundle and
+ * parsing the message format on every call.
+ * <p>
+ * Not run as part of the normal build, run explicitly with:
+ *
+ * <pre>
+ * mvn test -Dtest=DefaultI18NProviderBenchmark
+ * </pre>
+ *
+ * Each invocation looks up a plain and a parameterized translation in each
+ * supported locale.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DefaultI18NProviderBenchmark {
+
+    private final I18NProvider provider = DefaultI18NProvider.getInstance();
+    private final List<Locale> locales = provider.getLocales();
+
+    @Test
+    public void getTranslation() throws RunnerException {
+        for (var locale : locales) {
+            assertEquals(uncached(I18n.App.LOGOUT_TOOLTIP, locale, "Admin"),
+                    provider.getTranslation(I18n.App.LOGOUT_TOOLTIP, locale,
+                            "Admin"));
+        }
+        new Runner(new OptionsBuilder()
+                .include(DefaultI18NProviderBenchmark.class.getName())
+                .build()).run();
+    }
+
+    @Benchmark
+    public void precompiled(Blackhole blackhole) {
+        for (var locale : locales) {
+            blackhole.consume(provider.getTranslation(I18n.SAVE, locale));
+            blackhole.consume(provider
+                    .getTranslation(I18n.App.LOGOUT_TOOLTIP, locale, "Admin"));
+        }
+    }
+
+    @Benchmark
+    public void uncached(Blackhole blackhole) {
+        for (var locale : locales) {
+            blackhole.consume(uncached(I18n.SAVE, locale));
+            blackhole.consume(
+                    uncached(I18n.App.LOGOUT_TOOLTIP, locale, "Admin"));
+        }
+    }
+
+    // The lookup of DefaultI18NProvider before the precompiled tables
+    private String uncached(String key, Locale locale, Object... params) {
+        var bundle = ResourceBundle.getBundle("translate",
+                provider.getLocales().contains(locale) ? locale
+                        : DefaultI18NProvider.LOCALE_EN);
+        var value = bundle.getString(key);
+        if (params.length > 0) {
+            value = MessageFormat.format(value, params);
+        }
+        return value;
+    }
+}
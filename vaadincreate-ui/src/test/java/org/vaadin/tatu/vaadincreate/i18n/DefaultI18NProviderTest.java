@@ -0,0 +1,65 @@
+package org.vaadin.tatu.vaadincreate.i18n;
+
+import static org.junit.Assert.assertEquals;
+
+import java.text.MessageFormat;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+public class DefaultI18NProviderTest {
+
+    private final I18NProvider provider = DefaultI18NProvider.getInstance();
+
+    @Test
+    public void translationsMatchResourceBundles() {
+        for (var locale : provider.getLocales()) {
+            var bundle = ResourceBundle.getBundle("translate", locale);
+            for (var key : bundle.keySet()) {
+                assertEquals(bundle.getString(key),
+                        provider.getTranslation(key, locale));
+            }
+        }
+    }
+
+    @Test
+    public void parametersAreFormatted() {
+        var pattern = ResourceBundle
+                .getBundle("translate", DefaultI18NProvider.LOCALE_FI)
+                .getString(I18n.App.LOGOUT_TOOLTIP);
+
+        assertEquals(MessageFormat.format(pattern, "Admin"),
+                provider.getTranslation(I18n.App.LOGOUT_TOOLTIP,
+                        DefaultI18NProvider.LOCALE_FI, "Admin"));
+    }
+
+    @Test
+    public void unsupportedLocaleFallsBackToEnglish() {
+        assertEquals(
+                provider.getTranslation(I18n.SAVE,
+                        DefaultI18NProvider.LOCALE_EN),
+                provider.getTranslation(I18n.SAVE, Locale.JAPAN));
+    }
+
+    @Test
+    public void missingKeyIsMarked() {
+        assertEquals("!fi: no-such-key", provider.getTranslation(
+                "no-such-key", DefaultI18NProvider.LOCALE_FI));
+    }
+
+    @Test
+    public void cachedFormatIsThreadSafe() {
+        var futures = IntStream.range(0, 100)
+                .mapToObj(i -> CompletableFuture.supplyAsync(
+                        () -> provider.getTranslation(I18n.App.LOGOUT_TOOLTIP,
+                                DefaultI18NProvider.LOCALE_EN, "User" + i)))
+                .toList();
+
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals("Logout: User" + i, futures.get(i).join());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.vaadin.tatu.vaadincreate.locking;
+
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.vaadin.tatu.vaadincreate.backend.data.User;
+import org.vaadin.tatu.vaadincreate.backend.data.User.Role;
+import org.vaadin.tatu.vaadincreate.eventbus.EventBus;
+import org.vaadin.tatu.vaadincreate.eventbus.SimulatedCluster;
+import org.vaadin.tatu.vaadincreate.locking.LockedObjectsTest.MockObject;
+
+/**
+ * Runs the locks of three nodes against a {@link SimulatedCluster} with
+ * latency and duplicated deliveries. Lost or reordered locking events are not
+ * recovered from, so they are not simulated here.
+ */
+public class LockedObjectsClusterTest {
+
+    private final User user = new User(1, "User1", "user1", Role.USER);
+    private final MockObject object = new MockObject(1);
+
+    private SimulatedCluster cluster;
+    private List<EventBus> nodes;
+    private List<LockedObjectsImpl> locks;
+
+    @Before
+    public void setUp() {
+        cluster = new SimulatedCluster(48).latency(1, 10).duplication(0.2);
+        nodes = IntStream.range(0, 3).mapToObj(i -> cluster.startNode())
+                .toList();
+        locks = nodes.stream().map(LockedObjectsImpl::new).toList();
+    }
+
+    @After
+    public void tearDown() {
+        nodes.forEach(EventBus::shutdown);
+    }
+
+    @Test
+    public void lockIsSeenOnAllNodes() throws InterruptedException {
+        locks.get(0).lock(object, user);
+
+        assertTrue(SimulatedCluster.eventually(() -> locks.stream().allMatch(
+                lock -> "User1".equals(lock.isLocked(object)))));
+        assertThrows(IllegalStateException.class,
+                () -> locks.get(1).lock(object, user));
+
+        locks.get(0).unlock(object);
+
+        assertTrue(SimulatedCluster.eventually(() -> locks.stream()
+                .allMatch(lock -> lock.isLocked(object) == null)));
+    }
+
+    @Test
+    public void locksAreSeenOnJoinedNode() throws InterruptedException {
+        locks.get(0).lock(object, user);
+        assertTrue(SimulatedCluster.eventually(() -> locks.stream().allMatch(
+                lock -> "User1".equals(lock.isLocked(object)))));
+
+        var joined = cluster.startNode();
+        try {
+            var joinedLocks = new LockedObjectsImpl(joined);
+
+            assertTrue(SimulatedCluster.eventually(
+                    () -> "User1".equals(joinedLocks.isLocked(object))));
+        } finally {
+            joined.shutdown();
+        }
+    }
+
+    @Test
+    public void locksAreReleasedWhenNodeLeaves() throws InterruptedException {
+        locks.get(0).lock(object, user);
+        assertTrue(SimulatedCluster.eventually(() -> locks.stream().allMatch(
+                lock -> "User1".equals(lock.isLocked(object)))));
+
+        nodes.get(0).shutdown();
+
+        assertTrue(SimulatedCluster.eventually(
+                () -> locks.get(1).isLocked(object) == null
+                        && locks.get(2).isLocked(object) == null));
+    }
+}
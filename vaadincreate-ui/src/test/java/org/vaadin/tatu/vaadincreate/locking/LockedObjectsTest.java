@@ -16,6 +16,7 @@ import org.vaadin.tatu.vaadincreate.backend.UserService;
 import org.vaadin.tatu.vaadincreate.backend.data.AbstractEntity;
 import org.vaadin.tatu.vaadincreate.backend.events.AbstractEvent;
 import org.vaadin.tatu.vaadincreate.backend.events.LockingEvent;
+import org.vaadin.tatu.vaadincreate.eventbus.ClusterMembership.MembershipListener;
 import org.vaadin.tatu.vaadincreate.eventbus.EventBus;
 import org.vaadin.tatu.vaadincreate.eventbus.EventBus.EventBusListener;
 
@@ -96,7 +97,8 @@ public class LockedObjectsTest {
         var user = userService.getAllUsers().get(0);
         var eventBus = EventBus.get();
         var lockingEvent = new LockingEvent(MockObject.class,
-                objects.get(0).getId(), user.getId(), user.getName(), true);
+                objects.get(0).getId(), user.getId(), user.getName(), true,
+                "node2");
         eventBus.post(lockingEvent);
         try {
             latch.await();
@@ -110,7 +112,8 @@ public class LockedObjectsTest {
 
         latch = new CountDownLatch(1);
         lockingEvent = new LockingEvent(MockObject.class,
-                objects.get(0).getId(), user.getId(), user.getName(), false);
+                objects.get(0).getId(), user.getId(), user.getName(), false,
+                "node2");
         eventBus.post(lockingEvent);
         try {
             latch.await();
@@ -122,6 +125,44 @@ public class LockedObjectsTest {
         listener.remove();
     }
 
+    @Test
+    public void locksOfDepartedNodeAreReleased() {
+        latch = new CountDownLatch(2);
+        var listener = new TestListener();
+        var user = userService.getAllUsers().get(0);
+        var eventBus = EventBus.get();
+        eventBus.post(new LockingEvent(MockObject.class,
+                objects.get(1).getId(), user.getId(), user.getName(), true,
+                "node2"));
+        eventBus.post(new LockingEvent(MockObject.class,
+                objects.get(2).getId(), user.getId(), user.getName(), true,
+                "node3"));
+        try {
+            latch.await();
+            Thread.sleep(20);
+        } catch (InterruptedException e) {
+            // Ignore
+        }
+        assertEquals(user.getName(), lockedObjects.isLocked(objects.get(1)));
+
+        latch = new CountDownLatch(1);
+        ((MembershipListener) lockedObjects).nodeLeft("node2");
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            // Ignore
+        }
+
+        assertNull(lockedObjects.isLocked(objects.get(1)));
+        assertEquals(user.getName(), lockedObjects.isLocked(objects.get(2)));
+        // The release is posted for the views
+        var event = listener.getLastEvent();
+        assertEquals(objects.get(1).getId(), event.id());
+        assertFalse(event.locked());
+        lockedObjects.unlock(objects.get(2));
+        listener.remove();
+    }
+
     public static class TestListener implements EventBusListener {
 
         private AtomicInteger count = new AtomicInteger(0);
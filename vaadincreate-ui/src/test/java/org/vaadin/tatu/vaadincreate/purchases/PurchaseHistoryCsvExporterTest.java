@@ -1,8 +1,11 @@
 package org.vaadin.tatu.vaadincreate.purchases;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Files;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
@@ -11,6 +14,9 @@ import java.util.Locale;
 import org.junit.Test;
 import org.vaadin.tatu.vaadincreate.backend.PurchaseService.PurchaseExportRow;
 
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+
 public class PurchaseHistoryCsvExporterTest {
 
     @Test
@@ -71,4 +77,34 @@ public class PurchaseHistoryCsvExporterTest {
                 LocalDate.of(2025, 3, 5), List.of(), Locale.ENGLISH, "Export");
         assertTrue(resource.getFilename().startsWith("export-010225-030525"));
     }
+
+    @Test
+    public void should_record_export_as_flight_recorder_event()
+            throws IOException {
+        var exporter = new PurchaseHistoryCsvExporter();
+        var rows = List.of(new PurchaseExportRow(101,
+                Instant.parse("2025-02-01T10:15:30Z"), "PENDING", "Alice",
+                "Boss", null, "Decision", new BigDecimal("99.90"), 1, 55,
+                "Test Product", new BigDecimal("9.99"), 10,
+                new BigDecimal("99.90")));
+        var file = Files.createTempFile("export", ".jfr");
+        try (var recording = new Recording()) {
+            recording.enable(ExportEvent.class);
+            recording.start();
+            var bytes = exporter.toCsvBytes(rows, Locale.US);
+            recording.stop();
+            recording.dump(file);
+
+            var events = RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName()
+                            .equals("vaadincreate.Export"))
+                    .toList();
+            assertEquals(1, events.size());
+            assertEquals(1, events.get(0).getInt("rows"));
+            assertEquals(bytes.length, events.get(0).getLong("size"));
+            assertEquals("en-US", events.get(0).getString("locale"));
+        } finally {
+            Files.delete(file);
+        }
+    }
 }
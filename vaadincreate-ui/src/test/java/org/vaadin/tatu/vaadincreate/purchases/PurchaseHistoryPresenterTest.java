@@ -2,6 +2,7 @@ package org.vaadin.tatu.vaadincreate.purchases;
 
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
@@ -21,6 +22,7 @@ import org.junit.function.ThrowingRunnable;
 import org.vaadin.tatu.vaadincreate.AbstractUITest;
 import org.vaadin.tatu.vaadincreate.VaadinCreateUI;
 import org.vaadin.tatu.vaadincreate.backend.PurchaseService;
+import org.vaadin.tatu.vaadincreate.backend.data.Purchase;
 
 import com.vaadin.server.ServiceException;
 
@@ -125,6 +127,29 @@ public class PurchaseHistoryPresenterTest extends AbstractUITest {
         assertNotNull(failureThrowable.get());
     }
 
+    @Test
+    public void fetchPurchaseWithLines_returnsNull_whenPurchaseIsDeleted()
+            throws ReflectiveOperationException {
+        login();
+
+        // GIVEN: A presenter with a purchase service that does not find the
+        // purchase, e.g. as it has been purged after the row was fetched
+        var presenter = new PurchaseHistoryPresenter();
+        setPrivateField(presenter, "purchaseService",
+                (PurchaseService) Proxy.newProxyInstance(
+                        PurchaseService.class.getClassLoader(),
+                        new Class[] { PurchaseService.class },
+                        (proxy, method, args) -> null));
+        var purchase = new Purchase();
+        purchase.setId(-1);
+
+        // WHEN: Fetching the lines for the details
+        var withLines = presenter.fetchPurchaseWithLines(purchase);
+
+        // THEN: The missing purchase is reported with null
+        assertNull(withLines);
+    }
+
     private PurchaseHistoryPresenter createPurchaseHistoryPresenterWithFailingService()
             throws ReflectiveOperationException {
         var presenter = new PurchaseHistoryPresenter();
@@ -13,6 +13,7 @@ import org.vaadin.tatu.vaadincreate.backend.data.PurchaseStatus;
 import org.vaadin.tatu.vaadincreate.backend.data.User;
 import org.vaadin.tatu.vaadincreate.i18n.I18n;
 
+import com.vaadin.icons.VaadinIcons;
 import com.vaadin.server.ServiceException;
 import com.vaadin.testbench.uiunittest.SerializationDebugUtil;
 import com.vaadin.ui.Button;
@@ -411,4 +412,65 @@ public class PurchasesApprovalsTest extends AbstractPurchasesTest {
         assertTrue("Expected optimistic lock conflict notification",
                 hasConflictWarning);
     }
+
+    /**
+     * Tests the bulk rejection workflow: select two purchases → click Reject
+     * selected → enter reason and confirm → the buttons stay disabled while
+     * the purchases are decided in the background → result notification
+     * appears and the purchases are removed from the pending grid.
+     */
+    @Test
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public void rejecting_selected_purchases_decides_them_in_background_and_shows_result()
+            throws ServiceException {
+        switchToUser("User5", "user5");
+
+        view = navigate(
+                PurchasesView.VIEW_NAME + "/"
+                        + PurchasesApprovalsView.VIEW_NAME,
+                PurchasesView.class);
+
+        var approvalsGrid = (Grid<Purchase>) (Grid) $(Grid.class)
+                .id("purchase-approvals-grid");
+        int pendingCountBefore = test(approvalsGrid).size();
+        assertTrue("There must be at least two pending purchases to reject",
+                pendingCountBefore > 1);
+        var approveSelectedButton = $(Button.class)
+                .id("approve-selected-button");
+        var rejectSelectedButton = $(Button.class).id("reject-selected-button");
+        assertFalse(rejectSelectedButton.isEnabled());
+
+        // WHEN: Selecting two purchases and clicking Reject selected
+        test(approvalsGrid).clickToSelect(0);
+        test(approvalsGrid).clickToSelect(1);
+        assertTrue(test(rejectSelectedButton).isInteractable());
+        test(rejectSelectedButton).click();
+
+        var decisionWindow = $(Window.class)
+                .id(DecisionDialog.DECISION_WINDOW_ID);
+        assertNotNull("Decision window should be open", decisionWindow);
+        test($(decisionWindow, TextArea.class)
+                .id(DecisionDialog.DECISION_COMMENT_ID))
+                .setValue("Duplicate orders");
+        test($(decisionWindow, Button.class)
+                .id(DecisionDialog.CONFIRM_BUTTON_ID)).click();
+
+        // THEN: The bulk buttons stay disabled while the decision runs
+        assertFalse(decisionWindow.isAttached());
+        assertFalse(approveSelectedButton.isEnabled());
+        assertFalse(rejectSelectedButton.isEnabled());
+
+        waitWhile(() -> rejectSelectedButton.getIcon() == VaadinIcons.SPINNER,
+                10);
+
+        // THEN: Result is shown and the purchases are no longer pending
+        assertNotification(view.getTranslation(
+                I18n.Storefront.BULK_DECISION_RESULT, 2, 0, 0));
+        assertEquals("Rejected purchases should be removed from the grid",
+                pendingCountBefore - 2, test(approvalsGrid).size());
+        assertTrue(approvalsGrid.getSelectedItems().isEmpty());
+        assertFalse(rejectSelectedButton.isEnabled());
+
+        SerializationDebugUtil.assertSerializable(view);
+    }
 }
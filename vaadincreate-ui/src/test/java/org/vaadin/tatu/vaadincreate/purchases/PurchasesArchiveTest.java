@@ -0,0 +1,119 @@
+package org.vaadin.tatu.vaadincreate.purchases;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.List;
+
+import org.junit.Test;
+import org.vaadin.tatu.vaadincreate.backend.PurchaseService;
+import org.vaadin.tatu.vaadincreate.backend.data.Purchase;
+import org.vaadin.tatu.vaadincreate.backend.data.PurchaseStatus;
+import org.vaadin.tatu.vaadincreate.backend.data.User;
+
+import com.vaadin.icons.VaadinIcons;
+import com.vaadin.ui.ComboBox;
+import com.vaadin.ui.DateField;
+import com.vaadin.ui.Grid;
+
+public class PurchasesArchiveTest extends AbstractPurchasesTest {
+
+    private static final YearMonth MONTH = YearMonth.of(2020, 1);
+
+    /**
+     * Tests that selecting an archived month loads its purchases in the
+     * background into the grid, and that clearing the selection shows the
+     * purchases in the database again.
+     */
+    @Test
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public void selecting_archived_month_loads_it_in_background_and_clearing_shows_live_purchases()
+            throws Exception {
+        view = navigate(PurchasesView.VIEW_NAME, PurchasesView.class);
+        var historyView = $(PurchasesHistoryView.class).first();
+        var archived = List.of(archivedPurchase(2, null),
+                archivedPurchase(1, "Approver"));
+        useArchive(historyView, archived);
+
+        var historyGrid = (Grid<Purchase>) (Grid) $(Grid.class)
+                .id("purchase-history-grid");
+        var liveCount = test(historyGrid).size();
+        var archiveMonth = (ComboBox<YearMonth>) $(ComboBox.class)
+                .id(PurchasesHistoryView.ARCHIVE_MONTH_ID);
+        var fromDate = $(DateField.class).id(PurchasesHistoryView.FROM_DATE_ID);
+        archiveMonth.setItems(MONTH);
+
+        // WHEN: Selecting the archived month
+        test(archiveMonth).clickItem(MONTH);
+
+        // THEN: The month is loaded in the background
+        assertEquals(VaadinIcons.SPINNER, archiveMonth.getIcon());
+        assertFalse(fromDate.isEnabled());
+        waitWhile(() -> archiveMonth.getIcon() != null, 5);
+
+        // THEN: The archived purchases are shown, also without an approver
+        assertEquals(2, test(historyGrid).size());
+        assertEquals(Integer.valueOf(2), test(historyGrid).item(0).getId());
+        assertNull(test(historyGrid).item(0).getApprover());
+
+        // WHEN: Clearing the archived month
+        archiveMonth.clear();
+
+        // THEN: The purchases in the database are shown again
+        assertEquals(liveCount, test(historyGrid).size());
+        assertTrue(fromDate.isEnabled());
+    }
+
+    // Serves the archive of MONTH from a stub, other calls are delegated to
+    // the purchase service
+    private static void useArchive(PurchasesHistoryView historyView,
+            List<Purchase> archived) throws ReflectiveOperationException {
+        var service = PurchaseService.get();
+        var stub = (PurchaseService) Proxy.newProxyInstance(
+                PurchaseService.class.getClassLoader(),
+                new Class[] { PurchaseService.class },
+                (proxy, method, args) -> {
+                    if ("fetchArchivedPurchases".equals(method.getName())) {
+                        return MONTH.equals(args[0]) ? archived : List.of();
+                    }
+                    try {
+                        return method.invoke(service, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        var presenterField = PurchasesHistoryView.class
+                .getDeclaredField("presenter");
+        presenterField.setAccessible(true);
+        var presenter = presenterField.get(historyView);
+        var serviceField = PurchaseHistoryPresenter.class
+                .getDeclaredField("purchaseService");
+        serviceField.setAccessible(true);
+        serviceField.set(presenter, stub);
+    }
+
+    private static Purchase archivedPurchase(int id, String approverName) {
+        var purchase = new Purchase();
+        purchase.setId(id);
+        purchase.setCreatedAt(MONTH.atDay(id)
+                .atStartOfDay(ZoneId.systemDefault()).toInstant());
+        purchase.setStatus(PurchaseStatus.COMPLETED);
+        purchase.setRequester(user("Requester"));
+        if (approverName != null) {
+            purchase.setApprover(user(approverName));
+        }
+        return purchase;
+    }
+
+    private static User user(String name) {
+        var user = new User();
+        user.setName(name);
+        return user;
+    }
+}
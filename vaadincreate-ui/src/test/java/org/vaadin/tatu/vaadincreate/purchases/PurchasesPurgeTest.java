@@ -14,6 +14,7 @@ import com.vaadin.testbench.uiunittest.SerializationDebugUtil;
 import com.vaadin.ui.Button;
 import com.vaadin.ui.Grid;
 import com.vaadin.ui.Notification;
+import com.vaadin.ui.ProgressBar;
 import com.vaadin.ui.Window;
 
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
@@ -110,8 +111,9 @@ public class PurchasesPurgeTest extends AbstractPurchasesTest {
 
     /**
      * Tests the full purge workflow: open the purchase history tab → click
-     * Purge → confirm → success notification shown → grid refreshed → Purge
-     * button hidden (no more old purchases).
+     * Purge → confirm → purge completes in the background → success
+     * notification shown → grid refreshed → Purge button hidden (no more old
+     * purchases).
      */
     @Test
     @SuppressWarnings("unchecked")
@@ -143,6 +145,11 @@ public class PurchasesPurgeTest extends AbstractPurchasesTest {
         assertFalse("Confirmation window should be closed after confirm",
                 confirmWindow.isAttached());
 
+        // THEN: purge runs in the background with a progress bar
+        var purgeProgress = $(ProgressBar.class)
+                .id(PurchasesHistoryView.PURGE_PROGRESS_ID);
+        waitWhile(() -> purgeProgress.isVisible(), 10);
+
         // THEN: success notification shown
         var successNotification = $(Notification.class).stream()
                 .filter(n -> n.getCaption() != null
@@ -11,6 +11,7 @@ import org.junit.FixMethodOrder;
 import org.junit.Test;
 import org.junit.runners.MethodSorters;
 import org.jsoup.Jsoup;
+import org.vaadin.tatu.vaadincreate.backend.PurchaseService;
 import org.vaadin.tatu.vaadincreate.backend.data.Purchase;
 import org.vaadin.tatu.vaadincreate.common.CustomChart;
 import org.vaadin.tatu.vaadincreate.common.EuroConverter;
@@ -218,6 +219,9 @@ public class PurchasesViewTest extends AbstractPurchasesTest {
     }
 
     private void assertPurchaseLineItems(Purchase purchase, Label details) {
+        // The grid rows are summaries, the details show the fetched lines
+        var lines = PurchaseService.get().fetchPurchaseById(purchase.getId())
+                .getLines();
         assertNotNull("Details component should be present", details);
         var html = details.getValue();
 
@@ -229,11 +233,11 @@ public class PurchasesViewTest extends AbstractPurchasesTest {
         assertEquals(AriaRoles.ALERT, root.attr(AriaAttributes.ROLE));
 
         assertFalse("Purchase should have at least one line item",
-                purchase.getLines().isEmpty());
+                lines.isEmpty());
         NumberFormat euroFormat = EuroConverter.createEuroFormat();
         int index = 0;
         var children = root.getElementsByTag("span");
-        for (var line : purchase.getLines()) {
+        for (var line : lines) {
             var productName = line.getProduct().getProductName();
             var unitPrice = euroFormat.format(line.getUnitPrice());
             var quantity = line.getQuantity();
@@ -0,0 +1,158 @@
+package org.vaadin.tatu.vaadincreate.storefront;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.vaadin.tatu.vaadincreate.backend.ProductDataService;
+import org.vaadin.tatu.vaadincreate.backend.PurchaseService;
+import org.vaadin.tatu.vaadincreate.backend.UserService;
+import org.vaadin.tatu.vaadincreate.backend.data.Address;
+import org.vaadin.tatu.vaadincreate.backend.data.Cart;
+import org.vaadin.tatu.vaadincreate.backend.data.Product;
+import org.vaadin.tatu.vaadincreate.backend.data.User.Role;
+import org.vaadin.tatu.vaadincreate.backend.events.BooksChangedEvent;
+import org.vaadin.tatu.vaadincreate.backend.events.BooksChangedEvent.BookChange;
+import org.vaadin.tatu.vaadincreate.backend.events.PurchaseStatusChangedEvent;
+import org.vaadin.tatu.vaadincreate.eventbus.EventBus;
+import org.vaadin.tatu.vaadincreate.eventbus.SimulatedCluster;
+import org.vaadin.tatu.vaadincreate.storefront.ProductCatalog.CatalogItem;
+import org.vaadin.tatu.vaadincreate.storefront.ProductCatalog.OutOfStockListener;
+
+public class ProductCatalogTest {
+
+    private final ProductDataService productService = ProductDataService
+            .get();
+    private final List<CatalogItem> outOfStock = new CopyOnWriteArrayList<>();
+    private final OutOfStockListener listener = outOfStock::addAll;
+
+    private PurchaseService purchaseService;
+    private EventBus eventBus;
+    private ProductCatalogPresenter presenter;
+    private ProductCatalog catalog;
+
+    @Before
+    public void setUp() {
+        // The mock purchases are generated for the mock users
+        UserService.get();
+        purchaseService = PurchaseService.get();
+        eventBus = new SimulatedCluster().startNode();
+        presenter = new ProductCatalogPresenter(productService,
+                purchaseService, eventBus);
+        catalog = presenter.getCatalog();
+        catalog.addOutOfStockListener(listener);
+    }
+
+    @After
+    public void tearDown() {
+        eventBus.shutdown();
+    }
+
+    @Test
+    public void productsAreServedFromSnapshot() {
+        var ids = productService.getOrderableProducts().stream()
+                .map(Product::getId).toList();
+
+        var products = catalog.getProducts();
+
+        assertEquals(ids,
+                products.stream().map(CatalogItem::productId).toList());
+        assertSame(products, catalog.getProducts());
+    }
+
+    @Test
+    public void productOutOfStockIsRemovedAndListenersNotified()
+            throws InterruptedException {
+        var item = catalog.getProducts().iterator().next();
+        var product = productService.getProductById(item.productId());
+        var stockCount = product.getStockCount();
+        product.setStockCount(0);
+        product = productService.updateProduct(product);
+        try {
+            eventBus.post(
+                    new BooksChangedEvent(item.productId(), BookChange.SAVE));
+
+            assertTrue(
+                    SimulatedCluster.eventually(() -> !outOfStock.isEmpty()));
+            assertEquals(List.of(item), outOfStock);
+            assertFalse(catalog.getProducts().contains(item));
+        } finally {
+            product.setStockCount(stockCount);
+            productService.updateProduct(product);
+        }
+
+        presenter.eventFired(
+                new BooksChangedEvent(item.productId(), BookChange.SAVE));
+
+        assertTrue(catalog.getProducts().contains(item));
+        assertEquals(1, outOfStock.size());
+    }
+
+    @Test
+    public void approvedPurchaseUpdatesStockOfItsProducts()
+            throws InterruptedException {
+        var item = catalog.getProducts().stream()
+                .filter(product -> product.stockCount() > 1).findFirst()
+                .orElseThrow();
+        var product = productService.getProductById(item.productId());
+        var users = UserService.get().getAllUsers();
+        var customer = users.stream()
+                .filter(user -> user.getRole() == Role.CUSTOMER).findFirst()
+                .orElseThrow();
+        var approver = users.stream()
+                .filter(user -> user.getRole() == Role.USER).findFirst()
+                .orElseThrow();
+        var cart = new Cart();
+        cart.addItem(product, 1);
+        var purchase = purchaseService.createPendingPurchase(cart,
+                new Address("Street 1", "12345", "City", "Country"), customer,
+                approver);
+        try {
+            purchaseService.approve(purchase.getId(), approver, null);
+            eventBus.post(new PurchaseStatusChangedEvent(purchase.getId()));
+
+            assertTrue(SimulatedCluster.eventually(
+                    () -> stockCount(item.productId()) == item.stockCount()
+                            - 1));
+            assertTrue(outOfStock.isEmpty());
+        } finally {
+            product = productService.getProductById(item.productId());
+            product.setStockCount(item.stockCount());
+            productService.updateProduct(product);
+        }
+    }
+
+    @Test
+    public void snapshotIsReloadedWhenEventsAreMissed() {
+        var products = catalog.getProducts();
+
+        presenter.eventsMissed("node2", 1);
+
+        assertNotSame(products, catalog.getProducts());
+        assertEquals(products.stream().toList(),
+                catalog.getProducts().stream().toList());
+    }
+
+    @Test
+    public void snapshotIsReloadedWhenNodeJoins() {
+        var products = catalog.getProducts();
+
+        presenter.nodeJoined("node2");
+
+        assertNotSame(products, catalog.getProducts());
+    }
+
+    private int stockCount(Integer productId) {
+        return catalog.getProducts().stream()
+                .filter(item -> item.productId().equals(productId))
+                .mapToInt(CatalogItem::stockCount).findFirst().orElse(-1);
+    }
+}
@@ -5,6 +5,10 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -12,6 +16,7 @@ import org.vaadin.tatu.vaadincreate.AbstractUITest;
 import org.vaadin.tatu.vaadincreate.VaadinCreateUI;
 import org.vaadin.tatu.vaadincreate.backend.data.Purchase;
 import org.vaadin.tatu.vaadincreate.common.NumberField;
+import org.vaadin.tatu.vaadincreate.storefront.ProductCatalog.CatalogItem;
 
 import com.vaadin.shared.Position;
 import com.vaadin.server.ServiceException;
@@ -104,6 +109,37 @@ public class StorefrontViewTest extends AbstractUITest {
         SerializationDebugUtil.assertSerializable(view);
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void products_running_out_of_stock_are_removed_from_wizard_and_user_notified() {
+        // GIVEN: Storefront view with the first product selected
+        view = navigate(StorefrontView.VIEW_NAME, StorefrontView.class);
+        $(Notification.class).forEach(Notification::close);
+        var productGrid = (Grid<ProductDto>) $(Grid.class).id("purchase-grid");
+        var size = test(productGrid).size();
+        var product = test(productGrid).item(0);
+        test(productGrid).clickToSelect(0);
+
+        // WHEN: The catalog reports the product out of stock from the event
+        // bus thread, e.g. after a purchase was approved in another session
+        var wizard = $(PurchaseWizard.class).first();
+        var item = new CatalogItem(product.getProductId(),
+                product.getProductName(), 0, product.getPrice());
+        CompletableFuture
+                .runAsync(() -> wizard.productsOutOfStockAsync(List.of(item)));
+        waitWhile(() -> test(productGrid).size() == size, 2);
+
+        // THEN: The product is removed from the grid and the selection
+        assertEquals(size - 1, test(productGrid).size());
+        assertTrue(IntStream.range(0, test(productGrid).size())
+                .mapToObj(row -> test(productGrid).item(row))
+                .noneMatch(dto -> dto.getProductId()
+                        .equals(product.getProductId())));
+        assertTrue(productGrid.getSelectedItems().isEmpty());
+        // AND: The user is notified about it
+        assertNotification("Out of stock: " + product.getProductName());
+    }
+
     @Test
     public void should_ValidateAddress_When_ProceedingFromStep2() {
         // GIVEN: User navigates to step 2
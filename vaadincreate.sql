@@ -38,6 +38,7 @@ ALTER TABLE IF EXISTS ONLY public.user_supervisor DROP CONSTRAINT IF EXISTS user
 ALTER TABLE IF EXISTS ONLY public.category DROP CONSTRAINT IF EXISTS uq_category_category_name;
 ALTER TABLE IF EXISTS ONLY public.application_user DROP CONSTRAINT IF EXISTS uq_application_user_user_name;
 ALTER TABLE IF EXISTS ONLY public.purchase DROP CONSTRAINT IF EXISTS purchase_pkey;
+ALTER TABLE IF EXISTS ONLY public.purchase_day_count DROP CONSTRAINT IF EXISTS purchase_day_count_pkey;
 ALTER TABLE IF EXISTS ONLY public.purchase_line DROP CONSTRAINT IF EXISTS purchase_line_pkey;
 ALTER TABLE IF EXISTS ONLY public.product DROP CONSTRAINT IF EXISTS product_pkey;
 ALTER TABLE IF EXISTS ONLY public.product_category DROP CONSTRAINT IF EXISTS product_category_pkey;
@@ -48,6 +49,7 @@ ALTER TABLE IF EXISTS ONLY public.category DROP CONSTRAINT IF EXISTS category_pk
 ALTER TABLE IF EXISTS ONLY public.application_user DROP CONSTRAINT IF EXISTS application_user_pkey;
 DROP TABLE IF EXISTS public.user_supervisor;
 DROP TABLE IF EXISTS public.purchase_line;
+DROP TABLE IF EXISTS public.purchase_day_count;
 DROP TABLE IF EXISTS public.purchase;
 DROP TABLE IF EXISTS public.product_category;
 DROP TABLE IF EXISTS public.product;
@@ -179,7 +181,19 @@ CREATE TABLE public.purchase (
     street character varying(255),
     status character varying(255) NOT NULL,
     approver_id integer,
-    requester_id integer NOT NULL
+    requester_id integer NOT NULL,
+    total_amount numeric(12,2) DEFAULT 0 NOT NULL,
+    line_count integer DEFAULT 0 NOT NULL
+);
+
+
+--
+-- Name: purchase_day_count; Type: TABLE; Schema: public; Owner: -
+--
+
+CREATE TABLE public.purchase_day_count (
+    purchase_day date NOT NULL,
+    purchase_count bigint NOT NULL
 );
 
 
@@ -5362,6 +5376,27 @@ COPY public.purchase_line (id, version, quantity, unit_price, product_id, purcha
 \.
 
 
+--
+-- Summary columns of purchase, derived from purchase_line
+--
+
+UPDATE public.purchase p SET total_amount = l.total_amount,
+    line_count = l.line_count
+FROM (SELECT purchase_id, sum(quantity * unit_price) AS total_amount,
+        count(*) AS line_count
+    FROM public.purchase_line GROUP BY purchase_id) l
+WHERE l.purchase_id = p.id;
+
+
+--
+-- Purchases per day of created_at, maintained by the application
+--
+
+INSERT INTO public.purchase_day_count (purchase_day, purchase_count)
+SELECT created_at::date, count(*) FROM public.purchase
+GROUP BY created_at::date;
+
+
 --
 -- Data for Name: user_supervisor; Type: TABLE DATA; Schema: public; Owner: -
 --
@@ -5441,6 +5476,14 @@ ALTER TABLE ONLY public.purchase_line
     ADD CONSTRAINT purchase_line_pkey PRIMARY KEY (id);
 
 
+--
+-- Name: purchase_day_count purchase_day_count_pkey; Type: CONSTRAINT; Schema: public; Owner: -
+--
+
+ALTER TABLE ONLY public.purchase_day_count
+    ADD CONSTRAINT purchase_day_count_pkey PRIMARY KEY (purchase_day);
+
+
 --
 -- Name: purchase purchase_pkey; Type: CONSTRAINT; Schema: public; Owner: -
 --